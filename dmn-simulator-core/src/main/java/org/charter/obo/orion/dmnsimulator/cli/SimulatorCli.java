@@ -0,0 +1,593 @@
+package org.charter.obo.orion.dmnsimulator.cli;
+
+import static org.camunda.spin.Spin.JSON;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.spin.json.SpinJsonNode;
+import org.charter.obo.orion.dmnsimulator.engine.DmnSimulator;
+import org.charter.obo.orion.dmnsimulator.suite.TestSuiteReport;
+import org.charter.obo.orion.dmnsimulator.suite.TestSuiteRunner;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Command line runner which evaluates a model against a file of cases, without Spring, a servlet container or HTTP
+ * Every case is evaluated by DmnSimulator like a request to evaluateDecision, with the same variable conversion, decision lookup,
+ * input validation and result format, so a result line is the same JSON the endpoint returns for that case
+ * The cases are evaluated on all cores, the results are written in the order of the cases, one JSON object per line
+ *
+ * Usage:
+ * SimulatorCli model.dmn cases.ndjson|cases.csv|suite.json [--output results.ndjson] [--threads n] [--decision name] [--early-termination] [--test]
+ * SimulatorCli directory [--output directory] [--threads n] [--decision name] [--early-termination] [--test]
+ *
+ * A line of an NDJSON case file is a request without the xml, e.g. {"variables": {...}, "decision": "..."}
+ * The header of a CSV case file has the variable names, optionally with a type, e.g. "season:String", and an optional
+ * "decision" column; an empty cell leaves the variable out, a cell without type is a boolean, a number or a string
+ * A JSON file is a test suite {"decision": "...", "cases": [...]} or a list of cases; its "decision" is used for cases without one
+ * --test runs the case file as a test suite, see TestSuiteRunner: instead of the results, a report with the failures and the
+ * rule coverage is written to name.report.json; CSV columns "expected.<output>" and "expectedRules" hold the expectations
+ * --early-termination stops FIRST and UNIQUE decision tables at the deciding match, unless a case sets "earlyTermination"
+ * In a directory every name.dmn with a name.ndjson or name.csv next to it is evaluated into name.results.ndjson,
+ * with --test also a name.suite.json is run
+ * The exit status is 0 if every case was evaluated or passed, 1 if a case or a model failed and 2 for wrong arguments
+ */
+public class SimulatorCli {
+
+    private static final String USAGE = "Usage: SimulatorCli <model.dmn> <cases.ndjson|cases.csv|suite.json> [--output <file>] [--threads <n>] [--decision <name>]"
+            + " [--early-termination] [--test]\n"
+            + "       SimulatorCli <directory> [--output <directory>] [--threads <n>] [--decision <name>] [--early-termination] [--test]";
+
+    private static final String RESULTS_SUFFIX = ".results.ndjson";
+
+    private static final String REPORT_SUFFIX = ".report.json";
+
+    // cases in flight per thread, enough to keep every thread busy while the results are written in order
+    private static final int CASES_PER_THREAD = 64;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final DmnSimulator simulator = new DmnSimulator();
+
+    private final ExecutorService executor;
+
+    private final int window;
+
+    private final String defaultDecision;
+
+    private final PrintStream log;
+
+    private boolean test;
+
+    public SimulatorCli(int threads, String defaultDecision, PrintStream log) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "dmn-cli-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.window = threads * CASES_PER_THREAD;
+        this.defaultDecision = defaultDecision;
+        this.log = log;
+    }
+
+    /**
+     * Entry Method which parses the arguments, evaluates the model or the directory and exits with the status
+     * @param args
+     */
+    public static void main(String[] args) {
+        int status;
+        try {
+            status = run(args, System.err);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            status = 2;
+        } catch (Exception e) {
+            System.err.println("Failed: " + e.getMessage());
+            status = 1;
+        }
+        System.exit(status);
+    }
+
+    /**
+     * Method to run the command line
+     * @param args
+     * @param log Where progress and the summary are printed
+     * @return 0 if every case was evaluated without error, 1 otherwise
+     * @throws IOException If a file can not be read or written.
+     */
+    public static int run(String[] args, PrintStream log) throws IOException {
+        List<String> paths = new ArrayList<>();
+        String output = null;
+        String decision = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean earlyTermination = false;
+        boolean test = false;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--output") || arg.equals("--threads") || arg.equals("--decision")) {
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("Missing value for " + arg);
+                }
+                String value = args[++i];
+                if (arg.equals("--output")) {
+                    output = value;
+                } else if (arg.equals("--decision")) {
+                    decision = value;
+                } else {
+                    try {
+                        threads = Integer.parseInt(value);
+                    } catch (NumberFormatException e) {
+                        threads = 0;
+                    }
+                    if (threads < 1) {
+                        throw new IllegalArgumentException("--threads must be a positive number, was '" + value + "'");
+                    }
+                }
+            } else if (arg.equals("--early-termination")) {
+                earlyTermination = true;
+            } else if (arg.equals("--test")) {
+                test = true;
+            } else if (arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            } else {
+                paths.add(arg);
+            }
+        }
+        if (paths.isEmpty() || paths.size() > 2) {
+            throw new IllegalArgumentException("Expected a model and a case file, or a directory");
+        }
+
+        Path source = Paths.get(paths.get(0));
+        SimulatorCli cli = new SimulatorCli(threads, decision, log);
+        cli.simulator.setEarlyTermination(earlyTermination);
+        cli.test = test;
+        try {
+            if (Files.isDirectory(source)) {
+                if (paths.size() != 1) {
+                    throw new IllegalArgumentException("A directory is evaluated with the case files next to its models");
+                }
+                return cli.runDirectory(source, output == null ? source : Paths.get(output));
+            }
+            if (paths.size() != 2) {
+                throw new IllegalArgumentException("Missing the case file for " + source);
+            }
+            Path cases = Paths.get(paths.get(1));
+            Path results = output == null ? cli.resultsFile(cases.toAbsolutePath().getParent(), cases) : Paths.get(output);
+            return (test ? cli.testModel(source, cases, results) : cli.runModel(source, cases, results)) ? 0 : 1;
+        } finally {
+            cli.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Method to evaluate every model of a directory which has a case file next to it
+     * @param directory
+     * @param outputDirectory Where the result files are written
+     * @return 0 if every case of every model was evaluated without error, 1 otherwise
+     * @throws IOException If the directory can not be read.
+     */
+    private int runDirectory(Path directory, Path outputDirectory) throws IOException {
+        List<Path> models = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.dmn")) {
+            for (Path model : stream) {
+                models.add(model);
+            }
+        }
+        Collections.sort(models);
+        Files.createDirectories(outputDirectory);
+        boolean success = true;
+        int evaluatedModels = 0;
+        for (Path model : models) {
+            Path cases = findCases(model);
+            if (cases == null) {
+                log.println(model.getFileName() + ": no case file, skipped");
+                continue;
+            }
+            try {
+                Path results = resultsFile(outputDirectory, cases);
+                success &= test ? testModel(model, cases, results) : runModel(model, cases, results);
+            } catch (Exception e) {
+                log.println(model.getFileName() + ": failed: " + e.getMessage());
+                success = false;
+            }
+            evaluatedModels++;
+        }
+        if (evaluatedModels == 0) {
+            log.println("No model with a case file in " + directory);
+        }
+        return success ? 0 : 1;
+    }
+
+    /**
+     * Method to evaluate a model against a case file and write the results
+     * The model is parsed once; the cases are read, evaluated and written as a stream, so the case file can be larger than the memory
+     * @param model
+     * @param cases
+     * @param results
+     * @return true if every case was evaluated without error
+     * @throws IOException If a file can not be read or written.
+     */
+    private boolean runModel(Path model, Path cases, Path results) throws IOException {
+        long start = System.nanoTime();
+        byte[] xml = Files.readAllBytes(model);
+        List<DmnDecision> decisions = simulator.getModelCache().parseDecisions(xml, xml.length);
+
+        int count = 0;
+        int errors = 0;
+        Deque<Future<String>> pending = new ArrayDeque<>();
+        try (CaseReader reader = CaseReader.open(cases);
+             BufferedWriter writer = Files.newBufferedWriter(results, StandardCharsets.UTF_8)) {
+            String request;
+            while ((request = reader.next()) != null) {
+                final String caseRequest = request;
+                pending.add(executor.submit(() -> evaluateCase(caseRequest, decisions)));
+                if (pending.size() >= window) {
+                    errors += writeResult(pending.poll(), writer);
+                }
+                count++;
+            }
+            while (!pending.isEmpty()) {
+                errors += writeResult(pending.poll(), writer);
+            }
+        } finally {
+            for (Future<String> future : pending) {
+                future.cancel(true);
+            }
+        }
+        long millis = Math.max(1L, (System.nanoTime() - start) / 1000000L);
+        log.println(model.getFileName() + ": " + count + " cases, " + errors + " errors in " + millis + " ms ("
+                + (count * 1000L / millis) + " cases/s) -> " + results);
+        return errors == 0;
+    }
+
+    /**
+     * Method to run a case file as a test suite against a model and write the report
+     * @param model
+     * @param cases
+     * @param report
+     * @return true if every case passed
+     * @throws IOException If a file can not be read or written.
+     */
+    private boolean testModel(Path model, Path cases, Path report) throws IOException {
+        byte[] xml = Files.readAllBytes(model);
+        List<DmnDecision> decisions = simulator.getModelCache().parseDecisions(xml, xml.length);
+        TestSuiteReport suiteReport;
+        try (CaseReader reader = CaseReader.open(cases)) {
+            suiteReport = new TestSuiteRunner(simulator, executor, window).run(decisions, reader, defaultDecision);
+        }
+        try (Writer writer = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+            MAPPER.writerWithDefaultPrettyPrinter().writeValue(writer, suiteReport.toJson());
+        }
+        log.println(model.getFileName() + ": " + suiteReport.getCases() + " cases, " + suiteReport.getPassed() + " passed, "
+                + suiteReport.getFailed() + " failed, " + suiteReport.getErrors() + " errors, " + suiteReport.getCoveredRules() + " of "
+                + suiteReport.getRules() + " rules covered in " + suiteReport.getMillis() + " ms -> " + report);
+        return suiteReport.isSuccessful();
+    }
+
+    /**
+     * Method to wait for the result of a case and write it as one line
+     * @param future
+     * @param writer
+     * @return 1 if the case failed, 0 otherwise
+     * @throws IOException If the result can not be written.
+     */
+    private static int writeResult(Future<String> future, BufferedWriter writer) throws IOException {
+        String result;
+        try {
+            result = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while evaluating the cases");
+        } catch (ExecutionException e) {
+            SpinJsonNode rootNode = JSON("{}");
+            rootNode.prop("error", String.valueOf(e.getCause().getMessage()));
+            result = rootNode.toString();
+        }
+        writer.write(result);
+        writer.newLine();
+        return result.startsWith("{\"error\"") ? 1 : 0;
+    }
+
+    /**
+     * Method to evaluate one case like the evaluateDecision endpoint does
+     * @param request The case as a request without the xml
+     * @param decisions The decisions of the parsed model
+     * @return The response as a JSON string
+     */
+    private String evaluateCase(String request, List<DmnDecision> decisions) {
+        SpinJsonNode requestNode;
+        try {
+            requestNode = JSON(request);
+        } catch (Exception e) {
+            SpinJsonNode rootNode = JSON("{}");
+            rootNode.prop("error", String.valueOf(e.getMessage()));
+            return rootNode.toString();
+        }
+        if (defaultDecision != null && !requestNode.hasProp("decision") && !requestNode.hasProp("decisions")) {
+            requestNode.prop("decision", defaultDecision);
+        }
+        return simulator.evaluate(requestNode, decisions).toString();
+    }
+
+    /**
+     * Method to find the case file of a model, name.ndjson, name.jsonl or name.csv next to name.dmn, for a test also name.suite.json
+     * @param model
+     * @return The case file, or null if there is none
+     */
+    private Path findCases(Path model) {
+        String fileName = model.getFileName().toString();
+        String baseName = fileName.substring(0, fileName.length() - ".dmn".length());
+        String[] extensions = test ? new String[] {".suite.json", ".ndjson", ".jsonl", ".csv"} : new String[] {".ndjson", ".jsonl", ".csv"};
+        for (String extension : extensions) {
+            Path cases = model.resolveSibling(baseName + extension);
+            if (Files.isRegularFile(cases)) {
+                return cases;
+            }
+        }
+        return null;
+    }
+
+    private Path resultsFile(Path directory, Path cases) {
+        String fileName = cases.getFileName().toString();
+        if (fileName.endsWith(".suite.json")) {
+            fileName = fileName.substring(0, fileName.length() - ".json".length());
+        }
+        int extension = fileName.lastIndexOf('.');
+        return directory.resolve((extension > 0 ? fileName.substring(0, extension) : fileName) + (test ? REPORT_SUFFIX : RESULTS_SUFFIX));
+    }
+
+    /**
+     * Reader of the cases of an NDJSON, CSV or JSON file, every case as a request without the xml
+     */
+    abstract static class CaseReader implements Closeable, TestSuiteRunner.CaseSource {
+
+        protected final BufferedReader reader;
+
+        protected CaseReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        static CaseReader open(Path cases) throws IOException {
+            BufferedReader reader = Files.newBufferedReader(cases, StandardCharsets.UTF_8);
+            String fileName = cases.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (fileName.endsWith(".csv")) {
+                return new CsvCaseReader(reader);
+            }
+            return fileName.endsWith(".json") ? new JsonSuiteReader(reader) : new NdjsonCaseReader(reader);
+        }
+
+        /**
+         * Method to read the next case
+         * @return The case as a JSON string, or null at the end of the file
+         * @throws IOException If the file can not be read or a CSV record is malformed.
+         */
+        @Override
+        public abstract String next() throws IOException;
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads one case per non-empty line; the line is parsed by the thread which evaluates it
+     */
+    static class NdjsonCaseReader extends CaseReader {
+
+        NdjsonCaseReader(BufferedReader reader) {
+            super(reader);
+        }
+
+        @Override
+        public String next() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    return line;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Reads the cases of a JSON document, a suite object with a "cases" list and an optional "decision", or a list of cases
+     * The document is read at once, a suite too large for the memory has to be an NDJSON file
+     */
+    static class JsonSuiteReader extends CaseReader {
+
+        private Iterator<JsonNode> cases;
+
+        private String decision;
+
+        JsonSuiteReader(BufferedReader reader) {
+            super(reader);
+        }
+
+        @Override
+        public String next() throws IOException {
+            if (cases == null) {
+                JsonNode suite = MAPPER.readTree(reader);
+                if (suite != null && suite.isObject()) {
+                    decision = suite.hasNonNull("decision") ? suite.get("decision").asText() : null;
+                    suite = suite.get("cases");
+                }
+                if (suite == null || !suite.isArray()) {
+                    throw new IOException("A test suite must be a list of cases or an object with a \"cases\" list");
+                }
+                cases = suite.elements();
+            }
+            if (!cases.hasNext()) {
+                return null;
+            }
+            JsonNode testCase = cases.next();
+            if (decision != null && testCase.isObject() && !testCase.has("decision") && !testCase.has("decisions")) {
+                ((ObjectNode) testCase).put("decision", decision);
+            }
+            return testCase.toString();
+        }
+    }
+
+    /**
+     * Reads one case per CSV record as described in RFC 4180, a quoted cell can contain commas, quotes and line breaks
+     * A column "expected.<output>" is an expected output and a column "expectedRules" holds the expected rule ids of a test case
+     */
+    static class CsvCaseReader extends CaseReader {
+
+        private List<String> names;
+
+        private List<String> types;
+
+        CsvCaseReader(BufferedReader reader) {
+            super(reader);
+        }
+
+        @Override
+        public String next() throws IOException {
+            if (names == null) {
+                List<String> header = readRecord();
+                if (header == null) {
+                    return null;
+                }
+                names = new ArrayList<>();
+                types = new ArrayList<>();
+                for (String column : header) {
+                    int separator = column.lastIndexOf(':');
+                    names.add((separator > 0 ? column.substring(0, separator) : column).trim());
+                    types.add(separator > 0 ? column.substring(separator + 1).trim() : null);
+                }
+            }
+            List<String> record;
+            do {
+                record = readRecord();
+            } while (record != null && record.size() == 1 && record.get(0).isEmpty());
+            if (record == null) {
+                return null;
+            }
+            if (record.size() > names.size()) {
+                throw new IOException("CSV record has " + record.size() + " cells but the header has " + names.size() + " columns");
+            }
+            ObjectNode request = MAPPER.createObjectNode();
+            ObjectNode variables = request.putObject("variables");
+            for (int i = 0; i < record.size(); i++) {
+                String cell = record.get(i);
+                if (cell.isEmpty()) {
+                    continue;
+                }
+                if (names.get(i).equals("decision")) {
+                    request.put("decision", cell);
+                } else if (names.get(i).equals("expectedRules")) {
+                    request.put("expectedRules", cell);
+                } else if (names.get(i).startsWith("expected.")) {
+                    ObjectNode expected = MAPPER.createObjectNode();
+                    putVariable(expected, cell, types.get(i));
+                    request.with("expected").set(names.get(i).substring("expected.".length()), expected.get("value"));
+                } else {
+                    putVariable(variables.putObject(names.get(i)), cell, types.get(i));
+                }
+            }
+            return request.toString();
+        }
+
+        /**
+         * Method to put the value of a cell with the JSON type the variable conversion expects for the type
+         * @param variable
+         * @param cell
+         * @param type The type from the header, or null to take a boolean, a number or a string
+         */
+        private static void putVariable(ObjectNode variable, String cell, String type) {
+            if (type == null) {
+                if (cell.equals("true") || cell.equals("false")) {
+                    variable.put("value", Boolean.parseBoolean(cell));
+                } else if (cell.matches("-?\\d+")) {
+                    try {
+                        variable.put("value", Integer.parseInt(cell));
+                    } catch (NumberFormatException e) {
+                        variable.put("value", Long.parseLong(cell));
+                    }
+                } else if (cell.matches("-?\\d*\\.\\d+([eE][-+]?\\d+)?")) {
+                    variable.put("value", Double.parseDouble(cell));
+                } else {
+                    variable.put("value", cell);
+                }
+                return;
+            }
+            if (type.equalsIgnoreCase("Boolean")) {
+                variable.put("value", Boolean.parseBoolean(cell));
+            } else if (type.equalsIgnoreCase("Integer")) {
+                variable.put("value", Integer.parseInt(cell));
+            } else if (type.equalsIgnoreCase("Long")) {
+                variable.put("value", Long.parseLong(cell));
+            } else if (type.equalsIgnoreCase("Double")) {
+                variable.put("value", Double.parseDouble(cell));
+            } else {
+                variable.put("value", cell);
+            }
+            variable.put("type", type);
+        }
+
+        /**
+         * Method to read the cells of the next record
+         * @return The cells, or null at the end of the file
+         * @throws IOException If a quoted cell is not closed.
+         */
+        private List<String> readRecord() throws IOException {
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+            List<String> cells = new ArrayList<>();
+            StringBuilder cell = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IOException("Unclosed quote in CSV record");
+                    }
+                    if (c == '"') {
+                        reader.mark(1);
+                        if (reader.read() == '"') {
+                            cell.append('"');
+                        } else {
+                            reader.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        cell.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    cells.add(cell.toString());
+                    cell.setLength(0);
+                } else if (c == '\r' || c == '\n' || c == -1) {
+                    if (c == '\r') {
+                        reader.mark(1);
+                        if (reader.read() != '\n') {
+                            reader.reset();
+                        }
+                    }
+                    cells.add(cell.toString());
+                    return cells;
+                } else {
+                    cell.append((char) c);
+                }
+                c = reader.read();
+            }
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package org.charter.obo.orion.dmnsimulator.engine;
+
+import static org.camunda.spin.Spin.JSON;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.Map.Entry;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnDecisionLogic;
+import org.camunda.bpm.dmn.engine.DmnDecisionResult;
+import org.camunda.bpm.dmn.engine.DmnEngineConfiguration;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionLogicEvaluationEvent;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionTableEvaluationEvent;
+import org.camunda.bpm.dmn.engine.delegate.DmnEvaluatedDecisionRule;
+import org.camunda.bpm.dmn.engine.delegate.DmnEvaluatedOutput;
+import org.camunda.bpm.dmn.engine.impl.DefaultDmnEngineConfiguration;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionTableImpl;
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.engine.variable.Variables;
+import org.camunda.spin.impl.json.jackson.JacksonJsonNode;
+import org.camunda.spin.json.SpinJsonNode;
+
+/**
+ * The parts of an evaluation which do not need Spring: converting the variables of a request, resolving the requested
+ * decisions and writing the results and matched rules in the response format
+ * The web services and the command line runner both use these methods, so they give identical results for the same case
+ */
+public final class DecisionEvaluator {
+
+    private DecisionEvaluator() {
+    }
+
+    /**
+     * Method to create the engine configuration every evaluation starts from, with FEEL as output entry language
+     * @return DMN engine configuration
+     */
+    public static DefaultDmnEngineConfiguration createEngineConfiguration() {
+        DefaultDmnEngineConfiguration engineConfiguration = (DefaultDmnEngineConfiguration) DmnEngineConfiguration
+                .createDefaultDmnEngineConfiguration();
+        engineConfiguration.setDefaultOutputEntryExpressionLanguage("feel");
+        return engineConfiguration;
+    }
+
+    /**
+     * This method is used to convert the variables from the request node into a VariableMap.
+     * It first maps the variables from the request node into a HashMap.
+     * Then, it iterates over each entry in the HashMap, and depending on the type of the value, it adds the entry to the VariableMap.
+     * If the value is an array, it is mapped to an ArrayList and added to the VariableMap.
+     * If the value is not an array, it is added to the VariableMap based on its type.
+     * If the type is not specified, the value is added as an untyped value.
+     *
+     * @param requestNode The request node from which the variables are extracted.
+     * @return The VariableMap containing the variables from the request node.
+     * @throws Exception If an error occurs while processing the variables.
+     */
+    public static VariableMap getVariables(SpinJsonNode requestNode) throws Exception {
+
+        @SuppressWarnings({ "unchecked" })
+        HashMap<String, String> mappedVariables = (HashMap<String, String>) requestNode.prop("variables")
+                .mapTo(java.util.HashMap.class);
+        VariableMap variables = Variables.createVariables();
+
+        for (Entry<String, String> variable : mappedVariables.entrySet()) {
+
+            SpinJsonNode valueJson = JSON(variable.getValue());
+            SpinJsonNode valueJsonValueNode = valueJson.prop("value");
+
+            if (valueJsonValueNode.isArray()) {
+                JacksonJsonNode o = (JacksonJsonNode) valueJsonValueNode;
+                ArrayList<Object> myVariable = o.mapTo(ArrayList.class);
+                variables.putValue(variable.getKey(), myVariable);
+            } else {
+                Object valueObj = valueJsonValueNode.value();
+                if (valueJson.hasProp("type")) {
+                    String type = valueJson.prop("type").stringValue();
+
+                    if (type.equalsIgnoreCase("String")) {
+                        variables.putValueTyped(variable.getKey(), Variables.stringValue((String) valueObj));
+                    } else if (type.equalsIgnoreCase("Boolean")) {
+                        variables.putValueTyped(variable.getKey(), Variables.booleanValue((Boolean) valueObj));
+                    } else if (type.equalsIgnoreCase("Integer")) {
+                        variables.putValueTyped(variable.getKey(), Variables.integerValue((Integer) valueObj));
+                    } else if (type.equalsIgnoreCase("Double")) {
+                        variables.putValueTyped(variable.getKey(), Variables.doubleValue((Double) valueObj));
+                    } else if (type.equalsIgnoreCase("Long")) {
+                        variables.putValueTyped(variable.getKey(), Variables.longValue((Long) valueObj));
+                    } else if (type.contains("Date")) {
+                        Date date = getDateObject((String) valueObj);
+                        if (date == null) {
+                            throw new RuntimeException("Could not parse Date from String: " + (String) valueObj);
+                        }
+                        variables.putValueTyped(variable.getKey(), Variables.dateValue(date));
+                    } else {
+                        variables.putValue(variable.getKey(), valueObj);
+                    }
+                } else {
+                    variables.putValue(variable.getKey(), valueObj);
+                }
+            }
+        }
+        return variables;
+    }
+
+    /**
+     * Method to resolve the decisions a request asks for
+     * Every entry of a "decisions" list and the "decision" property can be a decision name or key
+     * @param requestNode
+     * @param decisions The decisions of the parsed model
+     * @return The requested decisions, or the root decision if none is requested
+     */
+    public static List<DmnDecision> getRequestedDecisions(SpinJsonNode requestNode, List<DmnDecision> decisions) {
+        List<String> decisionNames = new ArrayList<>();
+        if (requestNode.hasProp("decisions") && requestNode.prop("decisions").isArray()) {
+            for (SpinJsonNode decisionNode : requestNode.prop("decisions").elements()) {
+                decisionNames.add(decisionNode.stringValue());
+            }
+        } else if (requestNode.hasProp("decision")) {
+            decisionNames.add(requestNode.prop("decision").stringValue());
+        }
+        List<DmnDecision> targets = new ArrayList<>();
+        for (String decisionName : decisionNames) {
+            if (decisionName != null && !decisionName.isEmpty()) {
+                targets.add(findDecision(getDecisionKey(decisions, decisionName), decisions));
+            }
+        }
+        if (targets.isEmpty()) {
+            targets.add(findDecision(null, decisions));
+        }
+        return targets;
+    }
+
+    /**
+     * Method to check if a request asks for early termination of FIRST and UNIQUE decision tables
+     * @param requestNode
+     * @param defaultValue Used if the request has no boolean "earlyTermination" property
+     * @return true if the decision tables stop checking rules once the result is decided
+     */
+    public static boolean isEarlyTermination(SpinJsonNode requestNode, boolean defaultValue) {
+        if (requestNode.hasProp("earlyTermination") && requestNode.prop("earlyTermination").isBoolean()) {
+            return requestNode.prop("earlyTermination").boolValue();
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Method to add the error of a request whose variables do not fit the requested decisions to the root node
+     * @param rootNode
+     * @param targets The requested decisions
+     * @param validationErrors The errors found by the input schema of the requested decisions
+     * @return true if there were errors, then the decisions must not be evaluated
+     */
+    public static boolean addValidationErrors(SpinJsonNode rootNode, List<DmnDecision> targets, List<Object> validationErrors) {
+        if (validationErrors.isEmpty()) {
+            return false;
+        }
+        List<String> targetKeys = new ArrayList<>();
+        for (DmnDecision target : targets) {
+            targetKeys.add(target.getKey());
+        }
+        rootNode.prop("error", "Invalid variables for " + (targets.size() == 1 ? "decision '" : "decisions '")
+                + String.join("', '", targetKeys) + "'");
+        rootNode.prop("validationErrors", validationErrors);
+        return true;
+    }
+
+    /**
+     * Method to get the key of a decision table by its name
+     * Only decision tables and the decision tables they require are looked at
+     * @param decisions
+     * @param decisionName
+     * @return The key, or null if there is no decision table with that name
+     */
+    public static String getDecisionKey(List<DmnDecision> decisions, String decisionName) {
+        Map<String, String> decisionKeys = new HashMap<>();
+        List<String> completedDecisions = new ArrayList<>();
+        for (DmnDecision dmnDecision : decisions) {
+            if (dmnDecision.getDecisionLogic() instanceof DmnDecisionTableImpl) {
+                addAllDecisionKeys(dmnDecision, decisionKeys, completedDecisions);
+            }
+        }
+        return decisionKeys.get(decisionName);
+    }
+
+    /**
+     * Here we are adding the decision key of a decision table and of all decision tables it requires to the decisionKeys map
+     * @param decision
+     * @param decisionKeys
+     * @param completedDecisions
+     */
+    private static void addAllDecisionKeys(DmnDecision decision, Map<String, String> decisionKeys, List<String> completedDecisions) {
+        DmnDecisionLogic decisionLogic = decision.getDecisionLogic();
+        if (!completedDecisions.contains(decision.getName()) && decisionLogic instanceof DmnDecisionTableImpl) {
+            decisionKeys.put(decision.getName(), decision.getKey());
+            completedDecisions.add(decision.getName());
+            for (DmnDecision requiredDecision : decision.getRequiredDecisions()) {
+                addAllDecisionKeys(requiredDecision, decisionKeys, completedDecisions);
+            }
+        }
+    }
+
+    /**
+     * Method to find a decision in the decisions of a model
+     * If the decision key is null or empty, the root decision, which is not required by any other decision, is returned
+     * @param decisionKey
+     * @param decisions
+     * @return The decision
+     */
+    public static DmnDecision findDecision(String decisionKey, List<DmnDecision> decisions) {
+        if (decisionKey != null && !decisionKey.trim().equals("")) {
+            for (DmnDecision decision : decisions) {
+                if (decisionKey.equals(decision.getKey())) {
+                    return decision;
+                }
+            }
+            throw new RuntimeException("Unable to find decision with key '" + decisionKey + "' in model");
+        }
+        Set<String> allRequiredDecisions = new HashSet<>();
+        for (DmnDecision decision : decisions) {
+            for (DmnDecision requiredDecision : decision.getRequiredDecisions()) {
+                allRequiredDecisions.add(requiredDecision.getKey());
+            }
+        }
+        for (DmnDecision decision : decisions) {
+            if (!allRequiredDecisions.contains(decision.getKey())) {
+                return decision;
+            }
+        }
+        throw new RuntimeException("Unable to find a root decision in model");
+    }
+
+    /**
+     * Method to add a node with the results of every evaluated decision to the root node, the requested decisions first
+     * and the required decisions in evaluation order, and the matched rules to the nodes of the decision tables
+     * @param rootNode
+     * @param targets The requested decisions
+     * @param results The results of all evaluated decisions
+     * @param events The evaluation events of all evaluated decisions
+     */
+    public static void addDecisionResults(SpinJsonNode rootNode, List<DmnDecision> targets, Map<DmnDecision, DmnDecisionResult> results,
+                                          Map<DmnDecision, DmnDecisionLogicEvaluationEvent> events) {
+        Set<DmnDecision> orderedDecisions = new LinkedHashSet<>(targets);
+        orderedDecisions.addAll(results.keySet());
+        for (DmnDecision evaluatedDecision : orderedDecisions) {
+            SpinJsonNode decisionNode = JSON("{}");
+            decisionNode.prop("results", JSON(results.get(evaluatedDecision).getResultList()).toString());
+            DmnDecisionLogicEvaluationEvent evaluationEvent = events.get(evaluatedDecision);
+            if (evaluationEvent instanceof DmnDecisionTableEvaluationEvent) {
+                decisionNode.prop("rules", getEvaluatedRules(evaluationEvent));
+            }
+            rootNode.prop(evaluatedDecision.getName(), decisionNode);
+        }
+    }
+
+    /**
+     * This method is used to get the evaluated rules from a DMN (Decision Model and Notation) decision logic evaluation event.
+     * If the event is a decision table evaluation event, it iterates over each matched rule, creates a JSON node for each rule,
+     * adds the rule ID and outputs to the node, and adds the node to a list.
+     * The list of rule nodes is then returned.
+     * @param dmnDecisionLogicEvaluationEvent The DMN decision logic evaluation event from which the evaluated rules are extracted.
+     * @return A list of JSON nodes representing the evaluated rules.
+     */
+    public static List getEvaluatedRules(DmnDecisionLogicEvaluationEvent dmnDecisionLogicEvaluationEvent) {
+        List rulesList = new LinkedList<SpinJsonNode>();
+        if (dmnDecisionLogicEvaluationEvent instanceof DmnDecisionTableEvaluationEvent) {
+            DmnDecisionTableEvaluationEvent dmnTableEvent = (DmnDecisionTableEvaluationEvent) dmnDecisionLogicEvaluationEvent;
+            for (DmnEvaluatedDecisionRule matchedRule : dmnTableEvent.getMatchingRules()) {
+                SpinJsonNode rulesNode = JSON("{}");
+                rulesNode.prop("ruleId", matchedRule.getId());
+                List outputList = new LinkedList();
+                for (DmnEvaluatedOutput output : matchedRule.getOutputEntries().values()) {
+                    SpinJsonNode outputProp = JSON("{}");
+                    outputProp.prop(output.getId(), output.getValue().getValue().toString());
+                    outputList.add(outputProp);
+                }
+                rulesNode.prop("outputs", outputList);
+                rulesList.add(rulesNode);
+            }
+        }
+        return rulesList;
+    }
+
+    /**
+     * This method is used to convert a string into a Date object.
+     * It tries to parse the string using several different date formats.
+     * If the string can be successfully parsed into a Date object using one of the formats, the Date object is returned.
+     * If none of the formats can successfully parse the string, null is returned.
+     *
+     * @param dateString The string to be converted into a Date object.
+     * @return The Date object resulting from the conversion, or null if the conversion was not successful.
+     */
+    private static Date getDateObject(String dateString) {
+        Date date = null;
+        // @formatter:off
+        String[] formats = new String[] {
+                "yyyy-MM-dd'T'HH:mm:ss.SSSZ",
+                "yyyy-MM-dd'T'HH:mm:ssZ",
+                "yyyy-MM-dd'T'HH:mm:ss.SSS",
+                "yyyy-MM-dd'T'HH:mm:ss",
+                "yyyy-MM-dd"
+        };
+        // @formatter:on
+        for (String format : formats) {
+            DateFormat df = new SimpleDateFormat(format);
+            try {
+                date = df.parse(dateString);
+                break;
+            } catch (ParseException e) {
+                // ignore and try the next possible format
+            }
+        }
+        return date;
+    }
+}
@@ -0,0 +1,237 @@
+package org.charter.obo.orion.dmnsimulator.engine;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnDecisionLogic;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionLiteralExpressionImpl;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionTableImpl;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionTableInputImpl;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionTableOutputImpl;
+
+/**
+ * Introspection of parsed decisions: the names of the decision tables, their inputs and outputs
+ * The decisions are either all decisions of a model or one decision; in both cases the decision tables
+ * they require are included, every decision table once
+ * The metadata endpoints of the web module give the same maps for a model in a request
+ */
+public final class DecisionMetadata {
+
+    private DecisionMetadata() {
+    }
+
+    /**
+     * Method to get the names of the decision tables
+     * @param decisions
+     * @return List of decision names, a decision before the decisions it requires
+     */
+    public static List<String> getDecisionNames(Collection<DmnDecision> decisions) {
+        List<String> decisionNames = new ArrayList<>();
+        List<String> completedDecisions = new ArrayList<>();
+        for (DmnDecision dmnDecision : decisions) {
+            addAllDecisionNames(dmnDecision, decisionNames, completedDecisions);
+        }
+        return decisionNames;
+    }
+
+    /**
+     * Here we are adding all the decision names to the decisionNames list
+     * First we check if the decision is already added to the completedDecisions list
+     * If not, we add the decision name to the decisionNames list
+     * If the decision has required decisions, we add the required decisions to the decisionNames list
+     * @param decision
+     * @param decisionNames
+     * @param completedDecisions
+     */
+    private static void addAllDecisionNames(DmnDecision decision, List<String> decisionNames, List<String> completedDecisions) {
+        if (!completedDecisions.contains(decision.getName()) && decision.getDecisionLogic() instanceof DmnDecisionTableImpl) {
+            String decisionName = (decision.getName() == null) ? "undefined" : decision.getName();
+            decisionNames.add(decisionName);
+            completedDecisions.add(decisionName);
+            for (DmnDecision requiredDecision : decision.getRequiredDecisions()) {
+                addAllDecisionNames(requiredDecision, decisionNames, completedDecisions);
+            }
+        }
+    }
+
+    /**
+     * Method to get the variable names of the literal expression decisions
+     * @param decisions
+     * @return List of variable names
+     */
+    public static List<String> getLiteralExpressionVariables(Collection<DmnDecision> decisions) {
+        List<String> variableNames = new ArrayList<>();
+        List<String> completedVariables = new ArrayList<>();
+        for (DmnDecision dmnDecision : decisions) {
+            addAllVariableNames(dmnDecision, variableNames, completedVariables);
+        }
+        return variableNames;
+    }
+
+    /**
+     * Here we are adding all the variable Names to the variableNames list
+     * first we check if decision is a literal expression or not
+     * then we check if variable is already added to the completedVariables list
+     * If not, we add the variable name to the variableNames list
+     * If the decision has required decisions, we add their variable names to the variableNames list
+     * @param decision
+     * @param variableNames
+     * @param completedVariables
+     */
+    private static void addAllVariableNames(DmnDecision decision, List<String> variableNames, List<String> completedVariables) {
+        DmnDecisionLogic decisionLogic = decision.getDecisionLogic();
+        if (decisionLogic instanceof DmnDecisionLiteralExpressionImpl) {
+            DmnDecisionLiteralExpressionImpl literalExpression = (DmnDecisionLiteralExpressionImpl) decisionLogic;
+            if (!completedVariables.contains(literalExpression.getVariable().getName())) {
+                String variableName = literalExpression.getVariable().getName() == null ? "undefined" : literalExpression.getVariable().getName();
+                variableNames.add(variableName);
+                completedVariables.add(variableName);
+                for (DmnDecision requiredDecision : decision.getRequiredDecisions()) {
+                    addAllVariableNames(requiredDecision, variableNames, completedVariables);
+                }
+            }
+        }
+    }
+
+    /**
+     * Method to get the inputs of every decision table with their type
+     * Inputs which read the variable of a literal expression decision are left out
+     * An input without name is listed as "undefined" with its expression as type
+     * @param decisions
+     * @param variableNames The variable names of the literal expression decisions of the model
+     * @return Map of the decision name to a map of the input name to its type
+     */
+    public static Map<String, Map<String, String>> getInputs(Collection<DmnDecision> decisions, List<String> variableNames) {
+        return collectInputs(decisions, (input, names) -> {
+            String expressionName = input.getExpression().getExpression();
+            String variable = input.getInputVariable();
+            if (!(variableNames.contains(expressionName) || variableNames.contains(variable))) {
+                String name = (input.getName() == null) ? "undefined" : input.getName();
+                String expression = (input.getExpression().getExpression() == null) ? "undefined" : input.getExpression().getExpression();
+                String type = (name.equals("undefined")) ? expression : input.getExpression().getTypeDefinition().getTypeName();
+                names.put(name, type);
+            }
+        });
+    }
+
+    /**
+     * Method to get the inputs of every decision table with their input variable
+     * @param decisions
+     * @return Map of the decision name to a map of the input name to its input variable
+     */
+    public static Map<String, Map<String, String>> getInputVariables(Collection<DmnDecision> decisions) {
+        return collectInputs(decisions, (input, names) -> {
+            String name = (input.getName() == null) ? "undefined" : input.getName();
+            String variable = (input.getInputVariable() == null) ? "undefined" : input.getInputVariable();
+            names.put(name, variable);
+        });
+    }
+
+    /**
+     * Method to get the inputs of every decision table with their input expression
+     * @param decisions
+     * @return Map of the decision name to a map of the input name to its expression
+     */
+    public static Map<String, Map<String, String>> getInputExpressions(Collection<DmnDecision> decisions) {
+        return collectInputs(decisions, (input, names) -> {
+            String name = (input.getName() == null) ? "undefined" : input.getName();
+            String expression = (input.getExpression().getExpression() == null) ? "undefined" : input.getExpression().getExpression();
+            names.put(name, expression);
+        });
+    }
+
+    /**
+     * Method to get the outputs of the decision tables
+     * @param decisions
+     * @return Map of the output name to its output name in the result, for all decision tables together
+     */
+    public static Map<String, String> getOutputs(Collection<DmnDecision> decisions) {
+        Map<String, String> outputNames = new HashMap<>();
+        List<String> completedDecisions = new ArrayList<>();
+        for (DmnDecision dmnDecision : decisions) {
+            outputNames.putAll(getOutputNames(dmnDecision, completedDecisions));
+        }
+        return outputNames;
+    }
+
+    /**
+     * Method to get the output names from the decision
+     * It will check if the decision is already added to the completedDecisions list
+     * If not, it will add the output names to the names list
+     * If the decision has required decisions, it will add the required decisions output names to the names list
+     * @param decision
+     * @param completedDecisions
+     * @return
+     */
+    public static Map<String, String> getOutputNames(DmnDecision decision, List<String> completedDecisions) {
+        DmnDecisionLogic decisionLogic = decision.getDecisionLogic();
+        Map<String, String> names = new HashMap<>();
+        if (!completedDecisions.contains(decision.getName()) && decisionLogic instanceof DmnDecisionTableImpl) {
+            DmnDecisionTableImpl decisionTable = (DmnDecisionTableImpl) decisionLogic;
+            for (DmnDecisionTableOutputImpl output : decisionTable.getOutputs()) {
+                String name = (output.getName() == null) ? "undefined" : output.getName();
+                String outputName = (output.getOutputName() == null) ? "undefined" : output.getOutputName();
+                names.put(name, outputName);
+            }
+            completedDecisions.add(decision.getName());
+            for (DmnDecision requiredDecision : decision.getRequiredDecisions()) {
+                names.putAll(getOutputNames(requiredDecision, completedDecisions));
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Method to describe the inputs of every decision table
+     * @param decisions
+     * @param describer Puts the entry of an input into the map of its decision table, or leaves the input out
+     * @return Map of the decision name to the entries of its inputs
+     */
+    private static Map<String, Map<String, String>> collectInputs(Collection<DmnDecision> decisions,
+                                                                  BiConsumer<DmnDecisionTableInputImpl, Map<String, String>> describer) {
+        Map<String, Map<String, String>> decisionInputs = new HashMap<>();
+        List<String> completedDecisions = new ArrayList<>();
+        for (DmnDecision dmnDecision : decisions) {
+            collectInputsRecursive(dmnDecision, decisionInputs, completedDecisions, describer);
+        }
+        return decisionInputs;
+    }
+
+    /**
+     * Recursive method to describe the inputs of a decision table
+     * An input whose name is the name of a required decision is not listed, the required decision is described instead
+     * @param decision
+     * @param decisionInputs
+     * @param completedDecisions
+     * @param describer
+     */
+    private static void collectInputsRecursive(DmnDecision decision, Map<String, Map<String, String>> decisionInputs, List<String> completedDecisions,
+                                               BiConsumer<DmnDecisionTableInputImpl, Map<String, String>> describer) {
+        DmnDecisionLogic decisionLogic = decision.getDecisionLogic();
+        if (completedDecisions.contains(decision.getName()) || !(decisionLogic instanceof DmnDecisionTableImpl)) {
+            return;
+        }
+        Map<String, String> names = new HashMap<>();
+        for (DmnDecisionTableInputImpl input : ((DmnDecisionTableImpl) decisionLogic).getInputs()) {
+            describer.accept(input, names);
+        }
+        Collection<DmnDecision> requiredDecisions = decision.getRequiredDecisions();
+        Map<String, String> inputs = new HashMap<>();
+        for (String name : names.keySet()) {
+            if (!requiredDecisions.isEmpty()) {
+                for (DmnDecision requiredDecision : requiredDecisions) {
+                    if (!requiredDecision.getName().equals(name)) {
+                        inputs.put(name, names.get(name));
+                    } else {
+                        collectInputsRecursive(requiredDecision, decisionInputs, completedDecisions, describer);
+                    }
+                }
+            } else {
+                inputs.put(name, names.get(name));
+            }
+        }
+        decisionInputs.put(decision.getName(), inputs);
+        completedDecisions.add(decision.getName());
+    }
+}
@@ -0,0 +1,518 @@
+package org.charter.obo.orion.dmnsimulator.engine;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.camunda.bpm.dmn.engine.*;
+import org.camunda.bpm.dmn.engine.impl.*;
+import org.charter.obo.orion.dmnsimulator.jfr.SimulatorEvents;
+
+/**
+ * Caches the parsed decisions of a DMN XML
+ * The cache key is the SHA-256 hash of the XML, so the same model sent again is not parsed again
+ * Every cached model has an estimated weight in bytes, derived from the XML size and the number of decisions,
+ * rules and expressions; the cache holds at most maxWeightMb and maxModels models in total
+ * A model belongs to the tenant which caused it to be parsed, and a tenant may have its own budget,
+ * so a tenant with a few huge models only evicts its own models
+ * To make room, the least recently used models are sampled and the one with the highest weight times idle time is evicted
+ * The limits are set with the setters before the cache is used, the defaults are the ones of the simulator
+ */
+public class DmnModelCache {
+
+    private static Logger log = Logger.getLogger(DmnModelCache.class);
+
+    public static final String DEFAULT_TENANT = "default";
+
+    private static final String OTHER_TENANTS = "other";
+
+    // rough estimates of the retained bytes of the parts of a parsed model on a 64 bit JVM with compressed oops,
+    // not calibrated against heap measurements; the expression texts are covered by the XML size
+    private static final long MODEL_BASE_WEIGHT = 512L;
+
+    private static final long XML_BYTE_WEIGHT = 1L;
+
+    private static final long DECISION_WEIGHT = 512L;
+
+    private static final long RULE_WEIGHT = 96L;
+
+    private static final long EXPRESSION_WEIGHT = 96L;
+
+    // the number of least recently used models among which the model to evict is chosen
+    private static final int EVICTION_SAMPLE = 5;
+
+    private int maxModels = 100;
+
+    private long maxWeightMb = 256;
+
+    private long defaultTenantBudgetMb;
+
+    private int maxTenants = 1000;
+
+    private final IncrementalParser incrementalParser = new IncrementalParser(5000);
+
+    private final InputSchema inputSchema = new InputSchema();
+
+    private final DmnEngine dmnEngine = DecisionEvaluator.createEngineConfiguration().buildEngine();
+
+    // in access order, so the least recently used model comes first; guarded by itself like the fields below
+    private final LinkedHashMap<String, CachedModel> models = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Map<String, TenantUsage> tenants = new TreeMap<>();
+
+    private final Map<String, Long> tenantBudgetBytes = new HashMap<>();
+
+    private long totalWeight;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final AtomicLong rejections = new AtomicLong();
+
+    /**
+     * Method to set the number of models the cache holds at most
+     * @param maxModels
+     */
+    public void setMaxModels(int maxModels) {
+        this.maxModels = maxModels;
+    }
+
+    /**
+     * Method to set the budget of the cache
+     * @param maxWeightMb The estimated weight of all models in megabytes
+     */
+    public void setMaxWeightMb(long maxWeightMb) {
+        this.maxWeightMb = maxWeightMb;
+    }
+
+    /**
+     * Method to set the budget of every tenant without an own budget
+     * @param tenantBudgetMb The budget in megabytes, 0 if such tenants are only limited by the budget of the cache
+     */
+    public void setTenantBudgetMb(long tenantBudgetMb) {
+        this.defaultTenantBudgetMb = tenantBudgetMb;
+    }
+
+    /**
+     * Method to set the own budgets of tenants
+     * The tenant budgets are given as comma separated tenant=megabytes pairs, e.g. "teamA=64,teamB=16"
+     * @param tenantBudgets
+     */
+    public void setTenantBudgets(String tenantBudgets) {
+        Map<String, Long> budgets = new HashMap<>();
+        if (tenantBudgets != null && !tenantBudgets.trim().isEmpty()) {
+            for (String tenantBudget : tenantBudgets.split(",")) {
+                String[] parts = tenantBudget.split("=");
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("Invalid tenant budget '" + tenantBudget + "', expected tenant=megabytes");
+                }
+                budgets.put(parts[0].trim(), Long.parseLong(parts[1].trim()) * 1024L * 1024L);
+            }
+        }
+        synchronized (models) {
+            tenantBudgetBytes.clear();
+            tenantBudgetBytes.putAll(budgets);
+        }
+    }
+
+    /**
+     * Method to set the number of tenants which are counted on their own, further tenants are counted together
+     * @param maxTenants
+     */
+    public void setMaxTenants(int maxTenants) {
+        this.maxTenants = maxTenants;
+    }
+
+    /**
+     * Method to set the number of parsed decisions which are kept to be reused by a later version of a model
+     * @param maxDecisions
+     */
+    public void setMaxDecisions(int maxDecisions) {
+        incrementalParser.setMaxDecisions(maxDecisions);
+    }
+
+    /**
+     * Method to switch the reuse of unchanged decisions between versions of a model on or off, see IncrementalParser
+     * With reuse, a decision which did not change is the same instance in both versions
+     * @param reuseDecisions
+     */
+    public void setReuseDecisions(boolean reuseDecisions) {
+        incrementalParser.setReuseDecisions(reuseDecisions);
+    }
+
+    /**
+     * Entry Method to get the parsed decisions of a DMN XML
+     * If the model is cached, the cached decisions are returned
+     * If not, the XML is parsed outside of the lock and the decisions are added to the cache
+     * The returned list and its decisions must not be modified, the decisions may be shared with other versions of the model
+     * @param xml
+     * @return List of all decisions of the model
+     */
+    public List<DmnDecision> getDecisions(String xml) {
+        return getDecisions(DEFAULT_TENANT, xml);
+    }
+
+    /**
+     * Method to get the parsed decisions of a DMN XML for a tenant
+     * @param tenant The tenant of the request, null for the default tenant
+     * @param xml
+     * @return List of all decisions of the model
+     */
+    public List<DmnDecision> getDecisions(String tenant, String xml) {
+        return getDecisions(tenant, getModelHash(xml), xml);
+    }
+
+    /**
+     * Method to get the parsed decisions of a DMN XML whose hash is already known
+     * @param tenant The tenant of the request, null for the default tenant
+     * @param modelHash The hash of the XML as returned by getModelHash
+     * @param xml
+     * @return List of all decisions of the model
+     */
+    public List<DmnDecision> getDecisions(String tenant, String modelHash, String xml) {
+        byte[] bytes = xml.getBytes(StandardCharsets.UTF_8);
+        return getDecisions(tenant, modelHash, bytes, bytes.length);
+    }
+
+    /**
+     * Method to get the parsed decisions of a DMN XML given as UTF-8 bytes
+     * The bytes are only read if the model is not cached
+     * A parsed model is cached for the tenant, unless its weight exceeds the budget of the tenant or of the cache
+     * @param tenant The tenant of the request, null for the default tenant
+     * @param modelHash The hash of the XML as returned by getModelHash
+     * @param xml Buffer holding the UTF-8 bytes
+     * @param length The number of used bytes of the buffer
+     * @return List of all decisions of the model
+     */
+    public List<DmnDecision> getDecisions(String tenant, String modelHash, byte[] xml, int length) {
+        CachedModel cachedModel;
+        Object lookupEvent = SimulatorEvents.beginCacheLookup();
+        synchronized (models) {
+            cachedModel = models.get(modelHash);
+            if (cachedModel != null) {
+                cachedModel.lastAccessNanos = System.nanoTime();
+            }
+            getTenantUsage(tenant).recordLookup(cachedModel != null);
+        }
+        SimulatorEvents.endCacheLookup(lookupEvent, modelHash, cachedModel != null);
+        onLookup(modelHash, cachedModel != null);
+        if (cachedModel != null) {
+            hits.incrementAndGet();
+            return cachedModel.decisions;
+        }
+        misses.incrementAndGet();
+        List<DmnDecision> decisions = parseDecisions(xml, length);
+        put(tenant, modelHash, decisions, estimateWeight(length, decisions));
+        return decisions;
+    }
+
+    /**
+     * Method to add a parsed model to the cache, evicting models of the tenant and then of all tenants until it fits
+     * @param tenant
+     * @param modelHash
+     * @param decisions
+     * @param weight
+     */
+    private void put(String tenant, String modelHash, List<DmnDecision> decisions, long weight) {
+        long maxWeight = maxWeightMb * 1024L * 1024L;
+        synchronized (models) {
+            TenantUsage tenantUsage = getTenantUsage(tenant);
+            long tenantBudget = getTenantBudget(tenantUsage.name);
+            if (models.containsKey(modelHash)) {
+                return;
+            }
+            if (weight > maxWeight || (tenantBudget > 0 && weight > tenantBudget)) {
+                rejections.incrementAndGet();
+                tenantUsage.rejections++;
+                log.warn("Model " + modelHash + " of tenant " + tenantUsage.name + " with an estimated weight of "
+                        + weight + " bytes exceeds the cache budget and is not cached");
+                return;
+            }
+            while (tenantBudget > 0 && tenantUsage.weight + weight > tenantBudget && evict(tenantUsage.name)) {
+                // evict models of the tenant until the model fits into its budget
+            }
+            while ((totalWeight + weight > maxWeight || models.size() >= maxModels) && evict(null)) {
+                // evict models of all tenants until the model fits into the cache
+            }
+            models.put(modelHash, new CachedModel(tenantUsage.name, decisions, weight));
+            tenantUsage.models++;
+            tenantUsage.weight += weight;
+            totalWeight += weight;
+        }
+    }
+
+    /**
+     * Method to evict one of the least recently used models
+     * Among the first EVICTION_SAMPLE models in access order, the one with the highest weight times idle time is evicted,
+     * so a large model which is rarely used goes before a small one which was used a moment later
+     * Must be called holding the lock on models
+     * @param tenant Only models of this tenant are evicted, null for all tenants
+     * @return false if there was no model to evict
+     */
+    private boolean evict(String tenant) {
+        long now = System.nanoTime();
+        String victim = null;
+        double victimScore = -1;
+        int sampled = 0;
+        for (Map.Entry<String, CachedModel> entry : models.entrySet()) {
+            CachedModel cachedModel = entry.getValue();
+            if (tenant != null && !tenant.equals(cachedModel.tenant)) {
+                continue;
+            }
+            double score = (double) cachedModel.weight * Math.max(1L, now - cachedModel.lastAccessNanos);
+            if (score > victimScore) {
+                victim = entry.getKey();
+                victimScore = score;
+            }
+            if (++sampled == EVICTION_SAMPLE) {
+                break;
+            }
+        }
+        if (victim == null) {
+            return false;
+        }
+        CachedModel evicted = models.remove(victim);
+        TenantUsage tenantUsage = tenants.get(evicted.tenant);
+        tenantUsage.models--;
+        tenantUsage.weight -= evicted.weight;
+        tenantUsage.evictions++;
+        totalWeight -= evicted.weight;
+        evictions.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Method to estimate the retained heap of a parsed model
+     * The parsed decisions keep the expression texts and the rule structure, which grow with the XML,
+     * plus a fixed cost per decision, rule and expression
+     * @param xmlLength The size of the XML in bytes
+     * @param decisions
+     * @return The estimated weight in bytes
+     */
+    static long estimateWeight(int xmlLength, List<DmnDecision> decisions) {
+        long weight = MODEL_BASE_WEIGHT + XML_BYTE_WEIGHT * xmlLength;
+        for (DmnDecision decision : decisions) {
+            weight += DECISION_WEIGHT;
+            DmnDecisionLogic decisionLogic = decision.getDecisionLogic();
+            if (decisionLogic instanceof DmnDecisionTableImpl) {
+                DmnDecisionTableImpl decisionTable = (DmnDecisionTableImpl) decisionLogic;
+                weight += EXPRESSION_WEIGHT * (decisionTable.getInputs().size() + decisionTable.getOutputs().size());
+                for (DmnDecisionTableRuleImpl rule : decisionTable.getRules()) {
+                    weight += RULE_WEIGHT + EXPRESSION_WEIGHT * (rule.getConditions().size() + rule.getConclusions().size());
+                }
+            } else if (decisionLogic instanceof DmnDecisionLiteralExpressionImpl) {
+                weight += EXPRESSION_WEIGHT;
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * Method to get the usage counters of a tenant, creating them on first use
+     * Once maxTenants tenants are known, further tenants are counted together as "other"
+     * Must be called holding the lock on models
+     * @param tenant
+     * @return The usage counters
+     */
+    private TenantUsage getTenantUsage(String tenant) {
+        String name = tenant == null || tenant.trim().isEmpty() ? DEFAULT_TENANT : tenant.trim();
+        TenantUsage tenantUsage = tenants.get(name);
+        if (tenantUsage == null) {
+            if (tenants.size() >= maxTenants && !tenantBudgetBytes.containsKey(name)) {
+                name = OTHER_TENANTS;
+                tenantUsage = tenants.get(name);
+            }
+            if (tenantUsage == null) {
+                tenantUsage = new TenantUsage(name);
+                tenants.put(name, tenantUsage);
+            }
+        }
+        return tenantUsage;
+    }
+
+    /**
+     * Method to get the budget of a tenant
+     * @param tenant
+     * @return The budget in bytes, 0 if the tenant is only limited by the budget of the cache
+     */
+    private long getTenantBudget(String tenant) {
+        Long budget = tenantBudgetBytes.get(tenant);
+        return budget != null ? budget : defaultTenantBudgetMb * 1024L * 1024L;
+    }
+
+    /**
+     * Method to parse all decisions of a DMN XML without caching the model
+     * Decisions which did not change since an earlier version of the model are reused by the incremental parser
+     * The input schema of every decision is computed right away, so requests can be validated without engine work
+     * @param xml
+     * @return Unmodifiable list of all decisions of the model
+     */
+    public List<DmnDecision> parseDecisions(String xml) {
+        byte[] bytes = xml.getBytes(StandardCharsets.UTF_8);
+        return parseDecisions(bytes, bytes.length);
+    }
+
+    /**
+     * Method to parse all decisions of a DMN XML given as UTF-8 bytes without caching the model
+     * @param xml Buffer holding the UTF-8 bytes
+     * @param length The number of used bytes of the buffer
+     * @return Unmodifiable list of all decisions of the model
+     */
+    public List<DmnDecision> parseDecisions(byte[] xml, int length) {
+        long start = System.nanoTime();
+        Object parseEvent = SimulatorEvents.beginParse();
+        List<DmnDecision> decisions = Collections.unmodifiableList(incrementalParser.parseDecisions(xml, length, dmnEngine));
+        inputSchema.precompute(decisions);
+        SimulatorEvents.endParse(parseEvent, "DmnModelCache", null, decisions.size(), length);
+        log.debug("Parsed " + decisions.size() + " decisions in " + (System.nanoTime() - start) / 1000000L + " ms");
+        return decisions;
+    }
+
+    /**
+     * Method to find a decision in the decisions of a model
+     * If the decision key is null or empty, the root decision, which is not required by any other decision, is returned
+     * @param decisionKey
+     * @param decisions
+     * @return The decision
+     */
+    public DmnDecision findDecision(String decisionKey, List<DmnDecision> decisions) {
+        return DecisionEvaluator.findDecision(decisionKey, decisions);
+    }
+
+    /**
+     * Method to calculate the hash of a DMN XML which is used as cache key
+     * @param xml
+     * @return Hex encoded SHA-256 hash
+     */
+    public String getModelHash(String xml) {
+        byte[] bytes = xml.getBytes(StandardCharsets.UTF_8);
+        return getModelHash(bytes, bytes.length);
+    }
+
+    /**
+     * Method to calculate the hash of a DMN XML given as UTF-8 bytes
+     * It returns the same hash as getModelHash for the XML as String
+     * @param xml Buffer holding the UTF-8 bytes
+     * @param length The number of used bytes of the buffer
+     * @return Hex encoded SHA-256 hash
+     */
+    public static String getModelHash(byte[] xml, int length) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(xml, 0, length);
+            byte[] hash = digest.digest();
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+                hex.append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Method to get the engine used by the cache
+     * The engine has no request scoped listener, so it can be used outside of a HTTP request
+     * @return DMN Engine
+     */
+    public DmnEngine getDmnEngine() {
+        return dmnEngine;
+    }
+
+    /**
+     * Method to get the input schema of the cached decisions, it is computed when a model is parsed
+     * @return Input schema
+     */
+    public InputSchema getInputSchema() {
+        return inputSchema;
+    }
+
+    /**
+     * Method which is called after every lookup, e.g. to add the outcome to a trace
+     * @param modelHash
+     * @param hit Whether the model was cached
+     */
+    protected void onLookup(String modelHash, boolean hit) {
+    }
+
+    /**
+     * Method to get the cache statistics
+     * @return Map of the number of cached models, their weight, hits, misses and evictions, and the same per tenant
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        Map<String, Object> tenantStatistics = new LinkedHashMap<>();
+        synchronized (models) {
+            statistics.put("models", (long) models.size());
+            statistics.put("weightBytes", totalWeight);
+            for (TenantUsage tenantUsage : tenants.values()) {
+                Map<String, Long> usage = new LinkedHashMap<>();
+                usage.put("models", tenantUsage.models);
+                usage.put("weightBytes", tenantUsage.weight);
+                usage.put("budgetBytes", getTenantBudget(tenantUsage.name));
+                usage.put("hits", tenantUsage.hits);
+                usage.put("misses", tenantUsage.misses);
+                usage.put("evictions", tenantUsage.evictions);
+                usage.put("rejections", tenantUsage.rejections);
+                tenantStatistics.put(tenantUsage.name, usage);
+            }
+        }
+        statistics.put("maxWeightBytes", maxWeightMb * 1024L * 1024L);
+        statistics.put("hits", hits.get());
+        statistics.put("misses", misses.get());
+        statistics.put("evictions", evictions.get());
+        statistics.put("rejections", rejections.get());
+        statistics.putAll(incrementalParser.getStatistics());
+        statistics.put("tenants", tenantStatistics);
+        return statistics;
+    }
+
+    /**
+     * A cached model with the tenant it is accounted to
+     */
+    private static class CachedModel {
+        private final String tenant;
+        private final List<DmnDecision> decisions;
+        private final long weight;
+        private long lastAccessNanos = System.nanoTime();
+
+        private CachedModel(String tenant, List<DmnDecision> decisions, long weight) {
+            this.tenant = tenant;
+            this.decisions = decisions;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * The cached models and counters of a tenant
+     */
+    private static class TenantUsage {
+        private final String name;
+        private long models;
+        private long weight;
+        private long hits;
+        private long misses;
+        private long evictions;
+        private long rejections;
+
+        private TenantUsage(String name) {
+            this.name = name;
+        }
+
+        private void recordLookup(boolean hit) {
+            if (hit) {
+                hits++;
+            } else {
+                misses++;
+            }
+        }
+    }
+}
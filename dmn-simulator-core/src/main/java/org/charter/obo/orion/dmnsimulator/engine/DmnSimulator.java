@@ -0,0 +1,230 @@
+package org.charter.obo.orion.dmnsimulator.engine;
+
+import static org.camunda.spin.Spin.JSON;
+
+import java.util.*;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnDecisionResult;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionLogicEvaluationEvent;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionTableEvaluationEvent;
+import org.camunda.bpm.dmn.engine.delegate.DmnEvaluatedDecisionRule;
+import org.camunda.bpm.dmn.engine.impl.DefaultDmnEngineConfiguration;
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.engine.variable.Variables;
+import org.camunda.spin.json.SpinJsonNode;
+
+/**
+ * Entry point to embed the simulator into a Java application and evaluate decisions in the same process
+ * Models are parsed once and kept in a DmnModelCache; the decisions are evaluated with a MultiDecisionContext,
+ * so a required decision is evaluated once for all requested decisions
+ * evaluate with a variables map works on Java objects only, nothing is serialized; evaluate with a request node
+ * validates and converts the variables and returns the response of the evaluateDecision endpoint
+ * With early termination, FIRST and UNIQUE decision tables stop checking rules once the hit policy decides the result
+ * An input expression which several decision tables have is evaluated once per evaluation, unless shared inputs are switched off
+ * An instance is thread safe and meant to be shared
+ */
+public class DmnSimulator {
+
+    private final DmnModelCache modelCache;
+
+    private final DefaultDmnEngineConfiguration engineConfiguration;
+
+    private volatile boolean earlyTermination;
+
+    private volatile boolean sharedInputs = true;
+
+    public DmnSimulator() {
+        this(new DmnModelCache());
+    }
+
+    public DmnSimulator(DmnModelCache modelCache) {
+        this.modelCache = modelCache;
+        this.engineConfiguration = (DefaultDmnEngineConfiguration) modelCache.getDmnEngine().getConfiguration();
+    }
+
+    /**
+     * Method to get the parsed decisions of a DMN XML, from the cache if the model was parsed before
+     * @param xml
+     * @return Unmodifiable list of all decisions of the model
+     */
+    public List<DmnDecision> getDecisions(String xml) {
+        return modelCache.getDecisions(xml);
+    }
+
+    /**
+     * Method to evaluate decisions of a DMN XML
+     * @param xml
+     * @param variables
+     * @param decisionNames The names or keys of the decisions to evaluate, none for the root decision
+     * @return The evaluation
+     */
+    public Evaluation evaluate(String xml, Map<String, Object> variables, String... decisionNames) {
+        return evaluate(getDecisions(xml), variables, decisionNames);
+    }
+
+    /**
+     * Method to evaluate parsed decisions
+     * @param decisions All decisions of the model
+     * @param variables
+     * @param decisionNames The names or keys of the decisions to evaluate, none for the root decision
+     * @return The evaluation
+     */
+    public Evaluation evaluate(List<DmnDecision> decisions, Map<String, Object> variables, String... decisionNames) {
+        List<DmnDecision> targets = new ArrayList<>();
+        for (String decisionName : decisionNames) {
+            String decisionKey = DecisionEvaluator.getDecisionKey(decisions, decisionName);
+            targets.add(DecisionEvaluator.findDecision(decisionKey != null ? decisionKey : decisionName, decisions));
+        }
+        if (targets.isEmpty()) {
+            targets.add(DecisionEvaluator.findDecision(null, decisions));
+        }
+        return evaluateDecisions(targets, variables);
+    }
+
+    /**
+     * Method to evaluate decisions which are already looked up
+     * @param targets The decisions to evaluate
+     * @param variables The variables, a VariableMap keeps the types of its typed values
+     * @return The evaluation
+     */
+    public Evaluation evaluateDecisions(List<DmnDecision> targets, Map<String, Object> variables) {
+        VariableMap variableMap = Variables.fromMap(variables);
+        MultiDecisionContext decisionContext = new MultiDecisionContext(engineConfiguration, earlyTermination, sharedInputs);
+        Map<DmnDecision, DmnDecisionResult> results = decisionContext.evaluateDecisions(targets, variableMap.asVariableContext());
+        return new Evaluation(targets, results, decisionContext.getEvaluationEvents());
+    }
+
+    /**
+     * Method to evaluate parsed decisions for a request in the format of the evaluateDecision endpoint, without the xml
+     * @param requestNode The request with the variables block, optionally the decision or decisions and "earlyTermination"
+     * @param decisions All decisions of the model
+     * @return The response of the endpoint, with an "error" if the variables are invalid or the evaluation failed
+     */
+    public SpinJsonNode evaluate(SpinJsonNode requestNode, List<DmnDecision> decisions) {
+        SpinJsonNode rootNode = JSON("{}");
+        try {
+            List<DmnDecision> targets = DecisionEvaluator.getRequestedDecisions(requestNode, decisions);
+            if (DecisionEvaluator.addValidationErrors(rootNode, targets, modelCache.getInputSchema().validate(targets, requestNode))) {
+                return rootNode;
+            }
+            VariableMap variables = DecisionEvaluator.getVariables(requestNode);
+            MultiDecisionContext decisionContext = new MultiDecisionContext(engineConfiguration,
+                    DecisionEvaluator.isEarlyTermination(requestNode, earlyTermination), sharedInputs);
+            Map<DmnDecision, DmnDecisionResult> results = decisionContext.evaluateDecisions(targets, variables.asVariableContext());
+            DecisionEvaluator.addDecisionResults(rootNode, targets, results, decisionContext.getEvaluationEvents());
+        } catch (Exception e) {
+            rootNode = JSON("{}");
+            rootNode.prop("error", String.valueOf(e.getMessage()));
+        }
+        return rootNode;
+    }
+
+    /**
+     * Method to set whether FIRST and UNIQUE decision tables stop checking rules once the result is decided,
+     * for evaluations whose request does not say otherwise
+     * @param earlyTermination
+     */
+    public void setEarlyTermination(boolean earlyTermination) {
+        this.earlyTermination = earlyTermination;
+    }
+
+    public boolean isEarlyTermination() {
+        return earlyTermination;
+    }
+
+    /**
+     * Method to set whether the results of input expressions are shared between the decision tables of an evaluation
+     * @param sharedInputs
+     */
+    public void setSharedInputs(boolean sharedInputs) {
+        this.sharedInputs = sharedInputs;
+    }
+
+    public boolean isSharedInputs() {
+        return sharedInputs;
+    }
+
+    /**
+     * Method to get the model cache, e.g. to change its limits or read its statistics
+     * @return Model cache
+     */
+    public DmnModelCache getModelCache() {
+        return modelCache;
+    }
+
+    /**
+     * The results of an evaluation, for the requested decisions and the decisions they require
+     */
+    public static class Evaluation {
+
+        private final List<DmnDecision> requestedDecisions;
+
+        private final Map<DmnDecision, DmnDecisionResult> results;
+
+        private final Map<DmnDecision, DmnDecisionLogicEvaluationEvent> events;
+
+        private Evaluation(List<DmnDecision> requestedDecisions, Map<DmnDecision, DmnDecisionResult> results,
+                           Map<DmnDecision, DmnDecisionLogicEvaluationEvent> events) {
+            this.requestedDecisions = Collections.unmodifiableList(requestedDecisions);
+            this.results = Collections.unmodifiableMap(results);
+            this.events = Collections.unmodifiableMap(events);
+        }
+
+        public List<DmnDecision> getRequestedDecisions() {
+            return requestedDecisions;
+        }
+
+        /**
+         * Method to get the results of all evaluated decisions
+         * @return Map of the decision to its result, in evaluation order
+         */
+        public Map<DmnDecision, DmnDecisionResult> getResults() {
+            return results;
+        }
+
+        /**
+         * Method to get the result of an evaluated decision
+         * @param decisionName The name or key of the decision
+         * @return The result, or null if the decision was not evaluated
+         */
+        public DmnDecisionResult getResult(String decisionName) {
+            DmnDecision decision = findEvaluatedDecision(decisionName);
+            return decision == null ? null : results.get(decision);
+        }
+
+        /**
+         * Method to get the ids of the matched rules of an evaluated decision table
+         * @param decisionName The name or key of the decision
+         * @return The rule ids, empty if the decision is no decision table or was not evaluated
+         */
+        public List<String> getMatchedRuleIds(String decisionName) {
+            List<String> ruleIds = new ArrayList<>();
+            DmnDecision decision = findEvaluatedDecision(decisionName);
+            DmnDecisionLogicEvaluationEvent event = decision == null ? null : events.get(decision);
+            if (event instanceof DmnDecisionTableEvaluationEvent) {
+                for (DmnEvaluatedDecisionRule matchedRule : ((DmnDecisionTableEvaluationEvent) event).getMatchingRules()) {
+                    ruleIds.add(matchedRule.getId());
+                }
+            }
+            return ruleIds;
+        }
+
+        /**
+         * Method to get the evaluation events of all evaluated decisions, e.g. for the evaluated inputs
+         * @return Map of the decision to its evaluation event
+         */
+        public Map<DmnDecision, DmnDecisionLogicEvaluationEvent> getEvaluationEvents() {
+            return events;
+        }
+
+        private DmnDecision findEvaluatedDecision(String decisionName) {
+            for (DmnDecision decision : results.keySet()) {
+                if (decisionName.equals(decision.getName()) || decisionName.equals(decision.getKey())) {
+                    return decision;
+                }
+            }
+            return null;
+        }
+    }
+}
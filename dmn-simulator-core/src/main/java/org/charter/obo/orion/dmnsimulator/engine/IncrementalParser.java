@@ -0,0 +1,574 @@
+package org.charter.obo.orion.dmnsimulator.engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.apache.log4j.Logger;
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnEngine;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionImpl;
+import org.w3c.dom.*;
+import org.xml.sax.InputSource;
+
+/**
+ * Parses a DMN XML and only transforms the decisions which changed since an earlier version
+ * Every decision element gets a fingerprint of its own XML, of the inputData and itemDefinition elements it refers to
+ * and of the fingerprints of its required decisions,
+ * so a decision whose fingerprint is already known is taken over from the earlier version including its cached expressions
+ * Only the changed decisions and the decisions requiring them are given to the DMN engine,
+ * and their required decisions are linked again afterwards
+ * A reused decision is the same DmnDecisionImpl instance in every model which has it, so parsed decisions are read only;
+ * an application which changes them has to switch reuse off with setReuseDecisions
+ * If anything unexpected happens, the whole XML is parsed by the engine as before
+ */
+public class IncrementalParser {
+
+    private static Logger log = Logger.getLogger(IncrementalParser.class);
+
+    private volatile int maxDecisions;
+
+    private volatile boolean reuseDecisions = true;
+
+    private final Map<String, DmnDecision> decisionsByFingerprint;
+
+    private final AtomicLong reusedDecisions = new AtomicLong();
+
+    private final AtomicLong rebuiltDecisions = new AtomicLong();
+
+    /**
+     * Constructor which builds the LRU map holding the decisions by their fingerprint
+     * @param maxDecisions The number of decisions which are kept for reuse
+     */
+    public IncrementalParser(int maxDecisions) {
+        this.maxDecisions = maxDecisions;
+        decisionsByFingerprint = new LinkedHashMap<String, DmnDecision>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, DmnDecision> eldest) {
+                return size() > IncrementalParser.this.maxDecisions;
+            }
+        };
+    }
+
+    /**
+     * Method to change the number of decisions which are kept for reuse, the map shrinks as new decisions are added
+     * @param maxDecisions
+     */
+    public void setMaxDecisions(int maxDecisions) {
+        this.maxDecisions = maxDecisions;
+    }
+
+    /**
+     * Method to switch the reuse of unchanged decisions on or off
+     * Without reuse every model gets decision instances of its own, and the kept decisions are dropped
+     * @param reuseDecisions
+     */
+    public void setReuseDecisions(boolean reuseDecisions) {
+        this.reuseDecisions = reuseDecisions;
+        if (!reuseDecisions) {
+            synchronized (decisionsByFingerprint) {
+                decisionsByFingerprint.clear();
+            }
+        }
+    }
+
+    /**
+     * Entry Method to parse all decisions of a DMN XML
+     * Decisions which are unchanged since an earlier parse are reused, all others are transformed by the engine
+     * @param xml
+     * @param dmnEngine
+     * @return List of all decisions of the model in document order
+     */
+    public List<DmnDecision> parseDecisions(String xml, DmnEngine dmnEngine) {
+        byte[] bytes = xml.getBytes(StandardCharsets.UTF_8);
+        return parseDecisions(bytes, bytes.length, dmnEngine);
+    }
+
+    /**
+     * Method to parse all decisions of a DMN XML given as UTF-8 bytes
+     * The bytes are read in place by the DOM and the engine parser, they are never copied into a String
+     * @param xml Buffer holding the UTF-8 bytes
+     * @param length The number of used bytes of the buffer
+     * @param dmnEngine
+     * @return List of all decisions of the model in document order
+     */
+    public List<DmnDecision> parseDecisions(byte[] xml, int length, DmnEngine dmnEngine) {
+        if (!reuseDecisions) {
+            return dmnEngine.parseDecisions(toInputStream(xml, length));
+        }
+        Document document;
+        Map<String, Element> decisionElements;
+        Map<String, String> fingerprints;
+        try {
+            document = parseDocument(xml, length);
+            decisionElements = getDecisionElements(document);
+            fingerprints = getClosureFingerprints(document, decisionElements);
+        } catch (Exception e) {
+            log.debug("Could not fingerprint DMN XML, parsing it completely: " + e.getMessage());
+            return dmnEngine.parseDecisions(toInputStream(xml, length));
+        }
+        if (fingerprints == null) {
+            return dmnEngine.parseDecisions(toInputStream(xml, length));
+        }
+
+        Map<String, DmnDecision> reused = new HashMap<>();
+        synchronized (decisionsByFingerprint) {
+            for (Map.Entry<String, String> fingerprint : fingerprints.entrySet()) {
+                DmnDecision decision = decisionsByFingerprint.get(fingerprint.getValue());
+                if (decision != null) {
+                    reused.put(fingerprint.getKey(), decision);
+                }
+            }
+        }
+
+        List<DmnDecision> decisions;
+        if (reused.isEmpty()) {
+            decisions = dmnEngine.parseDecisions(toInputStream(xml, length));
+        } else if (reused.size() == decisionElements.size()) {
+            decisions = new ArrayList<>();
+            for (String decisionId : decisionElements.keySet()) {
+                decisions.add(reused.get(decisionId));
+            }
+        } else {
+            try {
+                decisions = parseChangedDecisions(document, decisionElements, reused, dmnEngine);
+            } catch (Exception e) {
+                log.debug("Could not parse changed decisions only, parsing the DMN XML completely: " + e.getMessage());
+                reused.clear();
+                decisions = dmnEngine.parseDecisions(toInputStream(xml, length));
+            }
+        }
+        reusedDecisions.addAndGet(reused.size());
+        rebuiltDecisions.addAndGet(decisions.size() - reused.size());
+
+        synchronized (decisionsByFingerprint) {
+            for (DmnDecision decision : decisions) {
+                String fingerprint = fingerprints.get(decision.getKey());
+                if (fingerprint != null) {
+                    decisionsByFingerprint.put(fingerprint, decision);
+                }
+            }
+        }
+        return decisions;
+    }
+
+    /**
+     * Method to get the number of reused and rebuilt decisions since startup
+     * @return Map of the statistics
+     */
+    public Map<String, Long> getStatistics() {
+        Map<String, Long> statistics = new LinkedHashMap<>();
+        synchronized (decisionsByFingerprint) {
+            statistics.put("fingerprintedDecisions", (long) decisionsByFingerprint.size());
+        }
+        statistics.put("reusedDecisions", reusedDecisions.get());
+        statistics.put("rebuiltDecisions", rebuiltDecisions.get());
+        return statistics;
+    }
+
+    /**
+     * Method to transform only the decisions which are not reused
+     * All reused decisions are removed from the document, and so are the requirements pointing to them,
+     * the remaining document is parsed by the engine, and the required decisions of the new decisions are linked again
+     * @param document
+     * @param decisionElements
+     * @param reused
+     * @param dmnEngine
+     * @return List of all decisions of the model in document order
+     * @throws Exception If the reduced document can not be written
+     */
+    private List<DmnDecision> parseChangedDecisions(Document document, Map<String, Element> decisionElements,
+                                                    Map<String, DmnDecision> reused, DmnEngine dmnEngine) throws Exception {
+        Map<String, List<String>> requiredDecisionIds = new HashMap<>();
+        for (Map.Entry<String, Element> decisionElement : decisionElements.entrySet()) {
+            String decisionId = decisionElement.getKey();
+            requiredDecisionIds.put(decisionId, getRequiredDecisionIds(decisionElement.getValue()));
+            if (reused.containsKey(decisionId)) {
+                decisionElement.getValue().getParentNode().removeChild(decisionElement.getValue());
+            } else {
+                removeRequirementsTo(decisionElement.getValue(), reused.keySet());
+            }
+        }
+
+        Map<String, DmnDecision> rebuilt = new HashMap<>();
+        byte[] changedXml = writeDocument(document);
+        for (DmnDecision decision : dmnEngine.parseDecisions(toInputStream(changedXml, changedXml.length))) {
+            rebuilt.put(decision.getKey(), decision);
+        }
+
+        List<DmnDecision> decisions = new ArrayList<>();
+        for (String decisionId : decisionElements.keySet()) {
+            DmnDecision decision = reused.containsKey(decisionId) ? reused.get(decisionId) : rebuilt.get(decisionId);
+            if (decision == null) {
+                throw new IllegalStateException("Decision " + decisionId + " was not transformed");
+            }
+            if (!reused.containsKey(decisionId)) {
+                List<DmnDecision> requiredDecisions = new ArrayList<>();
+                for (String requiredDecisionId : requiredDecisionIds.get(decisionId)) {
+                    DmnDecision requiredDecision = reused.containsKey(requiredDecisionId) ? reused.get(requiredDecisionId) : rebuilt.get(requiredDecisionId);
+                    if (requiredDecision == null) {
+                        throw new IllegalStateException("Required decision " + requiredDecisionId + " was not found");
+                    }
+                    requiredDecisions.add(requiredDecision);
+                }
+                ((DmnDecisionImpl) decision).setRequiredDecision(requiredDecisions);
+            }
+            decisions.add(decision);
+        }
+        return decisions;
+    }
+
+    /**
+     * Method to calculate the fingerprint of every decision including all decisions it requires
+     * The own fingerprint covers the attributes of the definitions element, the whole decision element
+     * and the top-level elements the decision refers to, see updateReferencedElements
+     * @param document
+     * @param decisionElements
+     * @return Map of decision id to fingerprint, or null if the requirements contain a loop or an unknown decision
+     */
+    private Map<String, String> getClosureFingerprints(Document document, Map<String, Element> decisionElements) {
+        Element definitions = document.getDocumentElement();
+        MessageDigest definitionsDigest = newDigest();
+        updateAttributes(definitionsDigest, definitions);
+        byte[] definitionsHash = definitionsDigest.digest();
+        Map<String, Element> inputDataElements = getTopLevelElements(document, "inputData", "id");
+        Map<String, Element> itemDefinitions = getTopLevelElements(document, "itemDefinition", "name");
+
+        Map<String, String> ownFingerprints = new HashMap<>();
+        Map<String, List<String>> requiredDecisionIds = new HashMap<>();
+        for (Map.Entry<String, Element> decisionElement : decisionElements.entrySet()) {
+            MessageDigest digest = newDigest();
+            digest.update(definitionsHash);
+            updateNode(digest, decisionElement.getValue());
+            updateReferencedElements(digest, decisionElement.getValue(), inputDataElements, itemDefinitions);
+            ownFingerprints.put(decisionElement.getKey(), toHex(digest.digest()));
+            requiredDecisionIds.put(decisionElement.getKey(), getRequiredDecisionIds(decisionElement.getValue()));
+        }
+
+        Map<String, String> closureFingerprints = new LinkedHashMap<>();
+        for (String decisionId : decisionElements.keySet()) {
+            if (getClosureFingerprint(decisionId, ownFingerprints, requiredDecisionIds, closureFingerprints, new HashSet<>()) == null) {
+                return null;
+            }
+        }
+        return closureFingerprints;
+    }
+
+    /**
+     * Recursive method to calculate the fingerprint of a decision from its own fingerprint
+     * and the fingerprints of its required decisions
+     * @param decisionId
+     * @param ownFingerprints
+     * @param requiredDecisionIds
+     * @param closureFingerprints
+     * @param visiting
+     * @return The fingerprint, or null if the requirements contain a loop or an unknown decision
+     */
+    private String getClosureFingerprint(String decisionId, Map<String, String> ownFingerprints, Map<String, List<String>> requiredDecisionIds,
+                                         Map<String, String> closureFingerprints, Set<String> visiting) {
+        if (closureFingerprints.containsKey(decisionId)) {
+            return closureFingerprints.get(decisionId);
+        }
+        if (!ownFingerprints.containsKey(decisionId) || !visiting.add(decisionId)) {
+            return null;
+        }
+        MessageDigest digest = newDigest();
+        digest.update(ownFingerprints.get(decisionId).getBytes(StandardCharsets.UTF_8));
+        for (String requiredDecisionId : requiredDecisionIds.get(decisionId)) {
+            String requiredFingerprint = getClosureFingerprint(requiredDecisionId, ownFingerprints, requiredDecisionIds, closureFingerprints, visiting);
+            if (requiredFingerprint == null) {
+                return null;
+            }
+            digest.update(requiredFingerprint.getBytes(StandardCharsets.UTF_8));
+        }
+        visiting.remove(decisionId);
+        String fingerprint = toHex(digest.digest());
+        closureFingerprints.put(decisionId, fingerprint);
+        return fingerprint;
+    }
+
+    /**
+     * Method to get the decision elements of the definitions in document order
+     * @param document
+     * @return Map of decision id to decision element
+     */
+    private Map<String, Element> getDecisionElements(Document document) {
+        Map<String, Element> decisionElements = new LinkedHashMap<>();
+        NodeList children = document.getDocumentElement().getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            Node child = children.item(i);
+            if (child instanceof Element && "decision".equals(child.getLocalName())) {
+                Element decisionElement = (Element) child;
+                decisionElements.put(decisionElement.getAttribute("id"), decisionElement);
+            }
+        }
+        return decisionElements;
+    }
+
+    /**
+     * Method to get the top-level elements of one kind of the definitions
+     * @param document
+     * @param localName The name of the elements, e.g. inputData
+     * @param keyAttribute The attribute the elements are referred to by, e.g. id
+     * @return Map of the key attribute to the element
+     */
+    private Map<String, Element> getTopLevelElements(Document document, String localName, String keyAttribute) {
+        Map<String, Element> elements = new HashMap<>();
+        NodeList children = document.getDocumentElement().getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            Node child = children.item(i);
+            if (child instanceof Element && localName.equals(child.getLocalName())) {
+                elements.put(((Element) child).getAttribute(keyAttribute), (Element) child);
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * Method to add the top-level elements a decision refers to to its fingerprint:
+     * the inputData elements of its requiredInput requirements and the itemDefinition elements named by a typeRef,
+     * including the item definitions those refer to
+     * @param digest
+     * @param decisionElement
+     * @param inputDataElements Map of id to inputData element
+     * @param itemDefinitions Map of name to itemDefinition element
+     */
+    private void updateReferencedElements(MessageDigest digest, Element decisionElement, Map<String, Element> inputDataElements,
+                                          Map<String, Element> itemDefinitions) {
+        SortedSet<String> inputDataIds = new TreeSet<>();
+        NodeList requiredInputs = decisionElement.getElementsByTagNameNS("*", "requiredInput");
+        for (int i = 0; i < requiredInputs.getLength(); i++) {
+            inputDataIds.add(getReferencedId((Element) requiredInputs.item(i)));
+        }
+        SortedSet<String> typeRefs = new TreeSet<>();
+        addTypeRefs(decisionElement, typeRefs);
+        for (String inputDataId : inputDataIds) {
+            Element inputData = inputDataElements.get(inputDataId);
+            updateString(digest, inputDataId);
+            if (inputData != null) {
+                updateNode(digest, inputData);
+                addTypeRefs(inputData, typeRefs);
+            }
+        }
+        Set<String> addedTypes = new HashSet<>();
+        Deque<String> pendingTypes = new ArrayDeque<>(typeRefs);
+        while (!pendingTypes.isEmpty()) {
+            String typeRef = pendingTypes.pop();
+            // a typeRef may be prefixed with the namespace of the item definition
+            Element itemDefinition = itemDefinitions.containsKey(typeRef) ? itemDefinitions.get(typeRef)
+                    : itemDefinitions.get(typeRef.substring(typeRef.indexOf(':') + 1));
+            if (itemDefinition != null && addedTypes.add(itemDefinition.getAttribute("name"))) {
+                updateNode(digest, itemDefinition);
+                SortedSet<String> itemTypeRefs = new TreeSet<>();
+                addTypeRefs(itemDefinition, itemTypeRefs);
+                pendingTypes.addAll(itemTypeRefs);
+            }
+        }
+    }
+
+    /**
+     * Method to collect the typeRef attributes and typeRef elements of an element and its descendants
+     * @param element
+     * @param typeRefs
+     */
+    private void addTypeRefs(Element element, Set<String> typeRefs) {
+        if (element.hasAttribute("typeRef")) {
+            typeRefs.add(element.getAttribute("typeRef").trim());
+        }
+        NodeList children = element.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            Node child = children.item(i);
+            if (child instanceof Element) {
+                if ("typeRef".equals(child.getLocalName())) {
+                    typeRefs.add(child.getTextContent().trim());
+                } else {
+                    addTypeRefs((Element) child, typeRefs);
+                }
+            }
+        }
+    }
+
+    /**
+     * Method to get the ids of the required decisions in the order of the information requirements
+     * @param decisionElement
+     * @return List of required decision ids
+     */
+    private List<String> getRequiredDecisionIds(Element decisionElement) {
+        List<String> requiredDecisionIds = new ArrayList<>();
+        for (Element requiredDecision : getRequiredDecisionElements(decisionElement)) {
+            requiredDecisionIds.add(getReferencedId(requiredDecision));
+        }
+        return requiredDecisionIds;
+    }
+
+    /**
+     * Method to remove the information requirements which point to one of the given decisions
+     * @param decisionElement
+     * @param decisionIds
+     */
+    private void removeRequirementsTo(Element decisionElement, Set<String> decisionIds) {
+        for (Element requiredDecision : getRequiredDecisionElements(decisionElement)) {
+            if (decisionIds.contains(getReferencedId(requiredDecision))) {
+                Node informationRequirement = requiredDecision.getParentNode();
+                informationRequirement.getParentNode().removeChild(informationRequirement);
+            }
+        }
+    }
+
+    /**
+     * Method to get the requiredDecision elements of the information requirements of a decision
+     * @param decisionElement
+     * @return List of requiredDecision elements
+     */
+    private List<Element> getRequiredDecisionElements(Element decisionElement) {
+        List<Element> requiredDecisions = new ArrayList<>();
+        NodeList children = decisionElement.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            Node child = children.item(i);
+            if (child instanceof Element && "informationRequirement".equals(child.getLocalName())) {
+                NodeList requirements = child.getChildNodes();
+                for (int j = 0; j < requirements.getLength(); j++) {
+                    Node requirement = requirements.item(j);
+                    if (requirement instanceof Element && "requiredDecision".equals(requirement.getLocalName())) {
+                        requiredDecisions.add((Element) requirement);
+                    }
+                }
+            }
+        }
+        return requiredDecisions;
+    }
+
+    /**
+     * Method to get the id an href attribute like "#dish" points to
+     * @param element
+     * @return The referenced id
+     */
+    private String getReferencedId(Element element) {
+        String href = element.getAttribute("href");
+        int hashIndex = href.indexOf('#');
+        return hashIndex >= 0 ? href.substring(hashIndex + 1) : href;
+    }
+
+    /**
+     * Recursive method to add a node with its attributes, text and children to the digest
+     * Comments and whitespace around text are ignored
+     * @param digest
+     * @param node
+     */
+    private void updateNode(MessageDigest digest, Node node) {
+        if (node instanceof Element) {
+            digest.update((byte) '<');
+            updateString(digest, node.getNamespaceURI());
+            updateString(digest, node.getLocalName());
+            updateAttributes(digest, (Element) node);
+            NodeList children = node.getChildNodes();
+            for (int i = 0; i < children.getLength(); i++) {
+                updateNode(digest, children.item(i));
+            }
+            digest.update((byte) '>');
+        } else if (node instanceof Text) {
+            String text = node.getNodeValue().trim();
+            if (!text.isEmpty()) {
+                updateString(digest, text);
+            }
+        }
+    }
+
+    /**
+     * Method to add the attributes of an element to the digest, sorted so the attribute order does not matter
+     * @param digest
+     * @param element
+     */
+    private void updateAttributes(MessageDigest digest, Element element) {
+        NamedNodeMap attributes = element.getAttributes();
+        SortedMap<String, String> sortedAttributes = new TreeMap<>();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Node attribute = attributes.item(i);
+            sortedAttributes.put(attribute.getNamespaceURI() + ":" + attribute.getLocalName(), attribute.getNodeValue());
+        }
+        for (Map.Entry<String, String> attribute : sortedAttributes.entrySet()) {
+            updateString(digest, attribute.getKey());
+            updateString(digest, attribute.getValue());
+        }
+    }
+
+    /**
+     * Method to add a string with a terminator to the digest
+     * @param digest
+     * @param value
+     */
+    private void updateString(MessageDigest digest, String value) {
+        if (value != null) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) 0);
+    }
+
+    /**
+     * Method to parse the DMN XML into a namespace aware DOM without resolving external entities
+     * The bytes are always read as UTF-8, like the engine parser gets them
+     * @param xml
+     * @param length
+     * @return The document
+     * @throws Exception If the XML can not be parsed
+     */
+    private Document parseDocument(byte[] xml, int length) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        DocumentBuilder builder = factory.newDocumentBuilder();
+        InputSource inputSource = new InputSource(toInputStream(xml, length));
+        inputSource.setEncoding(StandardCharsets.UTF_8.name());
+        return builder.parse(inputSource);
+    }
+
+    /**
+     * Method to write a DOM back into UTF-8 encoded XML
+     * @param document
+     * @return The XML
+     * @throws Exception If the document can not be written
+     */
+    private byte[] writeDocument(Document document) throws Exception {
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.ENCODING, StandardCharsets.UTF_8.name());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        transformer.transform(new DOMSource(document), new StreamResult(out));
+        return out.toByteArray();
+    }
+
+    private InputStream toInputStream(byte[] xml, int length) {
+        return new ByteArrayInputStream(xml, 0, length);
+    }
+
+    private MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private String toHex(byte[] hash) {
+        StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,171 @@
+package org.charter.obo.orion.dmnsimulator.engine;
+
+import java.util.*;
+
+import org.camunda.bpm.engine.variable.context.VariableContext;
+import org.camunda.bpm.engine.variable.value.TypedValue;
+
+/**
+ * Results of the input expressions evaluated during one pass of a MultiDecisionContext
+ * Decision tables of a DRG often have the same input expression, e.g. customer.segment or a date calculation;
+ * within one pass it is evaluated once and every further table with the same expression takes the result from here
+ * A result is kept for the expression text, its language and the values of the variables the expression can read,
+ * so a table which sees other values, e.g. because it requires other decisions, evaluates the expression itself
+ * A FEEL or JUEL expression reads the variables whose names occur in its text, see VariableDependencies;
+ * any other language may read every variable, so all variables are part of the key
+ * A table may change the result it gets, e.g. a listener which edits the list of an evaluated input, so lists, sets,
+ * maps and dates are copied into the cache and out of it again; other results, like strings, numbers, booleans and
+ * the java.time values of FEEL, are immutable and shared
+ * The cache belongs to one decision context and is not thread safe
+ */
+public class InputExpressionCache {
+
+    // marks a cached null result
+    private static final Object NULL = new Object();
+
+    private final Map<Key, Object> results = new HashMap<>();
+
+    private long hits;
+
+    private long misses;
+
+    /**
+     * Method to get the cached result of an input expression
+     * @param key The key from createKey
+     * @return The result, a marker for which isNull is true for a cached null, or null if the expression was not evaluated in this pass
+     */
+    Object get(Key key) {
+        Object result = results.get(key);
+        if (result == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return copy(result);
+    }
+
+    void put(Key key, Object result) {
+        results.put(key, result == null ? NULL : copy(result));
+    }
+
+    static boolean isNull(Object cached) {
+        return cached == NULL;
+    }
+
+    /**
+     * Method to copy the mutable parts of a result, so that no two tables share them
+     * @param result
+     * @return A copy of a list, set, map or date and of the values within it, the result itself if it is immutable
+     */
+    static Object copy(Object result) {
+        if (result instanceof List) {
+            List<Object> copy = new ArrayList<>(((List<?>) result).size());
+            for (Object element : (List<?>) result) {
+                copy.add(copy(element));
+            }
+            return copy;
+        }
+        if (result instanceof Set) {
+            Set<Object> copy = new LinkedHashSet<>();
+            for (Object element : (Set<?>) result) {
+                copy.add(copy(element));
+            }
+            return copy;
+        }
+        if (result instanceof Map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) result).entrySet()) {
+                copy.put(entry.getKey(), copy(entry.getValue()));
+            }
+            return copy;
+        }
+        if (result instanceof Date) {
+            return ((Date) result).clone();
+        }
+        return result;
+    }
+
+    /**
+     * Method to forget the results of the last pass
+     */
+    public void clear() {
+        results.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * @return The number of input expressions of the last pass which were taken from the cache
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return The number of input expressions of the last pass which were evaluated
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Method to create the key of an input expression for the variables of a decision
+     * @param expressionLanguage The language the expression is evaluated with
+     * @param expression The text of the expression
+     * @param variableContext The variables of the decision
+     * @return The key
+     */
+    static Key createKey(String expressionLanguage, String expression, VariableContext variableContext) {
+        boolean readsAll = !VariableDependencies.isElLanguage(expressionLanguage);
+        List<String> names = new ArrayList<>();
+        for (String name : variableContext.keySet()) {
+            if (readsAll || VariableDependencies.containsWord(expression, name)) {
+                names.add(name);
+            }
+        }
+        Collections.sort(names);
+        List<Object> values = new ArrayList<>(names.size() * 2);
+        for (String name : names) {
+            TypedValue value = variableContext.resolve(name);
+            values.add(name);
+            values.add(value == null ? null : value.getValue());
+        }
+        return new Key(expressionLanguage, expression, values);
+    }
+
+    static final class Key {
+
+        private final String expressionLanguage;
+
+        private final String expression;
+
+        private final List<Object> variables;
+
+        private final int hash;
+
+        private Key(String expressionLanguage, String expression, List<Object> variables) {
+            this.expressionLanguage = expressionLanguage;
+            this.expression = expression;
+            this.variables = variables;
+            this.hash = Objects.hash(expressionLanguage, expression, variables);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return hash == key.hash && Objects.equals(expressionLanguage, key.expressionLanguage)
+                    && expression.equals(key.expression) && variables.equals(key.variables);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package org.charter.obo.orion.dmnsimulator.engine;
+
+import static org.camunda.spin.Spin.JSON;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnDecisionLogic;
+import org.camunda.bpm.dmn.engine.impl.*;
+import org.camunda.spin.json.SpinJsonNode;
+
+/**
+ * Derives the variables a decision needs from the input expressions of its decision tables
+ * and the decision tables of its required decisions, and checks the variables of a request against them
+ * before any engine work is done
+ * An input expression which is a plain variable name, e.g. "season" or "customer.age", makes the variable required,
+ * unless it is the output of a required decision; other expressions are not checked
+ * The schema is computed once per parsed decision when the model is put into the cache
+ */
+public class InputSchema {
+
+    private static final Pattern VARIABLE_PATTERN = Pattern.compile("[A-Za-z_$][A-Za-z0-9_$]*(\\.[A-Za-z_$][A-Za-z0-9_$]*)*");
+
+    private static final Set<String> LITERALS = new HashSet<>(Arrays.asList("true", "false", "null"));
+
+    // the key is the decision itself, so a schema lives exactly as long as the parsed decision
+    private final Map<DmnDecision, List<InputField>> schemas = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Method to compute the schema of every decision of a parsed model
+     * Decisions which were reused from an earlier version of the model keep their schema
+     * @param decisions
+     */
+    public void precompute(List<DmnDecision> decisions) {
+        for (DmnDecision decision : decisions) {
+            getSchema(decision);
+        }
+    }
+
+    /**
+     * Method to get the variables a decision needs, sorted by name
+     * @param decision
+     * @return List of required variables with their expected type
+     */
+    public List<InputField> getSchema(DmnDecision decision) {
+        List<InputField> schema = schemas.get(decision);
+        if (schema == null) {
+            schema = buildSchema(decision);
+            schemas.put(decision, schema);
+        }
+        return schema;
+    }
+
+    /**
+     * Method to check the variables block of a request against the schema of a decision
+     * A variable is invalid if it is missing, has no value, its value does not fit the type of the input expression,
+     * or its value does not fit the type given in the request
+     * @param decision
+     * @param requestNode The request with the variables block
+     * @return List of errors with variable and message, empty if the variables are valid
+     */
+    public List<Object> validate(DmnDecision decision, SpinJsonNode requestNode) {
+        List<Object> errors = validateDeclaredTypes(requestNode);
+        SpinJsonNode variablesNode = requestNode.hasProp("variables") ? requestNode.prop("variables") : null;
+        if (variablesNode != null && !variablesNode.isObject()) {
+            return errors;
+        }
+        for (InputField field : getSchema(decision)) {
+            if (variablesNode == null || !variablesNode.hasProp(field.variable)) {
+                errors.add(error(field.variable, field.typeRef, "is required by decision '" + field.decision + "'"));
+                continue;
+            }
+            SpinJsonNode variableNode = variablesNode.prop(field.variable);
+            if (!variableNode.isObject() || !variableNode.hasProp("value")) {
+                continue;
+            }
+            if (!fitsTypeRef(variableNode.prop("value"), field.typeRef)) {
+                errors.add(error(field.variable, field.typeRef, "value does not fit the type " + field.typeRef
+                        + " of decision '" + field.decision + "'"));
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Method to check that every variable of the variables block of a request has a value which fits its given type
+     * Required variables are not checked, so the block may hold only some of the variables, e.g. the changed ones
+     * @param requestNode The request with the variables block
+     * @return List of errors with variable and message, empty if the variables are valid
+     */
+    public List<Object> validateDeclaredTypes(SpinJsonNode requestNode) {
+        List<Object> errors = new ArrayList<>();
+        SpinJsonNode variablesNode = requestNode.hasProp("variables") ? requestNode.prop("variables") : null;
+        if (variablesNode != null && !variablesNode.isObject()) {
+            errors.add(error("variables", null, "must be an object"));
+            return errors;
+        }
+        if (variablesNode != null) {
+            for (String name : variablesNode.fieldNames()) {
+                String message = checkDeclaredType(variablesNode.prop(name));
+                if (message != null) {
+                    errors.add(error(name, null, message));
+                }
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Method to check variables which were already converted, e.g. the merged variables of a re-evaluation,
+     * against the schemas of several decisions
+     * A variable is invalid if it is missing or its value does not fit the type of the input expression
+     * @param decisions
+     * @param variables
+     * @return List of errors with variable and message, empty if the variables are valid
+     */
+    public List<Object> validate(List<DmnDecision> decisions, Map<String, Object> variables) {
+        Map<String, Object> errors = new LinkedHashMap<>();
+        for (DmnDecision decision : decisions) {
+            for (InputField field : getSchema(decision)) {
+                SpinJsonNode error = null;
+                if (!variables.containsKey(field.variable)) {
+                    error = error(field.variable, field.typeRef, "is required by decision '" + field.decision + "'");
+                } else if (!fitsTypeRef(variables.get(field.variable), field.typeRef)) {
+                    error = error(field.variable, field.typeRef, "value does not fit the type " + field.typeRef
+                            + " of decision '" + field.decision + "'");
+                }
+                if (error != null) {
+                    errors.putIfAbsent(error.toString(), error);
+                }
+            }
+        }
+        return new ArrayList<>(errors.values());
+    }
+
+    /**
+     * Method to check the variables block of a request against the schemas of several decisions
+     * An error which several decisions report, e.g. for a variable they share, is only listed once
+     * @param decisions
+     * @param requestNode The request with the variables block
+     * @return List of errors with variable and message, empty if the variables are valid
+     */
+    public List<Object> validate(List<DmnDecision> decisions, SpinJsonNode requestNode) {
+        Map<String, Object> errors = new LinkedHashMap<>();
+        for (DmnDecision decision : decisions) {
+            for (Object error : validate(decision, requestNode)) {
+                errors.putIfAbsent(error.toString(), error);
+            }
+        }
+        return new ArrayList<>(errors.values());
+    }
+
+    /**
+     * Method to collect the variable inputs of a decision and its required decisions
+     * @param decision
+     * @return List of required variables, sorted by name
+     */
+    private List<InputField> buildSchema(DmnDecision decision) {
+        Map<String, InputField> fields = new TreeMap<>();
+        Set<String> requiredOutputs = new HashSet<>();
+        collectFields(decision, fields, requiredOutputs, Collections.newSetFromMap(new IdentityHashMap<>()), true);
+        fields.keySet().removeAll(requiredOutputs);
+        return Collections.unmodifiableList(new ArrayList<>(fields.values()));
+    }
+
+    private void collectFields(DmnDecision decision, Map<String, InputField> fields, Set<String> requiredOutputs,
+                               Set<DmnDecision> visited, boolean root) {
+        if (!visited.add(decision)) {
+            return;
+        }
+        for (DmnDecision requiredDecision : decision.getRequiredDecisions()) {
+            collectFields(requiredDecision, fields, requiredOutputs, visited, false);
+        }
+        DmnDecisionLogic decisionLogic = decision.getDecisionLogic();
+        if (decisionLogic instanceof DmnDecisionTableImpl) {
+            DmnDecisionTableImpl decisionTable = (DmnDecisionTableImpl) decisionLogic;
+            for (DmnDecisionTableInputImpl input : decisionTable.getInputs()) {
+                DmnExpressionImpl expression = input.getExpression();
+                String text = expression == null || expression.getExpression() == null ? "" : expression.getExpression().trim();
+                if (!VARIABLE_PATTERN.matcher(text).matches() || LITERALS.contains(text)) {
+                    continue;
+                }
+                boolean path = text.contains(".");
+                String variable = path ? text.substring(0, text.indexOf('.')) : text;
+                String typeRef = path || expression.getTypeDefinition() == null ? null : expression.getTypeDefinition().getTypeName();
+                InputField existing = fields.get(variable);
+                if (existing == null || (existing.typeRef == null && typeRef != null)) {
+                    fields.put(variable, new InputField(variable, typeRef, decision.getKey()));
+                }
+            }
+            if (!root) {
+                for (DmnDecisionTableOutputImpl output : decisionTable.getOutputs()) {
+                    requiredOutputs.add(output.getOutputName());
+                }
+            }
+        } else if (decisionLogic instanceof DmnDecisionLiteralExpressionImpl && !root) {
+            DmnVariableImpl variable = ((DmnDecisionLiteralExpressionImpl) decisionLogic).getVariable();
+            if (variable != null) {
+                requiredOutputs.add(variable.getName());
+            }
+        }
+    }
+
+    /**
+     * Method to check that a variable is an object with a value which fits its optional type,
+     * because the variables are cast to the given type when they are read
+     * @param variableNode
+     * @return The error message or null if the variable is valid
+     */
+    private String checkDeclaredType(SpinJsonNode variableNode) {
+        if (!variableNode.isObject() || !variableNode.hasProp("value")) {
+            return "must be an object with a value";
+        }
+        SpinJsonNode valueNode = variableNode.prop("value");
+        if (!variableNode.hasProp("type") || valueNode.isArray() || valueNode.isNull()) {
+            return null;
+        }
+        String type = variableNode.prop("type").isString() ? variableNode.prop("type").stringValue() : "";
+        Object value = valueNode.value();
+        boolean valid;
+        if (type.equalsIgnoreCase("String") || type.contains("Date")) {
+            valid = value instanceof String;
+        } else if (type.equalsIgnoreCase("Boolean")) {
+            valid = value instanceof Boolean;
+        } else if (type.equalsIgnoreCase("Integer")) {
+            valid = value instanceof Integer;
+        } else if (type.equalsIgnoreCase("Double")) {
+            valid = value instanceof Double;
+        } else if (type.equalsIgnoreCase("Long")) {
+            valid = value instanceof Long;
+        } else {
+            valid = true;
+        }
+        return valid ? null : "value " + valueNode.toString() + " is not of the given type " + type;
+    }
+
+    /**
+     * Method to check if a value can be converted to the type of an input expression by the DMN engine
+     * Numbers and booleans may also be given as strings, unknown types accept every value
+     * @param valueNode
+     * @param typeRef
+     * @return true if the value fits
+     */
+    private boolean fitsTypeRef(SpinJsonNode valueNode, String typeRef) {
+        if (typeRef == null || valueNode.isNull()) {
+            return true;
+        }
+        if ("string".equals(typeRef)) {
+            return !valueNode.isArray();
+        }
+        return fitsTypeRef(valueNode.value(), typeRef);
+    }
+
+    /**
+     * Method to check if a converted variable value can be converted to the type of an input expression by the DMN engine
+     * A date may also be given as a Date, as the variables of a request with the type Date are converted
+     * @param value
+     * @param typeRef
+     * @return true if the value fits
+     */
+    private boolean fitsTypeRef(Object value, String typeRef) {
+        if (typeRef == null || value == null) {
+            return true;
+        }
+        switch (typeRef) {
+            case "string":
+                return !(value instanceof Collection);
+            case "boolean":
+                return value instanceof Boolean || "true".equals(value) || "false".equals(value);
+            case "integer":
+                return isIntegral(value, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            case "long":
+                return isIntegral(value, Long.MIN_VALUE, Long.MAX_VALUE);
+            case "double":
+                return value instanceof Number || isNumber(value);
+            case "date":
+                return value instanceof String || value instanceof Date;
+            default:
+                return true;
+        }
+    }
+
+    private boolean isIntegral(Object value, long min, long max) {
+        if (value instanceof Integer || value instanceof Long) {
+            long longValue = ((Number) value).longValue();
+            return longValue >= min && longValue <= max;
+        }
+        if (value instanceof String) {
+            try {
+                long longValue = Long.parseLong(((String) value).trim());
+                return longValue >= min && longValue <= max;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private boolean isNumber(Object value) {
+        if (value instanceof String) {
+            try {
+                Double.parseDouble(((String) value).trim());
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private SpinJsonNode error(String variable, String expectedType, String message) {
+        SpinJsonNode errorNode = JSON("{}");
+        errorNode.prop("variable", variable);
+        if (expectedType != null) {
+            errorNode.prop("expectedType", expectedType);
+        }
+        errorNode.prop("message", message);
+        return errorNode;
+    }
+
+    /**
+     * A variable which is read by an input expression
+     */
+    public static class InputField {
+        private final String variable;
+        private final String typeRef;
+        private final String decision;
+
+        private InputField(String variable, String typeRef, String decision) {
+            this.variable = variable;
+            this.typeRef = typeRef;
+            this.decision = decision;
+        }
+
+        public String getVariable() {
+            return variable;
+        }
+
+        /**
+         * @return The type of the input expression, or null if any value is accepted
+         */
+        public String getTypeRef() {
+            return typeRef;
+        }
+
+        /**
+         * @return The key of the first decision reading the variable
+         */
+        public String getDecision() {
+            return decision;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package org.charter.obo.orion.dmnsimulator.engine;
+
+import java.util.*;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnDecisionResult;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionLogicEvaluationEvent;
+import org.camunda.bpm.dmn.engine.impl.DefaultDmnDecisionContext;
+import org.camunda.bpm.dmn.engine.impl.DefaultDmnEngineConfiguration;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionTableImpl;
+import org.camunda.bpm.dmn.engine.impl.evaluation.DmnDecisionLogicEvaluationHandler;
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.engine.variable.Variables;
+import org.camunda.bpm.engine.variable.context.VariableContext;
+import org.charter.obo.orion.dmnsimulator.profiler.ProfilingDmnEngineConfiguration;
+
+/**
+ * Decision context which evaluates several target decisions of one model in a single pass
+ * The requirement graphs of the targets are merged and every decision of the union is evaluated exactly once,
+ * required decisions before the decisions which need them; the result of a decision is kept for the whole pass,
+ * so a decision shared by several targets is not evaluated again
+ * A decision sees the variables plus the results of the decisions it requires directly or indirectly,
+ * which is what the default context gives it when it is evaluated on its own
+ * An earlier evaluation can be continued with some changed variables, then only the decisions which read a changed variable
+ * or need a decision whose result changed are evaluated again
+ * Decision table listeners are notified once per evaluated decision table, decision evaluation listeners once per evaluated target
+ * With early termination, FIRST and UNIQUE decision tables stop checking rules once the hit policy decides the result
+ * With shared inputs, an input expression which several decision tables have is evaluated once per pass for the same variable values
+ */
+public class MultiDecisionContext extends DefaultDmnDecisionContext {
+
+    private final Map<DmnDecision, DmnDecisionLogicEvaluationEvent> evaluationEvents = new LinkedHashMap<>();
+
+    private final Set<DmnDecision> evaluatedDecisions = new LinkedHashSet<>();
+
+    private final InputExpressionCache inputExpressionCache;
+
+    public MultiDecisionContext(DefaultDmnEngineConfiguration configuration) {
+        this(configuration, false, false);
+    }
+
+    /**
+     * @param configuration
+     * @param earlyTermination Whether FIRST and UNIQUE decision tables stop checking rules once the result is decided,
+     *                         see SimulatorDecisionTableEvaluationHandler
+     * @param sharedInputs Whether the results of input expressions are shared between the decision tables of a pass,
+     *                     see InputExpressionCache
+     */
+    public MultiDecisionContext(DefaultDmnEngineConfiguration configuration, boolean earlyTermination, boolean sharedInputs) {
+        super(configuration);
+        inputExpressionCache = sharedInputs ? new InputExpressionCache() : null;
+        if (configuration instanceof ProfilingDmnEngineConfiguration) {
+            ((ProfilingDmnEngineConfiguration) configuration).putEvaluationHandlers(evaluationHandlers, earlyTermination, inputExpressionCache);
+        } else if (earlyTermination || sharedInputs) {
+            evaluationHandlers.put(DmnDecisionTableImpl.class, new SimulatorDecisionTableEvaluationHandler(configuration, earlyTermination,
+                    inputExpressionCache));
+        }
+    }
+
+    /**
+     * Entry Method to evaluate the target decisions
+     * @param targets The decisions to evaluate, duplicates are evaluated once
+     * @param variableContext
+     * @return The result of every evaluated decision, the targets and all decisions they require, in evaluation order
+     */
+    public Map<DmnDecision, DmnDecisionResult> evaluateDecisions(List<DmnDecision> targets, VariableContext variableContext) {
+        return reevaluateDecisions(targets, variableContext, Collections.<DmnDecision, DmnDecisionResult>emptyMap(),
+                Collections.<DmnDecision, DmnDecisionLogicEvaluationEvent>emptyMap(), Collections.<String>emptySet(), null);
+    }
+
+    /**
+     * Entry Method to evaluate the target decisions again after some variables changed
+     * A decision is evaluated again if it reads a changed variable or if the result of a decision it requires changed,
+     * the result and event of every other decision are taken from the earlier evaluation
+     * @param targets The decisions to evaluate, duplicates are evaluated once
+     * @param variableContext All variables, with the changed values
+     * @param previousResults The results of the earlier evaluation
+     * @param previousEvents The evaluation events of the earlier evaluation
+     * @param changedVariables The names of the variables whose values differ from the earlier evaluation
+     * @param dependencies The variables read by the decisions, may be null if there is no earlier evaluation
+     * @return The result of every decision, the targets and all decisions they require, in evaluation order
+     */
+    public Map<DmnDecision, DmnDecisionResult> reevaluateDecisions(List<DmnDecision> targets, VariableContext variableContext,
+                                                                   Map<DmnDecision, DmnDecisionResult> previousResults,
+                                                                   Map<DmnDecision, DmnDecisionLogicEvaluationEvent> previousEvents,
+                                                                   Collection<String> changedVariables, VariableDependencies dependencies) {
+        evaluationEvents.clear();
+        evaluatedDecisions.clear();
+        if (inputExpressionCache != null) {
+            inputExpressionCache.clear();
+        }
+        VariableMap variables = buildVariableMapFromVariableContext(variableContext);
+        List<DmnDecision> evaluationOrder = new ArrayList<>();
+        for (DmnDecision target : targets) {
+            buildDecisionTree(target, evaluationOrder);
+        }
+        Map<DmnDecision, DmnDecisionResult> results = new LinkedHashMap<>();
+        Set<DmnDecision> changedResults = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (DmnDecision decision : evaluationOrder) {
+            List<DmnDecision> requiredDecisions = getRequiredClosure(decision, evaluationOrder);
+            DmnDecisionResult previousResult = previousResults.get(decision);
+            if (previousResult != null && previousEvents.containsKey(decision) && !dependencies.readsAny(decision, changedVariables)
+                    && Collections.disjoint(requiredDecisions, changedResults)) {
+                results.put(decision, previousResult);
+                evaluationEvents.put(decision, previousEvents.get(decision));
+                continue;
+            }
+            VariableMap decisionVariables = variables;
+            if (!requiredDecisions.isEmpty()) {
+                decisionVariables = Variables.fromMap(variables);
+                for (DmnDecision requiredDecision : requiredDecisions) {
+                    addResultToVariableContext(results.get(requiredDecision), decisionVariables, requiredDecision);
+                }
+            }
+            DmnDecisionLogicEvaluationHandler handler = getDecisionEvaluationHandler(decision);
+            DmnDecisionLogicEvaluationEvent event = handler.evaluate(decision, decisionVariables.asVariableContext());
+            DmnDecisionResult result = handler.generateDecisionResult(event);
+            evaluationEvents.put(decision, event);
+            evaluatedDecisions.add(decision);
+            results.put(decision, result);
+            if (previousResult == null || !previousResult.getResultList().equals(result.getResultList())) {
+                changedResults.add(decision);
+            }
+        }
+        for (DmnDecision target : new LinkedHashSet<>(targets)) {
+            if (!evaluatedDecisions.contains(target)) {
+                continue;
+            }
+            List<DmnDecisionLogicEvaluationEvent> targetEvents = new ArrayList<>();
+            for (DmnDecision decision : getRequiredClosure(target, evaluationOrder)) {
+                if (evaluatedDecisions.contains(decision)) {
+                    targetEvents.add(evaluationEvents.get(decision));
+                }
+            }
+            targetEvents.add(evaluationEvents.get(target));
+            generateDecisionEvaluationEvent(targetEvents);
+        }
+        return results;
+    }
+
+    /**
+     * @return The evaluation event of every decision of the last pass, including the events taken from an earlier evaluation
+     */
+    public Map<DmnDecision, DmnDecisionLogicEvaluationEvent> getEvaluationEvents() {
+        return evaluationEvents;
+    }
+
+    /**
+     * @return The decisions which were evaluated by the last pass, in evaluation order
+     */
+    public Set<DmnDecision> getEvaluatedDecisions() {
+        return evaluatedDecisions;
+    }
+
+    /**
+     * @return The shared input expression results of the last pass, or null if inputs are not shared
+     */
+    public InputExpressionCache getInputExpressionCache() {
+        return inputExpressionCache;
+    }
+
+    /**
+     * Method to get the decisions a decision requires directly or indirectly
+     * @param decision
+     * @param evaluationOrder
+     * @return The required decisions in evaluation order
+     */
+    private List<DmnDecision> getRequiredClosure(DmnDecision decision, List<DmnDecision> evaluationOrder) {
+        Set<DmnDecision> closure = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<DmnDecision> pending = new ArrayDeque<>(decision.getRequiredDecisions());
+        while (!pending.isEmpty()) {
+            DmnDecision requiredDecision = pending.pop();
+            if (closure.add(requiredDecision)) {
+                pending.addAll(requiredDecision.getRequiredDecisions());
+            }
+        }
+        List<DmnDecision> ordered = new ArrayList<>(closure.size());
+        for (DmnDecision evaluated : evaluationOrder) {
+            if (closure.contains(evaluated)) {
+                ordered.add(evaluated);
+            }
+        }
+        return ordered;
+    }
+}
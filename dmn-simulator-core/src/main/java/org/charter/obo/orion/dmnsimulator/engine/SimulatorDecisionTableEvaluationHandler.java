@@ -0,0 +1,148 @@
+package org.charter.obo.orion.dmnsimulator.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.camunda.bpm.dmn.engine.DmnDecisionLogic;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionTableEvaluationEvent;
+import org.camunda.bpm.dmn.engine.delegate.DmnEvaluatedDecisionRule;
+import org.camunda.bpm.dmn.engine.delegate.DmnEvaluatedInput;
+import org.camunda.bpm.dmn.engine.impl.*;
+import org.camunda.bpm.dmn.engine.impl.delegate.DmnDecisionTableEvaluationEventImpl;
+import org.camunda.bpm.dmn.engine.impl.evaluation.DecisionTableEvaluationHandler;
+import org.camunda.bpm.dmn.engine.impl.hitpolicy.HitPolicyEntry;
+import org.camunda.bpm.engine.variable.context.VariableContext;
+import org.camunda.bpm.model.dmn.HitPolicy;
+
+/**
+ * Decision table evaluation handler of the simulator, which can stop checking rules as soon as the hit policy decides the result
+ * and can share the results of input expressions between the decision tables of one pass
+ *
+ * The default handler checks every rule input by input and applies the hit policy afterwards;
+ * with early termination a FIRST table is checked rule by rule until the first matching rule,
+ * a UNIQUE table until the second matching rule, which is a violation of the hit policy anyway
+ * All input expressions are still evaluated first, so the evaluated inputs and the matched rules are the same as with
+ * the default handler; rules after the deciding match are not checked, so an error in one of them is not reported
+ * The executed decision elements of the event are the input and output entries of the checked rules
+ * Tables with another hit policy, and all tables if early termination is off, are checked like by the default handler
+ *
+ * With an InputExpressionCache an input expression is evaluated once per pass for the same variable values,
+ * see InputExpressionCache for the key
+ */
+public class SimulatorDecisionTableEvaluationHandler extends DecisionTableEvaluationHandler {
+
+    private final boolean earlyTermination;
+
+    private final InputExpressionCache inputExpressionCache;
+
+    /**
+     * @param configuration
+     * @param earlyTermination Whether FIRST and UNIQUE tables stop checking rules once the result is decided
+     * @param inputExpressionCache The results of the input expressions of the pass, or null to evaluate every input expression
+     */
+    public SimulatorDecisionTableEvaluationHandler(DefaultDmnEngineConfiguration configuration, boolean earlyTermination,
+                                                   InputExpressionCache inputExpressionCache) {
+        super(configuration);
+        this.earlyTermination = earlyTermination;
+        this.inputExpressionCache = inputExpressionCache;
+    }
+
+    @Override
+    protected void evaluateDecisionTable(DmnDecisionTableImpl decisionTable, VariableContext variableContext,
+                                         DmnDecisionTableEvaluationEventImpl evaluationResult) {
+        int maxMatches = earlyTermination ? getMaxMatches(decisionTable) : 0;
+        if (maxMatches == 0) {
+            super.evaluateDecisionTable(decisionTable, variableContext, evaluationResult);
+            return;
+        }
+        List<DmnDecisionTableInputImpl> inputs = decisionTable.getInputs();
+        List<VariableContext> inputContexts = new ArrayList<>(inputs.size());
+        for (DmnDecisionTableInputImpl input : inputs) {
+            DmnEvaluatedInput evaluatedInput = evaluateInput(input, variableContext);
+            evaluationResult.getInputs().add(evaluatedInput);
+            inputContexts.add(getLocalVariableContext(input, evaluatedInput, variableContext));
+        }
+        List<DmnEvaluatedDecisionRule> matchingRules = new ArrayList<>(maxMatches);
+        long checkedRules = 0;
+        for (DmnDecisionTableRuleImpl rule : decisionTable.getRules()) {
+            checkedRules++;
+            if (isRuleApplicable(inputs, rule, inputContexts)) {
+                matchingRules.add(evaluateMatchingRule(decisionTable.getOutputs(), rule, variableContext));
+                if (matchingRules.size() == maxMatches) {
+                    break;
+                }
+            }
+        }
+        evaluationResult.setMatchingRules(matchingRules);
+        evaluationResult.setExecutedDecisionElements(checkedRules * (inputs.size() + decisionTable.getOutputs().size()));
+    }
+
+    @Override
+    protected Object evaluateInputExpression(DmnExpressionImpl expression, VariableContext variableContext) {
+        if (inputExpressionCache == null || expression.getExpression() == null) {
+            return super.evaluateInputExpression(expression, variableContext);
+        }
+        String expressionLanguage = expression.getExpressionLanguage() != null ? expression.getExpressionLanguage()
+                : inputExpressionExpressionLanguage;
+        InputExpressionCache.Key key = InputExpressionCache.createKey(expressionLanguage, expression.getExpression(), variableContext);
+        Object cached = inputExpressionCache.get(key);
+        if (cached != null) {
+            return InputExpressionCache.isNull(cached) ? null : cached;
+        }
+        Object result = super.evaluateInputExpression(expression, variableContext);
+        inputExpressionCache.put(key, result);
+        return result;
+    }
+
+    /**
+     * Method to get the number of rules checked for an evaluation event, from its executed decision elements:
+     * every rule of the table with the default handler, the rules up to the deciding match with early termination
+     * @param evaluationEvent
+     * @return The checked rules, or 0 if the decision of the event is not a decision table
+     */
+    public static int getCheckedRules(DmnDecisionTableEvaluationEvent evaluationEvent) {
+        DmnDecisionLogic decisionLogic = evaluationEvent.getDecision().getDecisionLogic();
+        if (!(decisionLogic instanceof DmnDecisionTableImpl)) {
+            return 0;
+        }
+        DmnDecisionTableImpl decisionTable = (DmnDecisionTableImpl) decisionLogic;
+        int elementsPerRule = decisionTable.getInputs().size() + decisionTable.getOutputs().size();
+        return elementsPerRule == 0 ? 0 : (int) (evaluationEvent.getExecutedDecisionElements() / elementsPerRule);
+    }
+
+    /**
+     * Method to check the conditions of a rule, until the first condition which does not apply
+     * @param inputs
+     * @param rule
+     * @param inputContexts The variable context of every input, with the value of the input
+     * @return true if all conditions apply
+     */
+    private boolean isRuleApplicable(List<DmnDecisionTableInputImpl> inputs, DmnDecisionTableRuleImpl rule, List<VariableContext> inputContexts) {
+        List<DmnExpressionImpl> conditions = rule.getConditions();
+        for (int i = 0; i < inputs.size(); i++) {
+            if (!isConditionApplicable(inputs.get(i), conditions.get(i), inputContexts.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Method to get the number of matching rules after which the hit policy of a table is decided
+     * @param decisionTable
+     * @return 1 for FIRST, 2 for UNIQUE, 0 if all rules have to be checked
+     */
+    private static int getMaxMatches(DmnDecisionTableImpl decisionTable) {
+        if (decisionTable.getHitPolicyHandler() == null) {
+            return 0;
+        }
+        HitPolicyEntry hitPolicy = decisionTable.getHitPolicyHandler().getHitPolicyEntry();
+        if (hitPolicy.getAggregator() != null) {
+            return 0;
+        }
+        if (hitPolicy.getHitPolicy() == HitPolicy.FIRST) {
+            return 1;
+        }
+        return hitPolicy.getHitPolicy() == HitPolicy.UNIQUE ? 2 : 0;
+    }
+}
@@ -0,0 +1,114 @@
+package org.charter.obo.orion.dmnsimulator.engine;
+
+import java.util.*;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnDecisionLogic;
+import org.camunda.bpm.dmn.engine.impl.*;
+
+/**
+ * Tracks which variables the expressions of a decision can read, to find the decisions a changed variable affects
+ * The texts of the input expressions, input entries, output entries and literal expression of a decision are collected once;
+ * a variable is read if its name occurs in one of them as a whole word
+ * This over-approximates, e.g. a name inside a string literal counts as read, which only costs a needless re-evaluation
+ * Expressions of a script language may read variables indirectly, so such a decision reads every variable
+ * The results of required decisions are not covered here, the caller follows the requirements itself
+ */
+public class VariableDependencies {
+
+    // the key is the decision itself, so the texts live exactly as long as the parsed decision
+    private final Map<DmnDecision, List<String>> expressions = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Method to check if a decision reads at least one of the variables
+     * @param decision
+     * @param variableNames
+     * @return true if one of the variables may be read by an expression of the decision
+     */
+    public boolean readsAny(DmnDecision decision, Collection<String> variableNames) {
+        List<String> texts = getExpressions(decision);
+        if (texts == null) {
+            return !variableNames.isEmpty();
+        }
+        for (String variableName : variableNames) {
+            for (String text : texts) {
+                if (containsWord(text, variableName)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Method to get the expression texts of a decision
+     * @param decision
+     * @return The texts, or null if the decision may read any variable
+     */
+    private List<String> getExpressions(DmnDecision decision) {
+        if (expressions.containsKey(decision)) {
+            return expressions.get(decision);
+        }
+        List<String> texts = collectExpressions(decision.getDecisionLogic());
+        expressions.put(decision, texts);
+        return texts;
+    }
+
+    private List<String> collectExpressions(DmnDecisionLogic decisionLogic) {
+        List<DmnExpressionImpl> decisionExpressions = new ArrayList<>();
+        if (decisionLogic instanceof DmnDecisionTableImpl) {
+            DmnDecisionTableImpl decisionTable = (DmnDecisionTableImpl) decisionLogic;
+            for (DmnDecisionTableInputImpl input : decisionTable.getInputs()) {
+                decisionExpressions.add(input.getExpression());
+            }
+            for (DmnDecisionTableRuleImpl rule : decisionTable.getRules()) {
+                decisionExpressions.addAll(rule.getConditions());
+                decisionExpressions.addAll(rule.getConclusions());
+            }
+        } else if (decisionLogic instanceof DmnDecisionLiteralExpressionImpl) {
+            decisionExpressions.add(((DmnDecisionLiteralExpressionImpl) decisionLogic).getExpression());
+        } else {
+            return null;
+        }
+        List<String> texts = new ArrayList<>();
+        for (DmnExpressionImpl expression : decisionExpressions) {
+            if (expression == null || expression.getExpression() == null) {
+                continue;
+            }
+            if (!isElLanguage(expression.getExpressionLanguage())) {
+                return null;
+            }
+            texts.add(expression.getExpression());
+        }
+        return texts;
+    }
+
+    /**
+     * Method to check if an expression language only reads variables by name
+     * @param expressionLanguage The language of the expression, null for the default FEEL
+     * @return true for FEEL and JUEL
+     */
+    static boolean isElLanguage(String expressionLanguage) {
+        if (expressionLanguage == null) {
+            return true;
+        }
+        String language = expressionLanguage.toLowerCase(Locale.ROOT);
+        return language.contains("feel") || language.equals("juel");
+    }
+
+    static boolean containsWord(String text, String word) {
+        int index = text.indexOf(word);
+        while (index >= 0) {
+            int end = index + word.length();
+            if ((index == 0 || !isNamePart(text.charAt(index - 1))) && (end == text.length() || !isNamePart(text.charAt(end)))) {
+                return true;
+            }
+            index = text.indexOf(word, index + 1);
+        }
+        return false;
+    }
+
+    private static boolean isNamePart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+}
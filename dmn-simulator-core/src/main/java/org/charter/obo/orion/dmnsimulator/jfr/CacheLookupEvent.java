@@ -0,0 +1,20 @@
+package org.charter.obo.orion.dmnsimulator.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event for a lookup of a parsed model in the model cache
+ */
+@Name("org.charter.dmnsimulator.CacheLookup")
+@Label("DMN Model Cache Lookup")
+@Category({"DMN Simulator"})
+@Enabled(false)
+@StackTrace(false)
+class CacheLookupEvent extends Event {
+
+    @Label("Model Hash")
+    String modelHash;
+
+    @Label("Hit")
+    boolean hit;
+}
@@ -0,0 +1,28 @@
+package org.charter.obo.orion.dmnsimulator.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event for the evaluation of a decision with all its required decisions
+ */
+@Name("org.charter.dmnsimulator.DecisionEvaluation")
+@Label("DMN Decision Evaluation")
+@Category({"DMN Simulator"})
+@Enabled(false)
+@StackTrace(false)
+class DecisionEvaluationEvent extends Event {
+
+    @Label("Decision Key")
+    String decisionKey;
+
+    @Label("Decision Tables")
+    @Description("The number of evaluated decision tables, including required decisions")
+    int decisionTables;
+
+    @Label("Rules")
+    @Description("The number of rules of the evaluated decision tables")
+    int rules;
+
+    @Label("Matched Rules")
+    int matchedRules;
+}
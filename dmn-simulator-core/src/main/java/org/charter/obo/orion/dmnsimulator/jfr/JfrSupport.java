@@ -0,0 +1,92 @@
+package org.charter.obo.orion.dmnsimulator.jfr;
+
+/**
+ * Class which creates and commits the JFR events
+ * It is only loaded by SimulatorEvents if the running JVM has JFR, the events are passed around as Object
+ * A begin method returns null if the event type is not enabled by a recording, so nothing is measured
+ */
+final class JfrSupport {
+
+    private JfrSupport() {
+    }
+
+    static Object beginParse() {
+        ModelParseEvent event = new ModelParseEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void endParse(Object handle, String source, String decisionKey, int decisions, long xmlBytes) {
+        ModelParseEvent event = (ModelParseEvent) handle;
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = source;
+            event.decisionKey = decisionKey;
+            event.decisions = decisions;
+            event.xmlBytes = xmlBytes;
+            event.commit();
+        }
+    }
+
+    static Object beginCacheLookup() {
+        CacheLookupEvent event = new CacheLookupEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void endCacheLookup(Object handle, String modelHash, boolean hit) {
+        CacheLookupEvent event = (CacheLookupEvent) handle;
+        event.end();
+        if (event.shouldCommit()) {
+            event.modelHash = modelHash;
+            event.hit = hit;
+            event.commit();
+        }
+    }
+
+    static Object beginEvaluation() {
+        DecisionEvaluationEvent event = new DecisionEvaluationEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void endEvaluation(Object handle, String decisionKey, int decisionTables, int rules, int matchedRules) {
+        DecisionEvaluationEvent event = (DecisionEvaluationEvent) handle;
+        event.end();
+        if (event.shouldCommit()) {
+            event.decisionKey = decisionKey;
+            event.decisionTables = decisionTables;
+            event.rules = rules;
+            event.matchedRules = matchedRules;
+            event.commit();
+        }
+    }
+
+    static Object beginSerialization() {
+        SerializationEvent event = new SerializationEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void endSerialization(Object handle, String endpoint, int characters) {
+        SerializationEvent event = (SerializationEvent) handle;
+        event.end();
+        if (event.shouldCommit()) {
+            event.endpoint = endpoint;
+            event.characters = characters;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.charter.obo.orion.dmnsimulator.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event for the transformation of a DMN XML into decisions by the DMN engine
+ */
+@Name("org.charter.dmnsimulator.ModelParse")
+@Label("DMN Model Parse")
+@Category({"DMN Simulator"})
+@Description("Parse of a DMN XML by the evaluation path or a metadata service")
+@Enabled(false)
+@StackTrace(false)
+class ModelParseEvent extends Event {
+
+    @Label("Source")
+    @Description("The service which parsed the model")
+    String source;
+
+    @Label("Decision Key")
+    @Description("The parsed decision, empty if all decisions were parsed")
+    String decisionKey;
+
+    @Label("Decisions")
+    int decisions;
+
+    @Label("XML Size")
+    @DataAmount
+    long xmlBytes;
+}
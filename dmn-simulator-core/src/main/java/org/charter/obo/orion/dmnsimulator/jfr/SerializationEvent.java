@@ -0,0 +1,20 @@
+package org.charter.obo.orion.dmnsimulator.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event for the serialization of a response into JSON
+ */
+@Name("org.charter.dmnsimulator.Serialization")
+@Label("DMN Response Serialization")
+@Category({"DMN Simulator"})
+@Enabled(false)
+@StackTrace(false)
+class SerializationEvent extends Event {
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Characters")
+    int characters;
+}
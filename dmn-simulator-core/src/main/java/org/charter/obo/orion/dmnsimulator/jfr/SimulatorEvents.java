@@ -0,0 +1,150 @@
+package org.charter.obo.orion.dmnsimulator.jfr;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.List;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnEngine;
+
+/**
+ * Entry class for the Java Flight Recorder events of the simulator phases
+ * All events are disabled by default and are only enabled by a recording, e.g. with the settings in jfr/dmnsimulator.jfc
+ * While an event is disabled its begin method returns null and its end method returns right away
+ * On a JVM without JFR nothing is recorded and the event classes are never loaded
+ */
+public final class SimulatorEvents {
+
+    private static final boolean AVAILABLE = isJfrAvailable();
+
+    private SimulatorEvents() {
+    }
+
+    /**
+     * Method to start measuring a model parse
+     * @return The event to pass to endParse, or null if the event is not recorded
+     */
+    public static Object beginParse() {
+        return AVAILABLE ? JfrSupport.beginParse() : null;
+    }
+
+    /**
+     * Method to commit a model parse event
+     * @param event The result of beginParse
+     * @param source The service which parsed the model
+     * @param decisionKey The parsed decision, or null if all decisions were parsed
+     * @param decisions The number of parsed decisions
+     * @param xmlBytes The size of the XML, or -1 if it is not known
+     */
+    public static void endParse(Object event, String source, String decisionKey, int decisions, long xmlBytes) {
+        if (event != null) {
+            JfrSupport.endParse(event, source, decisionKey, decisions, xmlBytes);
+        }
+    }
+
+    /**
+     * Method to start measuring a model cache lookup
+     * @return The event to pass to endCacheLookup, or null if the event is not recorded
+     */
+    public static Object beginCacheLookup() {
+        return AVAILABLE ? JfrSupport.beginCacheLookup() : null;
+    }
+
+    /**
+     * Method to commit a model cache lookup event
+     * @param event The result of beginCacheLookup
+     * @param modelHash
+     * @param hit
+     */
+    public static void endCacheLookup(Object event, String modelHash, boolean hit) {
+        if (event != null) {
+            JfrSupport.endCacheLookup(event, modelHash, hit);
+        }
+    }
+
+    /**
+     * Method to start measuring a decision evaluation
+     * @return The event to pass to endEvaluation, or null if the event is not recorded
+     */
+    public static Object beginEvaluation() {
+        return AVAILABLE ? JfrSupport.beginEvaluation() : null;
+    }
+
+    /**
+     * Method to commit a decision evaluation event
+     * @param event The result of beginEvaluation
+     * @param decisionKey
+     * @param decisionTables The number of evaluated decision tables
+     * @param rules The number of rules of the evaluated decision tables
+     * @param matchedRules The number of matched rules
+     */
+    public static void endEvaluation(Object event, String decisionKey, int decisionTables, int rules, int matchedRules) {
+        if (event != null) {
+            JfrSupport.endEvaluation(event, decisionKey, decisionTables, rules, matchedRules);
+        }
+    }
+
+    /**
+     * Method to start measuring a response serialization
+     * @return The event to pass to endSerialization, or null if the event is not recorded
+     */
+    public static Object beginSerialization() {
+        return AVAILABLE ? JfrSupport.beginSerialization() : null;
+    }
+
+    /**
+     * Method to commit a response serialization event
+     * @param event The result of beginSerialization
+     * @param endpoint
+     * @param characters The length of the JSON
+     */
+    public static void endSerialization(Object event, String endpoint, int characters) {
+        if (event != null) {
+            JfrSupport.endSerialization(event, endpoint, characters);
+        }
+    }
+
+    /**
+     * Method to parse all decisions of a DMN XML with a model parse event
+     * @param dmnEngine
+     * @param inputStream
+     * @param source The service which parses the model
+     * @return List of all decisions of the model
+     */
+    public static List<DmnDecision> parseDecisions(DmnEngine dmnEngine, InputStream inputStream, String source) {
+        long xmlBytes = getSize(inputStream);
+        Object event = beginParse();
+        List<DmnDecision> decisions = dmnEngine.parseDecisions(inputStream);
+        endParse(event, source, null, decisions.size(), xmlBytes);
+        return decisions;
+    }
+
+    /**
+     * Method to parse one decision of a DMN XML with a model parse event
+     * @param dmnEngine
+     * @param decisionKey
+     * @param inputStream
+     * @param source The service which parses the model
+     * @return The decision
+     */
+    public static DmnDecision parseDecision(DmnEngine dmnEngine, String decisionKey, InputStream inputStream, String source) {
+        long xmlBytes = getSize(inputStream);
+        Object event = beginParse();
+        DmnDecision decision = dmnEngine.parseDecision(decisionKey, inputStream);
+        endParse(event, source, decisionKey, 1, xmlBytes);
+        return decision;
+    }
+
+    private static long getSize(InputStream inputStream) {
+        return inputStream instanceof ByteArrayInputStream ? ((ByteArrayInputStream) inputStream).available() : -1L;
+    }
+
+    private static boolean isJfrAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.charter.obo.orion.dmnsimulator.profiler;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class which sums up the invocations and the time spent per expression of a decision
+ * An expression is identified by the decision key, the id of the input or output clause (or of the literal expression),
+ * the kind of expression and its text; the same text in another clause is counted separately
+ * It is safe to be used by concurrent evaluations
+ */
+public class ExpressionProfiler {
+
+    public static final String INPUT_EXPRESSION = "inputExpression";
+
+    public static final String INPUT_ENTRY = "inputEntry";
+
+    public static final String OUTPUT_ENTRY = "outputEntry";
+
+    public static final String LITERAL_EXPRESSION = "literalExpression";
+
+    private final Map<ExpressionKey, ExpressionStatistics> statistics = new ConcurrentHashMap<>();
+
+    /**
+     * Method to add one evaluation of an expression
+     * @param decisionKey
+     * @param clauseId The id of the input or output clause, or of the literal expression
+     * @param kind One of INPUT_EXPRESSION, INPUT_ENTRY, OUTPUT_ENTRY, LITERAL_EXPRESSION
+     * @param language The expression language
+     * @param expression The expression text
+     * @param nanos The time the evaluation took
+     */
+    public void record(String decisionKey, String clauseId, String kind, String language, String expression, long nanos) {
+        ExpressionKey key = new ExpressionKey(decisionKey, clauseId, kind, language, expression);
+        ExpressionStatistics expressionStatistics = statistics.get(key);
+        if (expressionStatistics == null) {
+            expressionStatistics = statistics.computeIfAbsent(key, ExpressionStatistics::new);
+        }
+        expressionStatistics.invocations.increment();
+        expressionStatistics.nanos.add(nanos);
+    }
+
+    /**
+     * Method to get the profile of all recorded expressions, the most expensive first
+     * @param limit The maximum number of expressions
+     * @return List of expressions with their invocations, total and mean time
+     */
+    public List<Map<String, Object>> getProfile(int limit) {
+        List<Map<String, Object>> profile = new ArrayList<>();
+        for (ExpressionStatistics expressionStatistics : statistics.values()) {
+            long invocations = expressionStatistics.invocations.sum();
+            long nanos = expressionStatistics.nanos.sum();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("decision", expressionStatistics.key.decisionKey);
+            entry.put("clauseId", expressionStatistics.key.clauseId);
+            entry.put("kind", expressionStatistics.key.kind);
+            entry.put("language", expressionStatistics.key.language);
+            entry.put("expression", expressionStatistics.key.expression);
+            entry.put("invocations", invocations);
+            entry.put("totalMicros", nanos / 1000L);
+            entry.put("meanNanos", invocations == 0 ? 0L : nanos / invocations);
+            profile.add(entry);
+        }
+        profile.sort((first, second) -> Long.compare((Long) second.get("totalMicros"), (Long) first.get("totalMicros")));
+        return profile.size() > limit ? new ArrayList<>(profile.subList(0, limit)) : profile;
+    }
+
+    /**
+     * Method to remove all recorded expressions
+     */
+    public void reset() {
+        statistics.clear();
+    }
+
+    private static class ExpressionKey {
+        private final String decisionKey;
+        private final String clauseId;
+        private final String kind;
+        private final String language;
+        private final String expression;
+        private final int hash;
+
+        private ExpressionKey(String decisionKey, String clauseId, String kind, String language, String expression) {
+            this.decisionKey = decisionKey;
+            this.clauseId = clauseId;
+            this.kind = kind;
+            this.language = language;
+            this.expression = expression;
+            this.hash = Objects.hash(decisionKey, clauseId, kind, expression);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ExpressionKey)) {
+                return false;
+            }
+            ExpressionKey other = (ExpressionKey) o;
+            return hash == other.hash && Objects.equals(decisionKey, other.decisionKey) && Objects.equals(clauseId, other.clauseId)
+                    && Objects.equals(kind, other.kind) && Objects.equals(language, other.language)
+                    && Objects.equals(expression, other.expression);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static class ExpressionStatistics {
+        private final ExpressionKey key;
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        private ExpressionStatistics(ExpressionKey key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.charter.obo.orion.dmnsimulator.profiler;
+
+import java.util.List;
+import java.util.Map;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionLogicEvaluationEvent;
+import org.camunda.bpm.dmn.engine.delegate.DmnEvaluatedInput;
+import org.camunda.bpm.dmn.engine.delegate.DmnEvaluatedOutput;
+import org.camunda.bpm.dmn.engine.impl.*;
+import org.camunda.bpm.engine.variable.context.VariableContext;
+import org.charter.obo.orion.dmnsimulator.engine.InputExpressionCache;
+import org.charter.obo.orion.dmnsimulator.engine.SimulatorDecisionTableEvaluationHandler;
+
+/**
+ * Decision table evaluation handler which measures the input expressions, input entries and output entries
+ * A handler belongs to one decision context, which evaluates the decisions of one call one after another,
+ * so the decision and rule which are evaluated at the moment can be kept in fields
+ * With early termination only the expressions of the checked rules are measured,
+ * an input expression taken from the InputExpressionCache is measured with the time of the lookup
+ */
+class ProfilingDecisionTableEvaluationHandler extends SimulatorDecisionTableEvaluationHandler {
+
+    private final ExpressionProfiler expressionProfiler;
+
+    private String decisionKey;
+
+    private List<DmnDecisionTableOutputImpl> outputs;
+
+    private DmnDecisionTableRuleImpl rule;
+
+    ProfilingDecisionTableEvaluationHandler(DefaultDmnEngineConfiguration configuration, ExpressionProfiler expressionProfiler,
+                                            boolean earlyTermination, InputExpressionCache inputExpressionCache) {
+        super(configuration, earlyTermination, inputExpressionCache);
+        this.expressionProfiler = expressionProfiler;
+    }
+
+    @Override
+    public DmnDecisionLogicEvaluationEvent evaluate(DmnDecision decision, VariableContext variableContext) {
+        decisionKey = decision.getKey();
+        return super.evaluate(decision, variableContext);
+    }
+
+    @Override
+    protected DmnEvaluatedInput evaluateInput(DmnDecisionTableInputImpl input, VariableContext variableContext) {
+        long start = System.nanoTime();
+        try {
+            return super.evaluateInput(input, variableContext);
+        } finally {
+            DmnExpressionImpl expression = input.getExpression();
+            expressionProfiler.record(decisionKey, input.getId(), ExpressionProfiler.INPUT_EXPRESSION,
+                    getLanguage(expression, inputExpressionExpressionLanguage), expression.getExpression(), System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    protected Object evaluateInputEntry(DmnDecisionTableInputImpl input, DmnExpressionImpl condition, VariableContext variableContext) {
+        long start = System.nanoTime();
+        try {
+            return super.evaluateInputEntry(input, condition, variableContext);
+        } finally {
+            expressionProfiler.record(decisionKey, input.getId(), ExpressionProfiler.INPUT_ENTRY,
+                    getLanguage(condition, inputEntryExpressionLanguage), condition.getExpression(), System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    protected Map<String, DmnEvaluatedOutput> evaluateOutputEntries(List<DmnDecisionTableOutputImpl> decisionTableOutputs,
+                                                                    DmnDecisionTableRuleImpl matchingRule, VariableContext variableContext) {
+        outputs = decisionTableOutputs;
+        rule = matchingRule;
+        return super.evaluateOutputEntries(decisionTableOutputs, matchingRule, variableContext);
+    }
+
+    @Override
+    protected Object evaluateOutputEntry(DmnExpressionImpl conclusion, VariableContext variableContext) {
+        long start = System.nanoTime();
+        try {
+            return super.evaluateOutputEntry(conclusion, variableContext);
+        } finally {
+            expressionProfiler.record(decisionKey, getOutputId(conclusion), ExpressionProfiler.OUTPUT_ENTRY,
+                    getLanguage(conclusion, outputEntryExpressionLanguage), conclusion.getExpression(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Method to find the output clause of a conclusion, the conclusions of a rule are in the order of the outputs
+     * @param conclusion
+     * @return The id of the output clause
+     */
+    private String getOutputId(DmnExpressionImpl conclusion) {
+        List<DmnExpressionImpl> conclusions = rule.getConclusions();
+        for (int i = 0; i < conclusions.size(); i++) {
+            if (conclusions.get(i) == conclusion) {
+                return outputs.get(i).getId();
+            }
+        }
+        return conclusion.getId();
+    }
+
+    static String getLanguage(DmnExpressionImpl expression, String defaultLanguage) {
+        return expression.getExpressionLanguage() != null ? expression.getExpressionLanguage() : defaultLanguage;
+    }
+}
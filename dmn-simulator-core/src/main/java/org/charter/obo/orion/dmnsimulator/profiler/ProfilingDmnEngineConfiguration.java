@@ -0,0 +1,85 @@
+package org.charter.obo.orion.dmnsimulator.profiler;
+
+import java.util.Map;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnDecisionLogic;
+import org.camunda.bpm.dmn.engine.DmnDecisionResult;
+import org.camunda.bpm.dmn.engine.DmnEngine;
+import org.camunda.bpm.dmn.engine.impl.*;
+import org.camunda.bpm.dmn.engine.impl.evaluation.DmnDecisionLogicEvaluationHandler;
+import org.camunda.bpm.engine.variable.context.VariableContext;
+import org.charter.obo.orion.dmnsimulator.engine.InputExpressionCache;
+
+/**
+ * Engine configuration which builds an engine whose decision tables and literal expressions report the time of every
+ * expression evaluation to an ExpressionProfiler
+ * The engine evaluates decisions like the default engine, only the evaluation handlers of the decision context are replaced
+ */
+public class ProfilingDmnEngineConfiguration extends DefaultDmnEngineConfiguration {
+
+    private final ExpressionProfiler expressionProfiler;
+
+    public ProfilingDmnEngineConfiguration(ExpressionProfiler expressionProfiler) {
+        this.expressionProfiler = expressionProfiler;
+    }
+
+    @Override
+    public DmnEngine buildEngine() {
+        init();
+        return new ProfilingDmnEngine(this);
+    }
+
+    /**
+     * Method to replace the evaluation handlers of a decision context with the profiling handlers,
+     * for decision contexts which are created outside of the engine
+     * @param evaluationHandlers The handlers of the decision context
+     */
+    public void putEvaluationHandlers(Map<Class<? extends DmnDecisionLogic>, DmnDecisionLogicEvaluationHandler> evaluationHandlers) {
+        putEvaluationHandlers(evaluationHandlers, false, null);
+    }
+
+    /**
+     * Method to replace the evaluation handlers of a decision context with the profiling handlers
+     * @param evaluationHandlers The handlers of the decision context
+     * @param earlyTermination Whether FIRST and UNIQUE decision tables stop checking rules once the result is decided
+     * @param inputExpressionCache The results of the input expressions of the pass, or null to evaluate every input expression
+     */
+    public void putEvaluationHandlers(Map<Class<? extends DmnDecisionLogic>, DmnDecisionLogicEvaluationHandler> evaluationHandlers,
+                                      boolean earlyTermination, InputExpressionCache inputExpressionCache) {
+        evaluationHandlers.put(DmnDecisionTableImpl.class, new ProfilingDecisionTableEvaluationHandler(this, expressionProfiler,
+                earlyTermination, inputExpressionCache));
+        evaluationHandlers.put(DmnDecisionLiteralExpressionImpl.class, new ProfilingLiteralExpressionEvaluationHandler(this, expressionProfiler));
+    }
+
+    /**
+     * Engine which evaluates every decision in a ProfilingDecisionContext
+     * All evaluateDecision and evaluateDecisionTable variants end up in evaluateDecision(DmnDecision, VariableContext)
+     */
+    private static class ProfilingDmnEngine extends DefaultDmnEngine {
+
+        private ProfilingDmnEngine(ProfilingDmnEngineConfiguration dmnEngineConfiguration) {
+            super(dmnEngineConfiguration);
+        }
+
+        @Override
+        public DmnDecisionResult evaluateDecision(DmnDecision decision, VariableContext variableContext) {
+            if (!(decision instanceof DmnDecisionImpl)) {
+                return super.evaluateDecision(decision, variableContext);
+            }
+            ProfilingDmnEngineConfiguration configuration = (ProfilingDmnEngineConfiguration) dmnEngineConfiguration;
+            return new ProfilingDecisionContext(configuration).evaluateDecision(decision, variableContext);
+        }
+    }
+
+    /**
+     * Decision context with the profiling evaluation handlers
+     */
+    private static class ProfilingDecisionContext extends DefaultDmnDecisionContext {
+
+        private ProfilingDecisionContext(ProfilingDmnEngineConfiguration configuration) {
+            super(configuration);
+            configuration.putEvaluationHandlers(evaluationHandlers);
+        }
+    }
+}
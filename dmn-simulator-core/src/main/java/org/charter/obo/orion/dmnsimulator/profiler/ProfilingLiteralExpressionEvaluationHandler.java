@@ -0,0 +1,41 @@
+package org.charter.obo.orion.dmnsimulator.profiler;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionLogicEvaluationEvent;
+import org.camunda.bpm.dmn.engine.impl.DefaultDmnEngineConfiguration;
+import org.camunda.bpm.dmn.engine.impl.DmnExpressionImpl;
+import org.camunda.bpm.dmn.engine.impl.evaluation.DecisionLiteralExpressionEvaluationHandler;
+import org.camunda.bpm.engine.variable.context.VariableContext;
+
+/**
+ * Literal expression evaluation handler which measures the evaluation of the literal expression of a decision
+ */
+class ProfilingLiteralExpressionEvaluationHandler extends DecisionLiteralExpressionEvaluationHandler {
+
+    private final ExpressionProfiler expressionProfiler;
+
+    private String decisionKey;
+
+    ProfilingLiteralExpressionEvaluationHandler(DefaultDmnEngineConfiguration configuration, ExpressionProfiler expressionProfiler) {
+        super(configuration);
+        this.expressionProfiler = expressionProfiler;
+    }
+
+    @Override
+    public DmnDecisionLogicEvaluationEvent evaluate(DmnDecision decision, VariableContext variableContext) {
+        decisionKey = decision.getKey();
+        return super.evaluate(decision, variableContext);
+    }
+
+    @Override
+    protected Object evaluateLiteralExpression(DmnExpressionImpl expression, VariableContext variableContext) {
+        long start = System.nanoTime();
+        try {
+            return super.evaluateLiteralExpression(expression, variableContext);
+        } finally {
+            expressionProfiler.record(decisionKey, expression.getId(), ExpressionProfiler.LITERAL_EXPRESSION,
+                    ProfilingDecisionTableEvaluationHandler.getLanguage(expression, literalExpressionLanguage),
+                    expression.getExpression(), System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package org.charter.obo.orion.dmnsimulator.suite;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionLogicEvaluationEvent;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionTableEvaluationEvent;
+import org.camunda.bpm.dmn.engine.delegate.DmnEvaluatedDecisionRule;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionTableImpl;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionTableRuleImpl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Outcome of a test suite run: the number of passed, failed and erroneous cases, the failures with their differences
+ * and the rule coverage of every decision table of the model
+ * A rule is covered if it matched in at least one case, in the decision of the case or in a decision it requires
+ * The cases are added in their order by the thread which runs the suite, the coverage is recorded by the evaluating threads
+ */
+public class TestSuiteReport {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final int maxFailures;
+
+    private final Map<String, TableCoverage> coverage = new LinkedHashMap<>();
+
+    private final List<ObjectNode> failures = new ArrayList<>();
+
+    private long cases;
+
+    private long passed;
+
+    private long failed;
+
+    private long errors;
+
+    private long nanos;
+
+    /**
+     * @param decisions All decisions of the model, the coverage is reported for every decision table among them
+     * @param maxFailures The maximum number of failures listed in the report, all failures are counted
+     */
+    TestSuiteReport(List<DmnDecision> decisions, int maxFailures) {
+        this.maxFailures = maxFailures;
+        for (DmnDecision decision : decisions) {
+            if (decision.getDecisionLogic() instanceof DmnDecisionTableImpl) {
+                coverage.put(decision.getKey(), new TableCoverage(decision));
+            }
+        }
+    }
+
+    /**
+     * Method to count the matched rules of the decision tables evaluated for a case
+     * @param events The evaluation events of all decisions evaluated for the case
+     */
+    void recordCoverage(Collection<DmnDecisionLogicEvaluationEvent> events) {
+        for (DmnDecisionLogicEvaluationEvent event : events) {
+            if (!(event instanceof DmnDecisionTableEvaluationEvent)) {
+                continue;
+            }
+            TableCoverage tableCoverage = coverage.get(event.getDecision().getKey());
+            if (tableCoverage == null) {
+                continue;
+            }
+            for (DmnEvaluatedDecisionRule matchedRule : ((DmnDecisionTableEvaluationEvent) event).getMatchingRules()) {
+                tableCoverage.hit(matchedRule.getId());
+            }
+        }
+    }
+
+    void add(CaseResult result) {
+        cases++;
+        if (result.failure == null) {
+            passed++;
+            return;
+        }
+        if (result.failure.has("error")) {
+            errors++;
+        } else {
+            failed++;
+        }
+        if (failures.size() < maxFailures) {
+            failures.add(result.failure);
+        }
+    }
+
+    void finish(long nanos) {
+        this.nanos = nanos;
+    }
+
+    public long getCases() {
+        return cases;
+    }
+
+    public long getPassed() {
+        return passed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return true if every case passed
+     */
+    public boolean isSuccessful() {
+        return passed == cases;
+    }
+
+    /**
+     * Method to get the number of rules which matched in at least one case
+     * @return Covered rules of all decision tables of the model
+     */
+    public long getCoveredRules() {
+        long coveredRules = 0;
+        for (TableCoverage tableCoverage : coverage.values()) {
+            coveredRules += tableCoverage.getCoveredRules();
+        }
+        return coveredRules;
+    }
+
+    /**
+     * @return Rules of all decision tables of the model
+     */
+    public long getRules() {
+        long rules = 0;
+        for (TableCoverage tableCoverage : coverage.values()) {
+            rules += tableCoverage.ruleIds.length;
+        }
+        return rules;
+    }
+
+    public long getMillis() {
+        return nanos / 1000000L;
+    }
+
+    /**
+     * Method to write the report as JSON
+     * @return The summary, the listed failures and the coverage of every decision table by decision key
+     */
+    public ObjectNode toJson() {
+        ObjectNode reportNode = MAPPER.createObjectNode();
+        reportNode.put("cases", cases);
+        reportNode.put("passed", passed);
+        reportNode.put("failed", failed);
+        reportNode.put("errors", errors);
+        reportNode.put("millis", getMillis());
+        reportNode.put("casesPerSecond", cases * 1000L / Math.max(1L, getMillis()));
+        ArrayNode failuresNode = reportNode.putArray("failures");
+        failuresNode.addAll(failures);
+        if (failed + errors > failures.size()) {
+            reportNode.put("unlistedFailures", failed + errors - failures.size());
+        }
+        ObjectNode coverageNode = reportNode.putObject("coverage");
+        for (Map.Entry<String, TableCoverage> entry : coverage.entrySet()) {
+            coverageNode.set(entry.getKey(), entry.getValue().toJson());
+        }
+        return reportNode;
+    }
+
+    @Override
+    public String toString() {
+        return toJson().toString();
+    }
+
+    /**
+     * The matches of every rule of a decision table
+     */
+    private static class TableCoverage {
+
+        private final String name;
+
+        private final String[] ruleIds;
+
+        private final Map<String, Integer> ruleIndexes = new HashMap<>();
+
+        private final AtomicLongArray hits;
+
+        private TableCoverage(DmnDecision decision) {
+            name = decision.getName();
+            List<DmnDecisionTableRuleImpl> rules = ((DmnDecisionTableImpl) decision.getDecisionLogic()).getRules();
+            ruleIds = new String[rules.size()];
+            for (int i = 0; i < rules.size(); i++) {
+                ruleIds[i] = rules.get(i).getId();
+                ruleIndexes.put(ruleIds[i], i);
+            }
+            hits = new AtomicLongArray(rules.size());
+        }
+
+        private void hit(String ruleId) {
+            Integer index = ruleIndexes.get(ruleId);
+            if (index != null) {
+                hits.incrementAndGet(index);
+            }
+        }
+
+        private long getCoveredRules() {
+            long coveredRules = 0;
+            for (int i = 0; i < hits.length(); i++) {
+                if (hits.get(i) > 0) {
+                    coveredRules++;
+                }
+            }
+            return coveredRules;
+        }
+
+        private ObjectNode toJson() {
+            ObjectNode tableNode = MAPPER.createObjectNode();
+            tableNode.put("name", name);
+            tableNode.put("rules", ruleIds.length);
+            long coveredRules = getCoveredRules();
+            tableNode.put("coveredRules", coveredRules);
+            tableNode.put("ruleCoverage", ruleIds.length == 0 ? 1.0 : (double) coveredRules / ruleIds.length);
+            ArrayNode neverHit = tableNode.putArray("neverHit");
+            ObjectNode ruleHits = tableNode.putObject("ruleHits");
+            for (int i = 0; i < ruleIds.length; i++) {
+                long ruleHitCount = hits.get(i);
+                if (ruleHitCount == 0) {
+                    neverHit.add(ruleIds[i]);
+                }
+                ruleHits.put(ruleIds[i], ruleHitCount);
+            }
+            return tableNode;
+        }
+    }
+
+    /**
+     * The outcome of one case: no failure if it passed, otherwise the differences or the error
+     */
+    static final class CaseResult {
+
+        private final ObjectNode failure;
+
+        private CaseResult(ObjectNode failure) {
+            this.failure = failure;
+        }
+
+        static CaseResult passed() {
+            return new CaseResult(null);
+        }
+
+        static CaseResult failed(int index, String name, String decisionKey, ArrayNode differences) {
+            ObjectNode failure = failure(index, name, decisionKey);
+            failure.set("differences", differences);
+            return new CaseResult(failure);
+        }
+
+        static CaseResult error(int index, String name, String decisionKey, String message) {
+            ObjectNode failure = failure(index, name, decisionKey);
+            failure.put("error", message);
+            return new CaseResult(failure);
+        }
+
+        static CaseResult invalid(int index, String name, String decisionKey, ArrayNode validationErrors) {
+            ObjectNode failure = failure(index, name, decisionKey);
+            failure.put("error", "Invalid variables for decision '" + decisionKey + "'");
+            failure.set("validationErrors", validationErrors);
+            return new CaseResult(failure);
+        }
+
+        private static ObjectNode failure(int index, String name, String decisionKey) {
+            ObjectNode failure = MAPPER.createObjectNode();
+            failure.put("case", name);
+            failure.put("index", index);
+            if (decisionKey != null) {
+                failure.put("decision", decisionKey);
+            }
+            return failure;
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package org.charter.obo.orion.dmnsimulator.suite;
+
+import static org.camunda.spin.Spin.JSON;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.math.BigDecimal;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.spin.json.SpinJsonNode;
+import org.charter.obo.orion.dmnsimulator.engine.DecisionEvaluator;
+import org.charter.obo.orion.dmnsimulator.engine.DmnSimulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Runs a test suite against a parsed model and reports which cases passed and how much of every decision table they cover
+ * A case is a request without the xml, plus the expectations:
+ * {"name": "...", "decision": "...", "variables": {...}, "expected": {"output": value, ...}, "expectedRules": ["ruleId", ...]}
+ * "expected" is compared with the single result of the decision, a list of objects with all results in their order;
+ * only the listed outputs are compared, a number equals a number of the same value and a string equals a value with the same text
+ * "expectedRules" are the ids of the matched rules of the decision in any order, also as one string separated by spaces, commas or |
+ * A case without expectations passes if it can be evaluated; a case naming several decisions in "decisions" is an error
+ * The model is parsed once, the cases are evaluated concurrently with the variable conversion, decision lookup and input validation
+ * of the evaluateDecision endpoint; they are read as a stream, so a suite can be larger than the memory
+ */
+public class TestSuiteRunner {
+
+    /**
+     * The cases of a suite, read one after another
+     */
+    public interface CaseSource {
+
+        /**
+         * @return The next case as a JSON string, or null after the last case
+         * @throws IOException If the cases can not be read.
+         */
+        String next() throws IOException;
+    }
+
+    /**
+     * A submitted case, kept until its outcome is added to the report
+     */
+    private static final class PendingCase {
+
+        private final int index;
+
+        private final String caseJson;
+
+        private final Future<TestSuiteReport.CaseResult> future;
+
+        private PendingCase(int index, String caseJson, Future<TestSuiteReport.CaseResult> future) {
+            this.index = index;
+            this.caseJson = caseJson;
+            this.future = future;
+        }
+    }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss";
+
+    private final DmnSimulator simulator;
+
+    private final ExecutorService executor;
+
+    private final int window;
+
+    private volatile int maxFailures = 1000;
+
+    /**
+     * @param simulator Evaluates the cases
+     * @param executor Where the cases are evaluated
+     * @param window The maximum number of cases in flight, enough to keep every thread of the executor busy
+     */
+    public TestSuiteRunner(DmnSimulator simulator, ExecutorService executor, int window) {
+        this.simulator = simulator;
+        this.executor = executor;
+        this.window = window;
+    }
+
+    /**
+     * Method to set how many failures a report lists, further failures are only counted
+     * @param maxFailures
+     */
+    public void setMaxFailures(int maxFailures) {
+        this.maxFailures = maxFailures;
+    }
+
+    /**
+     * Entry Method to run the cases of a suite
+     * @param decisions All decisions of the model
+     * @param cases
+     * @param defaultDecision The decision of the cases which do not name one, null for the root decision
+     * @return The report, with the cases in their order
+     * @throws IOException If the cases can not be read.
+     */
+    public TestSuiteReport run(List<DmnDecision> decisions, CaseSource cases, String defaultDecision) throws IOException {
+        long start = System.nanoTime();
+        TestSuiteReport report = new TestSuiteReport(decisions, maxFailures);
+        Deque<PendingCase> pending = new ArrayDeque<>();
+        try {
+            int index = 0;
+            String testCase;
+            while ((testCase = cases.next()) != null) {
+                final String caseJson = testCase;
+                final int caseIndex = index++;
+                pending.add(new PendingCase(caseIndex, caseJson,
+                        executor.submit(() -> runCase(caseIndex, caseJson, decisions, defaultDecision, report))));
+                if (pending.size() >= window) {
+                    report.add(getResult(pending.poll()));
+                }
+            }
+            while (!pending.isEmpty()) {
+                report.add(getResult(pending.poll()));
+            }
+        } finally {
+            for (PendingCase pendingCase : pending) {
+                pendingCase.future.cancel(true);
+            }
+        }
+        report.finish(System.nanoTime() - start);
+        return report;
+    }
+
+    /**
+     * Method to wait for the outcome of a submitted case
+     * runCase reports its own exceptions, so only an error thrown by the evaluation, like a StackOverflowError, gets here;
+     * the case is then reported as an error with its position and name
+     * @param pendingCase
+     * @return The outcome of the case
+     * @throws IOException If the thread is interrupted.
+     */
+    private static TestSuiteReport.CaseResult getResult(PendingCase pendingCase) throws IOException {
+        try {
+            return pendingCase.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while running the test suite");
+        } catch (ExecutionException e) {
+            return TestSuiteReport.CaseResult.error(pendingCase.index, getCaseName(pendingCase.index, pendingCase.caseJson), null,
+                    String.valueOf(e.getCause()));
+        }
+    }
+
+    /**
+     * Method to get the name of a case
+     * @param index The position of the case in the suite, from 0
+     * @param caseJson
+     * @return The "name" of the case, or "case " and its position from 1 if it has none or is not a JSON object
+     */
+    private static String getCaseName(int index, String caseJson) {
+        try {
+            JsonNode caseNode = MAPPER.readTree(caseJson);
+            if (caseNode != null && caseNode.hasNonNull("name")) {
+                return caseNode.get("name").asText();
+            }
+        } catch (IOException e) {
+            // the name of a case which is not JSON is its position
+        }
+        return "case " + (index + 1);
+    }
+
+    /**
+     * Method to evaluate one case and compare the results with the expected ones
+     * @param index The position of the case in the suite, from 0
+     * @param caseJson
+     * @param decisions All decisions of the model
+     * @param defaultDecision
+     * @param report Gets the coverage of the case
+     * @return The outcome of the case
+     */
+    private TestSuiteReport.CaseResult runCase(int index, String caseJson, List<DmnDecision> decisions, String defaultDecision,
+                                               TestSuiteReport report) {
+        String name = "case " + (index + 1);
+        String decisionKey = null;
+        try {
+            JsonNode caseNode = MAPPER.readTree(caseJson);
+            if (caseNode.hasNonNull("name")) {
+                name = caseNode.get("name").asText();
+            }
+            SpinJsonNode requestNode = JSON(caseJson);
+            if (defaultDecision != null && !requestNode.hasProp("decision")) {
+                requestNode.prop("decision", defaultDecision);
+            }
+            if (!requestNode.hasProp("variables")) {
+                requestNode.prop("variables", JSON("{}"));
+            }
+            List<DmnDecision> targets = DecisionEvaluator.getRequestedDecisions(requestNode, decisions);
+            if (targets.size() > 1) {
+                throw new IllegalArgumentException("A test case can name only one decision, \"decisions\" names " + targets.size());
+            }
+            decisionKey = targets.get(0).getKey();
+            List<Object> validationErrors = simulator.getModelCache().getInputSchema().validate(targets, requestNode);
+            if (!validationErrors.isEmpty()) {
+                ArrayNode errorsNode = MAPPER.createArrayNode();
+                for (Object validationError : validationErrors) {
+                    errorsNode.add(MAPPER.readTree(validationError.toString()));
+                }
+                return TestSuiteReport.CaseResult.invalid(index, name, decisionKey, errorsNode);
+            }
+            VariableMap variables = DecisionEvaluator.getVariables(requestNode);
+            DmnSimulator.Evaluation evaluation = simulator.evaluateDecisions(targets, variables);
+            report.recordCoverage(evaluation.getEvaluationEvents().values());
+
+            ArrayNode differences = MAPPER.createArrayNode();
+            if (caseNode.has("expected")) {
+                compareResults(caseNode.get("expected"), evaluation.getResults().get(targets.get(0)).getResultList(), differences);
+            }
+            if (caseNode.has("expectedRules")) {
+                compareRules(caseNode.get("expectedRules"), evaluation.getMatchedRuleIds(decisionKey), differences);
+            }
+            return differences.size() == 0 ? TestSuiteReport.CaseResult.passed()
+                    : TestSuiteReport.CaseResult.failed(index, name, decisionKey, differences);
+        } catch (Exception e) {
+            return TestSuiteReport.CaseResult.error(index, name, decisionKey, String.valueOf(e.getMessage()));
+        }
+    }
+
+    /**
+     * Method to compare the results of a decision with the expected results
+     * @param expected An object for a single result, or a list of objects
+     * @param results The result entries of the decision
+     * @param differences Gets a difference for every output which does not match, or one for all results if their number differs
+     */
+    private static void compareResults(JsonNode expected, List<Map<String, Object>> results, ArrayNode differences) {
+        List<JsonNode> expectedEntries = new ArrayList<>();
+        if (expected.isArray()) {
+            expected.forEach(expectedEntries::add);
+        } else {
+            expectedEntries.add(expected);
+        }
+        if (expectedEntries.size() != results.size()) {
+            addDifference(differences, "results", expected, toJson(results));
+            return;
+        }
+        for (int i = 0; i < results.size(); i++) {
+            Iterator<Map.Entry<String, JsonNode>> fields = expectedEntries.get(i).fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                Object actual = results.get(i).get(field.getKey());
+                if (!matches(field.getValue(), actual)) {
+                    String path = expected.isArray() ? "results[" + i + "]." + field.getKey() : field.getKey();
+                    addDifference(differences, path, field.getValue(), toJson(actual));
+                }
+            }
+        }
+    }
+
+    /**
+     * Method to compare the matched rules with the expected rules, the order does not matter
+     * @param expected A list of rule ids or one string with the ids
+     * @param ruleIds The ids of the matched rules
+     * @param differences
+     */
+    private static void compareRules(JsonNode expected, List<String> ruleIds, ArrayNode differences) {
+        List<String> expectedIds = new ArrayList<>();
+        if (expected.isArray()) {
+            for (JsonNode ruleId : expected) {
+                expectedIds.add(ruleId.asText());
+            }
+        } else if (!expected.isNull()) {
+            for (String ruleId : expected.asText().split("[\\s,|]+")) {
+                if (!ruleId.isEmpty()) {
+                    expectedIds.add(ruleId);
+                }
+            }
+        }
+        List<String> actualIds = new ArrayList<>(ruleIds);
+        Collections.sort(expectedIds);
+        Collections.sort(actualIds);
+        if (!expectedIds.equals(actualIds)) {
+            addDifference(differences, "rules", MAPPER.valueToTree(expectedIds), MAPPER.valueToTree(ruleIds));
+        }
+    }
+
+    /**
+     * Method to check if an output value is the expected value
+     * @param expected
+     * @param actual
+     * @return true if both are null, equal numbers, equal booleans or have the same text
+     */
+    private static boolean matches(JsonNode expected, Object actual) {
+        if (expected == null || expected.isNull()) {
+            return actual == null;
+        }
+        if (actual == null) {
+            return false;
+        }
+        if (actual instanceof Number && (expected.isNumber() || expected.isTextual())) {
+            try {
+                BigDecimal expectedNumber = expected.isNumber() ? expected.decimalValue() : new BigDecimal(expected.asText().trim());
+                return expectedNumber.compareTo(new BigDecimal(actual.toString())) == 0;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        if (actual instanceof Date) {
+            String date = new SimpleDateFormat(DATE_FORMAT).format((Date) actual);
+            String expectedDate = expected.asText();
+            return expectedDate.length() == 10 ? date.startsWith(expectedDate) : date.equals(expectedDate);
+        }
+        if (expected.isContainerNode()) {
+            return expected.equals(MAPPER.valueToTree(actual));
+        }
+        return expected.asText().equals(actual.toString());
+    }
+
+    private static JsonNode toJson(Object value) {
+        if (value instanceof Date) {
+            return MAPPER.getNodeFactory().textNode(new SimpleDateFormat(DATE_FORMAT).format((Date) value));
+        }
+        try {
+            return MAPPER.valueToTree(value);
+        } catch (IllegalArgumentException e) {
+            return MAPPER.getNodeFactory().textNode(String.valueOf(value));
+        }
+    }
+
+    private static void addDifference(ArrayNode differences, String path, JsonNode expected, JsonNode actual) {
+        ObjectNode difference = differences.addObject();
+        difference.put("path", path);
+        difference.set("expected", expected);
+        difference.set("actual", actual);
+    }
+}
@@ -0,0 +1,40 @@
+package org.charter.obo.orion.dmnsimulator.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnDecisionResult;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionTableEvaluationEvent;
+import org.camunda.bpm.dmn.engine.delegate.DmnEvaluatedDecisionRule;
+import org.camunda.bpm.dmn.engine.delegate.DmnEvaluatedInput;
+
+/**
+ * Describes the evaluation of a decision table by its evaluated inputs, matched rules and results,
+ * so evaluations with different handlers can be compared as strings
+ */
+final class DecisionTableOutcomes {
+
+    private DecisionTableOutcomes() {
+    }
+
+    /**
+     * Describes the evaluation of a decision of a decision context
+     * @param decisionContext The context which evaluated the decision
+     * @param decision
+     * @param result The result of the decision
+     * @return "inputs [...] rules [...] results [...]"
+     */
+    static String describe(MultiDecisionContext decisionContext, DmnDecision decision, DmnDecisionResult result) {
+        DmnDecisionTableEvaluationEvent event = (DmnDecisionTableEvaluationEvent) decisionContext.getEvaluationEvents().get(decision);
+        List<Object> inputs = new ArrayList<>();
+        for (DmnEvaluatedInput input : event.getInputs()) {
+            inputs.add(input.getValue().getValue());
+        }
+        List<String> rules = new ArrayList<>();
+        for (DmnEvaluatedDecisionRule rule : event.getMatchingRules()) {
+            rules.add(rule.getId());
+        }
+        return "inputs " + inputs + " rules " + rules + " results " + result.getResultList();
+    }
+}
@@ -0,0 +1,157 @@
+package org.charter.obo.orion.dmnsimulator.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnEngine;
+import org.camunda.bpm.engine.variable.Variables;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares models parsed by the IncrementalParser after an edit with the same models parsed completely by the engine
+ */
+class IncrementalParserTest {
+
+    private static final String[] SEASONS = { "Fall", "Winter", "Spring", "Summer", "Monsoon" };
+
+    private static final int[] GUEST_COUNTS = { 0, 3, 6, 8, 9, 12 };
+
+    private DmnEngine dmnEngine;
+
+    private IncrementalParser incrementalParser;
+
+    private String beverages;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dmnEngine = DecisionEvaluator.createEngineConfiguration().buildEngine();
+        incrementalParser = new IncrementalParser(100);
+        try (InputStream in = getClass().getResourceAsStream("/Beverages.dmn");
+             Scanner scanner = new Scanner(in, StandardCharsets.UTF_8.name())) {
+            beverages = scanner.useDelimiter("\\A").next();
+        }
+    }
+
+    @Test
+    void reusesUnchangedRequiredDecisionAfterEdit() {
+        List<DmnDecision> original = incrementalParser.parseDecisions(beverages, dmnEngine);
+        String edited = replace(beverages, "\"Guiness\"", "\"Stout\"");
+
+        List<DmnDecision> incremental = incrementalParser.parseDecisions(edited, dmnEngine);
+
+        assertSame(find(original, "dish"), find(incremental, "dish"));
+        assertNotSame(find(original, "beverages"), find(incremental, "beverages"));
+        assertSame(find(incremental, "dish"), find(incremental, "beverages").getRequiredDecisions().iterator().next());
+        assertEquals(1L, incrementalParser.getStatistics().get("reusedDecisions"));
+        assertSameModel(parseCompletely(edited), incremental);
+    }
+
+    @Test
+    void rebuildsDecisionsRequiringAnEditedDecision() {
+        List<DmnDecision> original = incrementalParser.parseDecisions(beverages, dmnEngine);
+        String edited = replace(beverages, "<text>&lt;= 8</text>", "<text>&lt;= 7</text>");
+
+        List<DmnDecision> incremental = incrementalParser.parseDecisions(edited, dmnEngine);
+
+        assertNotSame(find(original, "dish"), find(incremental, "dish"));
+        assertNotSame(find(original, "beverages"), find(incremental, "beverages"));
+        assertSameModel(parseCompletely(edited), incremental);
+    }
+
+    @Test
+    void rebuildsDecisionsWhoseInputDataChanged() {
+        List<DmnDecision> original = incrementalParser.parseDecisions(beverages, dmnEngine);
+        String edited = replace(beverages, "name=\"Guests with children?\"", "name=\"Guests with kids?\"");
+
+        List<DmnDecision> incremental = incrementalParser.parseDecisions(edited, dmnEngine);
+
+        assertSame(find(original, "dish"), find(incremental, "dish"));
+        assertNotSame(find(original, "beverages"), find(incremental, "beverages"));
+        assertSameModel(parseCompletely(edited), incremental);
+    }
+
+    @Test
+    void doesNotShareDecisionsWithoutReuse() {
+        incrementalParser.setReuseDecisions(false);
+        List<DmnDecision> original = incrementalParser.parseDecisions(beverages, dmnEngine);
+        List<DmnDecision> parsedAgain = incrementalParser.parseDecisions(beverages, dmnEngine);
+
+        assertNotSame(find(original, "dish"), find(parsedAgain, "dish"));
+        assertSameModel(parseCompletely(beverages), parsedAgain);
+    }
+
+    private List<DmnDecision> parseCompletely(String xml) {
+        return dmnEngine.parseDecisions(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Asserts that both models have the same decisions in the same order, the same requirement graph,
+     * and the same results for every combination of the sample inputs
+     */
+    private void assertSameModel(List<DmnDecision> expected, List<DmnDecision> actual) {
+        assertEquals(keys(expected), keys(actual));
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(keys(expected.get(i).getRequiredDecisions()), keys(actual.get(i).getRequiredDecisions()),
+                    "required decisions of " + expected.get(i).getKey());
+        }
+        for (String season : SEASONS) {
+            for (int guestCount : GUEST_COUNTS) {
+                for (boolean guestsWithChildren : new boolean[] { true, false }) {
+                    Map<String, Object> variables = Variables.createVariables()
+                            .putValue("season", season)
+                            .putValue("guestCount", guestCount)
+                            .putValue("guestsWithChildren", guestsWithChildren);
+                    for (int i = 0; i < expected.size(); i++) {
+                        assertEquals(evaluate(expected.get(i), variables), evaluate(actual.get(i), variables),
+                                expected.get(i).getKey() + " for " + variables);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Evaluates a decision, a combination for which no dish matches fails in both models with the same error
+     */
+    private Object evaluate(DmnDecision decision, Map<String, Object> variables) {
+        try {
+            return dmnEngine.evaluateDecision(decision, variables).getResultList();
+        } catch (RuntimeException e) {
+            return e.getClass().getName() + ": " + e.getMessage();
+        }
+    }
+
+    private static List<String> keys(Iterable<? extends DmnDecision> decisions) {
+        List<String> keys = new ArrayList<>();
+        for (DmnDecision decision : decisions) {
+            keys.add(decision.getKey());
+        }
+        return keys;
+    }
+
+    private static DmnDecision find(List<DmnDecision> decisions, String key) {
+        for (DmnDecision decision : decisions) {
+            if (decision.getKey().equals(key)) {
+                return decision;
+            }
+        }
+        throw new AssertionError("No decision " + key);
+    }
+
+    private static String replace(String xml, String target, String replacement) {
+        assertTrue(xml.contains(target), target);
+        return xml.replace(target, replacement);
+    }
+}
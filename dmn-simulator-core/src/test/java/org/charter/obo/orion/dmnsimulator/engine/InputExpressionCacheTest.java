@@ -0,0 +1,107 @@
+package org.charter.obo.orion.dmnsimulator.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnDecisionResult;
+import org.camunda.bpm.dmn.engine.DmnEngine;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionTableEvaluationEvent;
+import org.camunda.bpm.dmn.engine.impl.DefaultDmnEngineConfiguration;
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.engine.variable.Variables;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares a model whose two decision tables share their input expressions evaluated with and without shared inputs
+ */
+class InputExpressionCacheTest {
+
+    private static final String MODEL = "<definitions xmlns=\"https://www.omg.org/spec/DMN/20191111/MODEL/\" id=\"shared\" name=\"Shared\" namespace=\"test\">"
+            + "<decision id=\"size\" name=\"Size\"><decisionTable id=\"sizeTable\" hitPolicy=\"FIRST\">"
+            + "<input id=\"sizeInput0\"><inputExpression id=\"sizeExpression0\" typeRef=\"integer\"><text>number * 2</text></inputExpression></input>"
+            + "<input id=\"sizeInput1\"><inputExpression id=\"sizeExpression1\"><text>for i in items return i * 2</text></inputExpression></input>"
+            + "<output id=\"sizeOutput\" name=\"size\" typeRef=\"string\" />"
+            + "<rule id=\"big\"><inputEntry id=\"big0\"><text>&gt; 10</text></inputEntry><inputEntry id=\"big1\"><text>-</text></inputEntry>"
+            + "<outputEntry id=\"bigOutput\"><text>\"big\"</text></outputEntry></rule>"
+            + "<rule id=\"small\"><inputEntry id=\"small0\"><text>-</text></inputEntry><inputEntry id=\"small1\"><text>-</text></inputEntry>"
+            + "<outputEntry id=\"smallOutput\"><text>\"small\"</text></outputEntry></rule>"
+            + "</decisionTable></decision>"
+            + "<decision id=\"parity\" name=\"Parity\"><decisionTable id=\"parityTable\" hitPolicy=\"COLLECT\">"
+            + "<input id=\"parityInput0\"><inputExpression id=\"parityExpression0\" typeRef=\"integer\"><text>number * 2</text></inputExpression></input>"
+            + "<input id=\"parityInput1\"><inputExpression id=\"parityExpression1\"><text>for i in items return i * 2</text></inputExpression></input>"
+            + "<input id=\"parityInput2\"><inputExpression id=\"parityExpression2\" typeRef=\"string\"><text>label</text></inputExpression></input>"
+            + "<output id=\"parityOutput\" name=\"parity\" typeRef=\"string\" />"
+            + "<rule id=\"low\"><inputEntry id=\"low0\"><text>[0..8]</text></inputEntry><inputEntry id=\"low1\"><text>-</text></inputEntry>"
+            + "<inputEntry id=\"low2\"><text>-</text></inputEntry><outputEntry id=\"lowOutput\"><text>\"low\"</text></outputEntry></rule>"
+            + "<rule id=\"labelled\"><inputEntry id=\"labelled0\"><text>-</text></inputEntry><inputEntry id=\"labelled1\"><text>-</text></inputEntry>"
+            + "<inputEntry id=\"labelled2\"><text>\"a\"</text></inputEntry><outputEntry id=\"labelledOutput\"><text>\"labelled\"</text></outputEntry></rule>"
+            + "</decisionTable></decision>"
+            + "</definitions>";
+
+    private DefaultDmnEngineConfiguration configuration;
+
+    private List<DmnDecision> decisions;
+
+    @BeforeEach
+    void setUp() {
+        configuration = DecisionEvaluator.createEngineConfiguration();
+        DmnEngine dmnEngine = configuration.buildEngine();
+        decisions = dmnEngine.parseDecisions(new ByteArrayInputStream(MODEL.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void sharedInputsMatchSeparateEvaluation() {
+        for (int number = 0; number <= 8; number++) {
+            for (String label : new String[] { "a", "b" }) {
+                VariableMap variables = Variables.createVariables().putValue("number", number)
+                        .putValue("items", Arrays.asList(number, number + 1)).putValue("label", label);
+                MultiDecisionContext shared = new MultiDecisionContext(configuration, false, true);
+                MultiDecisionContext separate = new MultiDecisionContext(configuration, false, false);
+
+                assertEquals(evaluate(separate, variables), evaluate(shared, variables), variables.toString());
+                // both input expressions of the second table are taken from the first
+                assertEquals(2L, shared.getInputExpressionCache().getHits(), variables.toString());
+            }
+        }
+    }
+
+    @Test
+    void tablesDoNotShareListResults() {
+        VariableMap variables = Variables.createVariables().putValue("number", 3).putValue("items", Arrays.asList(1, 2)).putValue("label", "a");
+        MultiDecisionContext shared = new MultiDecisionContext(configuration, false, true);
+        shared.evaluateDecisions(decisions, variables.asVariableContext());
+
+        Object sizeItems = getInput(shared, decisions.get(0), 1);
+        Object parityItems = getInput(shared, decisions.get(1), 1);
+
+        assertEquals(sizeItems, parityItems);
+        assertNotSame(sizeItems, parityItems);
+        assertEquals(Arrays.asList(2, 4).toString(), sizeItems.toString());
+    }
+
+    /**
+     * Evaluates both decisions and describes every table by its evaluated inputs, matched rules and results
+     */
+    private List<String> evaluate(MultiDecisionContext decisionContext, VariableMap variables) {
+        Map<DmnDecision, DmnDecisionResult> results = decisionContext.evaluateDecisions(decisions, variables.asVariableContext());
+        List<String> outcome = new ArrayList<>();
+        for (DmnDecision decision : decisions) {
+            outcome.add(decision.getKey() + " " + DecisionTableOutcomes.describe(decisionContext, decision, results.get(decision)));
+        }
+        return outcome;
+    }
+
+    private static Object getInput(MultiDecisionContext decisionContext, DmnDecision decision, int input) {
+        DmnDecisionTableEvaluationEvent event = (DmnDecisionTableEvaluationEvent) decisionContext.getEvaluationEvents().get(decision);
+        return event.getInputs().get(input).getValue().getValue();
+    }
+}
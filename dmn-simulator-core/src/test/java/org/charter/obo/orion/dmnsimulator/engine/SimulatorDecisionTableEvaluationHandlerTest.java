@@ -0,0 +1,153 @@
+package org.charter.obo.orion.dmnsimulator.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnDecisionResult;
+import org.camunda.bpm.dmn.engine.DmnEngine;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionTableEvaluationEvent;
+import org.camunda.bpm.dmn.engine.impl.DefaultDmnEngineConfiguration;
+import org.camunda.bpm.dmn.engine.impl.hitpolicy.DmnHitPolicyException;
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.engine.variable.Variables;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares FIRST and UNIQUE decision tables evaluated with early termination with the default decision table handler
+ */
+class SimulatorDecisionTableEvaluationHandlerTest {
+
+    private static final String[][] RULES = {
+            { "< 0", "-" },
+            { "[0..10]", "\"a\"" },
+            { "[5..15]", "\"a\",\"b\"" },
+            { ">= 12", "-" },
+            { "-", "\"c\"" },
+    };
+
+    private static final String[] TEXTS = { "a", "b", "c", "d" };
+
+    private DefaultDmnEngineConfiguration configuration;
+
+    private DmnEngine dmnEngine;
+
+    @BeforeEach
+    void setUp() {
+        configuration = DecisionEvaluator.createEngineConfiguration();
+        dmnEngine = configuration.buildEngine();
+    }
+
+    @Test
+    void firstTableMatchesDefaultHandler() {
+        DmnDecision decision = parseTable("FIRST");
+        int matched = 0;
+        for (int number = -2; number <= 20; number++) {
+            for (String text : TEXTS) {
+                VariableMap variables = Variables.createVariables().putValue("number", number).putValue("text", text);
+                String expected = evaluate(decision, variables, false);
+                assertEquals(expected, evaluate(decision, variables, true), variables.toString());
+                if (!expected.contains("rules []")) {
+                    matched++;
+                }
+            }
+        }
+        assertTrue(matched > 0);
+    }
+
+    @Test
+    void uniqueTableMatchesDefaultHandler() {
+        DmnDecision decision = parseTable("UNIQUE");
+        int violations = 0;
+        for (int number = -2; number <= 20; number++) {
+            for (String text : TEXTS) {
+                VariableMap variables = Variables.createVariables().putValue("number", number).putValue("text", text);
+                String expected = evaluate(decision, variables, false);
+                String actual = evaluate(decision, variables, true);
+                if (expected.startsWith(DmnHitPolicyException.class.getName())) {
+                    // the default handler names every matching rule, early termination only the first two
+                    assertTrue(actual.startsWith(DmnHitPolicyException.class.getName()), variables + ": " + actual);
+                    violations++;
+                } else {
+                    assertEquals(expected, actual, variables.toString());
+                }
+            }
+        }
+        assertTrue(violations > 0);
+    }
+
+    @Test
+    void uniqueTableWithTwoMatchesRaisesHitPolicyViolation() {
+        DmnDecision decision = parseTable("UNIQUE");
+        // "[0..10]" and "[5..15]" match, no other rule does
+        VariableMap variables = Variables.createVariables().putValue("number", 7).putValue("text", "a");
+
+        String expected = evaluate(decision, variables, false);
+
+        assertTrue(expected.startsWith(DmnHitPolicyException.class.getName()), expected);
+        assertTrue(expected.contains("rule1") && expected.contains("rule2"), expected);
+        assertEquals(expected, evaluate(decision, variables, true));
+    }
+
+    @Test
+    void firstTableReportsOnlyCheckedRules() {
+        DmnDecision decision = parseTable("FIRST");
+        // "[0..10]" is the second rule, so the three rules after it are not checked
+        VariableMap variables = Variables.createVariables().putValue("number", 3).putValue("text", "a");
+
+        assertEquals(RULES.length, checkedRules(decision, variables, false));
+        assertEquals(2, checkedRules(decision, variables, true));
+    }
+
+    /**
+     * Evaluates a decision table and gets the number of checked rules of its evaluation event
+     */
+    private int checkedRules(DmnDecision decision, VariableMap variables, boolean earlyTermination) {
+        MultiDecisionContext decisionContext = new MultiDecisionContext(configuration, earlyTermination, false);
+        decisionContext.evaluateDecisions(Collections.singletonList(decision), variables.asVariableContext());
+        DmnDecisionTableEvaluationEvent event = (DmnDecisionTableEvaluationEvent) decisionContext.getEvaluationEvents().get(decision);
+        return SimulatorDecisionTableEvaluationHandler.getCheckedRules(event);
+    }
+
+    /**
+     * Evaluates a decision table and describes the outcome by the evaluated inputs, the matched rules and the results,
+     * or by the exception
+     */
+    private String evaluate(DmnDecision decision, VariableMap variables, boolean earlyTermination) {
+        MultiDecisionContext decisionContext = new MultiDecisionContext(configuration, earlyTermination, false);
+        try {
+            DmnDecisionResult result = decisionContext.evaluateDecisions(Collections.singletonList(decision), variables.asVariableContext())
+                    .get(decision);
+            return DecisionTableOutcomes.describe(decisionContext, decision, result);
+        } catch (RuntimeException e) {
+            return e.getClass().getName() + ": " + e.getMessage();
+        }
+    }
+
+    /**
+     * Parses a decision table with the hit policy, an integer and a string input and the rules of RULES
+     */
+    private DmnDecision parseTable(String hitPolicy) {
+        StringBuilder xml = new StringBuilder();
+        xml.append("<definitions xmlns=\"https://www.omg.org/spec/DMN/20191111/MODEL/\" id=\"hitPolicy\" name=\"Hit policy\" namespace=\"test\">");
+        xml.append("<decision id=\"table\" name=\"Table\"><decisionTable id=\"decisionTable\" hitPolicy=\"").append(hitPolicy).append("\">");
+        xml.append("<input id=\"input0\" label=\"Number\"><inputExpression id=\"inputExpression0\" typeRef=\"integer\"><text>number</text></inputExpression></input>");
+        xml.append("<input id=\"input1\" label=\"Text\"><inputExpression id=\"inputExpression1\" typeRef=\"string\"><text>text</text></inputExpression></input>");
+        xml.append("<output id=\"output\" name=\"result\" typeRef=\"string\" />");
+        for (int rule = 0; rule < RULES.length; rule++) {
+            xml.append("<rule id=\"rule").append(rule).append("\">");
+            for (int column = 0; column < RULES[rule].length; column++) {
+                xml.append("<inputEntry id=\"entry").append(rule).append('_').append(column).append("\"><text>")
+                        .append(RULES[rule][column].replace("<", "&lt;").replace(">", "&gt;")).append("</text></inputEntry>");
+            }
+            xml.append("<outputEntry id=\"output").append(rule).append("\"><text>\"rule ").append(rule).append("\"</text></outputEntry></rule>");
+        }
+        xml.append("</decisionTable></decision></definitions>");
+        return dmnEngine.parseDecision("table", new ByteArrayInputStream(xml.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+}
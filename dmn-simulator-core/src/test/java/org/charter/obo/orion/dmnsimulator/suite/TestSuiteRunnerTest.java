@@ -0,0 +1,195 @@
+package org.charter.obo.orion.dmnsimulator.suite;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.charter.obo.orion.dmnsimulator.engine.DmnSimulator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Runs a test suite over Beverages.dmn and checks the passed and failed cases, their differences and the rule coverage
+ */
+class TestSuiteRunnerTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private ExecutorService executor;
+
+    private TestSuiteRunner testSuiteRunner;
+
+    private List<DmnDecision> decisions;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DmnSimulator simulator = new DmnSimulator();
+        executor = Executors.newFixedThreadPool(2);
+        // a window smaller than the suite, so results are collected while cases are still submitted
+        testSuiteRunner = new TestSuiteRunner(simulator, executor, 2);
+        try (InputStream in = getClass().getResourceAsStream("/Beverages.dmn");
+             Scanner scanner = new Scanner(in, StandardCharsets.UTF_8.name())) {
+            decisions = simulator.getDecisions(scanner.useDelimiter("\\A").next());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void reportsPassedAndFailedCasesWithDifferences() throws Exception {
+        List<ObjectNode> cases = new ArrayList<>();
+        cases.add(testCase("winter dish", "Dish", "Winter", 6, true)
+                .<ObjectNode>set("expected", MAPPER.readTree("{\"desiredDish\": \"Roastbeef\"}"))
+                .put("expectedRules", "row-506282952-2"));
+        cases.add(testCase("wrong dish", "Dish", "Fall", 4, true)
+                .<ObjectNode>set("expected", MAPPER.readTree("{\"desiredDish\": \"Stew\"}"))
+                .set("expectedRules", MAPPER.readTree("[\"row-506282952-5\"]")));
+        cases.add(testCase("beverages with children", null, "Winter", 6, true)
+                .set("expected", MAPPER.readTree("[{\"beverages\": \"Bordeaux\"}, {\"beverages\": \"Apple Juice\"}]")));
+        ObjectNode invalid = testCase("invalid guest count", "Dish", "Winter", 6, true);
+        ((ObjectNode) invalid.get("variables")).putObject("guestCount").put("value", "many");
+        cases.add(invalid);
+
+        JsonNode report = run(cases, "Beverages");
+
+        assertEquals(4, report.get("cases").asInt());
+        assertEquals(2, report.get("passed").asInt());
+        assertEquals(1, report.get("failed").asInt());
+        assertEquals(1, report.get("errors").asInt());
+
+        JsonNode failed = report.get("failures").get(0);
+        assertEquals("wrong dish", failed.get("case").asText());
+        assertEquals(1, failed.get("index").asInt());
+        assertEquals("dish", failed.get("decision").asText());
+        assertEquals(MAPPER.readTree("[{\"path\": \"desiredDish\", \"expected\": \"Stew\", \"actual\": \"Spareribs\"},"
+                        + "{\"path\": \"rules\", \"expected\": [\"row-506282952-5\"], \"actual\": [\"row-506282952-1\"]}]"),
+                failed.get("differences"));
+
+        JsonNode error = report.get("failures").get(1);
+        assertEquals("invalid guest count", error.get("case").asText());
+        assertEquals("guestCount", error.get("validationErrors").get(0).get("variable").asText());
+    }
+
+    @Test
+    void reportsHitAndNeverHitRules() throws Exception {
+        List<ObjectNode> cases = new ArrayList<>();
+        cases.add(testCase("fall", "Dish", "Fall", 4, false));
+        cases.add(testCase("winter", null, "Winter", 6, true));
+        cases.add(testCase("large winter", null, "Winter", 12, false));
+
+        JsonNode report = run(cases, "Beverages");
+
+        assertEquals(3, report.get("passed").asInt());
+        JsonNode dish = report.get("coverage").get("dish");
+        assertEquals(7, dish.get("rules").asInt());
+        // the beverages cases also cover the rules of the required dish table
+        assertEquals(3, dish.get("coveredRules").asInt());
+        assertEquals(1, dish.get("ruleHits").get("row-506282952-1").asInt());
+        assertEquals(1, dish.get("ruleHits").get("row-506282952-2").asInt());
+        assertEquals(1, dish.get("ruleHits").get("row-506282952-5").asInt());
+        assertEquals(Arrays.asList("row-884555325-1", "row-506282952-3", "row-506282952-4", "row-506282952-6"), texts(dish.get("neverHit")));
+
+        JsonNode beverages = report.get("coverage").get("beverages");
+        assertEquals(1, beverages.get("ruleHits").get("row-506282952-9").asInt());
+        assertEquals(1, beverages.get("ruleHits").get("row-506282952-11").asInt());
+        assertEquals(1, beverages.get("ruleHits").get("row-506282952-12").asInt());
+        assertEquals(Arrays.asList("row-506282952-7", "row-506282952-8", "row-506282952-10"), texts(beverages.get("neverHit")));
+        assertEquals(0.5, beverages.get("ruleCoverage").asDouble(), 1e-9);
+    }
+
+    @Test
+    void passesCasesWithoutExpectations() throws Exception {
+        JsonNode report = run(Arrays.asList(testCase("no expectations", "Dish", "Summer", 20, false)), null);
+
+        assertEquals(1, report.get("passed").asInt());
+        assertEquals(0, report.get("failures").size());
+        assertFalse(report.has("unlistedFailures"));
+        assertEquals(1, report.get("coverage").get("dish").get("ruleHits").get("row-506282952-6").asInt());
+    }
+
+    @Test
+    void rejectsCasesWithSeveralDecisions() throws Exception {
+        ObjectNode severalDecisions = testCase("several decisions", null, "Winter", 6, true);
+        severalDecisions.putArray("decisions").add("Dish").add("Beverages");
+        ObjectNode oneDecision = testCase("one decision", null, "Winter", 6, true);
+        oneDecision.putArray("decisions").add("Dish");
+
+        JsonNode report = run(Arrays.asList(severalDecisions, oneDecision), null);
+
+        assertEquals(1, report.get("passed").asInt());
+        assertEquals(1, report.get("errors").asInt());
+        JsonNode error = report.get("failures").get(0);
+        assertEquals("several decisions", error.get("case").asText());
+        assertEquals(0, error.get("index").asInt());
+        assertEquals("A test case can name only one decision, \"decisions\" names 2", error.get("error").asText());
+    }
+
+    @Test
+    void reportsErrorsThrownByTheEvaluationWithTheCase() throws Exception {
+        DmnSimulator simulator = new DmnSimulator() {
+            @Override
+            public Evaluation evaluateDecisions(List<DmnDecision> targets, Map<String, Object> variables) {
+                if ("Summer".equals(variables.get("season"))) {
+                    throw new StackOverflowError();
+                }
+                return super.evaluateDecisions(targets, variables);
+            }
+        };
+        testSuiteRunner = new TestSuiteRunner(simulator, executor, 2);
+
+        JsonNode report = run(Arrays.asList(testCase("fall", "Dish", "Fall", 4, false), testCase("summer", "Dish", "Summer", 4, false)), null);
+
+        assertEquals(1, report.get("passed").asInt());
+        assertEquals(1, report.get("errors").asInt());
+        JsonNode error = report.get("failures").get(0);
+        assertEquals("summer", error.get("case").asText());
+        assertEquals(1, error.get("index").asInt());
+        assertEquals(StackOverflowError.class.getName(), error.get("error").asText());
+    }
+
+    private JsonNode run(List<ObjectNode> cases, String defaultDecision) throws Exception {
+        Iterator<ObjectNode> iterator = cases.iterator();
+        TestSuiteReport report = testSuiteRunner.run(decisions, () -> iterator.hasNext() ? iterator.next().toString() : null, defaultDecision);
+        return MAPPER.readTree(report.toString());
+    }
+
+    private static ObjectNode testCase(String name, String decision, String season, int guestCount, boolean guestsWithChildren) {
+        ObjectNode caseNode = MAPPER.createObjectNode();
+        caseNode.put("name", name);
+        if (decision != null) {
+            caseNode.put("decision", decision);
+        }
+        ObjectNode variablesNode = caseNode.putObject("variables");
+        variablesNode.putObject("season").put("value", season).put("type", "String");
+        variablesNode.putObject("guestCount").put("value", guestCount).put("type", "Integer");
+        variablesNode.putObject("guestsWithChildren").put("value", guestsWithChildren).put("type", "Boolean");
+        return caseNode;
+    }
+
+    private static List<String> texts(JsonNode arrayNode) {
+        List<String> texts = new ArrayList<>();
+        for (JsonNode node : arrayNode) {
+            texts.add(node.asText());
+        }
+        return texts;
+    }
+}
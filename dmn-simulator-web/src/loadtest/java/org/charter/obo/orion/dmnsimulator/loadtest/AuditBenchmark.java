@@ -0,0 +1,163 @@
+package org.charter.obo.orion.dmnsimulator.loadtest;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnDecisionResult;
+import org.camunda.bpm.dmn.engine.DmnEngine;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionLogicEvaluationEvent;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionTableEvaluationEvent;
+import org.camunda.bpm.dmn.engine.impl.DefaultDmnEngineConfiguration;
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.engine.variable.Variables;
+import org.charter.obo.orion.dmnsimulator.engine.DecisionEvaluator;
+import org.charter.obo.orion.dmnsimulator.engine.MultiDecisionContext;
+import org.charter.obo.orion.dmnsimulator.services.EvaluationAuditReader;
+import org.charter.obo.orion.dmnsimulator.services.EvaluationAuditService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Benchmark of the evaluation audit log
+ * It evaluates every combination of the Beverages example once, then a number of request threads record these evaluations
+ * into an EvaluationAuditService writing to a temporary directory, in-process and without HTTP
+ * It reports the time a request thread spends in record, the rate at which the writer thread encodes and appends the records,
+ * the bytes per record, the started segments and the dropped records, and finally the time to export all segments
+ *
+ * Run with: mvn -Ploadtest test-compile exec:java@audit-benchmark -Dbenchmark.records=500000
+ *
+ * System properties:
+ * benchmark.model        the DMN file, default src/test/resources/Beverages.dmn
+ * benchmark.records      recorded evaluations, default 500000
+ * benchmark.threads      request threads, default 4
+ * benchmark.queue        capacity of the audit queue, default 65536
+ * benchmark.segmentMb    size of a segment in MB, default 64
+ */
+public class AuditBenchmark {
+
+    private static final String[] SEASONS = { "Fall", "Winter", "Spring", "Summer" };
+
+    /**
+     * Entry Method which prepares the evaluations, records them from all threads and prints the result
+     * @param args Not used
+     * @throws Exception If the model or the audit directory can not be accessed.
+     */
+    public static void main(String[] args) throws Exception {
+        int records = Integer.getInteger("benchmark.records", 500000);
+        int threads = Integer.getInteger("benchmark.threads", 4);
+        ObjectMapper json = new ObjectMapper();
+
+        DefaultDmnEngineConfiguration configuration = DecisionEvaluator.createEngineConfiguration();
+        DmnEngine dmnEngine = configuration.buildEngine();
+        List<DmnDecision> decisions;
+        try (InputStream in = new FileInputStream(System.getProperty("benchmark.model", "src/test/resources/Beverages.dmn"))) {
+            decisions = dmnEngine.parseDecisions(in);
+        }
+        DmnDecision decision = DecisionEvaluator.findDecision(null, decisions);
+        List<Evaluation> evaluations = new ArrayList<>();
+        for (String season : SEASONS) {
+            for (int guestCount = 1; guestCount <= 12; guestCount++) {
+                for (boolean guestsWithChildren : new boolean[] { false, true }) {
+                    VariableMap variables = Variables.createVariables().putValue("season", season).putValue("guestCount", guestCount)
+                            .putValue("guestsWithChildren", guestsWithChildren);
+                    evaluations.add(evaluate(configuration, decision, variables, json));
+                }
+            }
+        }
+
+        Path directory = Files.createTempDirectory("audit-benchmark");
+        EvaluationAuditService auditService = new EvaluationAuditService();
+        ReflectionTestUtils.setField(auditService, "enabled", true);
+        ReflectionTestUtils.setField(auditService, "auditDirectory", directory.toString());
+        ReflectionTestUtils.setField(auditService, "segmentSizeMb", Integer.getInteger("benchmark.segmentMb", 64));
+        ReflectionTestUtils.setField(auditService, "queueCapacity", Integer.getInteger("benchmark.queue", 65536));
+        ReflectionTestUtils.setField(auditService, "forceIntervalMillis", 1000L);
+        auditService.start();
+
+        AtomicLong recordNanos = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            new Thread(() -> {
+                long threadStart = System.nanoTime();
+                for (int i = thread; i < records; i += threads) {
+                    Evaluation evaluation = evaluations.get(i % evaluations.size());
+                    auditService.record("benchmark", decision.getKey(), evaluation.variables, evaluation.events, evaluation.outputs);
+                }
+                recordNanos.addAndGet(System.nanoTime() - threadStart);
+                done.countDown();
+            }, "request-" + t).start();
+        }
+        done.await();
+        auditService.stop();
+        long writeNanos = System.nanoTime() - start;
+        Map<String, Object> statistics = auditService.getStatistics();
+        long written = (Long) statistics.get("recordsWritten");
+        long bytes = (Long) statistics.get("bytesWritten");
+
+        long exportStart = System.nanoTime();
+        long exported;
+        try (OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }) {
+            exported = new EvaluationAuditReader(directory).export(out);
+        }
+        long exportNanos = System.nanoTime() - exportStart;
+
+        System.out.println(String.format("%-10s %8s %10s %12s %14s %10s %10s %9s %8s %14s", "records", "threads", "recordNs", "written",
+                "writtenPerSec", "bytes", "perRecord", "segments", "dropped", "exportPerSec"));
+        System.out.println(String.format("%-10d %8d %10.0f %12d %14.0f %10d %10.1f %9d %8d %14.0f", records, threads,
+                recordNanos.get() / (double) records, written, written * 1e9 / writeNanos, bytes, bytes / (double) Math.max(1, written),
+                statistics.get("segmentsStarted"), statistics.get("recordsDropped"), exported * 1e9 / exportNanos));
+
+        try (DirectoryStream<Path> segmentFiles = Files.newDirectoryStream(directory)) {
+            for (Path segmentFile : segmentFiles) {
+                Files.delete(segmentFile);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private static Evaluation evaluate(DefaultDmnEngineConfiguration configuration, DmnDecision decision, VariableMap variables,
+                                       ObjectMapper json) throws Exception {
+        MultiDecisionContext decisionContext = new MultiDecisionContext(configuration, false, false);
+        DmnDecisionResult result = decisionContext.evaluateDecisions(Collections.singletonList(decision), variables.asVariableContext())
+                .get(decision);
+        List<DmnDecisionTableEvaluationEvent> events = new ArrayList<>();
+        for (DmnDecisionLogicEvaluationEvent event : decisionContext.getEvaluationEvents().values()) {
+            events.add((DmnDecisionTableEvaluationEvent) event);
+        }
+        return new Evaluation(variables, events, json.writeValueAsString(result.getResultList()));
+    }
+
+    /**
+     * One prepared evaluation, recorded again and again
+     */
+    private static class Evaluation {
+        private final VariableMap variables;
+        private final List<DmnDecisionTableEvaluationEvent> events;
+        private final String outputs;
+
+        private Evaluation(VariableMap variables, List<DmnDecisionTableEvaluationEvent> events, String outputs) {
+            this.variables = variables;
+            this.events = events;
+            this.outputs = outputs;
+        }
+    }
+}
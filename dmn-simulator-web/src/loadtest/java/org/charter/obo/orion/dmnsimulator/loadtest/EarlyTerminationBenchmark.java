@@ -0,0 +1,101 @@
+package org.charter.obo.orion.dmnsimulator.loadtest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnEngine;
+import org.camunda.bpm.dmn.engine.impl.DefaultDmnEngineConfiguration;
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.engine.variable.Variables;
+import org.charter.obo.orion.dmnsimulator.engine.DecisionEvaluator;
+import org.charter.obo.orion.dmnsimulator.engine.MultiDecisionContext;
+
+/**
+ * Benchmark which compares the evaluation of a generated FIRST decision table with and without early termination
+ * The table has integer inputs, every rule tests all of them, and only one rule matches the evaluated variables
+ * It evaluates the table in-process, without the application and HTTP, and reports the average wall time per evaluation
+ *
+ * Run with: mvn -Ploadtest test-compile exec:java@early-termination-benchmark -Dbenchmark.rules=2000
+ *
+ * System properties:
+ * benchmark.rules       rule count of the generated table, default 2000
+ * benchmark.inputs      inputs of the generated table, default 5
+ * benchmark.match       index of the matching rule, default 3
+ * benchmark.iterations  measured evaluations per mode, default 200
+ */
+public class EarlyTerminationBenchmark {
+
+    /**
+     * Entry Method which generates the table, measures both modes and prints the result
+     * @param args Not used
+     */
+    public static void main(String[] args) {
+        int rules = Integer.getInteger("benchmark.rules", 2000);
+        int inputs = Integer.getInteger("benchmark.inputs", 5);
+        int match = Integer.getInteger("benchmark.match", 3);
+        int iterations = Integer.getInteger("benchmark.iterations", 200);
+
+        DefaultDmnEngineConfiguration configuration = DecisionEvaluator.createEngineConfiguration();
+        DmnEngine dmnEngine = configuration.buildEngine();
+        DmnDecision decision = dmnEngine.parseDecision("table",
+                new ByteArrayInputStream(generateTable(rules, inputs, match).getBytes(StandardCharsets.UTF_8)));
+        VariableMap variables = Variables.createVariables();
+        for (int i = 0; i < inputs; i++) {
+            variables.putValue("in" + i, 1);
+        }
+
+        System.out.println(String.format("%-10s %8s %8s %8s %12s %s", "mode", "rules", "inputs", "match", "micros", "result"));
+        for (boolean earlyTermination : new boolean[] { false, true }) {
+            Object result = null;
+            for (int i = 0; i < iterations; i++) {
+                result = evaluate(configuration, decision, variables, earlyTermination);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                result = evaluate(configuration, decision, variables, earlyTermination);
+            }
+            double micros = (System.nanoTime() - start) / 1000.0 / iterations;
+            System.out.println(String.format("%-10s %8d %8d %8d %12.1f %s", earlyTermination ? "early" : "default", rules, inputs, match,
+                    micros, result));
+        }
+    }
+
+    private static Object evaluate(DefaultDmnEngineConfiguration configuration, DmnDecision decision, VariableMap variables,
+            boolean earlyTermination) {
+        MultiDecisionContext decisionContext = new MultiDecisionContext(configuration, earlyTermination, false);
+        return decisionContext.evaluateDecisions(Collections.singletonList(decision), variables.asVariableContext()).get(decision)
+                .getResultList();
+    }
+
+    /**
+     * Method to generate a model of one FIRST decision table, where only the rule at match has the value 1 in every input
+     * @param rules
+     * @param inputs
+     * @param match
+     * @return The DMN XML
+     */
+    private static String generateTable(int rules, int inputs, int match) {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<definitions xmlns=\"https://www.omg.org/spec/DMN/20191111/MODEL/\" id=\"benchmark\" name=\"Benchmark\" namespace=\"benchmark\">\n"
+                + "<decision id=\"table\" name=\"Table\">\n<decisionTable id=\"decisionTable\" hitPolicy=\"FIRST\">\n");
+        for (int i = 0; i < inputs; i++) {
+            xml.append("<input id=\"input").append(i).append("\" label=\"Input ").append(i).append("\"><inputExpression id=\"inputExpression")
+                    .append(i).append("\" typeRef=\"integer\"><text>in").append(i).append("</text></inputExpression></input>\n");
+        }
+        xml.append("<output id=\"output\" name=\"result\" typeRef=\"string\"/>\n");
+        for (int r = 0; r < rules; r++) {
+            xml.append("<rule id=\"rule").append(r).append("\">");
+            for (int i = 0; i < inputs; i++) {
+                // every other rule fails only at its last input, so the default handler tests every entry
+                boolean matches = r == match || i < inputs - 1;
+                xml.append("<inputEntry id=\"inputEntry").append(r).append('_').append(i).append("\"><text>")
+                        .append(matches ? "[0..10]" : "[20..30]").append("</text></inputEntry>");
+            }
+            xml.append("<outputEntry id=\"outputEntry").append(r).append("\"><text>\"result ").append(r).append("\"</text></outputEntry></rule>\n");
+        }
+        xml.append("</decisionTable>\n</decision>\n</definitions>\n");
+        return xml.toString();
+    }
+}
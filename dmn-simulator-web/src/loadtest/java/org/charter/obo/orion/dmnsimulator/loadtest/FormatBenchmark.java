@@ -0,0 +1,250 @@
+package org.charter.obo.orion.dmnsimulator.loadtest;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+import org.charter.obo.orion.dmnsimulator.DmnSimulatorApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Benchmark which compares JSON with the binary formats Smile and CBOR on the evaluateDecision endpoint
+ * It starts the whole application on a random local port, like the LoadTestHarness, and uses the Beverages example
+ * and generated models with one large decision table as payloads
+ * For every payload and format it reports the request and response size, the time to encode and decode both with Jackson,
+ * and the latency and the CPU time of the whole JVM per request over HTTP; the client only sends prepared bytes and
+ * drains the response, so the CPU time is mostly the server
+ *
+ * Run with: mvn -Ploadtest test-compile exec:java@format-benchmark -Dbenchmark.rules=500,5000
+ *
+ * System properties:
+ * benchmark.request     the Beverages request, default src/test/resources/exampleRequest.json
+ * benchmark.rules       rule counts of the generated models, default 500,5000
+ * benchmark.inputs      inputs of the generated decision tables, default 5
+ * benchmark.iterations  measured requests per payload and format, default 500
+ * benchmark.report      where the report is written, default target/loadtest/formats.json
+ */
+public class FormatBenchmark {
+
+    private static final String[] FORMATS = {"json", "smile", "cbor"};
+
+    private static final Map<String, ObjectMapper> MAPPERS = new LinkedHashMap<>();
+
+    private static final Map<String, String> MEDIA_TYPES = new LinkedHashMap<>();
+
+    static {
+        MAPPERS.put("json", new ObjectMapper());
+        MAPPERS.put("smile", new ObjectMapper(new SmileFactory()));
+        MAPPERS.put("cbor", new ObjectMapper(new CBORFactory()));
+        MEDIA_TYPES.put("json", "application/json");
+        MEDIA_TYPES.put("smile", "application/x-jackson-smile");
+        MEDIA_TYPES.put("cbor", "application/cbor");
+    }
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /**
+     * Entry Method which starts the application, measures every payload in every format and writes the report
+     * @param args Passed on to the application
+     * @throws Exception If a request fails.
+     */
+    public static void main(String[] args) throws Exception {
+        int iterations = Integer.getInteger("benchmark.iterations", 500);
+        int inputs = Integer.getInteger("benchmark.inputs", 5);
+        Path reportFile = Paths.get(System.getProperty("benchmark.report", "target/loadtest/formats.json"));
+        ObjectMapper json = MAPPERS.get("json");
+
+        Map<String, JsonNode> payloads = new LinkedHashMap<>();
+        payloads.put("beverages", json.readTree(new File(System.getProperty("benchmark.request", "src/test/resources/exampleRequest.json"))));
+        for (String rules : System.getProperty("benchmark.rules", "500,5000").split(",")) {
+            payloads.put("table-" + rules.trim() + "-rules", generateRequest(json, Integer.parseInt(rules.trim()), inputs));
+        }
+
+        List<String> applicationArgs = new ArrayList<>(Arrays.asList(args));
+        applicationArgs.add("--server.port=0");
+        ConfigurableApplicationContext context = SpringApplication.run(DmnSimulatorApplication.class, applicationArgs.toArray(new String[0]));
+        ArrayNode report = json.createArrayNode();
+        try {
+            String url = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort() + "/dmnSimulator/evaluateDecision";
+            for (Map.Entry<String, JsonNode> payload : payloads.entrySet()) {
+                JsonNode response = json.readTree(post(url, json.writeValueAsBytes(payload.getValue()), "json"));
+                for (String format : FORMATS) {
+                    report.add(measure(url, payload.getKey(), payload.getValue(), response, format, iterations));
+                }
+            }
+        } finally {
+            context.close();
+        }
+
+        System.out.println(String.format("%-22s %-6s %12s %12s %10s %10s %10s %10s %12s %12s", "payload", "format", "requestBytes",
+                "responseBytes", "encodeUs", "decodeUs", "respEncUs", "respDecUs", "latencyUs", "cpuUs"));
+        for (JsonNode row : report) {
+            System.out.println(String.format("%-22s %-6s %12d %12d %10.1f %10.1f %10.1f %10.1f %12.1f %12.1f",
+                    row.get("payload").asText(), row.get("format").asText(), row.get("requestBytes").asLong(),
+                    row.get("responseBytes").asLong(), row.get("requestEncodeMicros").asDouble(), row.get("requestDecodeMicros").asDouble(),
+                    row.get("responseEncodeMicros").asDouble(), row.get("responseDecodeMicros").asDouble(),
+                    row.get("httpLatencyMicros").asDouble(), row.get("httpCpuMicros").asDouble()));
+        }
+        Files.createDirectories(reportFile.toAbsolutePath().getParent());
+        json.writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), report);
+        System.out.println("Report written to " + reportFile.toAbsolutePath());
+    }
+
+    /**
+     * Method to measure one payload in one format
+     * @param url
+     * @param name
+     * @param request
+     * @param response The JSON response of the request, used for the codec times
+     * @param format
+     * @param iterations
+     * @return The report row
+     * @throws IOException If a request fails.
+     */
+    private static ObjectNode measure(String url, String name, JsonNode request, JsonNode response, String format, int iterations)
+            throws IOException {
+        ObjectMapper mapper = MAPPERS.get(format);
+        byte[] requestBytes = mapper.writeValueAsBytes(request);
+        byte[] responseBytes = post(url, requestBytes, format);
+        ObjectNode row = MAPPERS.get("json").createObjectNode();
+        row.put("payload", name);
+        row.put("format", format);
+        row.put("requestBytes", requestBytes.length);
+        row.put("responseBytes", responseBytes.length);
+        row.put("requestEncodeMicros", encodeMicros(mapper, request, iterations));
+        row.put("requestDecodeMicros", decodeMicros(mapper, requestBytes, iterations));
+        byte[] encodedResponse = mapper.writeValueAsBytes(response);
+        row.put("responseEncodeMicros", encodeMicros(mapper, response, iterations));
+        row.put("responseDecodeMicros", decodeMicros(mapper, encodedResponse, iterations));
+
+        for (int i = 0; i < iterations / 5; i++) {
+            post(url, requestBytes, format);
+        }
+        long cpuStart = processCpuNanos();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            post(url, requestBytes, format);
+        }
+        row.put("httpLatencyMicros", (System.nanoTime() - start) / 1000.0 / iterations);
+        row.put("httpCpuMicros", (processCpuNanos() - cpuStart) / 1000.0 / iterations);
+        return row;
+    }
+
+    private static double encodeMicros(ObjectMapper mapper, JsonNode node, int iterations) throws IOException {
+        for (int i = 0; i < iterations; i++) {
+            mapper.writeValueAsBytes(node);
+        }
+        long start = THREADS.getCurrentThreadCpuTime();
+        for (int i = 0; i < iterations; i++) {
+            mapper.writeValueAsBytes(node);
+        }
+        return (THREADS.getCurrentThreadCpuTime() - start) / 1000.0 / iterations;
+    }
+
+    private static double decodeMicros(ObjectMapper mapper, byte[] bytes, int iterations) throws IOException {
+        for (int i = 0; i < iterations; i++) {
+            mapper.readTree(bytes);
+        }
+        long start = THREADS.getCurrentThreadCpuTime();
+        for (int i = 0; i < iterations; i++) {
+            mapper.readTree(bytes);
+        }
+        return (THREADS.getCurrentThreadCpuTime() - start) / 1000.0 / iterations;
+    }
+
+    /**
+     * Method to get the CPU time of all threads of the JVM
+     * @return The CPU time in nanoseconds, or 0 if the platform does not provide it
+     */
+    private static long processCpuNanos() {
+        java.lang.management.OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return 0L;
+    }
+
+    /**
+     * Method to send a request in a format and read the whole response
+     * @param url
+     * @param body
+     * @param format The format of the request and the response
+     * @return The response body
+     * @throws IOException If the request fails or the response status is not 200.
+     */
+    private static byte[] post(String url, byte[] body, String format) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", MEDIA_TYPES.get(format));
+        connection.setRequestProperty("Accept", MEDIA_TYPES.get(format));
+        connection.setFixedLengthStreamingMode(body.length);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body);
+        }
+        int status = connection.getResponseCode();
+        if (status != 200) {
+            throw new IOException("Status " + status + " for a " + format + " request to " + url);
+        }
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        try (InputStream in = connection.getInputStream()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                response.write(buffer, 0, read);
+            }
+        }
+        return response.toByteArray();
+    }
+
+    /**
+     * Method to generate a request with a model of one COLLECT decision table, where about a tenth of the rules match
+     * @param json
+     * @param rules
+     * @param inputs
+     * @return The request
+     */
+    private static JsonNode generateRequest(ObjectMapper json, int rules, int inputs) {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<definitions xmlns=\"https://www.omg.org/spec/DMN/20191111/MODEL/\" id=\"benchmark\" name=\"Benchmark\" namespace=\"benchmark\">\n"
+                + "<decision id=\"table\" name=\"Table\">\n<decisionTable id=\"decisionTable\" hitPolicy=\"COLLECT\">\n");
+        for (int i = 0; i < inputs; i++) {
+            xml.append("<input id=\"input").append(i).append("\" label=\"Input ").append(i).append("\"><inputExpression id=\"inputExpression")
+                    .append(i).append("\" typeRef=\"integer\"><text>in").append(i).append("</text></inputExpression></input>\n");
+        }
+        xml.append("<output id=\"output\" name=\"result\" typeRef=\"string\"/>\n");
+        for (int r = 0; r < rules; r++) {
+            xml.append("<rule id=\"rule").append(r).append("\">");
+            for (int i = 0; i < inputs; i++) {
+                int low = (r * 7 + i * 13) % 100;
+                xml.append("<inputEntry id=\"inputEntry").append(r).append('_').append(i).append("\"><text>")
+                        .append(i == 0 ? "[" + low + ".." + (low + 10) + "]" : "-").append("</text></inputEntry>");
+            }
+            xml.append("<outputEntry id=\"outputEntry").append(r).append("\"><text>\"result ").append(r).append("\"</text></outputEntry></rule>\n");
+        }
+        xml.append("</decisionTable>\n</decision>\n</definitions>\n");
+        ObjectNode request = json.createObjectNode();
+        ObjectNode variables = request.putObject("variables");
+        for (int i = 0; i < inputs; i++) {
+            variables.putObject("in" + i).put("value", 50).put("type", "Integer");
+        }
+        request.put("decision", "table");
+        request.put("xml", xml.toString());
+        return request;
+    }
+}
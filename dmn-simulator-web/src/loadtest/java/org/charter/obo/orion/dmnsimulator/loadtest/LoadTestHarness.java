@@ -0,0 +1,297 @@
+package org.charter.obo.orion.dmnsimulator.loadtest;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.Histogram;
+import org.charter.obo.orion.dmnsimulator.DmnSimulatorApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Load test harness which starts the whole application on a random local port and drives its endpoints over HTTP,
+ * so the numbers include the servlet container, the security filters, the controller and the serialization
+ * Every worker thread sends requests one after another, picking the endpoint by the weights of the request mix,
+ * and records the latency of every request after the warm-up in an HdrHistogram
+ * The report has p50, p99, p99.9, max and throughput per endpoint; if a baseline report is given,
+ * the run fails when a percentile or the throughput is worse than the baseline by more than the tolerance
+ *
+ * Run with: mvn -Ploadtest verify -Dloadtest.concurrency=16 -Dloadtest.mix=evaluateDecision:9,allDetails:1
+ *
+ * System properties:
+ * loadtest.concurrency     number of worker threads, default 8
+ * loadtest.warmupSeconds   seconds before latencies are recorded, default 10
+ * loadtest.durationSeconds seconds latencies are recorded, default 30
+ * loadtest.mix             endpoint:weight list, default evaluateDecision:9,allDetails:1
+ * loadtest.request         request body sent to every endpoint, default src/test/resources/exampleRequest.json
+ * loadtest.report          where the report is written, default target/loadtest/report.json
+ * loadtest.baseline        report of an earlier run to compare with, optional
+ * loadtest.tolerance       allowed relative regression, default 0.10
+ */
+public class LoadTestHarness {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private static final double[] PERCENTILES = {50.0, 99.0, 99.9};
+
+    private static final Map<String, String> ENDPOINTS = new LinkedHashMap<>();
+
+    static {
+        ENDPOINTS.put("evaluateDecision", "/dmnSimulator/evaluateDecision");
+        ENDPOINTS.put("allDetails", "/dmnSimulator/allDetails");
+        ENDPOINTS.put("inputNames", "/dmnSimulator/inputNames");
+        ENDPOINTS.put("outputNames", "/dmnSimulator/outputNames");
+        ENDPOINTS.put("decisionNames", "/dmnSimulator/decisionNames");
+    }
+
+    /**
+     * Entry Method which starts the application, runs the load and writes the report
+     * @param args Passed on to the application
+     * @throws Exception If the load test fails or a result regressed past the baseline.
+     */
+    public static void main(String[] args) throws Exception {
+        int concurrency = Integer.getInteger("loadtest.concurrency", 8);
+        int warmupSeconds = Integer.getInteger("loadtest.warmupSeconds", 10);
+        int durationSeconds = Integer.getInteger("loadtest.durationSeconds", 30);
+        Map<String, Integer> mix = parseMix(System.getProperty("loadtest.mix", "evaluateDecision:9,allDetails:1"));
+        byte[] requestBody = Files.readAllBytes(Paths.get(System.getProperty("loadtest.request", "src/test/resources/exampleRequest.json")));
+        Path reportFile = Paths.get(System.getProperty("loadtest.report", "target/loadtest/report.json"));
+        String baseline = System.getProperty("loadtest.baseline");
+        double tolerance = Double.parseDouble(System.getProperty("loadtest.tolerance", "0.10"));
+
+        List<String> applicationArgs = new ArrayList<>(Arrays.asList(args));
+        applicationArgs.add("--server.port=0");
+        ConfigurableApplicationContext context = SpringApplication.run(DmnSimulatorApplication.class, applicationArgs.toArray(new String[0]));
+        ObjectNode report;
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            report = runLoad("http://localhost:" + port, mix, requestBody, concurrency, warmupSeconds, durationSeconds);
+        } finally {
+            context.close();
+        }
+
+        ObjectMapper mapper = new ObjectMapper();
+        Files.createDirectories(reportFile.toAbsolutePath().getParent());
+        mapper.writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), report);
+        System.out.println("Report written to " + reportFile.toAbsolutePath());
+
+        if (baseline != null && !baseline.isEmpty()) {
+            List<String> regressions = compare(report, mapper.readTree(new File(baseline)), tolerance);
+            if (!regressions.isEmpty()) {
+                regressions.forEach(regression -> System.out.println("REGRESSION " + regression));
+                throw new IllegalStateException(regressions.size() + " results regressed past the baseline " + baseline);
+            }
+            System.out.println("No regression against " + baseline + " with tolerance " + tolerance);
+        }
+    }
+
+    /**
+     * Method to run the worker threads and collect their histograms
+     * @param baseUrl
+     * @param mix Endpoint names with their weights
+     * @param requestBody
+     * @param concurrency
+     * @param warmupSeconds
+     * @param durationSeconds
+     * @return The report
+     * @throws Exception If a worker failed.
+     */
+    private static ObjectNode runLoad(String baseUrl, Map<String, Integer> mix, byte[] requestBody, int concurrency,
+                                      int warmupSeconds, int durationSeconds) throws Exception {
+        String[] endpoints = mix.keySet().toArray(new String[0]);
+        int[] cumulativeWeights = new int[endpoints.length];
+        int totalWeight = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            totalWeight += mix.get(endpoints[i]);
+            cumulativeWeights[i] = totalWeight;
+        }
+        long measureStart = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long measureEnd = measureStart + TimeUnit.SECONDS.toNanos(durationSeconds);
+        AtomicLong errors = new AtomicLong();
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        List<Future<Map<String, Histogram>>> results = new ArrayList<>();
+        for (int worker = 0; worker < concurrency; worker++) {
+            final int weightSum = totalWeight;
+            results.add(workers.submit(() -> {
+                Map<String, Histogram> histograms = new HashMap<>();
+                for (String endpoint : endpoints) {
+                    histograms.put(endpoint, new Histogram(HIGHEST_TRACKABLE_NANOS, 3));
+                }
+                long now;
+                while ((now = System.nanoTime()) < measureEnd) {
+                    int pick = ThreadLocalRandom.current().nextInt(weightSum);
+                    int index = 0;
+                    while (cumulativeWeights[index] <= pick) {
+                        index++;
+                    }
+                    boolean ok = post(baseUrl + ENDPOINTS.get(endpoints[index]), requestBody);
+                    long latency = System.nanoTime() - now;
+                    if (now >= measureStart) {
+                        histograms.get(endpoints[index]).recordValue(Math.min(latency, HIGHEST_TRACKABLE_NANOS));
+                        if (!ok) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                }
+                return histograms;
+            }));
+        }
+        Map<String, Histogram> merged = new LinkedHashMap<>();
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+        for (String endpoint : endpoints) {
+            merged.put(endpoint, new Histogram(HIGHEST_TRACKABLE_NANOS, 3));
+        }
+        for (Future<Map<String, Histogram>> result : results) {
+            for (Map.Entry<String, Histogram> histogram : result.get().entrySet()) {
+                merged.get(histogram.getKey()).add(histogram.getValue());
+                total.add(histogram.getValue());
+            }
+        }
+        workers.shutdown();
+
+        ObjectNode report = new ObjectMapper().createObjectNode();
+        report.put("concurrency", concurrency);
+        report.put("durationSeconds", durationSeconds);
+        report.put("errors", errors.get());
+        ObjectNode endpointsNode = report.putObject("endpoints");
+        System.out.println(String.format("%-18s %10s %10s %10s %10s %10s %12s", "endpoint", "requests", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "requests/s"));
+        for (Map.Entry<String, Histogram> histogram : merged.entrySet()) {
+            endpointsNode.set(histogram.getKey(), summarize(histogram.getKey(), histogram.getValue(), durationSeconds));
+        }
+        report.set("total", summarize("total", total, durationSeconds));
+        System.out.println("errors: " + errors.get());
+        return report;
+    }
+
+    /**
+     * Method to print one line of the report and return it as JSON
+     * @param name
+     * @param histogram Latencies in nanoseconds
+     * @param durationSeconds
+     * @return The percentiles in milliseconds and the throughput
+     */
+    private static ObjectNode summarize(String name, Histogram histogram, int durationSeconds) {
+        ObjectNode summary = new ObjectMapper().createObjectNode();
+        summary.put("requests", histogram.getTotalCount());
+        for (double percentile : PERCENTILES) {
+            summary.put("p" + percentileName(percentile), toMillis(histogram.getValueAtPercentile(percentile)));
+        }
+        summary.put("maxMillis", toMillis(histogram.getMaxValue()));
+        summary.put("requestsPerSecond", histogram.getTotalCount() / (double) durationSeconds);
+        System.out.println(String.format("%-18s %10d %10.3f %10.3f %10.3f %10.3f %12.1f", name, histogram.getTotalCount(),
+                summary.get("p50").asDouble(), summary.get("p99").asDouble(), summary.get("p99_9").asDouble(),
+                summary.get("maxMillis").asDouble(), summary.get("requestsPerSecond").asDouble()));
+        return summary;
+    }
+
+    /**
+     * Method to compare the percentiles and the throughput of every endpoint with a baseline report
+     * @param report
+     * @param baseline
+     * @param tolerance Allowed relative regression
+     * @return Descriptions of the regressed results
+     */
+    private static List<String> compare(JsonNode report, JsonNode baseline, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        Iterator<Map.Entry<String, JsonNode>> endpoints = baseline.path("endpoints").fields();
+        while (endpoints.hasNext()) {
+            Map.Entry<String, JsonNode> expected = endpoints.next();
+            JsonNode actual = report.path("endpoints").path(expected.getKey());
+            if (actual.isMissingNode()) {
+                continue;
+            }
+            for (double percentile : PERCENTILES) {
+                String field = "p" + percentileName(percentile);
+                double limit = expected.getValue().path(field).asDouble() * (1 + tolerance);
+                if (actual.path(field).asDouble() > limit) {
+                    regressions.add(String.format("%s %s %.3f ms > %.3f ms", expected.getKey(), field, actual.path(field).asDouble(), limit));
+                }
+            }
+            double minimum = expected.getValue().path("requestsPerSecond").asDouble() * (1 - tolerance);
+            if (actual.path("requestsPerSecond").asDouble() < minimum) {
+                regressions.add(String.format("%s throughput %.1f/s < %.1f/s", expected.getKey(), actual.path("requestsPerSecond").asDouble(), minimum));
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * Method to send one request and read the whole response, so the connection is kept alive
+     * @param url
+     * @param body
+     * @return true if the response status is 200
+     */
+    private static boolean post(String url, byte[] body) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json;charset=UTF-8");
+            connection.setFixedLengthStreamingMode(body.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+            int status = connection.getResponseCode();
+            try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                if (in != null) {
+                    byte[] buffer = new byte[8192];
+                    while (in.read(buffer) != -1) {
+                        // drain the response
+                    }
+                }
+            }
+            return status == 200;
+        } catch (IOException e) {
+            if (connection != null) {
+                connection.disconnect();
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Method to read an endpoint mix like "evaluateDecision:9,allDetails:1"
+     * @param mix
+     * @return Endpoint names with their weights
+     */
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (!ENDPOINTS.containsKey(parts[0])) {
+                throw new IllegalArgumentException("Unknown endpoint '" + parts[0] + "', known are " + ENDPOINTS.keySet());
+            }
+            int weight = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1;
+            if (weight > 0) {
+                weights.put(parts[0], weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("The request mix has no endpoint with a positive weight");
+        }
+        return weights;
+    }
+
+    private static String percentileName(double percentile) {
+        return (percentile == Math.rint(percentile) ? String.valueOf((int) percentile) : String.valueOf(percentile)).replace('.', '_');
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
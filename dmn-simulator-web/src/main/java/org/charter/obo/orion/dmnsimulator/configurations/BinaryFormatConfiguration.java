@@ -0,0 +1,26 @@
+package org.charter.obo.orion.dmnsimulator.configurations;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * This class is used to register the binary formats Smile and CBOR for the endpoints which read or return JSON as a String.
+ * Endpoints returning maps and lists already get them from the default Jackson Smile and CBOR converters,
+ * which Spring adds when the formats are on the classpath.
+ */
+@Configuration
+public class BinaryFormatConfiguration implements WebMvcConfigurer {
+
+  /**
+   * This method is used to add the String converter for the binary formats in front of the default converters.
+   *
+   * @param converters The configured message converters.
+   */
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    converters.add(0, new BinaryJsonStringHttpMessageConverter());
+  }
+}
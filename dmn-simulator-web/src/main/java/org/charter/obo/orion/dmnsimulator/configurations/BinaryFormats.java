@@ -0,0 +1,135 @@
+package org.charter.obo.orion.dmnsimulator.configurations;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * The binary formats the simulator endpoints accept and return besides JSON
+ * Smile and CBOR encode the same data model as JSON, so a JSON document can be converted to and from them token by token
+ */
+public enum BinaryFormats {
+
+    SMILE(new MediaType("application", "x-jackson-smile"), new SmileFactory()),
+    CBOR(new MediaType("application", "cbor"), new CBORFactory());
+
+    private final MediaType mediaType;
+    private final JsonFactory factory;
+    private final ObjectMapper objectMapper;
+
+    BinaryFormats(MediaType mediaType, JsonFactory factory) {
+        this.mediaType = mediaType;
+        this.factory = factory;
+        this.objectMapper = new ObjectMapper(factory);
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public JsonFactory getFactory() {
+        return factory;
+    }
+
+    /**
+     * Method to get the binary format of a Content-Type header
+     * @param contentType
+     * @return The format, or null for JSON and every other type
+     */
+    public static BinaryFormats forContentType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        try {
+            return forMediaType(MediaType.parseMediaType(contentType));
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Method to get the binary format an Accept header asks for
+     * The media types are tried by quality and specificity, JSON or a wildcard before a binary type means JSON
+     * @param accept
+     * @return The format, or null for JSON
+     */
+    public static BinaryFormats forAccept(String accept) {
+        if (accept == null) {
+            return null;
+        }
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        MediaType.sortBySpecificityAndQuality(mediaTypes);
+        for (MediaType mediaType : mediaTypes) {
+            BinaryFormats format = forMediaType(mediaType);
+            if (format != null) {
+                return format;
+            }
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static BinaryFormats forMediaType(MediaType mediaType) {
+        for (BinaryFormats format : values()) {
+            if (format.mediaType.equalsTypeAndSubtype(mediaType)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Method to write a JSON tree in this format
+     * @param node
+     * @param out The stream is not closed
+     * @throws IOException
+     */
+    public void write(JsonNode node, OutputStream out) throws IOException {
+        try (JsonGenerator generator = factory.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            objectMapper.writeTree(generator, node);
+        }
+    }
+
+    /**
+     * Method to read a document of this format as a JSON tree
+     * @param in
+     * @return The tree
+     * @throws IOException
+     */
+    public JsonNode read(InputStream in) throws IOException {
+        return objectMapper.readTree(in);
+    }
+
+    /**
+     * Method to copy a document token by token from one format to another
+     * @param parser
+     * @param generator
+     * @throws IOException
+     */
+    public static void transcode(JsonParser parser, JsonGenerator generator) throws IOException {
+        while (parser.nextToken() != null) {
+            generator.copyCurrentEvent(parser);
+        }
+        generator.flush();
+    }
+}
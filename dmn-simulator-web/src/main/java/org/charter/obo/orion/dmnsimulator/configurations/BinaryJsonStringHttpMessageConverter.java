@@ -0,0 +1,62 @@
+package org.charter.obo.orion.dmnsimulator.configurations;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+/**
+ * Message converter for the endpoints which read or return a JSON document as a String
+ * A Smile or CBOR body is converted to the JSON text the endpoint expects, and the JSON text an endpoint returns
+ * is converted to the negotiated binary format; both directions copy the document token by token
+ * It has to come before the StringHttpMessageConverter, which would read a binary body as text
+ */
+public class BinaryJsonStringHttpMessageConverter extends AbstractHttpMessageConverter<String> {
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public BinaryJsonStringHttpMessageConverter() {
+        super(BinaryFormats.SMILE.getMediaType(), BinaryFormats.CBOR.getMediaType());
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return String.class == clazz;
+    }
+
+    @Override
+    protected String readInternal(Class<? extends String> clazz, HttpInputMessage inputMessage) throws IOException {
+        BinaryFormats format = getFormat(inputMessage.getHeaders().getContentType());
+        StringWriter json = new StringWriter();
+        try (JsonParser parser = format.getFactory().createParser(inputMessage.getBody());
+             JsonGenerator generator = jsonFactory.createGenerator(json)) {
+            BinaryFormats.transcode(parser, generator);
+        } catch (IOException e) {
+            throw new HttpMessageNotReadableException("Invalid " + format.getMediaType() + " body: " + e.getMessage(), e, inputMessage);
+        }
+        return json.toString();
+    }
+
+    @Override
+    protected void writeInternal(String json, HttpOutputMessage outputMessage) throws IOException {
+        BinaryFormats format = getFormat(outputMessage.getHeaders().getContentType());
+        try (JsonParser parser = jsonFactory.createParser(json.getBytes(StandardCharsets.UTF_8));
+             JsonGenerator generator = format.getFactory().createGenerator(outputMessage.getBody())) {
+            BinaryFormats.transcode(parser, generator);
+        }
+    }
+
+    private BinaryFormats getFormat(MediaType mediaType) {
+        BinaryFormats format = mediaType == null ? null : BinaryFormats.forContentType(mediaType.toString());
+        return format == null ? BinaryFormats.SMILE : format;
+    }
+}
@@ -0,0 +1,64 @@
+package org.charter.obo.orion.dmnsimulator.configurations;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.charter.obo.orion.dmnsimulator.services.BulkheadService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * This class is used to run every request in its bulkhead, see BulkheadService.
+ * A request which is rejected by its bulkhead gets status 503 with a Retry-After header and an error,
+ * before its body is read.
+ */
+@Component
+public class BulkheadFilter extends OncePerRequestFilter {
+
+  @Autowired
+  private BulkheadService bulkheadService;
+
+  /**
+   * This method is used to enter the bulkhead of the request, run the request and leave the bulkhead.
+   *
+   * @param request The HTTP request.
+   * @param response The HTTP response.
+   * @param filterChain The rest of the filter chain.
+   * @throws ServletException If the request fails.
+   * @throws IOException If the request fails.
+   */
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    String path = request.getRequestURI().substring(request.getContextPath().length());
+    BulkheadService.Bulkhead bulkhead = bulkheadService.getBulkhead(request.getMethod(), path);
+    if (bulkhead == null) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+    boolean acquired;
+    try {
+      acquired = bulkhead.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      acquired = false;
+    }
+    if (!acquired) {
+      response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+      response.setHeader("Retry-After", "1");
+      response.setContentType("application/json;charset=UTF-8");
+      response.getWriter().write("{\"error\":\"The " + bulkhead.getName() + " bulkhead is full\"}");
+      return;
+    }
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      bulkhead.release();
+    }
+  }
+}
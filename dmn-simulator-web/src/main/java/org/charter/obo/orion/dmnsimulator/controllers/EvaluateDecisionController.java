@@ -0,0 +1,534 @@
+package org.charter.obo.orion.dmnsimulator.controllers;
+
+import static org.camunda.spin.Spin.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.log4j.Logger;
+import org.charter.obo.orion.dmnsimulator.configurations.BinaryFormats;
+import org.charter.obo.orion.dmnsimulator.jfr.SimulatorEvents;
+import org.charter.obo.orion.dmnsimulator.listerners.SimulatorDecisionTableEvaluationListener;
+import org.camunda.spin.impl.json.jackson.JacksonJsonNode;
+import org.camunda.spin.json.SpinJsonNode;
+import org.charter.obo.orion.dmnsimulator.services.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * This class is the controller for the Evaluate Decision API.
+ */
+@RestController
+@RequestMapping("/dmnSimulator")
+public class EvaluateDecisionController {
+
+  private static Logger log = Logger.getLogger(EvaluateDecisionController.class);
+
+  @Autowired
+  private SimulatorDecisionTableEvaluationListener evaluationListener;
+  @Autowired
+  private EvaluateDecisionService evaluateDecisionService;
+  @Autowired
+  private InputNamesService inputNamesService;
+  @Autowired
+  private OutputNamesService outputNamesService;
+  @Autowired
+  private DecisionNamesService decisionNamesService;
+
+  @Autowired
+  private DmnAllDetailsService dmnAllDetailsService;
+
+  @Autowired
+  private DmnWarmupService dmnWarmupService;
+
+  @Autowired
+  private DmnFileRepositoryService dmnFileRepositoryService;
+
+  @Autowired
+  private DmnModelCacheService dmnModelCacheService;
+
+  @Autowired
+  private RuleAnalysisService ruleAnalysisService;
+
+  @Autowired
+  private EvaluationAuditService evaluationAuditService;
+
+  @Autowired
+  private SpanTracingService spanTracingService;
+
+  @Autowired
+  private ExpressionProfilerService expressionProfilerService;
+
+  @Autowired
+  private TestSuiteService testSuiteService;
+
+  @Autowired
+  private TestCaseGenerationService testCaseGenerationService;
+
+  @Autowired
+  private BulkheadService bulkheadService;
+
+  @Autowired
+  private MetadataETagService metadataETagService;
+
+  @Value("${dmnsimulator.analysis.max-overlaps:1000}")
+  private int defaultMaxOverlaps;
+
+  @Value("${dmnsimulator.analysis.max-gaps:100}")
+  private int defaultMaxGaps;
+
+  @Value("${dmnsimulator.profiler.max-results:100}")
+  private int defaultMaxProfileResults;
+
+  /**
+   * This method is used to evaluate a decision based on the request body.
+   * If the variables do not match the inputs of the decision, the response has status 400 and a list of validationErrors.
+   * If the trace flag is set, the response contains per-decision and per-phase timings.
+   * The serialize timing is measured on a first serialization, so in trace mode the result is serialized twice.
+   * The body is read as a stream, so a large DMN is held in memory only once.
+   * The body may also be Smile or CBOR, as given by the Content-Type, and the Accept header selects the format of the result.
+   * @param req     The HTTP request, whose body contains the xml, the variables and the decision to be evaluated.
+   * @param trace   Whether the response should contain trace information.
+   * @param tenant  The tenant the parsed model is cached for, from the configured tenant header.
+   * @param resp    The HTTP response.
+   * @return The result of the decision evaluation as a JSON string, or null if it was written in a binary format.
+   * @throws IOException If the request body can not be read.
+   */
+  @SuppressWarnings("unchecked")
+  @RequestMapping(value = "/evaluateDecision" , method = RequestMethod.POST)
+  public String evaluateDecision(HttpServletRequest req,
+                                 @RequestParam(value = "trace", required = false, defaultValue = "false") boolean trace,
+                                 @RequestHeader(value = "${dmnsimulator.cache.tenant-header:X-Tenant-Id}", required = false) String tenant,
+                                 HttpServletResponse resp) throws IOException {
+
+    SpanTracingService.Span requestSpan = spanTracingService.startTrace("POST /dmnSimulator/evaluateDecision");
+    try {
+      SpinJsonNode rootNode = evaluateDecisionService.evaluateDecision(req.getInputStream(), BinaryFormats.forContentType(req.getContentType()),
+          req.getContentLengthLong(), trace, tenant);
+      if (rootNode.hasProp("validationErrors")) {
+        resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+      }
+      if (trace && rootNode.hasProp("trace")) {
+        long serializeStart = System.nanoTime();
+        rootNode.toString();
+        rootNode.prop("trace").prop("serializeMicros", EvaluateDecisionService.toMicros(System.nanoTime() - serializeStart));
+      }
+      String json = serialize(rootNode, "evaluateDecision", req.getHeader("Accept"), resp);
+      log.debug("Result: " + json);
+      return json;
+    } finally {
+      spanTracingService.endSpan(requestSpan);
+    }
+  }
+
+  /**
+   * This method is used to evaluate the decisions of an incremental evaluation again after some variables changed.
+   * The request body has the evaluationHandle of an earlier response and the changed variables; the xml is not needed.
+   * Only the decisions affected by the changed variables are evaluated, the response has the same format as evaluateDecision.
+   * @param reqBody The request body as a string, which contains the evaluationHandle and the changed variables.
+   * @param trace   Whether the response should contain trace information.
+   * @param accept  The Accept header, which selects JSON, Smile or CBOR.
+   * @param resp    The HTTP response.
+   * @return The result of the decision evaluation as a JSON string, or null if it was written in a binary format.
+   * @throws IOException If the response can not be written.
+   */
+  @RequestMapping(value = "/reevaluateDecision", method = RequestMethod.POST)
+  public String reevaluateDecision(@RequestBody String reqBody,
+                                   @RequestParam(value = "trace", required = false, defaultValue = "false") boolean trace,
+                                   @RequestHeader(value = "Accept", required = false) String accept,
+                                   HttpServletResponse resp) throws IOException {
+    SpanTracingService.Span requestSpan = spanTracingService.startTrace("POST /dmnSimulator/reevaluateDecision");
+    try {
+      SpinJsonNode rootNode = evaluateDecisionService.reevaluateDecision(reqBody, trace);
+      if (rootNode.hasProp("validationErrors")) {
+        resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+      }
+      String json = serialize(rootNode, "reevaluateDecision", accept, resp);
+      log.debug("Result: " + json);
+      return json;
+    } finally {
+      spanTracingService.endSpan(requestSpan);
+    }
+  }
+
+  /**
+   * This method is used to get the input names of a decision based on the request body.
+   * It calls the inputNamesService class  which has logic to get the input names.
+   * The response has an ETag of the model and the decision; if the If-None-Match header has it, 304 is returned without parsing.
+   * @param reqBody reqBody The request body as a string, which contains the decision to be evaluated.
+   * @param ifNoneMatch The If-None-Match header.
+   * @param accept The Accept header, the ETag is kept per response format.
+   * @return
+   */
+  @RequestMapping(value = "/inputNames", method = RequestMethod.POST)
+  public ResponseEntity<Map<String, Map<String, String>>> getInputNames(@RequestBody String reqBody,
+                                                                        @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+                                                                        @RequestHeader(value = "Accept", required = false) String accept) {
+    return metadataETagService.respond(metadataETagService.getETag("inputNames", reqBody, true, accept), ifNoneMatch,
+        () -> inputNamesService.getDecisionInputs(reqBody));
+  }
+
+  /**
+   * This method is used to get the output names of a decision based on the request body.
+   * It calls the outputNamesService class  which has logic to get the output names.
+   * The response has an ETag of the model and the decision; if the If-None-Match header has it, 304 is returned without parsing.
+   * @param reqBody The request body as a string, which contains the decision to be evaluated.
+   * @param ifNoneMatch The If-None-Match header.
+   * @param accept The Accept header, the ETag is kept per response format.
+   * @return The output names of the decision as a list of strings.
+   */
+  @RequestMapping(value = "/outputNames", method = RequestMethod.POST)
+  public ResponseEntity<Map<String, String>> getOutputNames(@RequestBody String reqBody,
+                                                            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+                                                            @RequestHeader(value = "Accept", required = false) String accept) {
+    return metadataETagService.respond(metadataETagService.getETag("outputNames", reqBody, true, accept), ifNoneMatch,
+        () -> outputNamesService.getDecisionOutputs(reqBody));
+  }
+
+  /**
+   * this method is used to get all the details i.e, table names, inputs and output names of a decision based on the request body.
+   * It calls the dmnAllDetailsService class  which has logic to get the details of a decision.
+   * The response has an ETag of the model; if the If-None-Match header has it, 304 is returned without parsing.
+   * @param reqBody
+   * @param ifNoneMatch The If-None-Match header.
+   * @param accept The Accept header, the ETag is kept per response format.
+   * @return
+   */
+  @RequestMapping(value = "/allDetails", method = RequestMethod.POST)
+  public ResponseEntity<String> getDmnAllDetails(@RequestBody String reqBody,
+                                                 @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+                                                 @RequestHeader(value = "Accept", required = false) String accept) {
+    return metadataETagService.respond(metadataETagService.getETag("allDetails", reqBody, false, accept), ifNoneMatch,
+        () -> dmnAllDetailsService.getDecisionDetails(reqBody));
+  }
+
+  /**
+   * This method is used to get the decision names based on the request body.
+   * It calls the decisionNamesService class  which has logic to get the decision names.
+   * The response has an ETag of the model; if the If-None-Match header has it, 304 is returned without parsing.
+   * @param reqBody The request body as a string, which contains the decision to be evaluated.
+   * @param ifNoneMatch The If-None-Match header.
+   * @param accept The Accept header, the ETag is kept per response format.
+   * @return The decision names as a list of strings.
+   */
+  @RequestMapping(value = "/decisionNames", method = RequestMethod.POST)
+  public ResponseEntity<List<String>> getDecisionNames(@RequestBody String reqBody,
+                                                       @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+                                                       @RequestHeader(value = "Accept", required = false) String accept) {
+    return metadataETagService.respond(metadataETagService.getETag("decisionNames", reqBody, false, accept), ifNoneMatch,
+        () -> decisionNamesService.getDecisionNames(reqBody));
+  }
+
+  /**
+   * This method is used to report if the startup preload and warm-up is finished.
+   * It returns 503 while the warm-up is running, so it can be used as readiness probe.
+   * @return The warm-up status with the result of every preloaded model.
+   */
+  @RequestMapping(value = "/ready", method = RequestMethod.GET)
+  public ResponseEntity<Map<String, Object>> getReady() {
+    Map<String, Object> status = dmnWarmupService.getWarmupStatus();
+    HttpStatus httpStatus = dmnWarmupService.isReady() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+    return new ResponseEntity<>(status, httpStatus);
+  }
+
+  /**
+   * This method is used to evaluate a decision of a DMN file from the file repository.
+   * The request body has the same format as for evaluateDecision, but the xml is not needed.
+   * A file which is not in the repository gives 404 with an error.
+   * @param fileName The name of the DMN file, with or without the .dmn extension.
+   * @param reqBody The request body as a string, which contains the variables and the decision to be evaluated.
+   * @param trace   Whether the response should contain trace information.
+   * @param accept  The Accept header, which selects JSON, Smile or CBOR.
+   * @param resp    The HTTP response.
+   * @return The result of the decision evaluation as a JSON string, or null if it was written in a binary format.
+   * @throws IOException If the response can not be written.
+   */
+  @RequestMapping(value = "/repository/{fileName:.+}/evaluateDecision", method = RequestMethod.POST)
+  public String evaluateRepositoryDecision(@PathVariable("fileName") String fileName,
+                                           @RequestBody String reqBody,
+                                           @RequestParam(value = "trace", required = false, defaultValue = "false") boolean trace,
+                                           @RequestHeader(value = "Accept", required = false) String accept,
+                                           HttpServletResponse resp) throws IOException {
+    SpanTracingService.Span requestSpan = spanTracingService.startTrace("POST /dmnSimulator/repository/evaluateDecision");
+    try {
+      spanTracingService.setAttribute("dmn.repository.file", fileName);
+      DmnFileRepositoryService.DmnFileModel model = dmnFileRepositoryService.getModel(fileName);
+      SpinJsonNode rootNode;
+      if (model == null) {
+        rootNode = JSON("{}");
+        rootNode.prop("error", "DMN file '" + fileName + "' is not in the repository");
+        resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
+      } else {
+        rootNode = evaluateDecisionService.evaluateDecision(reqBody, model.getModelHash(), model.getDecisions(), trace);
+      }
+      if (rootNode.hasProp("validationErrors")) {
+        resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+      }
+      String json = serialize(rootNode, "repository/evaluateDecision", accept, resp);
+      log.debug("Result: " + json);
+      return json;
+    } finally {
+      spanTracingService.endSpan(requestSpan);
+    }
+  }
+
+  /**
+   * This method is used to get the input names of a decision of a DMN file from the file repository.
+   * As a GET with an ETag of the file version and the decision, the response can be kept by HTTP caches.
+   * @param fileName The name of the DMN file, with or without the .dmn extension.
+   * @param decision The decision, all decisions if not given.
+   * @param ifNoneMatch The If-None-Match header.
+   * @param accept The Accept header, the ETag is kept per response format.
+   * @return The input names, 304 if the If-None-Match header has the current ETag, or 404 if the file is not in the repository.
+   */
+  @RequestMapping(value = "/repository/{fileName:.+}/inputNames", method = RequestMethod.GET)
+  public ResponseEntity<Map<String, Map<String, String>>> getRepositoryInputNames(@PathVariable("fileName") String fileName,
+                                                                                  @RequestParam(value = "decision", required = false) String decision,
+                                                                                  @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+                                                                                  @RequestHeader(value = "Accept", required = false) String accept) {
+    DmnFileRepositoryService.DmnFileModel model = dmnFileRepositoryService.getModel(fileName);
+    if (model == null) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+    String eTag = metadataETagService.getETag("inputNames", model.getModelHash(), decision, accept);
+    return metadataETagService.respond(eTag, ifNoneMatch, () -> inputNamesService.getDecisionInputs(model.getDecisions(), decision));
+  }
+
+  /**
+   * This method is used to get the output names of a decision of a DMN file from the file repository.
+   * As a GET with an ETag of the file version and the decision, the response can be kept by HTTP caches.
+   * @param fileName The name of the DMN file, with or without the .dmn extension.
+   * @param decision The decision, all decisions if not given.
+   * @param ifNoneMatch The If-None-Match header.
+   * @param accept The Accept header, the ETag is kept per response format.
+   * @return The output names, 304 if the If-None-Match header has the current ETag, or 404 if the file is not in the repository.
+   */
+  @RequestMapping(value = "/repository/{fileName:.+}/outputNames", method = RequestMethod.GET)
+  public ResponseEntity<Map<String, String>> getRepositoryOutputNames(@PathVariable("fileName") String fileName,
+                                                                      @RequestParam(value = "decision", required = false) String decision,
+                                                                      @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+                                                                      @RequestHeader(value = "Accept", required = false) String accept) {
+    DmnFileRepositoryService.DmnFileModel model = dmnFileRepositoryService.getModel(fileName);
+    if (model == null) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+    String eTag = metadataETagService.getETag("outputNames", model.getModelHash(), decision, accept);
+    return metadataETagService.respond(eTag, ifNoneMatch, () -> outputNamesService.getDecisionOutputs(model.getDecisions(), decision));
+  }
+
+  /**
+   * This method is used to get all the details of a DMN file from the file repository, in the format of allDetails.
+   * As a GET with an ETag of the file version, the response can be kept by HTTP caches.
+   * @param fileName The name of the DMN file, with or without the .dmn extension.
+   * @param ifNoneMatch The If-None-Match header.
+   * @param accept The Accept header, the ETag is kept per response format.
+   * @return The details, 304 if the If-None-Match header has the current ETag, or 404 if the file is not in the repository.
+   */
+  @RequestMapping(value = "/repository/{fileName:.+}/allDetails", method = RequestMethod.GET)
+  public ResponseEntity<String> getRepositoryAllDetails(@PathVariable("fileName") String fileName,
+                                                        @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+                                                        @RequestHeader(value = "Accept", required = false) String accept) {
+    DmnFileRepositoryService.DmnFileModel model = dmnFileRepositoryService.getModel(fileName);
+    if (model == null) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+    String eTag = metadataETagService.getETag("allDetails", model.getModelHash(), null, accept);
+    return metadataETagService.respond(eTag, ifNoneMatch, () -> dmnAllDetailsService.getDecisionDetails(model.getDecisions()));
+  }
+
+  /**
+   * This method is used to get the decision names of a DMN file from the file repository.
+   * As a GET with an ETag of the file version, the response can be kept by HTTP caches.
+   * @param fileName The name of the DMN file, with or without the .dmn extension.
+   * @param ifNoneMatch The If-None-Match header.
+   * @param accept The Accept header, the ETag is kept per response format.
+   * @return The decision names, 304 if the If-None-Match header has the current ETag, or 404 if the file is not in the repository.
+   */
+  @RequestMapping(value = "/repository/{fileName:.+}/decisionNames", method = RequestMethod.GET)
+  public ResponseEntity<List<String>> getRepositoryDecisionNames(@PathVariable("fileName") String fileName,
+                                                                 @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+                                                                 @RequestHeader(value = "Accept", required = false) String accept) {
+    DmnFileRepositoryService.DmnFileModel model = dmnFileRepositoryService.getModel(fileName);
+    if (model == null) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+    String eTag = metadataETagService.getETag("decisionNames", model.getModelHash(), null, accept);
+    return metadataETagService.respond(eTag, ifNoneMatch, () -> decisionNamesService.getDecisionNames(model.getDecisions()));
+  }
+
+  /**
+   * This method is used to get the loaded models and load errors of the file repository.
+   * @return The repository status.
+   */
+  @RequestMapping(value = "/repository", method = RequestMethod.GET)
+  public Map<String, Object> getRepositoryStatus() {
+    return dmnFileRepositoryService.getStatus();
+  }
+
+  /**
+   * This method is used to get the statistics of the model cache, including the reused and rebuilt decisions
+   * and the occupancy and evictions per tenant.
+   * @return The cache statistics.
+   */
+  @RequestMapping(value = "/cache", method = RequestMethod.GET)
+  public Map<String, Object> getCacheStatistics() {
+    return dmnModelCacheService.getStatistics();
+  }
+
+  /**
+   * This method is used to find overlapping rules and uncovered input regions in the decision tables of the request body.
+   * It calls the ruleAnalysisService class which has the logic to analyze the rules.
+   * @param reqBody The request body as a string, which contains the xml and optionally the decision to be analyzed.
+   * @param maxOverlaps The maximum number of reported overlapping rule pairs per table.
+   * @param maxGaps The maximum number of reported gaps per table.
+   * @param tenant The tenant the parsed model is cached for, from the configured tenant header.
+   * @return The analysis of every decision table as a JSON string.
+   */
+  @RequestMapping(value = "/ruleAnalysis", method = RequestMethod.POST,
+      produces = {"application/json;charset=UTF-8", "application/x-jackson-smile", "application/cbor"})
+  public String getRuleAnalysis(@RequestBody String reqBody,
+                                @RequestParam(value = "maxOverlaps", required = false) Integer maxOverlaps,
+                                @RequestParam(value = "maxGaps", required = false) Integer maxGaps,
+                                @RequestHeader(value = "${dmnsimulator.cache.tenant-header:X-Tenant-Id}", required = false) String tenant) {
+    return ruleAnalysisService.analyzeRules(reqBody,
+        maxOverlaps == null ? defaultMaxOverlaps : maxOverlaps,
+        maxGaps == null ? defaultMaxGaps : maxGaps, tenant);
+  }
+
+  /**
+   * This method is used to run a test suite, cases with variables and expected results, against the model of the request body.
+   * It calls the testSuiteService class which evaluates the cases in parallel on the suite thread pool.
+   * @param reqBody The request body as a string, which contains the xml, the cases and optionally the decision of the cases.
+   * @param tenant The tenant the parsed model is cached for, from the configured tenant header.
+   * @return The report with the passed and failed cases and the rule coverage of every decision table as a JSON string.
+   */
+  @RequestMapping(value = "/runTestSuite", method = RequestMethod.POST, produces = "application/json;charset=UTF-8")
+  public String runTestSuite(@RequestBody String reqBody,
+                             @RequestHeader(value = "${dmnsimulator.cache.tenant-header:X-Tenant-Id}", required = false) String tenant) {
+    return testSuiteService.runTestSuite(reqBody, tenant);
+  }
+
+  /**
+   * This method is used to generate test cases from the input entries of the decision tables of the request body.
+   * It calls the testCaseGenerationService class which derives boundary values and evaluates the cases in parallel.
+   * @param reqBody The request body as a string, which contains the xml and optionally the decision to generate cases for.
+   * @param tenant The tenant the parsed model is cached for, from the configured tenant header.
+   * @return The rule coverage of every decision table and the cases with their results as a JSON string.
+   */
+  @RequestMapping(value = "/generateTestCases", method = RequestMethod.POST, produces = "application/json;charset=UTF-8")
+  public String generateTestCases(@RequestBody String reqBody,
+                                  @RequestHeader(value = "${dmnsimulator.cache.tenant-header:X-Tenant-Id}", required = false) String tenant) {
+    return testCaseGenerationService.generateTestCases(reqBody, tenant);
+  }
+
+  /**
+   * This method is used to get the expression profile, the expressions with the highest total time first.
+   * Expressions are only profiled if dmnsimulator.profiler.enabled is set.
+   * @param limit The maximum number of expressions, defaults to dmnsimulator.profiler.max-results.
+   * @return The profiled expressions with their decision, clause, invocations and time.
+   */
+  @RequestMapping(value = "/profile", method = RequestMethod.GET)
+  public Map<String, Object> getExpressionProfile(@RequestParam(value = "limit", required = false) Integer limit) {
+    return expressionProfilerService.getProfile(limit == null ? defaultMaxProfileResults : limit);
+  }
+
+  /**
+   * This method is used to clear the expression profile.
+   */
+  @RequestMapping(value = "/profile", method = RequestMethod.DELETE)
+  public void resetExpressionProfile() {
+    expressionProfilerService.reset();
+  }
+
+  /**
+   * This method is used to get the counters of the span exporter.
+   * @return The tracing statistics.
+   */
+  @RequestMapping(value = "/tracing", method = RequestMethod.GET)
+  public Map<String, Object> getTracingStatistics() {
+    return spanTracingService.getStatistics();
+  }
+
+  /**
+   * This method is used to get the saturation of the bulkheads which separate metadata, interactive and bulk requests.
+   * @return The limits, active and waiting requests, rejections and wait times of every bulkhead.
+   */
+  @RequestMapping(value = "/bulkheads", method = RequestMethod.GET)
+  public Map<String, Object> getBulkheadStatistics() {
+    return bulkheadService.getStatistics();
+  }
+
+  /**
+   * This method is used to get the counters of the evaluation audit log.
+   * @return The audit statistics.
+   */
+  @RequestMapping(value = "/audit", method = RequestMethod.GET)
+  public Map<String, Object> getAuditStatistics() {
+    return evaluationAuditService.getStatistics();
+  }
+
+  /**
+   * This method is used to export all evaluations of the audit log as newline delimited JSON, oldest first.
+   * It calls the EvaluationAuditReader class which reads the segment files in sequence.
+   * @param resp The HTTP response the evaluations are streamed to.
+   * @throws IOException If a segment can not be read.
+   */
+  @RequestMapping(value = "/audit/export", method = RequestMethod.GET)
+  public void exportAudit(HttpServletResponse resp) throws IOException {
+    resp.setHeader("Content-Type", "application/x-ndjson;charset=UTF-8");
+    new EvaluationAuditReader(evaluationAuditService.getDirectory()).export(resp.getOutputStream());
+  }
+
+  /**
+   * This method is used to serialize an evaluation result, measured by a serialize span and a JFR event.
+   * The request span gets the error of the result, if there is one.
+   * If the Accept header asks for Smile or CBOR, the result tree is written to the response in that format without a JSON text.
+   * @param rootNode The evaluation result.
+   * @param endpoint The endpoint, used for the JFR event.
+   * @param accept   The Accept header of the request.
+   * @param resp     The HTTP response.
+   * @return The result as a JSON string, or null if it was written to the response in a binary format.
+   * @throws IOException If the response can not be written.
+   */
+  private String serialize(SpinJsonNode rootNode, String endpoint, String accept, HttpServletResponse resp) throws IOException {
+    if (rootNode.hasProp("error")) {
+      spanTracingService.setError(rootNode.prop("error").stringValue());
+    }
+    BinaryFormats format = BinaryFormats.forAccept(accept);
+    SpanTracingService.Span serializeSpan = spanTracingService.startSpan("serialize");
+    Object serializationEvent = SimulatorEvents.beginSerialization();
+    String json = null;
+    int length;
+    if (format == null) {
+      resp.setHeader("Content-Type", "application/json;charset=UTF-8");
+      json = rootNode.toString();
+      length = json.length();
+      spanTracingService.setAttribute("dmn.response.characters", length);
+    } else {
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      format.write(((JacksonJsonNode) rootNode).unwrap(), body);
+      length = body.size();
+      resp.setContentType(format.getMediaType().toString());
+      resp.setContentLength(length);
+      body.writeTo(resp.getOutputStream());
+      spanTracingService.setAttribute("dmn.response.bytes", length);
+    }
+    SimulatorEvents.endSerialization(serializationEvent, endpoint, length);
+    spanTracingService.endSpan(serializeSpan);
+    return json;
+  }
+
+}
@@ -0,0 +1,114 @@
+package org.charter.obo.orion.dmnsimulator.controllers;
+
+import java.util.*;
+
+import org.apache.log4j.Logger;
+import org.charter.obo.orion.dmnsimulator.services.EvaluationSessionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * This class is the controller for interactive evaluation sessions.
+ * A session is opened with a model, edits are posted to it and the results are streamed as Server-Sent Events.
+ */
+@RestController
+@RequestMapping("/dmnSimulator/sessions")
+public class EvaluationSessionController {
+
+  private static Logger log = Logger.getLogger(EvaluationSessionController.class);
+
+  @Autowired
+  private EvaluationSessionService evaluationSessionService;
+
+  /**
+   * This method is used to open a session.
+   * @param reqBody The request body as a string, in the same format as for evaluateDecision.
+   * @param tenant  The tenant the parsed model is cached for, from the configured tenant header.
+   * @return The id of the session, or an error with status 400.
+   */
+  @RequestMapping(value = "", method = RequestMethod.POST)
+  public ResponseEntity<Map<String, Object>> openSession(@RequestBody String reqBody,
+                                                         @RequestHeader(value = "${dmnsimulator.cache.tenant-header:X-Tenant-Id}", required = false) String tenant) {
+    Map<String, Object> response = new LinkedHashMap<>();
+    try {
+      response.put("sessionId", evaluationSessionService.openSession(reqBody, tenant));
+      return new ResponseEntity<>(response, HttpStatus.CREATED);
+    } catch (Exception e) {
+      log.debug("Could not open session: " + e.getMessage());
+      response.put("error", e.getMessage());
+      return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+  }
+
+  /**
+   * This method is used to subscribe to the results of a session.
+   * Every result is sent as an event named "result" whose id is the number of the edit it belongs to.
+   * @param sessionId The id of the session.
+   * @return The event stream, or status 404 if the session is unknown.
+   */
+  @RequestMapping(value = "/{sessionId}/events", method = RequestMethod.GET, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public ResponseEntity<SseEmitter> subscribe(@PathVariable("sessionId") String sessionId) {
+    SseEmitter emitter = evaluationSessionService.subscribe(sessionId);
+    return emitter == null ? new ResponseEntity<>(HttpStatus.NOT_FOUND) : new ResponseEntity<>(emitter, HttpStatus.OK);
+  }
+
+  /**
+   * This method is used to change variables of a session.
+   * @param sessionId The id of the session.
+   * @param reqBody   The request body as a string, with a variables block of the changed variables.
+   * @return Status 202, 404 if the session is unknown or 400 with an error.
+   */
+  @RequestMapping(value = "/{sessionId}/variables", method = RequestMethod.POST)
+  public ResponseEntity<Map<String, Object>> updateVariables(@PathVariable("sessionId") String sessionId, @RequestBody String reqBody) {
+    try {
+      boolean found = evaluationSessionService.updateVariables(sessionId, reqBody);
+      return new ResponseEntity<>(found ? HttpStatus.ACCEPTED : HttpStatus.NOT_FOUND);
+    } catch (Exception e) {
+      return new ResponseEntity<>(Collections.<String, Object>singletonMap("error", e.getMessage()), HttpStatus.BAD_REQUEST);
+    }
+  }
+
+  /**
+   * This method is used to replace the model of a session.
+   * @param sessionId The id of the session.
+   * @param reqBody   The request body as a string, with the xml and optionally the decision or decisions.
+   * @return Status 202, 404 if the session is unknown or 400 with an error.
+   */
+  @RequestMapping(value = "/{sessionId}/model", method = RequestMethod.PUT)
+  public ResponseEntity<Map<String, Object>> updateModel(@PathVariable("sessionId") String sessionId, @RequestBody String reqBody) {
+    try {
+      boolean found = evaluationSessionService.updateModel(sessionId, reqBody);
+      return new ResponseEntity<>(found ? HttpStatus.ACCEPTED : HttpStatus.NOT_FOUND);
+    } catch (Exception e) {
+      return new ResponseEntity<>(Collections.<String, Object>singletonMap("error", e.getMessage()), HttpStatus.BAD_REQUEST);
+    }
+  }
+
+  /**
+   * This method is used to close a session.
+   * @param sessionId The id of the session.
+   * @return Status 204, or 404 if the session is unknown.
+   */
+  @RequestMapping(value = "/{sessionId}", method = RequestMethod.DELETE)
+  public ResponseEntity<Void> closeSession(@PathVariable("sessionId") String sessionId) {
+    return new ResponseEntity<>(evaluationSessionService.closeSession(sessionId) ? HttpStatus.NO_CONTENT : HttpStatus.NOT_FOUND);
+  }
+
+  /**
+   * This method is used to get the statistics of the sessions.
+   * @return The session statistics.
+   */
+  @RequestMapping(value = "", method = RequestMethod.GET)
+  public Map<String, Object> getStatistics() {
+    return evaluationSessionService.getStatistics();
+  }
+}
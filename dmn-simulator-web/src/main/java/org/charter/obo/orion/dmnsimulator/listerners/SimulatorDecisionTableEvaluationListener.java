@@ -35,6 +35,15 @@ public class SimulatorDecisionTableEvaluationListener implements DmnDecisionTabl
   // A list of all decision table evaluation events that occurred
   protected List<DmnDecisionTableEvaluationEvent> lastEvents = new ArrayList<DmnDecisionTableEvaluationEvent>();
 
+  // Whether the notification time of each event should be recorded (trace mode only)
+  protected boolean traceEnabled = false;
+
+  // The System.nanoTime() at which tracing was started
+  protected long traceStartNanos;
+
+  // The System.nanoTime() at which each event in lastEvents was received, 0 for the events received before trace mode
+  protected List<Long> lastEventNanos = new ArrayList<Long>();
+
   /**
    * This method is called when a decision table evaluation event occurs.
    * It stores the event in the lastEvent field and adds it to the lastEvents list.
@@ -44,6 +53,46 @@ public class SimulatorDecisionTableEvaluationListener implements DmnDecisionTabl
   public void notify(DmnDecisionTableEvaluationEvent dmnDecisionTableEvaluationEvent) {
     lastEvent = dmnDecisionTableEvaluationEvent;
     lastEvents.add(dmnDecisionTableEvaluationEvent);
+    // one entry per event, so the time of an event has the same index as the event
+    lastEventNanos.add(traceEnabled ? System.nanoTime() : 0L);
+  }
+
+  /**
+   * This method enables trace mode for the current request.
+   * From now on the time of every notification is recorded, so the elapsed time of each decision table
+   * can be derived from the gap to the previous notification.
+   */
+  public void startTrace() {
+    traceEnabled = true;
+    traceStartNanos = System.nanoTime();
+  }
+
+  /**
+   * This method returns whether trace mode is enabled for the current request.
+   *
+   * @return true if the notification times are recorded.
+   */
+  public boolean isTraceEnabled() {
+    return traceEnabled;
+  }
+
+  /**
+   * This method returns the System.nanoTime() at which tracing was started.
+   *
+   * @return The trace start time in nanoseconds.
+   */
+  public long getTraceStartNanos() {
+    return traceStartNanos;
+  }
+
+  /**
+   * This method returns the notification times of all events, with the same index as in getLastEvents().
+   * The time of an event received before trace mode was enabled is 0.
+   *
+   * @return A list of notification times in nanoseconds.
+   */
+  public List<Long> getLastEventNanos() {
+    return new ArrayList<>(lastEventNanos);
   }
 
   /**
@@ -0,0 +1,234 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service class which separates the requests into bulkheads, so a burst of one kind of work can not starve the others
+ * "metadata" are the model detail and rule analysis endpoints, "interactive" the single evaluations and sessions,
+ * "bulk" the test suites, test case generation and the audit export; statistics endpoints are in no bulkhead
+ * Every bulkhead has its own limit of concurrent requests and of requests waiting for one of them;
+ * a request which finds the queue full, or waits longer than max-wait-millis, is rejected with 503
+ * The limits of metadata and bulk plus their queues should stay well below server.tomcat.threads.max,
+ * so the request threads they can hold never include the threads interactive requests need
+ */
+@Service
+public class BulkheadService {
+
+    private static Logger log = Logger.getLogger(BulkheadService.class);
+
+    public static final String METADATA = "metadata";
+    public static final String INTERACTIVE = "interactive";
+    public static final String BULK = "bulk";
+
+    private static final String PREFIX = "/dmnSimulator";
+
+    @Value("${dmnsimulator.bulkhead.enabled:true}")
+    private boolean enabled;
+
+    @Value("${dmnsimulator.bulkhead.metadata.max-concurrent:8}")
+    private int metadataMaxConcurrent;
+    @Value("${dmnsimulator.bulkhead.metadata.max-queued:32}")
+    private int metadataMaxQueued;
+    @Value("${dmnsimulator.bulkhead.metadata.max-wait-millis:5000}")
+    private long metadataMaxWaitMillis;
+
+    @Value("${dmnsimulator.bulkhead.interactive.max-concurrent:64}")
+    private int interactiveMaxConcurrent;
+    @Value("${dmnsimulator.bulkhead.interactive.max-queued:64}")
+    private int interactiveMaxQueued;
+    @Value("${dmnsimulator.bulkhead.interactive.max-wait-millis:1000}")
+    private long interactiveMaxWaitMillis;
+
+    @Value("${dmnsimulator.bulkhead.bulk.max-concurrent:2}")
+    private int bulkMaxConcurrent;
+    @Value("${dmnsimulator.bulkhead.bulk.max-queued:8}")
+    private int bulkMaxQueued;
+    @Value("${dmnsimulator.bulkhead.bulk.max-wait-millis:30000}")
+    private long bulkMaxWaitMillis;
+
+    @Value("${server.tomcat.threads.max:200}")
+    private int requestThreads;
+
+    private final Map<String, Bulkhead> bulkheads = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        bulkheads.put(INTERACTIVE, new Bulkhead(INTERACTIVE, interactiveMaxConcurrent, interactiveMaxQueued, interactiveMaxWaitMillis));
+        bulkheads.put(METADATA, new Bulkhead(METADATA, metadataMaxConcurrent, metadataMaxQueued, metadataMaxWaitMillis));
+        bulkheads.put(BULK, new Bulkhead(BULK, bulkMaxConcurrent, bulkMaxQueued, bulkMaxWaitMillis));
+        int heldByOthers = metadataMaxConcurrent + metadataMaxQueued + bulkMaxConcurrent + bulkMaxQueued;
+        if (enabled && heldByOthers >= requestThreads) {
+            log.warn("The metadata and bulk bulkheads can hold " + heldByOthers + " of " + requestThreads
+                    + " request threads, interactive requests may not get a thread under load");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Method to find the bulkhead of a request
+     * @param method The HTTP method
+     * @param path The path of the request without the context path
+     * @return The bulkhead, or null if the request is in no bulkhead
+     */
+    public Bulkhead getBulkhead(String method, String path) {
+        if (!enabled || path == null || !path.startsWith(PREFIX + "/")) {
+            return null;
+        }
+        String endpoint = path.substring(PREFIX.length());
+        switch (endpoint) {
+            case "/inputNames":
+            case "/outputNames":
+            case "/allDetails":
+            case "/decisionNames":
+            case "/ruleAnalysis":
+                return bulkheads.get(METADATA);
+            case "/evaluateDecision":
+            case "/reevaluateDecision":
+                return bulkheads.get(INTERACTIVE);
+            case "/runTestSuite":
+            case "/generateTestCases":
+            case "/audit/export":
+                return bulkheads.get(BULK);
+            default:
+                break;
+        }
+        if (endpoint.startsWith("/repository/") && endpoint.endsWith("/evaluateDecision")) {
+            return bulkheads.get(INTERACTIVE);
+        }
+        if (endpoint.startsWith("/repository/") && (endpoint.endsWith("/inputNames") || endpoint.endsWith("/outputNames")
+                || endpoint.endsWith("/allDetails") || endpoint.endsWith("/decisionNames"))) {
+            return bulkheads.get(METADATA);
+        }
+        // the event streams of sessions stay open, only the requests which evaluate are limited
+        if (endpoint.startsWith("/sessions") && ("POST".equals(method) || "PUT".equals(method))) {
+            return bulkheads.get(INTERACTIVE);
+        }
+        return null;
+    }
+
+    /**
+     * Method to get the saturation of every bulkhead
+     * @return Map of bulkhead name to its limits, active and waiting requests, peaks, rejections and wait times
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", enabled);
+        for (Bulkhead bulkhead : bulkheads.values()) {
+            statistics.put(bulkhead.name, bulkhead.getStatistics());
+        }
+        return statistics;
+    }
+
+    /**
+     * A limit of concurrent requests with a bounded queue of waiting requests
+     */
+    public static class Bulkhead {
+        private final String name;
+        private final int maxConcurrent;
+        private final int maxQueued;
+        private final long maxWaitMillis;
+        // fair, so waiting requests get a permit in the order they came
+        private final Semaphore permits;
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicInteger peakActive = new AtomicInteger();
+        private final AtomicInteger peakQueued = new AtomicInteger();
+        private final AtomicLong accepted = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong timedOut = new AtomicLong();
+        private final AtomicLong waited = new AtomicLong();
+        private final AtomicLong waitNanos = new AtomicLong();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        private Bulkhead(String name, int maxConcurrent, int maxQueued, long maxWaitMillis) {
+            this.name = name;
+            this.maxConcurrent = maxConcurrent;
+            this.maxQueued = maxQueued;
+            this.maxWaitMillis = maxWaitMillis;
+            this.permits = new Semaphore(maxConcurrent, true);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Method to enter the bulkhead, waiting up to max-wait-millis if all permits are taken
+         * @return true if the request may run and has to call release afterwards, false if it is rejected
+         * @throws InterruptedException
+         */
+        public boolean acquire() throws InterruptedException {
+            if (permits.tryAcquire(0, TimeUnit.MILLISECONDS)) {
+                entered();
+                return true;
+            }
+            int waiting = queued.incrementAndGet();
+            if (waiting > maxQueued) {
+                queued.decrementAndGet();
+                rejected.incrementAndGet();
+                return false;
+            }
+            peakQueued.accumulateAndGet(waiting, Math::max);
+            long start = System.nanoTime();
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+            } finally {
+                queued.decrementAndGet();
+            }
+            long nanos = System.nanoTime() - start;
+            waited.incrementAndGet();
+            waitNanos.addAndGet(nanos);
+            maxWaitNanos.accumulateAndGet(nanos, Math::max);
+            if (!acquired) {
+                timedOut.incrementAndGet();
+                return false;
+            }
+            entered();
+            return true;
+        }
+
+        public void release() {
+            permits.release();
+        }
+
+        private void entered() {
+            accepted.incrementAndGet();
+            peakActive.accumulateAndGet(maxConcurrent - permits.availablePermits(), Math::max);
+        }
+
+        private Map<String, Object> getStatistics() {
+            Map<String, Object> statistics = new LinkedHashMap<>();
+            int active = maxConcurrent - permits.availablePermits();
+            statistics.put("maxConcurrent", maxConcurrent);
+            statistics.put("maxQueued", maxQueued);
+            statistics.put("maxWaitMillis", maxWaitMillis);
+            statistics.put("active", active);
+            statistics.put("queued", queued.get());
+            statistics.put("saturation", maxConcurrent == 0 ? 1.0 : (double) active / maxConcurrent);
+            statistics.put("peakActive", peakActive.get());
+            statistics.put("peakQueued", peakQueued.get());
+            statistics.put("accepted", accepted.get());
+            statistics.put("rejected", rejected.get());
+            statistics.put("timedOut", timedOut.get());
+            long waitedRequests = waited.get();
+            statistics.put("waited", waitedRequests);
+            statistics.put("averageWaitMillis", waitedRequests == 0 ? 0.0 : waitNanos.get() / 1e6 / waitedRequests);
+            statistics.put("maxWaitedMillis", maxWaitNanos.get() / 1000000L);
+            return statistics;
+        }
+    }
+}
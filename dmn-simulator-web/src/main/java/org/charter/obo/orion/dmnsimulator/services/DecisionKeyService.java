@@ -0,0 +1,100 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import static org.camunda.spin.Spin.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.Map.Entry;
+
+import org.camunda.bpm.dmn.engine.*;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionLogicEvaluationEvent;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionTableEvaluationEvent;
+import org.camunda.bpm.dmn.engine.delegate.DmnEvaluatedDecisionRule;
+import org.camunda.bpm.dmn.engine.delegate.DmnEvaluatedOutput;
+import org.camunda.bpm.dmn.engine.impl.*;
+import org.charter.obo.orion.dmnsimulator.engine.DecisionEvaluator;
+import org.charter.obo.orion.dmnsimulator.jfr.SimulatorEvents;
+import org.charter.obo.orion.dmnsimulator.listerners.SimulatorDecisionTableEvaluationListener;
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.engine.variable.Variables;
+import org.camunda.spin.impl.json.jackson.JacksonJsonNode;
+import org.camunda.spin.json.SpinJsonNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.util.List;
+
+import static org.camunda.spin.Spin.JSON;
+
+/**
+ * Service class which has the business logic to get the decisionID or key from the request body
+ * using the decision name
+ * the decision key or id is used with parseDecision method for parsing xml
+ */
+@Service
+public class DecisionKeyService {
+    @Autowired
+    private SimulatorDecisionTableEvaluationListener evaluationListener;
+
+    /**
+     * Entry Method to get the decision key from the request body
+     * @param reqBody
+     * @param decisionName
+     * @return
+     */
+
+    public String getDecisionKey(String reqBody, String decisionName) {
+        SpinJsonNode requestNode = JSON(reqBody);
+        DmnEngine dmnEngine = buildDecisionEngine();
+        InputStream inputStream = new ByteArrayInputStream(requestNode.prop("xml").stringValue().getBytes(StandardCharsets.UTF_8));
+        List<DmnDecision> decisions = SimulatorEvents.parseDecisions(dmnEngine, inputStream, "DecisionKeyService");
+        return DecisionEvaluator.getDecisionKey(decisions, decisionName);
+    }
+
+    /**
+     * Method to get the decision key from already parsed decisions, e.g. from the model cache
+     * @param decisions
+     * @param decisionName
+     * @return
+     */
+    public String getDecisionKey(List<DmnDecision> decisions, String decisionName) {
+        return DecisionEvaluator.getDecisionKey(decisions, decisionName);
+    }
+
+    /**
+     * Method to select a decision from already parsed decisions, as the metadata services parse a single decision
+     * @param decisions
+     * @param decisionName The name or key of the decision, null or empty for all decisions
+     * @return List with the decision, or all decisions
+     */
+    public List<DmnDecision> selectDecisions(List<DmnDecision> decisions, String decisionName) {
+        if (decisionName == null || decisionName.trim().isEmpty()) {
+            return decisions;
+        }
+        String decisionKey = DecisionEvaluator.getDecisionKey(decisions, decisionName);
+        return Collections.singletonList(DecisionEvaluator.findDecision(decisionKey, decisions));
+    }
+
+    /**
+     * Method to build the decision engine
+     * It creates the default configuration for the dmn engine
+     * and adds the custom listener to the configuration
+     * @return DmnEngine
+     */
+    private DmnEngine buildDecisionEngine() {
+
+        DefaultDmnEngineConfiguration engineConfiguration = (DefaultDmnEngineConfiguration) DmnEngineConfiguration
+                .createDefaultDmnEngineConfiguration();
+        engineConfiguration.getCustomPostDecisionTableEvaluationListeners().add(evaluationListener);
+        engineConfiguration.setDefaultOutputEntryExpressionLanguage("feel");
+        DmnEngine dmnEngine = engineConfiguration.buildEngine();
+        return dmnEngine;
+    }
+}
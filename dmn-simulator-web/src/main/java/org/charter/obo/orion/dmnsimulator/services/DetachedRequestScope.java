@@ -0,0 +1,102 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.web.context.request.AbstractRequestAttributes;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Class which runs work in a request scope of its own outside of an HTTP request,
+ * e.g. an evaluation on a background thread, because the evaluation listener is request scoped
+ * Every run gets new instances of the request scoped beans, which are destroyed when the work is done
+ * There is no HTTP session, so session scoped beans can not be used
+ */
+final class DetachedRequestScope {
+
+    /**
+     * The work to run in the request scope
+     * @param <T> The result of the work
+     * @param <E> The exception the work can throw
+     */
+    interface Work<T, E extends Exception> {
+
+        T run() throws E;
+    }
+
+    private DetachedRequestScope() {
+    }
+
+    /**
+     * Method to run work in a new request scope and destroy the request scoped beans afterwards
+     * The request attributes of the thread, if any, are restored when the work is done
+     * @param work
+     * @return The result of the work
+     * @throws E If the work fails.
+     */
+    static <T, E extends Exception> T run(Work<T, E> work) throws E {
+        RequestAttributes previousAttributes = RequestContextHolder.getRequestAttributes();
+        DetachedRequestAttributes requestAttributes = new DetachedRequestAttributes();
+        RequestContextHolder.setRequestAttributes(requestAttributes);
+        try {
+            return work.run();
+        } finally {
+            RequestContextHolder.setRequestAttributes(previousAttributes);
+            requestAttributes.requestCompleted();
+        }
+    }
+
+    /**
+     * The attributes of a request scope without an HTTP request
+     */
+    private static class DetachedRequestAttributes extends AbstractRequestAttributes {
+
+        private final Map<String, Object> attributes = new HashMap<>();
+
+        @Override
+        public Object getAttribute(String name, int scope) {
+            return attributes.get(name);
+        }
+
+        @Override
+        public void setAttribute(String name, Object value, int scope) {
+            attributes.put(name, value);
+        }
+
+        @Override
+        public void removeAttribute(String name, int scope) {
+            attributes.remove(name);
+            removeRequestDestructionCallback(name);
+        }
+
+        @Override
+        public String[] getAttributeNames(int scope) {
+            return attributes.keySet().toArray(new String[0]);
+        }
+
+        @Override
+        public void registerDestructionCallback(String name, Runnable callback, int scope) {
+            registerRequestDestructionCallback(name, callback);
+        }
+
+        @Override
+        public Object resolveReference(String key) {
+            return null;
+        }
+
+        @Override
+        public String getSessionId() {
+            throw new UnsupportedOperationException("A request scope outside of an HTTP request has no session");
+        }
+
+        @Override
+        public Object getSessionMutex() {
+            throw new UnsupportedOperationException("A request scope outside of an HTTP request has no session");
+        }
+
+        @Override
+        protected void updateAccessedSessionAttributes() {
+        }
+    }
+}
@@ -4,6 +4,8 @@ import static org.camunda.spin.Spin.*;
 
 import java.util.*;
 
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.charter.obo.orion.dmnsimulator.jfr.SimulatorEvents;
 import org.charter.obo.orion.dmnsimulator.listerners.SimulatorDecisionTableEvaluationListener;
 import org.camunda.spin.json.SpinJsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -41,7 +43,28 @@ public class DmnAllDetailsService {
         SpinJsonNode requestNode = JSON(reqBody);
         List<String> decisionNames = decisionNamesService.getDecisionNames(reqBody);
         SpinJsonNode resultNode = generateInputsOutputsNode(requestNode, decisionNames, reqBody);
-        return resultNode.toString();
+        Object serializationEvent = SimulatorEvents.beginSerialization();
+        String details = resultNode.toString();
+        SimulatorEvents.endSerialization(serializationEvent, "allDetails", details.length());
+        return details;
+    }
+
+    /**
+     * Method to get the decision details from already parsed decisions, e.g. of the file repository
+     * The result has the same format as for a DMN XML
+     * @param decisions All decisions of the model
+     * @return
+     */
+    public String getDecisionDetails(List<DmnDecision> decisions) {
+        SpinJsonNode resultNode = JSON("{}");
+        resultNode.prop("All-tables", generateDecisionElementsNode(decisions, null));
+        for (String decisionName : decisionNamesService.getDecisionNames(decisions)) {
+            resultNode.prop(decisionName, generateDecisionElementsNode(decisions, decisionName));
+        }
+        Object serializationEvent = SimulatorEvents.beginSerialization();
+        String details = resultNode.toString();
+        SimulatorEvents.endSerialization(serializationEvent, "allDetails", details.length());
+        return details;
     }
 
     /**
@@ -69,6 +92,21 @@ public class DmnAllDetailsService {
         return decisionElementsNode;
     }
 
+    /**
+     * Method to generate the inputs and outputs for a particular decision of already parsed decisions
+     * @param decisions
+     * @param decisionName The decision, null for all decisions
+     * @return
+     */
+    private SpinJsonNode generateDecisionElementsNode(List<DmnDecision> decisions, String decisionName) {
+        SpinJsonNode decisionElementsNode = JSON("{}");
+        decisionElementsNode.prop("inputs", JSON(inputNamesService.getDecisionInputs(decisions, decisionName)));
+        decisionElementsNode.prop("outputs", JSON(outputNamesService.getDecisionOutputs(decisions, decisionName)));
+        decisionElementsNode.prop("inputVariables", JSON(inputVariablesService.getDecisionVariables(decisions, decisionName)));
+        decisionElementsNode.prop("inputExpressions", JSON(inputExpressionsService.getDecisionInputExpressions(decisions, decisionName)));
+        return decisionElementsNode;
+    }
+
     /**
      * Method to generate the inputs and outputs for all the decisions
      * first it will get the inputs and outputs for All-tables property
@@ -0,0 +1,271 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.log4j.Logger;
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service class which keeps the DMN files of a mounted directory parsed in memory
+ * The directory is watched with a WatchService, a changed file is parsed again in the background
+ * and the new model replaces the old one in a single map update, so running evaluations finish on the old model
+ * If a file can not be parsed, the last good model is kept and the error is reported in the status
+ */
+@Service
+public class DmnFileRepositoryService {
+
+    private static Logger log = Logger.getLogger(DmnFileRepositoryService.class);
+
+    private static final String DMN_EXTENSION = ".dmn";
+
+    @Value("${dmnsimulator.repository.directory:}")
+    private String repositoryDirectory;
+
+    @Value("${dmnsimulator.repository.reload-delay-millis:200}")
+    private long reloadDelayMillis;
+
+    @Autowired
+    private DmnModelCacheService dmnModelCacheService;
+
+    private final ConcurrentMap<String, DmnFileModel> models = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Map<String, Object>> errors = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, ScheduledFuture<?>> pendingReloads = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService reloadExecutor;
+
+    private WatchService watchService;
+
+    private Thread watchThread;
+
+    private Path directory;
+
+    /**
+     * Method to load all DMN files of the repository directory and start watching it
+     * Nothing is done if no directory is configured
+     */
+    @PostConstruct
+    public void start() {
+        if (repositoryDirectory == null || repositoryDirectory.trim().isEmpty()) {
+            return;
+        }
+        directory = Paths.get(repositoryDirectory).toAbsolutePath();
+        if (!Files.isDirectory(directory)) {
+            log.warn("DMN repository directory " + directory + " does not exist");
+            return;
+        }
+        reloadExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dmn-repository-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (DirectoryStream<Path> dmnFiles = Files.newDirectoryStream(directory, "*" + DMN_EXTENSION)) {
+            for (Path dmnFile : dmnFiles) {
+                reload(dmnFile.getFileName().toString());
+            }
+        } catch (IOException e) {
+            log.error("Could not read DMN repository directory " + directory, e);
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+            watchThread = new Thread(this::watch, "dmn-repository-watch");
+            watchThread.setDaemon(true);
+            watchThread.start();
+            log.info("Watching DMN repository directory " + directory + " with " + models.size() + " models");
+        } catch (IOException e) {
+            log.error("Could not watch DMN repository directory " + directory, e);
+        }
+    }
+
+    /**
+     * Method to stop watching the repository directory
+     */
+    @PreDestroy
+    public void stop() {
+        if (watchThread != null) {
+            watchThread.interrupt();
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.warn("Could not close DMN repository watch service", e);
+            }
+        }
+        if (reloadExecutor != null) {
+            reloadExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Method to get the current version of a DMN file of the repository
+     * The file name can be given with or without the .dmn extension
+     * The hash and the decisions of the returned model belong together, so a request should get the model once
+     * and take both from it, even if the file is reloaded meanwhile
+     * @param fileName
+     * @return The parsed model, or null if the file is not in the repository
+     */
+    public DmnFileModel getModel(String fileName) {
+        return models.get(normalizeFileName(fileName));
+    }
+
+    /**
+     * Method to get the status of the repository
+     * @return Map with the loaded models and the files which could not be parsed
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("directory", directory == null ? null : directory.toString());
+        Map<String, Object> loadedModels = new TreeMap<>();
+        for (Map.Entry<String, DmnFileModel> entry : models.entrySet()) {
+            Map<String, Object> model = new LinkedHashMap<>();
+            model.put("modelHash", entry.getValue().modelHash);
+            model.put("decisions", entry.getValue().decisions.size());
+            model.put("loadedAt", new Date(entry.getValue().loadedAt).toString());
+            loadedModels.put(entry.getKey(), model);
+        }
+        status.put("models", loadedModels);
+        status.put("errors", new TreeMap<>(errors));
+        return status;
+    }
+
+    /**
+     * Method which waits for file events of the repository directory
+     * and schedules a reload of every changed file
+     */
+    private void watch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            WatchKey watchKey;
+            try {
+                watchKey = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            for (WatchEvent<?> event : watchKey.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    rescan();
+                    continue;
+                }
+                String fileName = event.context().toString();
+                if (fileName.endsWith(DMN_EXTENSION)) {
+                    scheduleReload(fileName);
+                }
+            }
+            watchKey.reset();
+        }
+    }
+
+    /**
+     * Method to schedule the reload of a file
+     * Editors often write a file in several steps, so the reload is delayed
+     * and a reload which is still pending for the same file is replaced
+     * @param fileName
+     */
+    private void scheduleReload(String fileName) {
+        ScheduledFuture<?> reload = reloadExecutor.schedule(() -> reload(fileName), reloadDelayMillis, TimeUnit.MILLISECONDS);
+        ScheduledFuture<?> previousReload = pendingReloads.put(fileName, reload);
+        if (previousReload != null) {
+            previousReload.cancel(false);
+        }
+    }
+
+    /**
+     * Method to schedule a reload of all files after the watch service lost events
+     */
+    private void rescan() {
+        Set<String> fileNames = new HashSet<>(models.keySet());
+        try (DirectoryStream<Path> dmnFiles = Files.newDirectoryStream(directory, "*" + DMN_EXTENSION)) {
+            for (Path dmnFile : dmnFiles) {
+                fileNames.add(dmnFile.getFileName().toString());
+            }
+        } catch (IOException e) {
+            log.error("Could not read DMN repository directory " + directory, e);
+        }
+        for (String fileName : fileNames) {
+            scheduleReload(fileName);
+        }
+    }
+
+    /**
+     * Method to parse a file and swap the new model in
+     * A deleted file is removed from the repository
+     * If the file can not be parsed, the previous model stays and the error is recorded
+     * @param fileName
+     */
+    private void reload(String fileName) {
+        pendingReloads.remove(fileName);
+        Path dmnFile = directory.resolve(fileName);
+        if (!Files.exists(dmnFile)) {
+            models.remove(fileName);
+            errors.remove(fileName);
+            log.info("Removed DMN file " + fileName + " from the repository");
+            return;
+        }
+        try {
+            String xml = new String(Files.readAllBytes(dmnFile), StandardCharsets.UTF_8);
+            String modelHash = dmnModelCacheService.getModelHash(xml);
+            DmnFileModel current = models.get(fileName);
+            if (current != null && current.modelHash.equals(modelHash)) {
+                errors.remove(fileName);
+                return;
+            }
+            List<DmnDecision> decisions = dmnModelCacheService.parseDecisions(xml);
+            models.put(fileName, new DmnFileModel(modelHash, decisions));
+            errors.remove(fileName);
+            log.info("Loaded DMN file " + fileName + " with " + decisions.size() + " decisions");
+        } catch (Exception e) {
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("message", e.getMessage());
+            error.put("failedAt", new Date().toString());
+            error.put("keptPreviousVersion", models.containsKey(fileName));
+            errors.put(fileName, error);
+            log.error("Could not load DMN file " + fileName + ", keeping the last good version", e);
+        }
+    }
+
+    /**
+     * Method to add the .dmn extension if it is missing
+     * @param fileName
+     * @return File name with extension
+     */
+    private String normalizeFileName(String fileName) {
+        return fileName.endsWith(DMN_EXTENSION) ? fileName : fileName + DMN_EXTENSION;
+    }
+
+    /**
+     * A parsed version of a DMN file, which is never modified after it is created
+     */
+    public static class DmnFileModel {
+        private final String modelHash;
+        private final List<DmnDecision> decisions;
+        private final long loadedAt;
+
+        private DmnFileModel(String modelHash, List<DmnDecision> decisions) {
+            this.modelHash = modelHash;
+            this.decisions = decisions;
+            this.loadedAt = System.currentTimeMillis();
+        }
+
+        public String getModelHash() {
+            return modelHash;
+        }
+
+        public List<DmnDecision> getDecisions() {
+            return decisions;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import javax.annotation.PostConstruct;
+
+import org.charter.obo.orion.dmnsimulator.engine.DmnModelCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service class which holds the model cache of the application
+ * The cache itself is in the core module; this class configures it from the application properties
+ * and adds the outcome of every lookup to the current span
+ */
+@Service
+public class DmnModelCacheService extends DmnModelCache {
+
+    @Value("${dmnsimulator.cache.max-models:100}")
+    private int maxModels;
+
+    @Value("${dmnsimulator.cache.max-weight-mb:256}")
+    private long maxWeightMb;
+
+    @Value("${dmnsimulator.cache.tenant-budget-mb:0}")
+    private long defaultTenantBudgetMb;
+
+    @Value("${dmnsimulator.cache.tenant-budgets:}")
+    private String tenantBudgets;
+
+    @Value("${dmnsimulator.cache.max-tenants:1000}")
+    private int maxTenants;
+
+    @Value("${dmnsimulator.cache.max-decisions:5000}")
+    private int maxDecisions;
+
+    @Value("${dmnsimulator.cache.reuse-decisions:true}")
+    private boolean reuseDecisions;
+
+    @Autowired
+    private SpanTracingService spanTracingService;
+
+    /**
+     * Method to apply the cache properties
+     */
+    @PostConstruct
+    public void init() {
+        setMaxModels(maxModels);
+        setMaxWeightMb(maxWeightMb);
+        setTenantBudgetMb(defaultTenantBudgetMb);
+        setTenantBudgets(tenantBudgets);
+        setMaxTenants(maxTenants);
+        setMaxDecisions(maxDecisions);
+        setReuseDecisions(reuseDecisions);
+    }
+
+    @Override
+    protected void onLookup(String modelHash, boolean hit) {
+        spanTracingService.setAttribute("dmn.cache.hit", hit);
+    }
+}
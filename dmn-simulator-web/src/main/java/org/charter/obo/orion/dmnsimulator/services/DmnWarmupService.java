@@ -0,0 +1,193 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import static org.camunda.spin.Spin.JSON;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+import org.apache.log4j.Logger;
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.spin.json.SpinJsonNode;
+import org.charter.obo.orion.dmnsimulator.engine.DecisionEvaluator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service class which preloads the DMN files of a configured directory into the model cache at startup
+ * and runs a number of warm-up evaluations on each of them, so class loading, JIT compilation
+ * and the first parses happen before the first real request
+ * A file "name.json" next to "name.dmn" can hold sample variables in the same format as the evaluateDecision request;
+ * a model without one is only parsed, because evaluations without variables would only fail the input validation
+ * The warm-up evaluations take the same path as the requests, through the EvaluateDecisionService with its listener,
+ * decision context, validation and result conversion; each one runs in its own request scope and is not audited
+ * Spring Boot reports the application as ready only after all application runners, so readiness waits for the warm-up
+ */
+@Service
+public class DmnWarmupService implements ApplicationRunner {
+
+    private static Logger log = Logger.getLogger(DmnWarmupService.class);
+
+    @Value("${dmnsimulator.preload.directory:}")
+    private String preloadDirectory;
+
+    @Value("${dmnsimulator.warmup.iterations:100}")
+    private int warmupIterations;
+
+    @Value("${dmnsimulator.warmup.tenant:default}")
+    private String warmupTenant;
+
+    @Autowired
+    private DmnModelCacheService dmnModelCacheService;
+    @Autowired
+    private EvaluateDecisionService evaluateDecisionService;
+
+    private volatile boolean ready = false;
+
+    private volatile long warmupMillis;
+
+    private final List<Map<String, Object>> modelResults = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * Entry Method which runs the preload and warm-up once the application context is started
+     * @param args
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        try {
+            if (preloadDirectory == null || preloadDirectory.trim().isEmpty()) {
+                log.info("No DMN preload directory configured, skipping warm-up");
+                return;
+            }
+            Path directory = Paths.get(preloadDirectory);
+            if (!Files.isDirectory(directory)) {
+                log.warn("DMN preload directory " + directory + " does not exist, skipping warm-up");
+                return;
+            }
+            try (DirectoryStream<Path> dmnFiles = Files.newDirectoryStream(directory, "*.dmn")) {
+                for (Path dmnFile : dmnFiles) {
+                    modelResults.add(warmupModel(dmnFile));
+                }
+            } catch (IOException e) {
+                log.error("Could not read DMN preload directory " + directory, e);
+            }
+        } finally {
+            warmupMillis = System.currentTimeMillis() - start;
+            ready = true;
+            log.info("DMN warm-up of " + modelResults.size() + " models finished in " + warmupMillis + " ms");
+        }
+    }
+
+    /**
+     * Method to parse one DMN file into the model cache and evaluate it warmupIterations times with its sample variables
+     * Errors are recorded in the result, so one broken file does not stop the warm-up of the others;
+     * a model without a sample file is not evaluated and its result says so
+     * @param dmnFile
+     * @return Map with the warm-up result of the model
+     */
+    private Map<String, Object> warmupModel(Path dmnFile) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("file", dmnFile.getFileName().toString());
+        try {
+            long parseStart = System.nanoTime();
+            String xml = new String(Files.readAllBytes(dmnFile), StandardCharsets.UTF_8);
+            String modelHash = dmnModelCacheService.getModelHash(xml);
+            List<DmnDecision> decisions = dmnModelCacheService.getDecisions(warmupTenant, modelHash, xml);
+            result.put("decisions", decisions.size());
+            result.put("parseMillis", (System.nanoTime() - parseStart) / 1000000L);
+
+            Path sampleFile = dmnFile.resolveSibling(dmnFile.getFileName().toString().replaceAll("\\.dmn$", ".json"));
+            if (!Files.exists(sampleFile)) {
+                result.put("evaluations", 0);
+                result.put("skipped", "No sample variables in " + sampleFile.getFileName());
+                log.info("Preloaded without evaluations " + result);
+                return result;
+            }
+            SpinJsonNode sampleNode = JSON(new String(Files.readAllBytes(sampleFile), StandardCharsets.UTF_8));
+            List<String> decisionNames = new ArrayList<>();
+            for (DmnDecision decision : DecisionEvaluator.getRequestedDecisions(sampleNode, decisions)) {
+                decisionNames.add(decision.getName());
+            }
+            long evaluateStart = System.nanoTime();
+            int failedEvaluations = 0;
+            for (int i = 0; i < warmupIterations; i++) {
+                if (!warmupEvaluation(sampleNode, modelHash, decisions, result)) {
+                    failedEvaluations++;
+                }
+            }
+            result.put("decision", String.join(",", decisionNames));
+            result.put("evaluations", warmupIterations);
+            result.put("failedEvaluations", failedEvaluations);
+            result.put("evaluateMillis", (System.nanoTime() - evaluateStart) / 1000000L);
+            log.info("Warmed up " + result);
+        } catch (Exception e) {
+            result.put("error", e.getMessage());
+            log.error("Could not warm up " + dmnFile, e);
+        }
+        return result;
+    }
+
+    /**
+     * Method to run one warm-up evaluation in a request scope of its own, like a request,
+     * and convert the response to JSON like the controller does, see DetachedRequestScope
+     * @param sampleNode The sample request
+     * @param modelHash
+     * @param decisions
+     * @param result Gets the "evaluationError" of the first failed evaluation of the model and its number of "validationErrors"
+     * @return true if the decision was evaluated without an error and the sample variables passed the input validation
+     */
+    private boolean warmupEvaluation(SpinJsonNode sampleNode, String modelHash, List<DmnDecision> decisions, Map<String, Object> result) {
+        try {
+            SpinJsonNode rootNode = DetachedRequestScope.run(() -> {
+                SpinJsonNode responseNode = evaluateDecisionService.warmupDecision(sampleNode, modelHash, decisions);
+                responseNode.toString();
+                return responseNode;
+            });
+            if (rootNode.hasProp("error") || rootNode.hasProp("validationErrors")) {
+                if (!result.containsKey("evaluationError")) {
+                    result.put("evaluationError", rootNode.hasProp("error") ? rootNode.prop("error").stringValue() : "Invalid variables");
+                    if (rootNode.hasProp("validationErrors")) {
+                        result.put("validationErrors", rootNode.prop("validationErrors").elements().size());
+                    }
+                }
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            if (!result.containsKey("evaluationError")) {
+                result.put("evaluationError", e.getMessage());
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Method to check if the warm-up is finished
+     * @return true once the warm-up is finished or skipped
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Method to get the warm-up status with the result of every preloaded model
+     * @return Map with ready flag, total warm-up time and model results
+     */
+    public Map<String, Object> getWarmupStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("ready", ready);
+        status.put("warmupMillis", warmupMillis);
+        synchronized (modelResults) {
+            status.put("models", new ArrayList<>(modelResults));
+        }
+        return status;
+    }
+}
@@ -0,0 +1,592 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import static org.camunda.spin.Spin.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import org.camunda.bpm.dmn.engine.*;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionTableEvaluationEvent;
+import org.camunda.bpm.dmn.engine.impl.*;
+import org.camunda.bpm.dmn.engine.impl.hitpolicy.HitPolicyEntry;
+import org.charter.obo.orion.dmnsimulator.configurations.BinaryFormats;
+import org.charter.obo.orion.dmnsimulator.engine.DecisionEvaluator;
+import org.charter.obo.orion.dmnsimulator.engine.InputSchema;
+import org.charter.obo.orion.dmnsimulator.engine.MultiDecisionContext;
+import org.charter.obo.orion.dmnsimulator.engine.SimulatorDecisionTableEvaluationHandler;
+import org.charter.obo.orion.dmnsimulator.jfr.SimulatorEvents;
+import org.charter.obo.orion.dmnsimulator.listerners.SimulatorDecisionTableEvaluationListener;
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.engine.variable.Variables;
+import org.camunda.spin.json.SpinJsonNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.util.List;
+
+import static org.camunda.spin.Spin.JSON;
+
+@Service
+public class EvaluateDecisionService {
+
+    @Autowired
+    private SimulatorDecisionTableEvaluationListener evaluationListener;
+    @Autowired
+    private DmnModelCacheService dmnModelCacheService;
+    @Autowired
+    private EvaluationAuditService evaluationAuditService;
+    @Autowired
+    private StreamingRequestService streamingRequestService;
+    @Autowired
+    private SpanTracingService spanTracingService;
+    @Autowired
+    private ExpressionProfilerService expressionProfilerService;
+    @Autowired
+    private EvaluationHandleService evaluationHandleService;
+
+    @Value("${dmnsimulator.evaluation.early-termination:false}")
+    private boolean earlyTermination;
+
+    @Value("${dmnsimulator.evaluation.shared-inputs:true}")
+    private boolean sharedInputs;
+
+    /**
+     * Entry Method to evaluate the decision
+     * It parses the decision from the request, evaluates it using the DMN engine,
+     * and returns the result as a JSON string.
+     * @param reqBody
+     * @return JSON response
+     */
+    public SpinJsonNode evaluateDecision(String reqBody) {
+        return evaluateDecision(reqBody, false);
+    }
+
+    /**
+     * Method to evaluate the decision with optional trace information
+     * If trace is enabled, every evaluated decision node gets a "trace" property with the elapsed time,
+     * the number of evaluated and matched rules and the executed decision elements,
+     * and the root node gets a "trace" property with the parse and evaluate phase timings.
+     * If trace is disabled, no timestamps are taken at all.
+     * @param reqBody
+     * @param trace
+     * @return JSON response
+     */
+    public SpinJsonNode evaluateDecision(String reqBody, boolean trace) {
+        return evaluateDecision(reqBody, trace, null);
+    }
+
+    /**
+     * Method to evaluate the decision of a request body for a tenant
+     * @param reqBody
+     * @param trace
+     * @param tenant The tenant the parsed model is cached for, null for the default tenant
+     * @return JSON response
+     */
+    public SpinJsonNode evaluateDecision(String reqBody, boolean trace, String tenant) {
+        SpinJsonNode rootNode = JSON("{}");
+        try {
+            long parseStart = trace ? System.nanoTime() : 0L;
+            SpinJsonNode requestNode;
+            String modelHash;
+            List<DmnDecision> decisions;
+            SpanTracingService.Span parseSpan = spanTracingService.startSpan("parse");
+            try {
+                requestNode = JSON(reqBody);
+                String xml = requestNode.prop("xml").stringValue();
+                modelHash = dmnModelCacheService.getModelHash(xml);
+                spanTracingService.setAttribute("dmn.model.hash", modelHash);
+                decisions = dmnModelCacheService.getDecisions(tenant, modelHash, xml);
+            } finally {
+                spanTracingService.endSpan(parseSpan);
+            }
+            evaluateDecisions(rootNode, requestNode, modelHash, decisions, trace, parseStart, true);
+        } catch (Exception e) {
+            rootNode.prop("error", e.getMessage());
+            spanTracingService.setError(e.getMessage());
+        }
+
+        return rootNode;
+    }
+
+    /**
+     * Method to evaluate the decision of a JSON request body which is read from a stream
+     * @param body The request body
+     * @param contentLength The length of the body if known, otherwise -1
+     * @param trace
+     * @param tenant The tenant the parsed model is cached for, null for the default tenant
+     * @return JSON response
+     */
+    public SpinJsonNode evaluateDecision(InputStream body, long contentLength, boolean trace, String tenant) {
+        return evaluateDecision(body, null, contentLength, trace, tenant);
+    }
+
+    /**
+     * Method to evaluate the decision of a request body which is read from a stream
+     * The xml of a JSON body is never turned into a String, it is read into one UTF-8 byte buffer by the streamingRequestService,
+     * and is only parsed if the model is not cached
+     * @param body The request body
+     * @param format The format of the body, null for JSON
+     * @param contentLength The length of the body if known, otherwise -1
+     * @param trace
+     * @param tenant The tenant the parsed model is cached for, null for the default tenant
+     * @return JSON response
+     */
+    public SpinJsonNode evaluateDecision(InputStream body, BinaryFormats format, long contentLength, boolean trace, String tenant) {
+        SpinJsonNode rootNode = JSON("{}");
+        try {
+            long parseStart = trace ? System.nanoTime() : 0L;
+            StreamingRequestService.StreamedRequest request;
+            List<DmnDecision> decisions;
+            SpanTracingService.Span parseSpan = spanTracingService.startSpan("parse");
+            try {
+                request = streamingRequestService.readRequest(body, format, contentLength);
+                spanTracingService.setAttribute("dmn.model.hash", request.getModelHash());
+                spanTracingService.setAttribute("dmn.model.bytes", request.getXmlLength());
+                decisions = dmnModelCacheService.getDecisions(tenant, request.getModelHash(), request.getXml(), request.getXmlLength());
+            } finally {
+                spanTracingService.endSpan(parseSpan);
+            }
+            evaluateDecisions(rootNode, request.getRequestNode(), request.getModelHash(), decisions, trace, parseStart, true);
+        } catch (Exception e) {
+            rootNode.prop("error", e.getMessage());
+            spanTracingService.setError(e.getMessage());
+        }
+
+        return rootNode;
+    }
+
+    /**
+     * Method to evaluate a decision of an already parsed model, e.g. from the DMN file repository
+     * The request body has the same format as for evaluateDecision, but without the xml property
+     * @param reqBody
+     * @param modelHash The hash of the model, used for the audit log
+     * @param decisions
+     * @param trace
+     * @return JSON response
+     */
+    public SpinJsonNode evaluateDecision(String reqBody, String modelHash, List<DmnDecision> decisions, boolean trace) {
+        SpinJsonNode rootNode = JSON("{}");
+        try {
+            long parseStart = trace ? System.nanoTime() : 0L;
+            SpinJsonNode requestNode;
+            SpanTracingService.Span parseSpan = spanTracingService.startSpan("parse");
+            try {
+                spanTracingService.setAttribute("dmn.model.hash", modelHash);
+                requestNode = JSON(reqBody);
+            } finally {
+                spanTracingService.endSpan(parseSpan);
+            }
+            evaluateDecisions(rootNode, requestNode, modelHash, decisions, trace, parseStart, true);
+        } catch (Exception e) {
+            rootNode.prop("error", e.getMessage());
+            spanTracingService.setError(e.getMessage());
+        }
+
+        return rootNode;
+    }
+
+    /**
+     * Method to evaluate the requested decisions of the parsed model and add the results to the root node
+     * The request names one decision with "decision", or several with a "decisions" list; without both the root decision is evaluated
+     * All requested decisions are evaluated in one pass over the union of their requirement graphs,
+     * so a required decision shared by several of them is evaluated once and its result is reused
+     * The root node gets one node per evaluated decision, the requested decisions first, with the results and the matched rules
+     * The variables are first checked against the input schema of every requested decision; if they are invalid,
+     * the root node gets an "error" and a "validationErrors" list with one entry per variable and nothing is evaluated
+     * If "incremental" is true, the evaluation is kept and the root node gets an "evaluationHandle" for reevaluateDecision
+     * @param rootNode
+     * @param requestNode
+     * @param modelHash
+     * @param decisions
+     * @param trace
+     * @param parseStart
+     * @param audit Whether the evaluation is written to the audit log, if it is enabled
+     * @throws Exception If an error occurs while processing the variables or evaluating the decision.
+     */
+    private void evaluateDecisions(SpinJsonNode rootNode, SpinJsonNode requestNode, String modelHash, List<DmnDecision> decisions, boolean trace,
+                                   long parseStart, boolean audit) throws Exception {
+        List<DmnDecision> targets = DecisionEvaluator.getRequestedDecisions(requestNode, decisions);
+        if (DecisionEvaluator.addValidationErrors(rootNode, targets, dmnModelCacheService.getInputSchema().validate(targets, requestNode))) {
+            return;
+        }
+        VariableMap variables = getVariables(requestNode);
+        boolean incremental = requestNode.hasProp("incremental") && requestNode.prop("incremental").isBoolean()
+                && requestNode.prop("incremental").boolValue();
+        evaluate(rootNode, modelHash, decisions, targets, variables, null, Collections.<String>emptySet(), incremental,
+                DecisionEvaluator.isEarlyTermination(requestNode, earlyTermination), trace, parseStart, audit);
+    }
+
+    /**
+     * Method to evaluate a decision of a preloaded model at startup, see DmnWarmupService
+     * The evaluation takes the same path as a request, with the same listener, decision context and result conversion,
+     * but it is not written to the audit log
+     * It has to run in a request scope, because the evaluation listener is request scoped
+     * @param requestNode The sample request without the xml
+     * @param modelHash
+     * @param decisions
+     * @return JSON response, with an "error" if the variables are invalid
+     * @throws Exception If an error occurs while processing the variables or evaluating the decision.
+     */
+    public SpinJsonNode warmupDecision(SpinJsonNode requestNode, String modelHash, List<DmnDecision> decisions) throws Exception {
+        SpinJsonNode rootNode = JSON("{}");
+        evaluateDecisions(rootNode, requestNode, modelHash, decisions, false, 0L, false);
+        return rootNode;
+    }
+
+    /**
+     * Entry Method to evaluate the decisions of an incremental evaluation again with changed variables
+     * The request body has an "evaluationHandle" from an earlier response and a "variables" block with only the changed variables;
+     * a variable can be changed or added, the variables which are not in the block keep their earlier value
+     * The merged variables are checked against the input schema of the requested decisions as in a full evaluation;
+     * if they are invalid, the root node gets an "error" and the "validationErrors" and nothing is evaluated
+     * Only the decisions which read a changed variable or need a decision whose result changed are evaluated,
+     * the other results are taken from the earlier evaluation; the response has the same format as for a full evaluation,
+     * a new "evaluationHandle" and the "reevaluatedDecisions"
+     * @param reqBody
+     * @param trace
+     * @return JSON response
+     */
+    public SpinJsonNode reevaluateDecision(String reqBody, boolean trace) {
+        SpinJsonNode rootNode = JSON("{}");
+        try {
+            long parseStart = trace ? System.nanoTime() : 0L;
+            SpinJsonNode requestNode;
+            EvaluationHandleService.EvaluationHandle handle;
+            SpanTracingService.Span parseSpan = spanTracingService.startSpan("parse");
+            try {
+                requestNode = JSON(reqBody);
+                String handleId = requestNode.hasProp("evaluationHandle") ? requestNode.prop("evaluationHandle").stringValue() : null;
+                handle = evaluationHandleService.get(handleId);
+                if (handle == null) {
+                    throw new RuntimeException("Unknown or expired evaluation handle '" + handleId + "'");
+                }
+                spanTracingService.setAttribute("dmn.model.hash", handle.getModelHash());
+            } finally {
+                spanTracingService.endSpan(parseSpan);
+            }
+            InputSchema inputSchema = dmnModelCacheService.getInputSchema();
+            if (DecisionEvaluator.addValidationErrors(rootNode, handle.getTargets(), inputSchema.validateDeclaredTypes(requestNode))) {
+                return rootNode;
+            }
+            VariableMap changedVariables = requestNode.hasProp("variables") ? getVariables(requestNode) : Variables.createVariables();
+            VariableMap variables = Variables.fromMap(handle.getVariables());
+            Set<String> changedNames = new HashSet<>();
+            for (String name : changedVariables.keySet()) {
+                if (!variables.containsKey(name) || !Objects.equals(variables.get(name), changedVariables.get(name))) {
+                    changedNames.add(name);
+                }
+                variables.putValueTyped(name, changedVariables.getValueTyped(name));
+            }
+            if (DecisionEvaluator.addValidationErrors(rootNode, handle.getTargets(), inputSchema.validate(handle.getTargets(), variables))) {
+                return rootNode;
+            }
+            evaluate(rootNode, handle.getModelHash(), handle.getDecisions(), handle.getTargets(), variables, handle, changedNames, true,
+                    DecisionEvaluator.isEarlyTermination(requestNode, earlyTermination), trace, parseStart, true);
+        } catch (Exception e) {
+            rootNode.prop("error", e.getMessage());
+            spanTracingService.setError(e.getMessage());
+        }
+
+        return rootNode;
+    }
+
+    /**
+     * Method to evaluate the requested decisions and add the results to the root node
+     * If the audit log is enabled, the evaluation is queued for it once per requested decision together with the matched rules
+     * @param rootNode
+     * @param modelHash
+     * @param decisions All decisions of the model
+     * @param targets The requested decisions
+     * @param variables
+     * @param previous The earlier evaluation whose unaffected results are reused, or null for a full evaluation
+     * @param changedVariables The names of the variables which differ from the earlier evaluation
+     * @param keepHandle Whether the evaluation is kept for a later re-evaluation
+     * @param earlyTermination Whether FIRST and UNIQUE decision tables stop checking rules once the result is decided
+     * @param trace
+     * @param parseStart
+     * @param auditEnabled Whether the evaluation is written to the audit log, if it is enabled
+     */
+    private void evaluate(SpinJsonNode rootNode, String modelHash, List<DmnDecision> decisions, List<DmnDecision> targets,
+                          VariableMap variables, EvaluationHandleService.EvaluationHandle previous, Set<String> changedVariables,
+                          boolean keepHandle, boolean earlyTermination, boolean trace, long parseStart,
+                          boolean auditEnabled) {
+        List<String> targetKeys = new ArrayList<>();
+        for (DmnDecision target : targets) {
+            targetKeys.add(target.getKey());
+        }
+        String targetKey = String.join(",", targetKeys);
+        DmnEngine dmnEngine = buildDecisionEngine(expressionProfilerService.isEnabled());
+        boolean audit = auditEnabled && evaluationAuditService.isEnabled();
+        boolean spans = spanTracingService.isTracing();
+        long evaluateStart = 0L;
+        Object evaluationEvent = SimulatorEvents.beginEvaluation();
+        int firstEvent = evaluationListener.getLastEvents().size();
+        if (trace || spans) {
+            evaluationListener.startTrace();
+            evaluateStart = evaluationListener.getTraceStartNanos();
+        }
+        SpanTracingService.Span evaluateSpan = spanTracingService.startSpan("evaluate");
+        MultiDecisionContext decisionContext = new MultiDecisionContext((DefaultDmnEngineConfiguration) dmnEngine.getConfiguration(), earlyTermination,
+                sharedInputs);
+        Map<DmnDecision, DmnDecisionResult> results;
+        try {
+            spanTracingService.setAttribute("dmn.decision.key", targetKey);
+            if (previous == null) {
+                results = decisionContext.evaluateDecisions(targets, variables.asVariableContext());
+            } else {
+                results = decisionContext.reevaluateDecisions(targets, variables.asVariableContext(), previous.getResults(),
+                        previous.getEvents(), changedVariables, evaluationHandleService.getVariableDependencies());
+            }
+            if (spans) {
+                addDecisionSpans(evaluateStart, firstEvent, evaluationListener.getLastEvents().size(),
+                        getIncludedDecisions(decisionContext.getEvaluatedDecisions()));
+            }
+        } finally {
+            spanTracingService.endSpan(evaluateSpan);
+        }
+        int lastEvent = evaluationListener.getLastEvents().size();
+        if (evaluationEvent != null) {
+            endEvaluationEvent(evaluationEvent, targetKey, firstEvent, lastEvent);
+        }
+        DecisionEvaluator.addDecisionResults(rootNode, targets, results, decisionContext.getEvaluationEvents());
+        if (keepHandle) {
+            rootNode.prop("evaluationHandle", evaluationHandleService.put(new EvaluationHandleService.EvaluationHandle(modelHash,
+                    decisions, targets, variables, results, decisionContext.getEvaluationEvents())));
+        }
+        if (previous != null) {
+            List<Object> reevaluatedDecisions = new ArrayList<>();
+            for (DmnDecision evaluatedDecision : decisionContext.getEvaluatedDecisions()) {
+                reevaluatedDecisions.add(evaluatedDecision.getKey());
+            }
+            rootNode.prop("reevaluatedDecisions", reevaluatedDecisions);
+        }
+        if (audit) {
+            for (DmnDecision target : new LinkedHashSet<>(targets)) {
+                evaluationAuditService.record(modelHash, target.getKey(), variables,
+                        evaluationListener.getLastEvents().subList(firstEvent, lastEvent), rootNode.prop(target.getName()).prop("results").stringValue());
+            }
+        }
+        if (trace) {
+            long evaluateEnd = System.nanoTime();
+            addDecisionTraces(rootNode, firstEvent, lastEvent, getIncludedDecisions(decisionContext.getEvaluatedDecisions()));
+            SpinJsonNode traceNode = JSON("{}");
+            traceNode.prop("parseMicros", toMicros(evaluateStart - parseStart));
+            traceNode.prop("evaluateMicros", toMicros(evaluateEnd - evaluateStart));
+            if (decisionContext.getInputExpressionCache() != null) {
+                traceNode.prop("sharedInputExpressions", decisionContext.getInputExpressionCache().getHits());
+            }
+            rootNode.prop("trace", traceNode);
+        }
+    }
+
+    /**
+     * Method to add one span per evaluated decision table of the main evaluation to the evaluate span, in evaluation order,
+     * so required decisions come before the decisions which need them
+     * A decision table span lasts from the previous notification of the listener to its own notification,
+     * the keys of the decisions without a decision table evaluated in that time are in dmn.included_decisions
+     * @param evaluateStart The System.nanoTime() at which the evaluation started
+     * @param firstEvent The index of the first event of the main evaluation.
+     * @param lastEvent The index after the last event of the main evaluation.
+     * @param includedDecisions The decisions whose time is included in the span of a decision table, see getIncludedDecisions
+     */
+    private void addDecisionSpans(long evaluateStart, int firstEvent, int lastEvent, Map<DmnDecision, List<DmnDecision>> includedDecisions) {
+        List<DmnDecisionTableEvaluationEvent> evaluationEvents = evaluationListener.getLastEvents();
+        List<Long> eventNanos = evaluationListener.getLastEventNanos();
+        long previousNanos = evaluateStart;
+        for (int i = firstEvent; i < lastEvent; i++) {
+            DmnDecisionTableEvaluationEvent evaluationEvent = evaluationEvents.get(i);
+            long eventTime = eventNanos.get(i);
+            DmnDecision evaluatedDecision = evaluationEvent.getDecision();
+            SpanTracingService.Span decisionSpan = spanTracingService.addSpan("decision " + evaluatedDecision.getKey(), previousNanos, eventTime);
+            decisionSpan.setAttribute("dmn.decision.key", evaluatedDecision.getKey());
+            decisionSpan.setAttribute("dmn.decision.name", evaluatedDecision.getName());
+            DmnDecisionLogic decisionLogic = evaluatedDecision.getDecisionLogic();
+            if (decisionLogic instanceof DmnDecisionTableImpl) {
+                DmnDecisionTableImpl decisionTable = (DmnDecisionTableImpl) decisionLogic;
+                HitPolicyEntry hitPolicy = decisionTable.getHitPolicyHandler().getHitPolicyEntry();
+                decisionSpan.setAttribute("dmn.hit_policy", hitPolicy.getAggregator() == null ? hitPolicy.getHitPolicy().name()
+                        : hitPolicy.getHitPolicy().name() + " " + hitPolicy.getAggregator().name());
+                decisionSpan.setAttribute("dmn.rules", decisionTable.getRules().size());
+                decisionSpan.setAttribute("dmn.checked_rules", SimulatorDecisionTableEvaluationHandler.getCheckedRules(evaluationEvent));
+            }
+            decisionSpan.setAttribute("dmn.matched_rules", evaluationEvent.getMatchingRules().size());
+            decisionSpan.setAttribute("dmn.executed_decision_elements", evaluationEvent.getExecutedDecisionElements());
+            if (includedDecisions.containsKey(evaluatedDecision)) {
+                List<String> includedKeys = new ArrayList<>();
+                for (DmnDecision includedDecision : includedDecisions.get(evaluatedDecision)) {
+                    includedKeys.add(includedDecision.getKey());
+                }
+                decisionSpan.setAttribute("dmn.included_decisions", String.join(",", includedKeys));
+            }
+            previousNanos = eventTime;
+        }
+    }
+
+    /**
+     * Method to commit the JFR event of the main evaluation with the number of evaluated decision tables,
+     * their checked rules and the matched rules, see SimulatorDecisionTableEvaluationHandler.getCheckedRules
+     * @param evaluationEvent
+     * @param decisionKey
+     * @param firstEvent The index of the first event of the main evaluation.
+     * @param lastEvent The index after the last event of the main evaluation.
+     */
+    private void endEvaluationEvent(Object evaluationEvent, String decisionKey, int firstEvent, int lastEvent) {
+        int rules = 0;
+        int matchedRules = 0;
+        List<DmnDecisionTableEvaluationEvent> events = evaluationListener.getLastEvents();
+        for (int i = firstEvent; i < lastEvent; i++) {
+            DmnDecisionTableEvaluationEvent event = events.get(i);
+            rules += SimulatorDecisionTableEvaluationHandler.getCheckedRules(event);
+            matchedRules += event.getMatchingRules().size();
+        }
+        SimulatorEvents.endEvaluation(evaluationEvent, decisionKey, lastEvent - firstEvent, rules, matchedRules);
+    }
+
+    /**
+     * This method is used to convert the variables from the request node into a VariableMap.
+     * The conversion is shared with the command line runner, see DecisionEvaluator.getVariables.
+     *
+     * @param requestNode The request node from which the variables are extracted.
+     * @return The VariableMap containing the variables from the request node.
+     * @throws Exception If an error occurs while processing the variables.
+     */
+    public VariableMap getVariables(SpinJsonNode requestNode) throws Exception {
+        return DecisionEvaluator.getVariables(requestNode);
+    }
+
+    /**
+     * This method is used to parse a decision from an input stream.
+     * If the decision to evaluate is not null or empty, it uses the DMN engine to parse the decision from the input stream.
+     * Otherwise, it gets the top-level decision from the input stream.
+     *
+     * @param decisionToEvaluate The decision to be evaluated.
+     * @param dmnEngine The DMN engine used to parse the decision.
+     * @param inputStream The input stream from which the decision is parsed.
+     * @return The parsed decision.
+     */
+    public DmnDecision parseDecision(String decisionToEvaluate, DmnEngine dmnEngine, InputStream inputStream) {
+        DmnDecision decision;
+        if (decisionToEvaluate != null && !decisionToEvaluate.trim().equals("")) {
+            decision = SimulatorEvents.parseDecision(dmnEngine, decisionToEvaluate, inputStream, "EvaluateDecisionService");
+        } else {
+            List<DmnDecision> decisions = SimulatorEvents.parseDecisions(dmnEngine, inputStream, "EvaluateDecisionService");
+            decision = getRootDecision(decisions);
+        }
+        return decision;
+    }
+
+    /**
+     * This method is used to add the trace information of every decision table evaluated by the main evaluation.
+     * Only the events between firstEvent and lastEvent are used.
+     * The elapsed time of a decision is the gap to the previous notification, because the engine evaluates
+     * the required decisions one after another before the decision that requires them.
+     * Only decision tables notify the listener, so the elapsed time of a decision table includes the decisions without
+     * a decision table evaluated since the previous one; their names are listed in "includedDecisions".
+     *
+     * @param rootNode The root node which contains a node for every evaluated decision.
+     * @param firstEvent The index of the first event of the main evaluation.
+     * @param lastEvent The index after the last event of the main evaluation.
+     * @param includedDecisions The decisions whose time is included in the elapsed time of a decision table, see getIncludedDecisions.
+     */
+    private void addDecisionTraces(SpinJsonNode rootNode, int firstEvent, int lastEvent, Map<DmnDecision, List<DmnDecision>> includedDecisions) {
+        List<DmnDecisionTableEvaluationEvent> evaluationEvents = evaluationListener.getLastEvents();
+        List<Long> eventNanos = evaluationListener.getLastEventNanos();
+        long previousNanos = evaluationListener.getTraceStartNanos();
+        for (int i = firstEvent; i < lastEvent; i++) {
+            DmnDecisionTableEvaluationEvent evaluationEvent = evaluationEvents.get(i);
+            long eventTime = eventNanos.get(i);
+            String currentDecisionKey = evaluationEvent.getDecision().getName();
+            if (rootNode.hasProp(currentDecisionKey)) {
+                int rulesEvaluated = SimulatorDecisionTableEvaluationHandler.getCheckedRules(evaluationEvent);
+                SpinJsonNode decisionTraceNode = JSON("{}");
+                decisionTraceNode.prop("elapsedMicros", toMicros(eventTime - previousNanos));
+                decisionTraceNode.prop("rulesEvaluated", rulesEvaluated);
+                decisionTraceNode.prop("matchedRules", evaluationEvent.getMatchingRules().size());
+                decisionTraceNode.prop("executedDecisionElements", evaluationEvent.getExecutedDecisionElements());
+                if (includedDecisions.containsKey(evaluationEvent.getDecision())) {
+                    List<Object> includedNames = new ArrayList<>();
+                    for (DmnDecision includedDecision : includedDecisions.get(evaluationEvent.getDecision())) {
+                        includedNames.add(includedDecision.getName());
+                    }
+                    decisionTraceNode.prop("includedDecisions", includedNames);
+                }
+                rootNode.prop(currentDecisionKey).prop("trace", decisionTraceNode);
+            }
+            previousNanos = eventTime;
+        }
+    }
+
+    /**
+     * This method is used to find the decisions without a decision table which were evaluated before each decision table.
+     * They do not notify the listener, so their time is part of the gap to the next decision table notification;
+     * the time of those evaluated after the last decision table is only part of evaluateMicros.
+     *
+     * @param evaluatedDecisions The evaluated decisions in evaluation order.
+     * @return Map of decision table to the decisions without a decision table evaluated since the previous decision table.
+     */
+    private static Map<DmnDecision, List<DmnDecision>> getIncludedDecisions(Collection<DmnDecision> evaluatedDecisions) {
+        Map<DmnDecision, List<DmnDecision>> includedDecisions = new IdentityHashMap<>();
+        List<DmnDecision> pending = new ArrayList<>();
+        for (DmnDecision evaluatedDecision : evaluatedDecisions) {
+            if (!(evaluatedDecision.getDecisionLogic() instanceof DmnDecisionTableImpl)) {
+                pending.add(evaluatedDecision);
+            } else if (!pending.isEmpty()) {
+                includedDecisions.put(evaluatedDecision, pending);
+                pending = new ArrayList<>();
+            }
+        }
+        return includedDecisions;
+    }
+
+    /**
+     * This method is used to convert nanoseconds into microseconds.
+     *
+     * @param nanos The duration in nanoseconds.
+     * @return The duration in microseconds.
+     */
+    public static long toMicros(long nanos) {
+        return nanos / 1000L;
+    }
+
+    /**
+     * This method is used to get the root decision from a list of decisions.
+     * It creates a set of all required decisions, and then removes these from the list of decisions.
+     * The remaining decision in the list is the root decision, which is not required by any other decision.
+     *
+     * @param decisions The list of decisions from which the root decision is extracted.
+     * @return The root decision.
+     */
+    private DmnDecision getRootDecision(List<DmnDecision> decisions) {
+        Set<DmnDecision> allRequiredDecisions = new TreeSet<DmnDecision>(new Comparator<DmnDecision>() {
+            @Override
+            public int compare(DmnDecision dec1, DmnDecision dec2) {
+                return dec1.getKey().compareTo(dec2.getKey());
+            }
+        });
+        for (DmnDecision dmnDecision : decisions) {
+            Collection<DmnDecision> requiredDecisions = dmnDecision.getRequiredDecisions();
+            allRequiredDecisions.addAll(requiredDecisions);
+        }
+        decisions.removeAll(allRequiredDecisions);
+        return decisions.get(0);
+    }
+
+    /**
+     * Method to build the DMN Engine, optionally with expression profiling
+     * @param profile Whether the expressions evaluated by the engine are added to the expression profile
+     * @return DMN Engine
+     */
+    private DmnEngine buildDecisionEngine(boolean profile) {
+        DefaultDmnEngineConfiguration engineConfiguration = profile ? expressionProfilerService.createEngineConfiguration()
+                : DecisionEvaluator.createEngineConfiguration();
+        engineConfiguration.getCustomPostDecisionTableEvaluationListeners().add(evaluationListener);
+        engineConfiguration.setDefaultOutputEntryExpressionLanguage("feel");
+        DmnEngine dmnEngine = engineConfiguration.buildEngine();
+        return dmnEngine;
+    }
+
+}
@@ -0,0 +1,202 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Class which reads the segment files written by the EvaluationAuditService in sequence
+ * and exports the evaluations as newline delimited JSON, one evaluation per line
+ * It is used by the audit export endpoint and can be run on its own on a copied audit directory:
+ * java -cp camunda-dmn-simulator-1.0.1.jar -Dloader.main=org.charter.obo.orion.dmnsimulator.services.EvaluationAuditReader
+ *      org.springframework.boot.loader.PropertiesLauncher &lt;audit directory&gt; [output file]
+ */
+public class EvaluationAuditReader {
+
+    private static Logger log = Logger.getLogger(EvaluationAuditReader.class);
+
+    private final Path directory;
+
+    public EvaluationAuditReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Entry Method to export an audit directory to a file or to standard out
+     * @param args The audit directory and optionally the output file
+     * @throws IOException If a segment or the output file can not be accessed.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: EvaluationAuditReader <audit directory> [output file]");
+            System.exit(1);
+        }
+        EvaluationAuditReader reader = new EvaluationAuditReader(Paths.get(args[0]));
+        if (args.length > 1) {
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(args[1]))) {
+                System.err.println("Exported " + reader.export(out) + " evaluations");
+            }
+        } else {
+            long evaluations = reader.export(System.out);
+            System.out.flush();
+            System.err.println("Exported " + evaluations + " evaluations");
+        }
+    }
+
+    /**
+     * Method to write all evaluations of all segments, oldest first, as newline delimited JSON
+     * The segment which is currently written is read up to the last complete record
+     * @param out
+     * @return The number of exported evaluations
+     * @throws IOException If a segment can not be read or the output can not be written.
+     */
+    public long export(OutputStream out) throws IOException {
+        JsonGenerator generator = new JsonFactory().createGenerator(out, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        long evaluations = 0;
+        for (Path segmentFile : EvaluationAuditService.listSegments(directory)) {
+            evaluations += exportSegment(segmentFile, generator);
+        }
+        generator.flush();
+        return evaluations;
+    }
+
+    /**
+     * Method to export the evaluations of one segment
+     * The dictionary is rebuilt from the dictionary records while reading, ids are the positions in the list
+     * @param segmentFile
+     * @param generator
+     * @return The number of exported evaluations
+     * @throws IOException If the segment can not be read or the output can not be written.
+     */
+    private long exportSegment(Path segmentFile, JsonGenerator generator) throws IOException {
+        MappedByteBuffer segment;
+        try (RandomAccessFile file = new RandomAccessFile(segmentFile.toFile(), "r")) {
+            segment = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+        }
+        byte[] magic = new byte[EvaluationAuditService.MAGIC.length];
+        if (segment.remaining() < magic.length + 4) {
+            return 0;
+        }
+        segment.get(magic);
+        int version = segment.getInt();
+        if (!Arrays.equals(magic, EvaluationAuditService.MAGIC) || version != EvaluationAuditService.FORMAT_VERSION) {
+            log.warn("Skipping " + segmentFile + ", it is not an audit segment of version " + EvaluationAuditService.FORMAT_VERSION);
+            return 0;
+        }
+        String segmentName = segmentFile.getFileName().toString();
+        List<String> dictionary = new ArrayList<>();
+        long evaluations = 0;
+        try {
+            while (segment.remaining() >= 4) {
+                int frameLength = segment.getInt();
+                if (frameLength <= 0 || frameLength > segment.remaining()) {
+                    break;
+                }
+                ByteBuffer frame = segment.slice();
+                frame.limit(frameLength);
+                segment.position(segment.position() + frameLength);
+                byte type = frame.get();
+                if (type == EvaluationAuditService.DICTIONARY_RECORD) {
+                    int id = readVarInt(frame);
+                    String value = readString(frame);
+                    if (id != dictionary.size()) {
+                        throw new IOException("Unexpected dictionary id " + id + " in " + segmentName);
+                    }
+                    dictionary.add(value);
+                } else if (type == EvaluationAuditService.EVALUATION_RECORD) {
+                    writeEvaluation(segmentName, frame, dictionary, generator);
+                    evaluations++;
+                }
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            log.warn("Stopped reading " + segmentName + " at a corrupt record", e);
+        }
+        return evaluations;
+    }
+
+    /**
+     * Method to write one evaluation record as a JSON line
+     * @param segmentName
+     * @param frame The payload of the record
+     * @param dictionary
+     * @param generator
+     * @throws IOException If the output can not be written.
+     */
+    private void writeEvaluation(String segmentName, ByteBuffer frame, List<String> dictionary, JsonGenerator generator) throws IOException {
+        long timestamp = frame.getLong();
+        String modelHash = dictionary.get(readVarInt(frame));
+        String decisionKey = dictionary.get(readVarInt(frame));
+        generator.writeStartObject();
+        generator.writeStringField("segment", segmentName);
+        generator.writeNumberField("timestamp", timestamp);
+        generator.writeStringField("modelHash", modelHash);
+        generator.writeStringField("decision", decisionKey);
+        generator.writeObjectFieldStart("inputs");
+        int inputCount = readVarInt(frame);
+        for (int i = 0; i < inputCount; i++) {
+            String name = dictionary.get(readVarInt(frame));
+            String type = dictionary.get(readVarInt(frame));
+            generator.writeObjectFieldStart(name);
+            generator.writeStringField("type", type);
+            generator.writeStringField("value", readString(frame));
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+        generator.writeArrayFieldStart("matchedRules");
+        int matchCount = readVarInt(frame);
+        for (int i = 0; i < matchCount; i++) {
+            generator.writeStartObject();
+            generator.writeStringField("decision", dictionary.get(readVarInt(frame)));
+            generator.writeStringField("ruleId", dictionary.get(readVarInt(frame)));
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        String outputs = readString(frame);
+        generator.writeFieldName("outputs");
+        if (outputs == null) {
+            generator.writeNull();
+        } else {
+            generator.writeRawValue(outputs);
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = readVarInt(buffer) - 1;
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,476 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.log4j.Logger;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionTableEvaluationEvent;
+import org.camunda.bpm.dmn.engine.delegate.DmnEvaluatedDecisionRule;
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.engine.variable.value.TypedValue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service class which writes every evaluation into an append-only binary audit log
+ * Request threads only put a record into a bounded queue, a single background thread encodes the records
+ * and appends them to memory-mapped segment files of a fixed size; a full segment is closed and a new one is started
+ * Model hashes, decision keys, rule ids, variable names and types are written once per segment as dictionary records
+ * and referenced by number afterwards, so a segment can be read on its own
+ * If the queue is full, the record is dropped and counted instead of blocking the request
+ *
+ * Segment layout: "DMNAUDIT", int format version, then records of [int length][byte type][payload] until a length of 0
+ * Dictionary payload: varint id, string
+ * Evaluation payload: long timestamp, varint model, varint decision, varint input count,
+ * inputs as [varint name, varint type, string value], varint match count, matches as [varint decision, varint rule],
+ * string outputs
+ * Strings are written as varint (byte length + 1) and UTF-8 bytes, a length of 0 means null
+ */
+@Service
+public class EvaluationAuditService {
+
+    private static Logger log = Logger.getLogger(EvaluationAuditService.class);
+
+    static final byte[] MAGIC = "DMNAUDIT".getBytes(StandardCharsets.US_ASCII);
+
+    static final int FORMAT_VERSION = 1;
+
+    static final byte DICTIONARY_RECORD = 1;
+
+    static final byte EVALUATION_RECORD = 2;
+
+    static final String SEGMENT_PREFIX = "audit-";
+
+    static final String SEGMENT_EXTENSION = ".seg";
+
+    private static final int MAX_BATCH = 1024;
+
+    @Value("${dmnsimulator.audit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${dmnsimulator.audit.directory:audit}")
+    private String auditDirectory;
+
+    @Value("${dmnsimulator.audit.segment-size-mb:64}")
+    private int segmentSizeMb;
+
+    @Value("${dmnsimulator.audit.queue-capacity:65536}")
+    private int queueCapacity;
+
+    @Value("${dmnsimulator.audit.force-interval-millis:1000}")
+    private long forceIntervalMillis;
+
+    private final AtomicLong recordsWritten = new AtomicLong();
+
+    private final AtomicLong recordsDropped = new AtomicLong();
+
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    private final AtomicLong segmentsStarted = new AtomicLong();
+
+    private BlockingQueue<AuditRecord> queue;
+
+    private Thread writerThread;
+
+    private volatile boolean running;
+
+    private Path directory;
+
+    // The fields below are only used by the writer thread
+    private int segmentNumber;
+
+    private MappedByteBuffer segment;
+
+    private final Map<String, Integer> dictionary = new HashMap<>();
+
+    private ByteBuffer scratch = ByteBuffer.allocate(64 * 1024);
+
+    private volatile String currentSegment;
+
+    /**
+     * Method to create the audit directory and start the writer thread
+     * Nothing is done if auditing is disabled
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            directory = Paths.get(auditDirectory).toAbsolutePath();
+            Files.createDirectories(directory);
+            for (Path existingSegment : listSegments(directory)) {
+                segmentNumber = Math.max(segmentNumber, getSegmentNumber(existingSegment));
+            }
+        } catch (IOException e) {
+            log.error("Could not open audit directory " + auditDirectory + ", auditing is disabled", e);
+            enabled = false;
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writerThread = new Thread(this::writeRecords, "dmn-audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("Writing evaluation audit log to " + directory);
+    }
+
+    /**
+     * Method to stop the writer thread after the queued records are written
+     */
+    @PreDestroy
+    public void stop() {
+        if (writerThread == null) {
+            return;
+        }
+        running = false;
+        try {
+            writerThread.join(10000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Method to check if evaluations are audited
+     * @return true if auditing is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Method to get the directory of the segment files
+     * @return The audit directory
+     */
+    public Path getDirectory() {
+        return directory != null ? directory : Paths.get(auditDirectory).toAbsolutePath();
+    }
+
+    /**
+     * Method to queue an evaluation for the audit log
+     * The matched rules are copied from the events right away, everything else is encoded by the writer thread,
+     * so the variables must not be changed after this call
+     * @param modelHash The hash of the evaluated model
+     * @param decisionKey The key of the evaluated decision
+     * @param variables The input variables of the evaluation
+     * @param evaluationEvents The decision table events of the evaluation
+     * @param outputs The result list of the decision as JSON
+     */
+    public void record(String modelHash, String decisionKey, VariableMap variables,
+                       List<DmnDecisionTableEvaluationEvent> evaluationEvents, String outputs) {
+        if (!enabled) {
+            return;
+        }
+        List<String> matchedRules = new ArrayList<>();
+        for (DmnDecisionTableEvaluationEvent evaluationEvent : evaluationEvents) {
+            for (DmnEvaluatedDecisionRule matchedRule : evaluationEvent.getMatchingRules()) {
+                matchedRules.add(evaluationEvent.getDecision().getKey());
+                matchedRules.add(matchedRule.getId());
+            }
+        }
+        AuditRecord auditRecord = new AuditRecord(System.currentTimeMillis(), modelHash, decisionKey, variables, matchedRules, outputs);
+        if (!queue.offer(auditRecord)) {
+            recordsDropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Method to get the counters of the audit log
+     * @return Map with the written and dropped records, the queue size and the current segment
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", enabled);
+        statistics.put("directory", getDirectory().toString());
+        statistics.put("recordsWritten", recordsWritten.get());
+        statistics.put("recordsDropped", recordsDropped.get());
+        statistics.put("bytesWritten", bytesWritten.get());
+        statistics.put("queued", queue == null ? 0 : queue.size());
+        statistics.put("segmentsStarted", segmentsStarted.get());
+        statistics.put("currentSegment", currentSegment);
+        return statistics;
+    }
+
+    /**
+     * Method of the writer thread which takes the queued records in batches and appends them to the current segment
+     * The segment is forced to disk every forceIntervalMillis and when the writer stops
+     */
+    private void writeRecords() {
+        List<AuditRecord> batch = new ArrayList<>(MAX_BATCH);
+        long lastForce = System.currentTimeMillis();
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditRecord auditRecord = queue.poll(forceIntervalMillis, TimeUnit.MILLISECONDS);
+                if (auditRecord != null) {
+                    batch.add(auditRecord);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                    for (AuditRecord queuedRecord : batch) {
+                        try {
+                            write(queuedRecord);
+                        } catch (Exception e) {
+                            recordsDropped.incrementAndGet();
+                            log.error("Could not write evaluation audit record", e);
+                        }
+                    }
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (segment != null && System.currentTimeMillis() - lastForce >= forceIntervalMillis) {
+                segment.force();
+                lastForce = System.currentTimeMillis();
+            }
+        }
+        closeSegment();
+    }
+
+    /**
+     * Method to encode one record with its new dictionary entries and append it to the current segment
+     * If it does not fit, a new segment is started and the record is encoded again, because the dictionary starts over
+     * A record which does not fit into an empty segment either is dropped, and its strings are removed from the dictionary again
+     * @param auditRecord
+     * @throws IOException If a new segment can not be created.
+     */
+    private void write(AuditRecord auditRecord) throws IOException {
+        if (segment == null) {
+            openSegment();
+        }
+        List<String> newEntries = new ArrayList<>();
+        int firstFrameLength = encode(auditRecord, newEntries);
+        if (scratch.position() > segment.remaining()) {
+            openSegment();
+            firstFrameLength = encode(auditRecord, newEntries);
+            if (scratch.position() > segment.remaining()) {
+                // no dictionary record was written, so the next records must not reference these ids
+                for (String entry : newEntries) {
+                    dictionary.remove(entry);
+                }
+                recordsDropped.incrementAndGet();
+                log.warn("Audit record of " + scratch.position() + " bytes does not fit into a segment");
+                return;
+            }
+        }
+        // the first length is written last, so a reader of the live segment never sees a partial record
+        int position = segment.position();
+        scratch.flip();
+        scratch.putInt(0, 0);
+        segment.put(scratch);
+        segment.putInt(position, firstFrameLength);
+        recordsWritten.incrementAndGet();
+        bytesWritten.addAndGet(scratch.limit());
+    }
+
+    /**
+     * Method to encode the dictionary records of the new strings of a record followed by the evaluation record
+     * The scratch buffer is doubled until everything fits
+     * @param auditRecord
+     * @param newEntries Filled with the strings added to the dictionary by this record
+     * @return The length of the first frame
+     */
+    private int encode(AuditRecord auditRecord, List<String> newEntries) {
+        newEntries.clear();
+        while (true) {
+            try {
+                return encodeFrames(auditRecord, newEntries);
+            } catch (BufferOverflowException e) {
+                for (String entry : newEntries) {
+                    dictionary.remove(entry);
+                }
+                newEntries.clear();
+                scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+            }
+        }
+    }
+
+    private int encodeFrames(AuditRecord auditRecord, List<String> newEntries) {
+        scratch.clear();
+        int modelId = intern(auditRecord.modelHash, newEntries);
+        int decisionId = intern(auditRecord.decisionKey, newEntries);
+        List<String> inputNames = new ArrayList<>(auditRecord.variables.keySet());
+        int[] inputIds = new int[inputNames.size() * 2];
+        for (int i = 0; i < inputNames.size(); i++) {
+            TypedValue typedValue = auditRecord.variables.getValueTyped(inputNames.get(i));
+            inputIds[i * 2] = intern(inputNames.get(i), newEntries);
+            inputIds[i * 2 + 1] = intern(typedValue.getType() == null ? "untyped" : typedValue.getType().getName(), newEntries);
+        }
+        int[] ruleIds = new int[auditRecord.matchedRules.size()];
+        for (int i = 0; i < ruleIds.length; i++) {
+            ruleIds[i] = intern(auditRecord.matchedRules.get(i), newEntries);
+        }
+
+        int firstFrameLength = -1;
+        for (String entry : newEntries) {
+            int frameStart = beginFrame(DICTIONARY_RECORD);
+            writeVarInt(dictionary.get(entry));
+            writeString(entry);
+            int frameLength = endFrame(frameStart);
+            firstFrameLength = firstFrameLength < 0 ? frameLength : firstFrameLength;
+        }
+        int frameStart = beginFrame(EVALUATION_RECORD);
+        scratch.putLong(auditRecord.timestamp);
+        writeVarInt(modelId);
+        writeVarInt(decisionId);
+        writeVarInt(inputNames.size());
+        for (int i = 0; i < inputNames.size(); i++) {
+            writeVarInt(inputIds[i * 2]);
+            writeVarInt(inputIds[i * 2 + 1]);
+            Object value = auditRecord.variables.getValueTyped(inputNames.get(i)).getValue();
+            writeString(value == null ? null : String.valueOf(value));
+        }
+        writeVarInt(ruleIds.length / 2);
+        for (int ruleId : ruleIds) {
+            writeVarInt(ruleId);
+        }
+        writeString(auditRecord.outputs);
+        int frameLength = endFrame(frameStart);
+        return firstFrameLength < 0 ? frameLength : firstFrameLength;
+    }
+
+    /**
+     * Method to get the dictionary id of a string in the current segment, a new string gets the next id
+     * @param value
+     * @param newEntries The list the new strings are added to
+     * @return The dictionary id
+     */
+    private int intern(String value, List<String> newEntries) {
+        String key = value == null ? "" : value;
+        Integer id = dictionary.get(key);
+        if (id == null) {
+            id = dictionary.size();
+            dictionary.put(key, id);
+            newEntries.add(key);
+        }
+        return id;
+    }
+
+    private int beginFrame(byte type) {
+        int frameStart = scratch.position();
+        scratch.putInt(0);
+        scratch.put(type);
+        return frameStart;
+    }
+
+    private int endFrame(int frameStart) {
+        int frameLength = scratch.position() - frameStart - 4;
+        scratch.putInt(frameStart, frameLength);
+        return frameLength;
+    }
+
+    private void writeVarInt(int value) {
+        while ((value & ~0x7F) != 0) {
+            scratch.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        scratch.put((byte) value);
+    }
+
+    private void writeString(String value) {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length + 1);
+        scratch.put(bytes);
+    }
+
+    /**
+     * Method to close the current segment and map the next segment file
+     * @throws IOException If the segment file can not be created.
+     */
+    private void openSegment() throws IOException {
+        closeSegment();
+        segmentNumber++;
+        Path segmentFile = directory.resolve(getSegmentFileName(segmentNumber));
+        try (RandomAccessFile file = new RandomAccessFile(segmentFile.toFile(), "rw")) {
+            segment = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSizeMb * 1024L * 1024L);
+        }
+        segment.put(MAGIC);
+        segment.putInt(FORMAT_VERSION);
+        dictionary.clear();
+        segmentsStarted.incrementAndGet();
+        currentSegment = segmentFile.getFileName().toString();
+    }
+
+    /**
+     * Method to force the current segment to disk
+     * The file is already closed, the mapping itself is released by the garbage collector
+     */
+    private void closeSegment() {
+        if (segment != null) {
+            segment.force();
+            segment = null;
+        }
+    }
+
+    /**
+     * Method to list the segment files of a directory in write order
+     * @param directory
+     * @return Sorted list of segment files
+     * @throws IOException If the directory can not be read.
+     */
+    static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> segmentFiles = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_EXTENSION)) {
+            for (Path segmentFile : segmentFiles) {
+                segments.add(segmentFile);
+            }
+        }
+        segments.sort(Comparator.comparingInt(EvaluationAuditService::getSegmentNumber));
+        return segments;
+    }
+
+    static String getSegmentFileName(int segmentNumber) {
+        return String.format("%s%08d%s", SEGMENT_PREFIX, segmentNumber, SEGMENT_EXTENSION);
+    }
+
+    private static int getSegmentNumber(Path segmentFile) {
+        String fileName = segmentFile.getFileName().toString();
+        try {
+            return Integer.parseInt(fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_EXTENSION.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * One queued evaluation
+     */
+    private static class AuditRecord {
+        private final long timestamp;
+        private final String modelHash;
+        private final String decisionKey;
+        private final VariableMap variables;
+        private final List<String> matchedRules;
+        private final String outputs;
+
+        private AuditRecord(long timestamp, String modelHash, String decisionKey, VariableMap variables,
+                            List<String> matchedRules, String outputs) {
+            this.timestamp = timestamp;
+            this.modelHash = modelHash;
+            this.decisionKey = decisionKey;
+            this.variables = variables;
+            this.matchedRules = matchedRules;
+            this.outputs = outputs;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import java.util.*;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnDecisionResult;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionLogicEvaluationEvent;
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.charter.obo.orion.dmnsimulator.engine.VariableDependencies;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service class which keeps the evaluations of incremental requests, so they can be evaluated again with changed variables
+ * A handle holds the parsed decisions, the variables and the result and event of every evaluated decision
+ * At most max-handles handles are kept, the least recently used is dropped first, and a handle expires after handle-ttl-seconds
+ * without use
+ */
+@Service
+public class EvaluationHandleService {
+
+    @Value("${dmnsimulator.incremental.max-handles:1000}")
+    private int maxHandles;
+
+    @Value("${dmnsimulator.incremental.handle-ttl-seconds:900}")
+    private long handleTtlSeconds;
+
+    private final VariableDependencies variableDependencies = new VariableDependencies();
+
+    // access ordered, so the first entry is the least recently used handle
+    private final LinkedHashMap<String, EvaluationHandle> handles = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Method to keep an evaluation
+     * @param handle
+     * @return The id of the handle
+     */
+    public String put(EvaluationHandle handle) {
+        String id = UUID.randomUUID().toString();
+        synchronized (handles) {
+            handles.put(id, handle);
+            Iterator<EvaluationHandle> iterator = handles.values().iterator();
+            while (handles.size() > maxHandles && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Method to get a kept evaluation
+     * @param id
+     * @return The handle, or null if it is unknown or expired
+     */
+    public EvaluationHandle get(String id) {
+        if (id == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (handles) {
+            EvaluationHandle handle = handles.get(id);
+            if (handle == null) {
+                return null;
+            }
+            if (now - handle.lastAccessMillis > handleTtlSeconds * 1000L) {
+                handles.remove(id);
+                return null;
+            }
+            handle.lastAccessMillis = now;
+            return handle;
+        }
+    }
+
+    /**
+     * Method to drop a kept evaluation which is not needed anymore
+     * @param id
+     */
+    public void remove(String id) {
+        if (id == null) {
+            return;
+        }
+        synchronized (handles) {
+            handles.remove(id);
+        }
+    }
+
+    /**
+     * @return The variables read by the decisions of all kept evaluations
+     */
+    public VariableDependencies getVariableDependencies() {
+        return variableDependencies;
+    }
+
+    /**
+     * An evaluation which can be evaluated again
+     */
+    public static class EvaluationHandle {
+        private final String modelHash;
+        private final List<DmnDecision> decisions;
+        private final List<DmnDecision> targets;
+        private final VariableMap variables;
+        private final Map<DmnDecision, DmnDecisionResult> results;
+        private final Map<DmnDecision, DmnDecisionLogicEvaluationEvent> events;
+        private volatile long lastAccessMillis = System.currentTimeMillis();
+
+        public EvaluationHandle(String modelHash, List<DmnDecision> decisions, List<DmnDecision> targets, VariableMap variables,
+                                Map<DmnDecision, DmnDecisionResult> results, Map<DmnDecision, DmnDecisionLogicEvaluationEvent> events) {
+            this.modelHash = modelHash;
+            this.decisions = decisions;
+            this.targets = targets;
+            this.variables = variables;
+            this.results = results;
+            this.events = events;
+        }
+
+        public String getModelHash() {
+            return modelHash;
+        }
+
+        /**
+         * @return All decisions of the model
+         */
+        public List<DmnDecision> getDecisions() {
+            return decisions;
+        }
+
+        /**
+         * @return The requested decisions
+         */
+        public List<DmnDecision> getTargets() {
+            return targets;
+        }
+
+        public VariableMap getVariables() {
+            return variables;
+        }
+
+        public Map<DmnDecision, DmnDecisionResult> getResults() {
+            return results;
+        }
+
+        public Map<DmnDecision, DmnDecisionLogicEvaluationEvent> getEvents() {
+            return events;
+        }
+    }
+}
@@ -0,0 +1,428 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import static org.camunda.spin.Spin.JSON;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.log4j.Logger;
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.spin.json.SpinJsonNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Service class for interactive evaluation sessions, e.g. of an editor which evaluates on every keystroke
+ * A session is opened with a model, the decisions and the variables; the model is parsed once and pinned to the session,
+ * so it does not depend on the model cache. Variable and model edits are posted to the session, and the results are
+ * pushed to the subscriber of the session as Server-Sent Events
+ * An edit starts an evaluation after debounce-millis; an edit within that time replaces the waiting evaluation,
+ * so a burst of edits is evaluated once. A running evaluation is not interrupted, but its result is dropped
+ * if a newer edit arrived in the meantime
+ * Variable edits are evaluated incrementally, only the decisions reading a changed variable are evaluated again
+ * A session without edits or subscriptions for idle-timeout-seconds is closed and all its state is released
+ */
+@Service
+public class EvaluationSessionService {
+
+    private static Logger log = Logger.getLogger(EvaluationSessionService.class);
+
+    @Value("${dmnsimulator.session.debounce-millis:50}")
+    private long debounceMillis;
+
+    @Value("${dmnsimulator.session.idle-timeout-seconds:300}")
+    private long idleTimeoutSeconds;
+
+    @Value("${dmnsimulator.session.max-sessions:1000}")
+    private int maxSessions;
+
+    @Value("${dmnsimulator.session.evaluation-threads:2}")
+    private int evaluationThreads;
+
+    @Autowired
+    private DmnModelCacheService dmnModelCacheService;
+    @Autowired
+    private EvaluateDecisionService evaluateDecisionService;
+    @Autowired
+    private EvaluationHandleService evaluationHandleService;
+
+    private final Map<String, EvaluationSession> sessions = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService executor;
+
+    private final AtomicLong evaluations = new AtomicLong();
+    private final AtomicLong supersededEvaluations = new AtomicLong();
+    private final AtomicLong expiredSessions = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newScheduledThreadPool(Math.max(1, evaluationThreads), runnable -> {
+            Thread thread = new Thread(runnable, "dmn-session-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long expiryInterval = Math.max(1L, Math.min(idleTimeoutSeconds, 10L));
+        executor.scheduleWithFixedDelay(this::expireIdleSessions, expiryInterval, expiryInterval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+        for (EvaluationSession session : new ArrayList<>(sessions.values())) {
+            close(session);
+        }
+    }
+
+    /**
+     * Entry Method to open a session
+     * The request body has the same format as for evaluateDecision; the model is parsed and evaluated once right away
+     * @param reqBody
+     * @param tenant The tenant the parsed model is cached for, null for the default tenant
+     * @return The id of the session
+     */
+    public String openSession(String reqBody, String tenant) {
+        if (sessions.size() >= maxSessions) {
+            expireIdleSessions();
+            if (sessions.size() >= maxSessions) {
+                throw new RuntimeException("Too many open sessions, at most " + maxSessions + " are allowed");
+            }
+        }
+        SpinJsonNode requestNode = JSON(reqBody);
+        EvaluationSession session = new EvaluationSession(UUID.randomUUID().toString(), tenant);
+        setModel(session, requestNode);
+        session.variables = requestNode.hasProp("variables") ? requestNode.prop("variables") : JSON("{}");
+        sessions.put(session.id, session);
+        schedule(session);
+        return session.id;
+    }
+
+    /**
+     * Method to subscribe to the results of a session
+     * A session has at most one subscriber, a new subscription completes the previous one
+     * The latest result, if there is one, is sent right away
+     * @param sessionId
+     * @return The event stream, or null if the session is unknown
+     */
+    public SseEmitter subscribe(String sessionId) {
+        EvaluationSession session = touch(sessionId);
+        if (session == null) {
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(idleTimeoutSeconds * 1000L);
+        emitter.onCompletion(() -> removeEmitter(session, emitter));
+        emitter.onTimeout(() -> removeEmitter(session, emitter));
+        emitter.onError(error -> removeEmitter(session, emitter));
+        SseEmitter previousEmitter;
+        String lastResult;
+        long lastGeneration;
+        synchronized (session) {
+            previousEmitter = session.emitter;
+            session.emitter = emitter;
+            lastResult = session.lastResult;
+            lastGeneration = session.lastGeneration;
+        }
+        if (previousEmitter != null) {
+            previousEmitter.complete();
+        }
+        if (lastResult != null) {
+            send(session, emitter, lastGeneration, lastResult);
+        }
+        return emitter;
+    }
+
+    /**
+     * Method to change some variables of a session
+     * The request body has a "variables" block with the changed variables only
+     * @param sessionId
+     * @param reqBody
+     * @return false if the session is unknown
+     */
+    public boolean updateVariables(String sessionId, String reqBody) {
+        EvaluationSession session = touch(sessionId);
+        if (session == null) {
+            return false;
+        }
+        SpinJsonNode requestNode = JSON(reqBody);
+        if (!requestNode.hasProp("variables") || !requestNode.prop("variables").isObject()) {
+            throw new RuntimeException("Request has no variables object");
+        }
+        SpinJsonNode variablesNode = requestNode.prop("variables");
+        synchronized (session) {
+            for (String name : variablesNode.fieldNames()) {
+                session.variables.prop(name, variablesNode.prop(name));
+                session.changedVariables.prop(name, variablesNode.prop(name));
+            }
+        }
+        schedule(session);
+        return true;
+    }
+
+    /**
+     * Method to replace the model of a session
+     * The request body has the new "xml" and optionally a new "decision" or "decisions"; the variables are kept
+     * @param sessionId
+     * @param reqBody
+     * @return false if the session is unknown
+     */
+    public boolean updateModel(String sessionId, String reqBody) {
+        EvaluationSession session = touch(sessionId);
+        if (session == null) {
+            return false;
+        }
+        setModel(session, JSON(reqBody));
+        schedule(session);
+        return true;
+    }
+
+    /**
+     * Method to close a session and release its state
+     * @param sessionId
+     * @return false if the session is unknown
+     */
+    public boolean closeSession(String sessionId) {
+        EvaluationSession session = sessionId == null ? null : sessions.get(sessionId);
+        if (session == null) {
+            return false;
+        }
+        close(session);
+        return true;
+    }
+
+    /**
+     * Method to get the statistics of the sessions
+     * @return Map with the open sessions and the number of evaluations, superseded evaluations and expired sessions
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("sessions", sessions.size());
+        statistics.put("maxSessions", maxSessions);
+        statistics.put("evaluations", evaluations.get());
+        statistics.put("supersededEvaluations", supersededEvaluations.get());
+        statistics.put("expiredSessions", expiredSessions.get());
+        return statistics;
+    }
+
+    /**
+     * Method to parse the model of a request and pin it to the session
+     * @param session
+     * @param requestNode
+     */
+    private void setModel(EvaluationSession session, SpinJsonNode requestNode) {
+        if (!requestNode.hasProp("xml")) {
+            throw new RuntimeException("Request has no xml property");
+        }
+        String xml = requestNode.prop("xml").stringValue();
+        String modelHash = dmnModelCacheService.getModelHash(xml);
+        List<DmnDecision> decisions = dmnModelCacheService.getDecisions(session.tenant, modelHash, xml);
+        synchronized (session) {
+            session.modelHash = modelHash;
+            session.decisions = decisions;
+            if (requestNode.hasProp("decisions")) {
+                session.decisionsNode = requestNode.prop("decisions");
+                session.decisionNode = null;
+            } else if (requestNode.hasProp("decision")) {
+                session.decisionNode = requestNode.prop("decision");
+                session.decisionsNode = null;
+            }
+            session.modelChanged = true;
+        }
+    }
+
+    /**
+     * Method to (re)start the debounce time of the evaluation of a session
+     * A waiting evaluation is cancelled, the new one includes its edits
+     * @param session
+     */
+    private void schedule(EvaluationSession session) {
+        synchronized (session) {
+            if (session.closed) {
+                return;
+            }
+            long generation = ++session.generation;
+            if (session.pendingEvaluation != null && session.pendingEvaluation.cancel(false)) {
+                supersededEvaluations.incrementAndGet();
+            }
+            session.pendingEvaluation = executor.schedule(() -> evaluate(session, generation), debounceMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Method to evaluate the latest state of a session and send the result to its subscriber
+     * Variable edits are evaluated incrementally on the evaluation of the previous result, a new model is evaluated in full
+     * @param session
+     * @param generation The generation of the edit which scheduled the evaluation
+     */
+    private void evaluate(EvaluationSession session, long generation) {
+        synchronized (session.evaluationLock) {
+            String handleId;
+            String modelHash;
+            List<DmnDecision> decisions;
+            SpinJsonNode requestNode = JSON("{}");
+            synchronized (session) {
+                if (session.closed || generation != session.generation) {
+                    return;
+                }
+                handleId = session.handleId;
+                modelHash = session.modelHash;
+                decisions = session.decisions;
+                if (handleId == null || session.modelChanged || evaluationHandleService.get(handleId) == null) {
+                    handleId = null;
+                    requestNode.prop("variables", session.variables);
+                    if (session.decisionsNode != null) {
+                        requestNode.prop("decisions", session.decisionsNode);
+                    } else if (session.decisionNode != null) {
+                        requestNode.prop("decision", session.decisionNode);
+                    }
+                    requestNode.prop("incremental", true);
+                } else {
+                    requestNode.prop("evaluationHandle", handleId);
+                    requestNode.prop("variables", session.changedVariables);
+                }
+                session.changedVariables = JSON("{}");
+                session.modelChanged = false;
+            }
+            String evaluatedHandleId = handleId;
+            SpinJsonNode rootNode = DetachedRequestScope.run(() -> evaluatedHandleId == null
+                    ? evaluateDecisionService.evaluateDecision(requestNode.toString(), modelHash, decisions, false)
+                    : evaluateDecisionService.reevaluateDecision(requestNode.toString(), false));
+            evaluations.incrementAndGet();
+            String newHandleId = rootNode.hasProp("evaluationHandle") ? rootNode.prop("evaluationHandle").stringValue() : null;
+            if (newHandleId != null) {
+                rootNode.deleteProp("evaluationHandle");
+            }
+            SseEmitter emitter;
+            String result = rootNode.toString();
+            synchronized (session) {
+                if (session.closed) {
+                    evaluationHandleService.remove(newHandleId);
+                    return;
+                }
+                if (!Objects.equals(session.handleId, newHandleId)) {
+                    evaluationHandleService.remove(session.handleId);
+                }
+                session.handleId = newHandleId;
+                if (generation != session.generation) {
+                    supersededEvaluations.incrementAndGet();
+                    return;
+                }
+                session.lastResult = result;
+                session.lastGeneration = generation;
+                emitter = session.emitter;
+            }
+            if (emitter != null) {
+                send(session, emitter, generation, result);
+            }
+        }
+    }
+
+    private void send(EvaluationSession session, SseEmitter emitter, long generation, String result) {
+        try {
+            emitter.send(SseEmitter.event().id(Long.toString(generation)).name("result").data(result, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Could not send the result of session " + session.id + ": " + e.getMessage());
+            removeEmitter(session, emitter);
+        }
+    }
+
+    private void removeEmitter(EvaluationSession session, SseEmitter emitter) {
+        synchronized (session) {
+            if (session.emitter == emitter) {
+                session.emitter = null;
+            }
+        }
+    }
+
+    /**
+     * Method to get a session and mark it as used
+     * @param sessionId
+     * @return The session, or null if it is unknown
+     */
+    private EvaluationSession touch(String sessionId) {
+        EvaluationSession session = sessionId == null ? null : sessions.get(sessionId);
+        if (session != null) {
+            session.lastAccessMillis = System.currentTimeMillis();
+        }
+        return session;
+    }
+
+    /**
+     * Method to close the sessions which were not used for idle-timeout-seconds
+     */
+    private void expireIdleSessions() {
+        long oldestAccess = System.currentTimeMillis() - idleTimeoutSeconds * 1000L;
+        for (EvaluationSession session : sessions.values()) {
+            if (session.lastAccessMillis < oldestAccess) {
+                close(session);
+                expiredSessions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Method to close a session: the waiting evaluation is cancelled, the subscriber is completed,
+     * and the model, variables and kept evaluation are released
+     * @param session
+     */
+    private void close(EvaluationSession session) {
+        sessions.remove(session.id);
+        SseEmitter emitter;
+        synchronized (session) {
+            session.closed = true;
+            if (session.pendingEvaluation != null) {
+                session.pendingEvaluation.cancel(false);
+                session.pendingEvaluation = null;
+            }
+            evaluationHandleService.remove(session.handleId);
+            emitter = session.emitter;
+            session.emitter = null;
+            session.handleId = null;
+            session.decisions = null;
+            session.variables = null;
+            session.changedVariables = null;
+            session.lastResult = null;
+        }
+        if (emitter != null) {
+            emitter.complete();
+        }
+    }
+
+    /**
+     * The state of one session, guarded by the session itself
+     */
+    private static class EvaluationSession {
+        private final String id;
+        private final String tenant;
+        // held while the session is evaluated, so the evaluations of a session run one after another
+        private final Object evaluationLock = new Object();
+        private volatile long lastAccessMillis = System.currentTimeMillis();
+        private boolean closed;
+        private String modelHash;
+        private List<DmnDecision> decisions;
+        private SpinJsonNode decisionNode;
+        private SpinJsonNode decisionsNode;
+        private boolean modelChanged;
+        private SpinJsonNode variables;
+        private SpinJsonNode changedVariables = JSON("{}");
+        private String handleId;
+        private long generation;
+        private ScheduledFuture<?> pendingEvaluation;
+        private SseEmitter emitter;
+        private String lastResult;
+        private long lastGeneration;
+
+        private EvaluationSession(String id, String tenant) {
+            this.id = id;
+            this.tenant = tenant;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.camunda.bpm.dmn.engine.impl.DefaultDmnEngineConfiguration;
+import org.charter.obo.orion.dmnsimulator.profiler.ExpressionProfiler;
+import org.charter.obo.orion.dmnsimulator.profiler.ProfilingDmnEngineConfiguration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service class which profiles the expressions of evaluated decisions if profiling is enabled
+ * The engine used to evaluate a request then measures every input expression, input entry, output entry and
+ * literal expression; the profile sums up the invocations and the time per expression over all requests
+ */
+@Service
+public class ExpressionProfilerService {
+
+    @Value("${dmnsimulator.profiler.enabled:false}")
+    private boolean enabled;
+
+    private final ExpressionProfiler expressionProfiler = new ExpressionProfiler();
+
+    /**
+     * Method to check if the expressions of evaluated decisions are profiled
+     * @return true if profiling is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Method to create the configuration of an engine which reports to the profile
+     * @return The engine configuration, not yet built
+     */
+    public DefaultDmnEngineConfiguration createEngineConfiguration() {
+        return new ProfilingDmnEngineConfiguration(expressionProfiler);
+    }
+
+    /**
+     * Method to get the profiled expressions, the most expensive first
+     * @param limit The maximum number of expressions
+     * @return Map with the profiling state and the expressions with their invocations, total and mean time
+     */
+    public Map<String, Object> getProfile(int limit) {
+        List<Map<String, Object>> expressions = expressionProfiler.getProfile(limit);
+        Map<String, Object> profile = new LinkedHashMap<>();
+        profile.put("enabled", enabled);
+        profile.put("expressions", expressions);
+        return profile;
+    }
+
+    /**
+     * Method to clear the profile, e.g. after a model was changed
+     */
+    public void reset() {
+        expressionProfiler.reset();
+    }
+}
@@ -0,0 +1,95 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import static org.camunda.spin.Spin.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import org.camunda.bpm.dmn.engine.*;
+import org.camunda.bpm.dmn.engine.impl.*;
+import org.charter.obo.orion.dmnsimulator.engine.DecisionMetadata;
+import org.charter.obo.orion.dmnsimulator.jfr.SimulatorEvents;
+import org.charter.obo.orion.dmnsimulator.listerners.SimulatorDecisionTableEvaluationListener;
+import org.camunda.spin.json.SpinJsonNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+import static org.camunda.spin.Spin.JSON;
+
+/**
+ * Service class to get the input Expressions of all the inputs from the DMN XML
+ * evaluatedecision method uses input Expresstions to evaluate the decision
+ */
+@Service
+public class InputExpressionsService {
+    @Autowired
+    private SimulatorDecisionTableEvaluationListener evaluationListener;
+    @Autowired
+    private DecisionKeyService decisionKeyService;
+
+    /**
+     * Entry Method to get the decision input expressions from the DMN XML
+     * It uses decision service to find the decision key based on the decision name
+     * It will call parseDecision method to parse the DMN XML based on decisionToEvaluate name
+     * @param reqBody
+     * @return Map of decision input expressions
+     */
+    public  Map<String, Map<String, String>> getDecisionInputExpressions(String reqBody) {
+        SpinJsonNode requestNode = JSON(reqBody);
+        String decisionName = requestNode.hasProp("decision") ? requestNode.prop("decision").stringValue() : null;
+        String decisionToEvaluate ;
+        if (decisionName == null || decisionName.isEmpty()) {
+            decisionToEvaluate = decisionName;
+        } else {
+            decisionToEvaluate = decisionKeyService.getDecisionKey(reqBody, decisionName);
+        }
+        DmnEngine dmnEngine = buildDecisionEngine();
+        InputStream inputStream = new ByteArrayInputStream(requestNode.prop("xml").stringValue().getBytes(StandardCharsets.UTF_8));
+        Map<String, Map<String, String>> decisionInputExpressions = parseDecision(decisionToEvaluate, dmnEngine, inputStream);
+        return decisionInputExpressions;
+    }
+
+    /**
+     * Method to get the input expressions from already parsed decisions, e.g. of the file repository
+     * @param decisions All decisions of the model
+     * @param decisionName The decision, null or empty for all decisions
+     * @return Map of decision input expressions
+     */
+    public Map<String, Map<String, String>> getDecisionInputExpressions(List<DmnDecision> decisions, String decisionName) {
+        return DecisionMetadata.getInputExpressions(decisionKeyService.selectDecisions(decisions, decisionName));
+    }
+
+    /**
+     * Method to parse the decision, or all decisions if none is given, and get the input expressions
+     * @param decisionToEvaluate
+     * @param dmnEngine
+     * @param inputStream
+     * @return
+     */
+    private  Map<String, Map<String, String>> parseDecision(String decisionToEvaluate, DmnEngine dmnEngine, InputStream inputStream) {
+        List<DmnDecision> decisions;
+        if (decisionToEvaluate != null && !decisionToEvaluate.trim().equals("")) {
+            decisions = Collections.singletonList(SimulatorEvents.parseDecision(dmnEngine, decisionToEvaluate, inputStream, "InputExpressionsService"));
+        } else {
+            decisions = SimulatorEvents.parseDecisions(dmnEngine, inputStream, "InputExpressionsService");
+        }
+        return DecisionMetadata.getInputExpressions(decisions);
+    }
+
+    /**
+     * Method to build the decision engine
+     * @return
+     */
+    private DmnEngine buildDecisionEngine() {
+        DefaultDmnEngineConfiguration engineConfiguration = (DefaultDmnEngineConfiguration) DmnEngineConfiguration
+                .createDefaultDmnEngineConfiguration();
+        engineConfiguration.getCustomPostDecisionTableEvaluationListeners().add(evaluationListener);
+        engineConfiguration.setDefaultOutputEntryExpressionLanguage("feel");
+        DmnEngine dmnEngine = engineConfiguration.buildEngine();
+        return dmnEngine;
+    }
+}
@@ -0,0 +1,103 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import static org.camunda.spin.Spin.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import org.camunda.bpm.dmn.engine.*;
+import org.camunda.bpm.dmn.engine.impl.*;
+import org.charter.obo.orion.dmnsimulator.engine.DecisionMetadata;
+import org.charter.obo.orion.dmnsimulator.jfr.SimulatorEvents;
+import org.charter.obo.orion.dmnsimulator.listerners.SimulatorDecisionTableEvaluationListener;
+import org.camunda.spin.json.SpinJsonNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+import static org.camunda.spin.Spin.JSON;
+
+/**
+ * Service class which has business logic to get the input names from the DMN XML
+ */
+@Service
+public class InputNamesService {
+
+    @Autowired
+    private SimulatorDecisionTableEvaluationListener evaluationListener;
+
+    @Autowired
+    private DecisionKeyService decisionKeyService;
+
+    @Autowired
+    private LiteralExpressionsService literalExpressionsService;
+
+    /**
+     * Entry Method to get the input names from the DMN XML
+     * It uses decision service to find the decision key based on the decision name
+     * It will call parseDecision method to parse the DMN XML based on decision to evaluate name
+     * @param reqBody
+     * @return
+     */
+    public  Map<String, Map<String, String>> getDecisionInputs(String reqBody) {
+        SpinJsonNode requestNode = JSON(reqBody);
+        String decisionName = requestNode.hasProp("decision") ? requestNode.prop("decision").stringValue() : null;
+        String decisionToEvaluate ;
+        if (decisionName == null || decisionName.isEmpty()) {
+            decisionToEvaluate = decisionName;
+        } else {
+            decisionToEvaluate = decisionKeyService.getDecisionKey(reqBody, decisionName);
+        }
+        DmnEngine dmnEngine = buildDecisionEngine();
+        InputStream inputStream = new ByteArrayInputStream(requestNode.prop("xml").stringValue().getBytes(StandardCharsets.UTF_8));
+        List<String> variableNames = literalExpressionsService.getVariableNames(reqBody);
+        Map<String, Map<String, String>> decisionInputs = parseDecision(decisionToEvaluate, dmnEngine, inputStream, variableNames);
+
+        return decisionInputs;
+    }
+
+    /**
+     * Method to get the input names from already parsed decisions, e.g. of the file repository
+     * @param decisions All decisions of the model
+     * @param decisionName The decision, null or empty for all decisions
+     * @return
+     */
+    public Map<String, Map<String, String>> getDecisionInputs(List<DmnDecision> decisions, String decisionName) {
+        List<String> variableNames = DecisionMetadata.getLiteralExpressionVariables(decisions);
+        return DecisionMetadata.getInputs(decisionKeyService.selectDecisions(decisions, decisionName), variableNames);
+    }
+
+    /**
+     * Method to parse the decision, or all decisions if none is given, and get the input names
+     * @param decisionToEvaluate
+     * @param dmnEngine
+     * @param inputStream
+     * @param variableNames The variable names of the literal expressions, inputs reading them are left out
+     * @return
+     */
+    private  Map<String, Map<String, String>> parseDecision(String decisionToEvaluate, DmnEngine dmnEngine, InputStream inputStream, List<String> variableNames) {
+        List<DmnDecision> decisions;
+        if (decisionToEvaluate != null && !decisionToEvaluate.trim().equals("")) {
+            decisions = Collections.singletonList(SimulatorEvents.parseDecision(dmnEngine, decisionToEvaluate, inputStream, "InputNamesService"));
+        } else {
+            decisions = SimulatorEvents.parseDecisions(dmnEngine, inputStream, "InputNamesService");
+        }
+        return DecisionMetadata.getInputs(decisions, variableNames);
+    }
+
+    /**
+     * Method to build the DMN Engine
+     * @return DMN Engine
+     */
+    private DmnEngine buildDecisionEngine() {
+        DefaultDmnEngineConfiguration engineConfiguration = (DefaultDmnEngineConfiguration) DmnEngineConfiguration
+                .createDefaultDmnEngineConfiguration();
+        engineConfiguration.getCustomPostDecisionTableEvaluationListeners().add(evaluationListener);
+        engineConfiguration.setDefaultOutputEntryExpressionLanguage("feel");
+        DmnEngine dmnEngine = engineConfiguration.buildEngine();
+        return dmnEngine;
+    }
+}
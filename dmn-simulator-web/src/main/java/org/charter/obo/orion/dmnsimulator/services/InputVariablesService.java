@@ -0,0 +1,95 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import static org.camunda.spin.Spin.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import org.camunda.bpm.dmn.engine.*;
+import org.camunda.bpm.dmn.engine.impl.*;
+import org.charter.obo.orion.dmnsimulator.engine.DecisionMetadata;
+import org.charter.obo.orion.dmnsimulator.jfr.SimulatorEvents;
+import org.charter.obo.orion.dmnsimulator.listerners.SimulatorDecisionTableEvaluationListener;
+import org.camunda.spin.json.SpinJsonNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+import static org.camunda.spin.Spin.JSON;
+
+/**
+ * Service class to get the input variables of all the inputs from the DMN XML
+ * evaluatedecision method uses input variables to evaluate the decision
+ */
+@Service
+public class InputVariablesService {
+    @Autowired
+    private SimulatorDecisionTableEvaluationListener evaluationListener;
+    @Autowired
+    private DecisionKeyService decisionKeyService;
+
+    /**
+     * Entry Method to get the decision variables from the DMN XML
+     * It uses decision service to find the decision key based on the decision name
+     * It will call parseDecision method to parse the DMN XML based on decision to evaluate name
+     * @param reqBody
+     * @return Map of decision variables
+     */
+    public  Map<String, Map<String, String>> getDecisionVariables(String reqBody) {
+        SpinJsonNode requestNode = JSON(reqBody);
+        String decisionName = requestNode.hasProp("decision") ? requestNode.prop("decision").stringValue() : null;
+        String decisionToEvaluate ;
+        if (decisionName == null || decisionName.isEmpty()) {
+            decisionToEvaluate = decisionName;
+        } else {
+            decisionToEvaluate = decisionKeyService.getDecisionKey(reqBody, decisionName);
+        }
+        DmnEngine dmnEngine = buildDecisionEngine();
+        InputStream inputStream = new ByteArrayInputStream(requestNode.prop("xml").stringValue().getBytes(StandardCharsets.UTF_8));
+        Map<String, Map<String, String>> decisionInputVariables = parseDecision(decisionToEvaluate, dmnEngine, inputStream);
+        return decisionInputVariables;
+    }
+
+    /**
+     * Method to get the input variables from already parsed decisions, e.g. of the file repository
+     * @param decisions All decisions of the model
+     * @param decisionName The decision, null or empty for all decisions
+     * @return Map of decision variables
+     */
+    public Map<String, Map<String, String>> getDecisionVariables(List<DmnDecision> decisions, String decisionName) {
+        return DecisionMetadata.getInputVariables(decisionKeyService.selectDecisions(decisions, decisionName));
+    }
+
+    /**
+     * Method to parse the decision, or all decisions if none is given, and get the input variables
+     * @param decisionToEvaluate
+     * @param dmnEngine
+     * @param inputStream
+     * @return
+     */
+    private  Map<String, Map<String, String>> parseDecision(String decisionToEvaluate, DmnEngine dmnEngine, InputStream inputStream) {
+        List<DmnDecision> decisions;
+        if (decisionToEvaluate != null && !decisionToEvaluate.trim().equals("")) {
+            decisions = Collections.singletonList(SimulatorEvents.parseDecision(dmnEngine, decisionToEvaluate, inputStream, "InputVariablesService"));
+        } else {
+            decisions = SimulatorEvents.parseDecisions(dmnEngine, inputStream, "InputVariablesService");
+        }
+        return DecisionMetadata.getInputVariables(decisions);
+    }
+
+    /**
+     * Method to build the decision engine
+     * @return
+     */
+    private DmnEngine buildDecisionEngine() {
+        DefaultDmnEngineConfiguration engineConfiguration = (DefaultDmnEngineConfiguration) DmnEngineConfiguration
+                .createDefaultDmnEngineConfiguration();
+        engineConfiguration.getCustomPostDecisionTableEvaluationListeners().add(evaluationListener);
+        engineConfiguration.setDefaultOutputEntryExpressionLanguage("feel");
+        DmnEngine dmnEngine = engineConfiguration.buildEngine();
+        return dmnEngine;
+    }
+}
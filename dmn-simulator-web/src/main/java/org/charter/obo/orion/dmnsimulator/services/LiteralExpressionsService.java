@@ -0,0 +1,67 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import static org.camunda.spin.Spin.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import org.camunda.bpm.dmn.engine.*;
+import org.camunda.bpm.dmn.engine.impl.*;
+import org.charter.obo.orion.dmnsimulator.engine.DecisionMetadata;
+import org.charter.obo.orion.dmnsimulator.jfr.SimulatorEvents;
+import org.charter.obo.orion.dmnsimulator.listerners.SimulatorDecisionTableEvaluationListener;
+import org.camunda.spin.json.SpinJsonNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+import static org.camunda.spin.Spin.JSON;
+
+/**
+ * Service class to get the outputs variables Names of all Dmn Literal Expressions from the DMN XML
+ */
+@Service
+public class LiteralExpressionsService {
+    @Autowired
+    private SimulatorDecisionTableEvaluationListener evaluationListener;
+
+    /**
+     * Entry Method to get the decision names from the DMN XML
+     * @param reqBody
+     * @return List of decision names
+     */
+    public List<String> getVariableNames(String reqBody) {
+        SpinJsonNode requestNode = JSON(reqBody);
+        DmnEngine dmnEngine = buildDecisionEngine();
+        InputStream inputStream = new ByteArrayInputStream(requestNode.prop("xml").stringValue().getBytes(StandardCharsets.UTF_8));
+        List<String> decisionNames = parseDecision(dmnEngine, inputStream);
+        return decisionNames;
+    }
+
+    /**
+     * Method to parse the decisions from the DMN XML and get the variable names of the literal expressions
+     * @param dmnEngine
+     * @param inputStream
+     * @return List of variable names
+     */
+    private   List<String> parseDecision(DmnEngine dmnEngine, InputStream inputStream) {
+        List<DmnDecision> decisions = SimulatorEvents.parseDecisions(dmnEngine, inputStream, "LiteralExpressionsService");
+        return DecisionMetadata.getLiteralExpressionVariables(decisions);
+    }
+
+    /**
+     * Method to build the DMN Engine
+     * @return DMN Engine
+     */
+    private DmnEngine buildDecisionEngine() {
+        DefaultDmnEngineConfiguration engineConfiguration = (DefaultDmnEngineConfiguration) DmnEngineConfiguration
+                .createDefaultDmnEngineConfiguration();
+        engineConfiguration.getCustomPostDecisionTableEvaluationListeners().add(evaluationListener);
+        engineConfiguration.setDefaultOutputEntryExpressionLanguage("feel");
+        DmnEngine dmnEngine = engineConfiguration.buildEngine();
+        return dmnEngine;
+    }
+}
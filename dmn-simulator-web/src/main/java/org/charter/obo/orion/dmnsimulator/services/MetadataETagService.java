@@ -0,0 +1,123 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+import org.camunda.spin.json.SpinJsonNode;
+import org.charter.obo.orion.dmnsimulator.configurations.BinaryFormats;
+import org.charter.obo.orion.dmnsimulator.engine.DmnModelCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service class which answers conditional requests of the metadata endpoints
+ * The input names, output names, decision names and details only depend on the DMN XML and the decision,
+ * and the format negotiated from the Accept header, so the strong ETag is a hash of the endpoint, the model hash,
+ * the decision and the media type of the response; the responses vary by Accept, which they tell caches with Vary
+ * A request whose If-None-Match has the ETag gets 304 without a body and without parsing the model;
+ * for a POST the XML is extracted byte by byte like an evaluateDecision body and hashed, for the repository endpoints
+ * the hash of the loaded file is used
+ */
+@Service
+public class MetadataETagService {
+
+    @Autowired
+    private StreamingRequestService streamingRequestService;
+
+    @Value("${dmnsimulator.metadata.cache-control:no-cache}")
+    private String cacheControl;
+
+    /**
+     * Method to get the ETag of a metadata request body
+     * @param endpoint The name of the endpoint, e.g. inputNames
+     * @param reqBody The request body with the xml and optionally the decision
+     * @param withDecision false if the response does not depend on the decision of the request
+     * @param accept The Accept header of the request
+     * @return The quoted ETag, or null if the body has no xml
+     */
+    public String getETag(String endpoint, String reqBody, boolean withDecision, String accept) {
+        try {
+            byte[] body = reqBody.getBytes(StandardCharsets.UTF_8);
+            StreamingRequestService.StreamedRequest request = streamingRequestService.readRequest(new ByteArrayInputStream(body), body.length);
+            SpinJsonNode requestNode = request.getRequestNode();
+            String decision = withDecision && requestNode.hasProp("decision") && requestNode.prop("decision").isString()
+                    ? requestNode.prop("decision").stringValue() : null;
+            return getETag(endpoint, request.getModelHash(), decision, accept);
+        } catch (Exception e) {
+            // the endpoint reports the invalid body
+            return null;
+        }
+    }
+
+    /**
+     * Method to get the ETag of a metadata response
+     * @param endpoint The name of the endpoint
+     * @param modelHash The hash of the DMN XML
+     * @param decision The decision name or key of the request, null or empty for all decisions
+     * @param accept The Accept header of the request
+     * @return The quoted ETag
+     */
+    public String getETag(String endpoint, String modelHash, String decision, String accept) {
+        String key = endpoint + "\n" + modelHash + "\n" + (decision == null ? "" : decision) + "\n" + getMediaType(accept);
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        return "\"" + DmnModelCache.getModelHash(bytes, bytes.length) + "\"";
+    }
+
+    /**
+     * Method to get the media type a response is written in, as the BinaryJsonStringHttpMessageConverter negotiates it
+     * @param accept The Accept header of the request
+     * @return The media type of Smile or CBOR, otherwise JSON
+     */
+    static MediaType getMediaType(String accept) {
+        BinaryFormats format = BinaryFormats.forAccept(accept);
+        return format == null ? MediaType.APPLICATION_JSON : format.getMediaType();
+    }
+
+    /**
+     * Method to check if an If-None-Match header matches an ETag
+     * @param ifNoneMatch The header, a list of ETags or *
+     * @param eTag The quoted ETag
+     * @return true if the client has the current response
+     */
+    public boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || eTag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            // If-None-Match uses the weak comparison
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Method to answer a metadata request: 304 if the client has the current response, otherwise the response with its ETag
+     * @param eTag The ETag of the response, null if none could be computed
+     * @param ifNoneMatch The If-None-Match header of the request
+     * @param body Computes the response
+     * @return The response entity
+     */
+    public <T> ResponseEntity<T> respond(String eTag, String ifNoneMatch, Supplier<T> body) {
+        if (matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                    .varyBy(HttpHeaders.ACCEPT).build();
+        }
+        T response = body.get();
+        if (eTag == null) {
+            return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(response);
+        }
+        return ResponseEntity.ok().eTag(eTag).header(HttpHeaders.CACHE_CONTROL, cacheControl).varyBy(HttpHeaders.ACCEPT).body(response);
+    }
+}
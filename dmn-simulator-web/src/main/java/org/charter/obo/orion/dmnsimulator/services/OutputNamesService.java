@@ -8,6 +8,8 @@ import java.util.*;
 
 import org.camunda.bpm.dmn.engine.*;
 import org.camunda.bpm.dmn.engine.impl.*;
+import org.charter.obo.orion.dmnsimulator.engine.DecisionMetadata;
+import org.charter.obo.orion.dmnsimulator.jfr.SimulatorEvents;
 import org.charter.obo.orion.dmnsimulator.listerners.SimulatorDecisionTableEvaluationListener;
 import org.camunda.spin.json.SpinJsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -52,65 +54,30 @@ public class OutputNamesService {
     }
 
     /**
-     * Method to parse the decision and get the output names
-     * it calls getOutputNames method to get the output names
+     * Method to get the output names from already parsed decisions, e.g. of the file repository
+     * @param decisions All decisions of the model
+     * @param decisionName The decision, null or empty for all decisions
+     * @return Map of output names
+     */
+    public Map<String, String> getDecisionOutputs(List<DmnDecision> decisions, String decisionName) {
+        return DecisionMetadata.getOutputs(decisionKeyService.selectDecisions(decisions, decisionName));
+    }
+
+    /**
+     * Method to parse the decision, or all decisions if none is given, and get the output names
      * @param decisionToEvaluate
      * @param dmnEngine
      * @param inputStream
-     * @return List of output names
+     * @return Map of output names
      */
     private    Map<String, String> parseDecision(String decisionToEvaluate, DmnEngine dmnEngine, InputStream inputStream) {
-
-        DmnDecision decision;
-        Map<String, String> outputNames = new HashMap<>();
-        List<String> completedDecisions = new ArrayList<>();
+        List<DmnDecision> decisions;
         if (decisionToEvaluate != null && !decisionToEvaluate.trim().equals("")) {
-            decision = dmnEngine.parseDecision(decisionToEvaluate, inputStream);
-             outputNames = getOutputNames(decision,completedDecisions);
+            decisions = Collections.singletonList(SimulatorEvents.parseDecision(dmnEngine, decisionToEvaluate, inputStream, "OutputNamesService"));
         } else {
-            List<DmnDecision> decisions = dmnEngine.parseDecisions(inputStream);
-            for (DmnDecision dmnDecision : decisions) {
-                outputNames.putAll(getOutputNames(dmnDecision,completedDecisions));
-            }
-        }
-        return outputNames;
-    }
-
-    /**
-     * Method to get the output names from the decision
-     * It will check if the decision is already added to the completedDecisions list
-     * If not, it will add the output names to the names list
-     * If the decision has required decisions, it will add the required decisions output names to the names list
-     * @param decision
-     * @param completedDecisions
-     * @return
-     */
-    public Map<String, String> getOutputNames(DmnDecision decision,List<String> completedDecisions) {
-
-        DmnDecisionLogic decisionLogic = decision.getDecisionLogic();
-        Map<String, String> names = new HashMap<>();
-        if(!completedDecisions.contains(decision.getName())) {
-            if (decisionLogic instanceof DmnDecisionTableImpl) {
-                DmnDecisionTableImpl decisionTable = (DmnDecisionTableImpl) decisionLogic;
-                List<DmnDecisionTableOutputImpl> outputs = decisionTable.getOutputs();
-                for (DmnDecisionTableOutputImpl output : outputs) {
-                    String name = (output.getName() == null) ? "undefined" : output.getName();
-                    String outputName = (output.getOutputName() == null) ? "undefined" : output.getOutputName();
-                    names.put(name,outputName);
-                }
-                completedDecisions.add(decision.getName());
-                Collection<DmnDecision> requiredDecisions = decision.getRequiredDecisions();
-                if(!requiredDecisions.isEmpty()) {
-                    for (DmnDecision requiredDecision : requiredDecisions) {
-                        names.putAll(getOutputNames(requiredDecision,completedDecisions));
-                    }
-                }
-                return names;
-            }
-
+            decisions = SimulatorEvents.parseDecisions(dmnEngine, inputStream, "OutputNamesService");
         }
-        return names;
-
+        return DecisionMetadata.getOutputs(decisions);
     }
 
     /**
@@ -0,0 +1,603 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import static org.camunda.spin.Spin.JSON;
+
+import java.util.*;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnDecisionLogic;
+import org.camunda.bpm.dmn.engine.impl.*;
+import org.camunda.spin.json.SpinJsonNode;
+import org.charter.obo.orion.dmnsimulator.services.UnaryTestsService.Condition;
+import org.charter.obo.orion.dmnsimulator.services.UnaryTestsService.Interval;
+import org.charter.obo.orion.dmnsimulator.services.UnaryTestsService.Key;
+import org.charter.obo.orion.dmnsimulator.services.UnaryTestsService.Kind;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service class which finds overlapping rules and input regions not covered by any rule in decision tables
+ * Instead of comparing every pair of rules, the rules are swept column by column:
+ * numeric columns are sorted by interval bounds, string and boolean columns are bucketed by value,
+ * and only rules which are active together in one column are compared in the next column
+ * A sweep over k rules costs O(k log k); the active rules are kept up to date from bound to bound
+ * and only copied for a region which is analyzed further in the next column
+ * The regions of several columns multiply, so the number of regions analyzed further is limited by max-regions
+ * for the overlaps and for the gaps of a table; a search which reaches the limit is reported as truncated
+ * Input entries which are no simple unary tests are treated as "-" and reported as unanalyzed
+ */
+@Service
+public class RuleAnalysisService {
+
+    private static final String OTHER_VALUES = "other values";
+
+    @Autowired
+    private DmnModelCacheService dmnModelCacheService;
+    @Autowired
+    private DecisionKeyService decisionKeyService;
+    @Autowired
+    private UnaryTestsService unaryTestsService;
+
+    @Value("${dmnsimulator.analysis.max-regions:100000}")
+    private int maxRegions;
+
+    /**
+     * Entry Method to analyze the decision tables of the DMN XML in the request body
+     * If a decision is given, only this decision table is analyzed
+     * @param reqBody
+     * @param maxOverlaps The maximum number of reported overlapping rule pairs per table
+     * @param maxGaps The maximum number of reported gaps per table
+     * @param tenant The tenant the parsed model is cached for, null for the default tenant
+     * @return JSON with the analysis of every decision table
+     */
+    public String analyzeRules(String reqBody, int maxOverlaps, int maxGaps, String tenant) {
+        SpinJsonNode rootNode = JSON("{}");
+        try {
+            SpinJsonNode requestNode = JSON(reqBody);
+            List<DmnDecision> decisions = dmnModelCacheService.getDecisions(tenant, requestNode.prop("xml").stringValue());
+            String decisionName = requestNode.hasProp("decision") ? requestNode.prop("decision").stringValue() : null;
+            if (decisionName != null && !decisionName.isEmpty()) {
+                String decisionKey = decisionKeyService.getDecisionKey(decisions, decisionName);
+                DmnDecision decision = dmnModelCacheService.findDecision(decisionKey, decisions);
+                rootNode.prop(decision.getName(), analyzeDecision(decision, maxOverlaps, maxGaps));
+            } else {
+                for (DmnDecision decision : decisions) {
+                    if (decision.getDecisionLogic() instanceof DmnDecisionTableImpl) {
+                        rootNode.prop(decision.getName(), analyzeDecision(decision, maxOverlaps, maxGaps));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            rootNode.prop("error", e.getMessage());
+        }
+        return rootNode.toString();
+    }
+
+    /**
+     * Method to analyze one decision table
+     * @param decision
+     * @param maxOverlaps
+     * @param maxGaps
+     * @return JSON with hit policy, overlapping rules, gaps and unanalyzed input entries
+     */
+    public SpinJsonNode analyzeDecision(DmnDecision decision, int maxOverlaps, int maxGaps) {
+        long start = System.nanoTime();
+        Analysis analysis = analyze(decision, maxOverlaps, maxGaps);
+        TableModel table = analysis.table;
+        OverlapCollector overlaps = analysis.overlaps;
+        GapCollector gaps = analysis.gaps;
+
+        SpinJsonNode resultNode = JSON("{}");
+        resultNode.prop("hitPolicy", table.hitPolicy);
+        resultNode.prop("rules", table.rules.size());
+        resultNode.prop("overlapCount", overlaps.pairs.size());
+        resultNode.prop("overlapsTruncated", overlaps.truncated);
+        List<Object> overlapNodes = new ArrayList<>();
+        for (long pair : overlaps.pairs) {
+            int first = (int) (pair >>> 32);
+            int second = (int) pair;
+            SpinJsonNode overlapNode = JSON("{}");
+            overlapNode.prop("rules", Arrays.asList(table.rules.get(first).getId(), table.rules.get(second).getId()));
+            overlapNode.prop("rows", Arrays.asList(first + 1, second + 1));
+            overlapNode.prop("sameOutputs", table.haveSameOutputs(first, second));
+            overlapNode.prop("possible", table.hasUnknownEntries[first] || table.hasUnknownEntries[second]);
+            overlapNodes.add(overlapNode);
+        }
+        resultNode.prop("overlaps", overlapNodes);
+        resultNode.prop("gapCount", gaps.gaps.size());
+        resultNode.prop("gapsTruncated", gaps.truncated);
+        List<Object> gapNodes = new ArrayList<>();
+        for (String[] gap : gaps.gaps) {
+            SpinJsonNode gapNode = JSON("{}");
+            for (int column = 0; column < gap.length; column++) {
+                gapNode.prop(table.inputNames.get(column), gap[column] == null ? "-" : gap[column]);
+            }
+            gapNodes.add(gapNode);
+        }
+        resultNode.prop("gaps", gapNodes);
+        resultNode.prop("unanalyzedEntries", new ArrayList<Object>(table.unknownEntries));
+        resultNode.prop("exploredRegions", overlaps.regions + gaps.regions);
+        resultNode.prop("analysisMillis", (System.nanoTime() - start) / 1000000L);
+        return resultNode;
+    }
+
+    /**
+     * Method to find the overlapping rules and the gaps of one decision table
+     * @param decision
+     * @param maxOverlaps
+     * @param maxGaps
+     * @return The analysis
+     */
+    Analysis analyze(DmnDecision decision, int maxOverlaps, int maxGaps) {
+        DmnDecisionLogic decisionLogic = decision.getDecisionLogic();
+        if (!(decisionLogic instanceof DmnDecisionTableImpl)) {
+            throw new RuntimeException("Decision '" + decision.getName() + "' is not a decision table");
+        }
+        TableModel table = new TableModel((DmnDecisionTableImpl) decisionLogic);
+
+        int[] allRules = new int[table.rules.size()];
+        for (int i = 0; i < allRules.length; i++) {
+            allRules[i] = i;
+        }
+        OverlapCollector overlaps = new OverlapCollector(maxOverlaps, maxRegions);
+        findOverlaps(table, 0, allRules, overlaps);
+        GapCollector gaps = new GapCollector(maxGaps, maxRegions);
+        findGaps(table, 0, allRules, new String[table.inputs.size()], gaps);
+        return new Analysis(table, overlaps, gaps);
+    }
+
+    /**
+     * Recursive method to find the pairs of rules which match a common input
+     * The rules which are active together in a column are passed on to the next column,
+     * after the last column every pair of the remaining rules overlaps
+     * @param table
+     * @param position The position in the analysis order of the columns
+     * @param rules The rules which overlap in all columns before
+     * @param overlaps
+     */
+    private void findOverlaps(TableModel table, int position, int[] rules, OverlapCollector overlaps) {
+        if (rules.length < 2 || overlaps.truncated) {
+            return;
+        }
+        if (position == table.columnOrder.length) {
+            overlaps.addAllPairs(rules);
+            return;
+        }
+        ColumnModel column = table.columns[table.columnOrder[position]];
+        if (column.kind == Kind.DISCRETE) {
+            Set<List<Integer>> visited = new HashSet<>();
+            for (List<Integer> active : column.activeByValue(rules).values()) {
+                if (active.size() >= 2 && visited.add(active)) {
+                    if (!overlaps.enterRegion()) {
+                        return;
+                    }
+                    findOverlaps(table, position + 1, toArray(active), overlaps);
+                }
+            }
+        } else {
+            column.sweep(rules, (segment, active, maximal) -> {
+                if (maximal && active.size() >= 2 && overlaps.enterRegion()) {
+                    findOverlaps(table, position + 1, toArray(active), overlaps);
+                }
+                return !overlaps.truncated;
+            });
+        }
+    }
+
+    /**
+     * Recursive method to find the input regions which are not matched by any rule
+     * Every value or interval of a column is passed on with its active rules to the next column,
+     * a value or interval without active rules is a gap, one which has active rules in the last column is covered
+     * @param table
+     * @param position The position in the analysis order of the columns
+     * @param rules The rules which match the region so far
+     * @param region The values or intervals of the columns before, null means "-"
+     * @param gaps
+     */
+    private void findGaps(TableModel table, int position, int[] rules, String[] region, GapCollector gaps) {
+        if (gaps.truncated) {
+            return;
+        }
+        if (rules.length == 0) {
+            gaps.add(region.clone());
+            return;
+        }
+        if (position == table.columnOrder.length) {
+            return;
+        }
+        int columnIndex = table.columnOrder[position];
+        ColumnModel column = table.columns[columnIndex];
+        boolean lastColumn = position + 1 == table.columnOrder.length;
+        if (column.kind == Kind.DISCRETE) {
+            for (Map.Entry<String, List<Integer>> value : column.activeByValue(rules).entrySet()) {
+                if (gaps.truncated) {
+                    break;
+                }
+                if (value.getValue().isEmpty() || !lastColumn) {
+                    region[columnIndex] = value.getKey();
+                    exploreGap(table, position, value.getValue(), region, gaps);
+                }
+            }
+        } else {
+            column.sweep(rules, (segment, active, maximal) -> {
+                if (active.isEmpty() || !lastColumn) {
+                    region[columnIndex] = segment.toString();
+                    exploreGap(table, position, active, region, gaps);
+                }
+                return !gaps.truncated;
+            });
+        }
+        region[columnIndex] = null;
+    }
+
+    /**
+     * Method to report a region of a column without active rules as a gap, or to analyze it further in the next column
+     * @param table
+     * @param position The position of the column in the analysis order
+     * @param active The rules which match the region
+     * @param region
+     * @param gaps
+     */
+    private void exploreGap(TableModel table, int position, Collection<Integer> active, String[] region, GapCollector gaps) {
+        if (active.isEmpty()) {
+            gaps.add(region.clone());
+        } else if (gaps.enterRegion()) {
+            findGaps(table, position + 1, toArray(active), region, gaps);
+        }
+    }
+
+    private static int[] toArray(Collection<Integer> values) {
+        int[] array = new int[values.size()];
+        int i = 0;
+        for (Integer value : values) {
+            array[i++] = value;
+        }
+        return array;
+    }
+
+    /**
+     * The result of the analysis of one decision table
+     */
+    class Analysis {
+        private final TableModel table;
+        private final OverlapCollector overlaps;
+        private final GapCollector gaps;
+
+        private Analysis(TableModel table, OverlapCollector overlaps, GapCollector gaps) {
+            this.table = table;
+            this.overlaps = overlaps;
+            this.gaps = gaps;
+        }
+
+        /**
+         * @return The ids of every pair of overlapping rules
+         */
+        List<List<String>> getOverlaps() {
+            List<List<String>> overlappingRules = new ArrayList<>();
+            for (long pair : overlaps.pairs) {
+                overlappingRules.add(Arrays.asList(table.rules.get((int) (pair >>> 32)).getId(), table.rules.get((int) pair).getId()));
+            }
+            return overlappingRules;
+        }
+
+        /**
+         * @return The gaps, each with the value or interval of every analyzed column, null for "-"
+         */
+        List<String[]> getGaps() {
+            return gaps.gaps;
+        }
+
+        boolean isOverlapsTruncated() {
+            return overlaps.truncated;
+        }
+
+        boolean isGapsTruncated() {
+            return gaps.truncated;
+        }
+
+        /**
+         * @return The number of regions analyzed further in a next column, by the overlap and the gap search
+         */
+        int getExploredRegions() {
+            return overlaps.regions + gaps.regions;
+        }
+    }
+
+    /**
+     * The conditions of all rules of a decision table, read once per analysis
+     */
+    private class TableModel {
+        private final String hitPolicy;
+        private final List<DmnDecisionTableRuleImpl> rules;
+        private final List<DmnDecisionTableInputImpl> inputs;
+        private final List<String> inputNames = new ArrayList<>();
+        private final ColumnModel[] columns;
+        private final int[] columnOrder;
+        private final boolean[] hasUnknownEntries;
+        private final List<String> unknownEntries = new ArrayList<>();
+
+        private TableModel(DmnDecisionTableImpl decisionTable) {
+            hitPolicy = String.valueOf(decisionTable.getHitPolicyHandler().getHitPolicyEntry().getHitPolicy());
+            rules = decisionTable.getRules();
+            inputs = decisionTable.getInputs();
+            hasUnknownEntries = new boolean[rules.size()];
+            columns = new ColumnModel[inputs.size()];
+            for (int column = 0; column < inputs.size(); column++) {
+                DmnDecisionTableInputImpl input = inputs.get(column);
+                String name = (input.getName() == null) ? input.getId() : input.getName();
+                inputNames.add(name);
+                Condition[] conditions = new Condition[rules.size()];
+                for (int rule = 0; rule < rules.size(); rule++) {
+                    Condition condition = unaryTestsService.parse(rules.get(rule).getConditions().get(column).getExpression());
+                    if (condition.getKind() == Kind.UNKNOWN) {
+                        hasUnknownEntries[rule] = true;
+                        unknownEntries.add(rules.get(rule).getId() + " / " + name + ": " + condition.getText());
+                    }
+                    conditions[rule] = condition;
+                }
+                String typeName = input.getExpression().getTypeDefinition() == null ? null : input.getExpression().getTypeDefinition().getTypeName();
+                columns[column] = new ColumnModel(conditions, "boolean".equals(typeName));
+            }
+            // columns with fewer "-" entries split the rules into smaller groups, so they are analyzed first
+            List<Integer> order = new ArrayList<>();
+            for (int column = 0; column < columns.length; column++) {
+                if (columns[column].kind != Kind.ANY) {
+                    order.add(column);
+                }
+            }
+            order.sort(Comparator.comparingInt(column -> columns[column].anyCount));
+            columnOrder = toArray(order);
+        }
+
+        private boolean haveSameOutputs(int first, int second) {
+            List<DmnExpressionImpl> firstConclusions = rules.get(first).getConclusions();
+            List<DmnExpressionImpl> secondConclusions = rules.get(second).getConclusions();
+            for (int i = 0; i < firstConclusions.size(); i++) {
+                if (!Objects.equals(firstConclusions.get(i).getExpression(), secondConclusions.get(i).getExpression())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * The conditions of one input column, either as intervals on the number line or as sets of values
+     * Unknown entries and entries which do not fit the kind of the column are treated as "-"
+     */
+    private static class ColumnModel {
+        private final Kind kind;
+        private final int anyCount;
+        private final List<String> domain = new ArrayList<>();
+        private final boolean quoted;
+        private final List<Set<String>> values;
+        private final boolean[] negated;
+        private final List<List<Interval>> intervals;
+        private final boolean[] any;
+
+        private ColumnModel(Condition[] conditions, boolean booleanType) {
+            int numeric = 0;
+            int discrete = 0;
+            for (Condition condition : conditions) {
+                numeric += condition.getKind() == Kind.NUMERIC ? 1 : 0;
+                discrete += condition.getKind() == Kind.DISCRETE ? 1 : 0;
+            }
+            kind = numeric == 0 && discrete == 0 ? Kind.ANY : (numeric >= discrete ? Kind.NUMERIC : Kind.DISCRETE);
+            any = new boolean[conditions.length];
+            values = new ArrayList<>(Collections.<Set<String>>nCopies(conditions.length, null));
+            negated = new boolean[conditions.length];
+            intervals = new ArrayList<>(Collections.<List<Interval>>nCopies(conditions.length, null));
+            int anyEntries = 0;
+            Set<String> mentionedValues = new TreeSet<>();
+            for (int rule = 0; rule < conditions.length; rule++) {
+                Condition condition = conditions[rule];
+                if (condition.getKind() != kind) {
+                    any[rule] = true;
+                    anyEntries++;
+                } else if (kind == Kind.NUMERIC) {
+                    intervals.set(rule, condition.getIntervals());
+                } else {
+                    values.set(rule, condition.getValues());
+                    negated[rule] = condition.isNegated();
+                    mentionedValues.addAll(condition.getValues());
+                }
+            }
+            anyCount = anyEntries;
+            quoted = !booleanType;
+            if (kind == Kind.DISCRETE) {
+                if (booleanType) {
+                    domain.add("true");
+                    domain.add("false");
+                } else {
+                    for (String value : mentionedValues) {
+                        domain.add("\"" + value + "\"");
+                    }
+                    domain.add(OTHER_VALUES);
+                }
+            }
+        }
+
+        /**
+         * Method to get the rules matching each value of the domain of a discrete column
+         * @param rules
+         * @return Map of value label to the sorted list of rules matching it
+         */
+        private Map<String, List<Integer>> activeByValue(int[] rules) {
+            Map<String, List<Integer>> active = new LinkedHashMap<>();
+            for (String value : domain) {
+                active.put(value, new ArrayList<>());
+            }
+            for (int rule : rules) {
+                if (any[rule] || negated[rule]) {
+                    for (Map.Entry<String, List<Integer>> value : active.entrySet()) {
+                        if (matches(rule, value.getKey())) {
+                            value.getValue().add(rule);
+                        }
+                    }
+                } else {
+                    for (String value : values.get(rule)) {
+                        List<Integer> valueRules = active.get(quoted ? "\"" + value + "\"" : value);
+                        if (valueRules != null) {
+                            valueRules.add(rule);
+                        }
+                    }
+                }
+            }
+            return active;
+        }
+
+        private boolean matches(int rule, String label) {
+            if (any[rule]) {
+                return true;
+            }
+            String value = label.startsWith("\"") ? label.substring(1, label.length() - 1) : label;
+            boolean listed = !label.equals(OTHER_VALUES) && values.get(rule).contains(value);
+            return listed != negated[rule];
+        }
+
+        /**
+         * Method to sweep the number line of a numeric column from left to right
+         * For every segment between two bounds the consumer gets the active rules,
+         * maximal is true if the set of active rules is not contained in the set of the next segment
+         * The active rules are updated at every bound instead of being collected per segment,
+         * the consumer has to copy them if it keeps them; the sweep stops when the consumer returns false
+         * @param rules
+         * @param consumer
+         */
+        private void sweep(int[] rules, SegmentConsumer consumer) {
+            List<Object[]> starts = new ArrayList<>();
+            List<Object[]> ends = new ArrayList<>();
+            for (int rule : rules) {
+                List<Interval> ruleIntervals = any[rule]
+                        ? Collections.singletonList(new Interval(Key.MIN, Key.MAX)) : intervals.get(rule);
+                for (Interval interval : ruleIntervals) {
+                    starts.add(new Object[] {interval.getStartKey(), rule});
+                    ends.add(new Object[] {interval.getEndKey(), rule});
+                }
+            }
+            Comparator<Object[]> byKey = (first, second) -> ((Key) first[0]).compareTo((Key) second[0]);
+            starts.sort(byKey);
+            ends.sort(byKey);
+
+            TreeSet<Integer> active = new TreeSet<>();
+            Set<Integer> activeView = Collections.unmodifiableSet(active);
+            Key position = Key.MIN;
+            boolean addedSinceMaximal = false;
+            int startIndex = 0;
+            int endIndex = 0;
+            while (startIndex < starts.size() || endIndex < ends.size()) {
+                Key nextStart = startIndex < starts.size() ? (Key) starts.get(startIndex)[0] : null;
+                Key nextEnd = endIndex < ends.size() ? (Key) ends.get(endIndex)[0] : null;
+                Key next = (nextStart != null && (nextEnd == null || nextStart.compareTo(nextEnd) <= 0)) ? nextStart : nextEnd;
+                if (position.compareTo(next) < 0) {
+                    boolean maximal = addedSinceMaximal && nextEnd != null && nextEnd.equals(next);
+                    if (!consumer.accept(new Interval(position, next), activeView, maximal)) {
+                        return;
+                    }
+                    if (maximal) {
+                        addedSinceMaximal = false;
+                    }
+                    position = next;
+                }
+                while (endIndex < ends.size() && ((Key) ends.get(endIndex)[0]).equals(next)) {
+                    active.remove((Integer) ends.get(endIndex++)[1]);
+                }
+                while (startIndex < starts.size() && ((Key) starts.get(startIndex)[0]).equals(next)) {
+                    active.add((Integer) starts.get(startIndex++)[1]);
+                    addedSinceMaximal = true;
+                }
+            }
+            if (position.compareTo(Key.MAX) < 0) {
+                consumer.accept(new Interval(position, Key.MAX), Collections.<Integer>emptySet(), false);
+            }
+        }
+    }
+
+    /**
+     * Callback for the segments of a sweep
+     */
+    private interface SegmentConsumer {
+        /**
+         * @param segment
+         * @param active The rules active in the segment, sorted, only valid during the call
+         * @param maximal
+         * @return false to stop the sweep
+         */
+        boolean accept(Interval segment, Set<Integer> active, boolean maximal);
+    }
+
+    /**
+     * Counts the regions a search analyzes further, up to a limit
+     */
+    private abstract static class RegionCollector {
+        private final int maxRegions;
+        protected int regions = 0;
+        protected boolean truncated = false;
+
+        private RegionCollector(int maxRegions) {
+            this.maxRegions = maxRegions;
+        }
+
+        /**
+         * Method to count a region which is analyzed further
+         * @return false if the limit of regions is reached, the search is truncated then
+         */
+        protected boolean enterRegion() {
+            if (regions >= maxRegions) {
+                truncated = true;
+                return false;
+            }
+            regions++;
+            return true;
+        }
+    }
+
+    /**
+     * Collects the overlapping rule pairs without duplicates, up to a limit
+     */
+    private static class OverlapCollector extends RegionCollector {
+        private final int maxOverlaps;
+        private final Set<Long> pairs = new LinkedHashSet<>();
+
+        private OverlapCollector(int maxOverlaps, int maxRegions) {
+            super(maxRegions);
+            this.maxOverlaps = maxOverlaps;
+        }
+
+        private void addAllPairs(int[] rules) {
+            for (int i = 0; i < rules.length && !truncated; i++) {
+                for (int j = i + 1; j < rules.length; j++) {
+                    if (pairs.size() >= maxOverlaps) {
+                        truncated = true;
+                        return;
+                    }
+                    int first = Math.min(rules[i], rules[j]);
+                    int second = Math.max(rules[i], rules[j]);
+                    pairs.add(((long) first << 32) | second);
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects the uncovered regions, up to a limit
+     */
+    private static class GapCollector extends RegionCollector {
+        private final int maxGaps;
+        private final List<String[]> gaps = new ArrayList<>();
+
+        private GapCollector(int maxGaps, int maxRegions) {
+            super(maxRegions);
+            this.maxGaps = maxGaps;
+        }
+
+        private void add(String[] region) {
+            if (gaps.size() >= maxGaps) {
+                truncated = true;
+                return;
+            }
+            gaps.add(region);
+        }
+    }
+}
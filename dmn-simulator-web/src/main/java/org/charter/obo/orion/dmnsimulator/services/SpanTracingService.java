@@ -0,0 +1,506 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Service class which records a tree of spans for sampled requests and exports the finished traces to a local file
+ * A trace is started by the controller with startTrace, every span started on the same thread until the trace
+ * is ended becomes a child of the innermost open span
+ * Finished traces are put into a bounded queue and written by a single background thread, one OTLP JSON object
+ * ({"resourceSpans":[...]}) per line, like the file exporter of the OpenTelemetry collector writes them
+ * The file is rotated when it reaches maxFileSizeMb, the last maxFiles files are kept as file.1, file.2, ...
+ * If the queue is full, the trace is dropped and counted instead of blocking the request
+ * While tracing is disabled or a request is not sampled, every method returns right away
+ */
+@Service
+public class SpanTracingService {
+
+    private static Logger log = Logger.getLogger(SpanTracingService.class);
+
+    private static final String SERVICE_NAME = "dmn-simulator";
+
+    private static final String SCOPE_NAME = "org.charter.obo.orion.dmnsimulator";
+
+    private static final int SPAN_KIND_INTERNAL = 1;
+
+    private static final int SPAN_KIND_SERVER = 2;
+
+    private static final int STATUS_CODE_ERROR = 2;
+
+    private static final int MAX_BATCH = 256;
+
+    @Value("${dmnsimulator.tracing.enabled:false}")
+    private boolean enabled;
+
+    @Value("${dmnsimulator.tracing.sample-rate:1.0}")
+    private double sampleRate;
+
+    @Value("${dmnsimulator.tracing.file:traces/spans.jsonl}")
+    private String traceFile;
+
+    @Value("${dmnsimulator.tracing.max-file-size-mb:100}")
+    private int maxFileSizeMb;
+
+    @Value("${dmnsimulator.tracing.max-files:5}")
+    private int maxFiles;
+
+    @Value("${dmnsimulator.tracing.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private final ThreadLocal<Span> currentSpan = new ThreadLocal<>();
+
+    private final AtomicLong tracesStarted = new AtomicLong();
+
+    private final AtomicLong tracesExported = new AtomicLong();
+
+    private final AtomicLong tracesDropped = new AtomicLong();
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    private BlockingQueue<Span> queue;
+
+    private Thread exporterThread;
+
+    private volatile boolean running;
+
+    private Path file;
+
+    // The fields below are only used by the exporter thread
+    private OutputStream out;
+
+    private long fileSize;
+
+    /**
+     * Method to create the trace directory and start the exporter thread
+     * Nothing is done if tracing is disabled
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            file = Paths.get(traceFile).toAbsolutePath();
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+        } catch (IOException e) {
+            log.error("Could not create trace directory for " + traceFile + ", tracing is disabled", e);
+            enabled = false;
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        exporterThread = new Thread(this::exportTraces, "dmn-span-exporter");
+        exporterThread.setDaemon(true);
+        exporterThread.start();
+        log.info("Exporting " + (sampleRate * 100) + "% of the request traces to " + file);
+    }
+
+    /**
+     * Method to stop the exporter thread after the queued traces are written
+     */
+    @PreDestroy
+    public void stop() {
+        if (exporterThread == null) {
+            return;
+        }
+        running = false;
+        try {
+            exporterThread.join(10000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Method to start the trace of a request on the current thread, if it is sampled
+     * @param name The name of the root span, e.g. the endpoint
+     * @return The root span, or null if tracing is disabled or the request is not sampled
+     */
+    public Span startTrace(String name) {
+        if (!enabled || (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return null;
+        }
+        tracesStarted.incrementAndGet();
+        Span rootSpan = new Span(null, newId(16), name, SPAN_KIND_SERVER, System.nanoTime());
+        currentSpan.set(rootSpan);
+        return rootSpan;
+    }
+
+    /**
+     * Method to check if the current thread records a trace
+     * @return true if spans are recorded
+     */
+    public boolean isTracing() {
+        return currentSpan.get() != null;
+    }
+
+    /**
+     * Method to start a child of the innermost open span; it becomes the innermost open span until it is ended
+     * @param name
+     * @return The span, or null if the current thread records no trace
+     */
+    public Span startSpan(String name) {
+        Span parent = currentSpan.get();
+        if (parent == null) {
+            return null;
+        }
+        Span span = new Span(parent, parent.traceId, name, SPAN_KIND_INTERNAL, System.nanoTime());
+        currentSpan.set(span);
+        return span;
+    }
+
+    /**
+     * Method to add a finished child to the innermost open span, for work which was timed by someone else
+     * @param name
+     * @param startNanos The System.nanoTime() at which the work started
+     * @param endNanos The System.nanoTime() at which the work ended
+     * @return The span, or null if the current thread records no trace
+     */
+    public Span addSpan(String name, long startNanos, long endNanos) {
+        Span parent = currentSpan.get();
+        if (parent == null) {
+            return null;
+        }
+        Span span = new Span(parent, parent.traceId, name, SPAN_KIND_INTERNAL, startNanos);
+        span.endNanos = endNanos;
+        return span;
+    }
+
+    /**
+     * Method to end a span started with startSpan or startTrace
+     * Ending the root span ends all spans which are still open and queues the trace for export
+     * @param span The span, may be null
+     */
+    public void endSpan(Span span) {
+        if (span == null) {
+            return;
+        }
+        span.endNanos = System.nanoTime();
+        if (span.parent != null) {
+            currentSpan.set(span.parent);
+            return;
+        }
+        currentSpan.remove();
+        if (!queue.offer(span)) {
+            tracesDropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Method to set an attribute on the innermost open span
+     * @param key
+     * @param value A String, Boolean, Integer, Long or Double
+     */
+    public void setAttribute(String key, Object value) {
+        Span span = currentSpan.get();
+        if (span != null) {
+            span.setAttribute(key, value);
+        }
+    }
+
+    /**
+     * Method to mark the innermost open span as failed
+     * @param message
+     */
+    public void setError(String message) {
+        Span span = currentSpan.get();
+        if (span != null) {
+            span.errorMessage = message;
+        }
+    }
+
+    /**
+     * Method to get the counters of the span exporter
+     * @return Map with the started, exported and dropped traces and the trace file
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", enabled);
+        statistics.put("sampleRate", sampleRate);
+        statistics.put("file", file == null ? traceFile : file.toString());
+        statistics.put("tracesStarted", tracesStarted.get());
+        statistics.put("tracesExported", tracesExported.get());
+        statistics.put("tracesDropped", tracesDropped.get());
+        statistics.put("queued", queue == null ? 0 : queue.size());
+        return statistics;
+    }
+
+    /**
+     * Method of the exporter thread which takes the queued traces in batches and appends them to the trace file
+     * The file is flushed after every batch
+     */
+    private void exportTraces() {
+        List<Span> batch = new ArrayList<>(MAX_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                Span rootSpan = queue.poll(1, TimeUnit.SECONDS);
+                if (rootSpan == null) {
+                    continue;
+                }
+                batch.add(rootSpan);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                for (Span queuedSpan : batch) {
+                    try {
+                        writeTrace(queuedSpan);
+                        tracesExported.incrementAndGet();
+                    } catch (IOException e) {
+                        tracesDropped.incrementAndGet();
+                        log.error("Could not export trace", e);
+                        closeFile();
+                    }
+                }
+                batch.clear();
+                if (out != null) {
+                    out.flush();
+                }
+            } catch (InterruptedException e) {
+                break;
+            } catch (IOException e) {
+                log.error("Could not flush trace file", e);
+                closeFile();
+            }
+        }
+        closeFile();
+    }
+
+    /**
+     * Method to write one trace as a line of OTLP JSON, rotating the file first if it is full
+     * @param rootSpan
+     * @throws IOException If the trace file can not be written.
+     */
+    private void writeTrace(Span rootSpan) throws IOException {
+        if (out == null) {
+            openFile();
+        } else if (fileSize >= maxFileSizeMb * 1024L * 1024L) {
+            closeFile();
+            rotateFiles();
+            openFile();
+        }
+        CountingOutputStream line = new CountingOutputStream(out);
+        JsonGenerator generator = jsonFactory.createGenerator(line, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("resourceSpans");
+        generator.writeStartObject();
+        generator.writeObjectFieldStart("resource");
+        generator.writeArrayFieldStart("attributes");
+        writeAttribute(generator, "service.name", SERVICE_NAME);
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.writeArrayFieldStart("scopeSpans");
+        generator.writeStartObject();
+        generator.writeObjectFieldStart("scope");
+        generator.writeStringField("name", SCOPE_NAME);
+        generator.writeEndObject();
+        generator.writeArrayFieldStart("spans");
+        long epochOffsetNanos = rootSpan.epochMillis * 1000000L - rootSpan.startNanos;
+        for (Span span : rootSpan.trace) {
+            writeSpan(generator, span, epochOffsetNanos, rootSpan.endNanos);
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.close();
+        line.write('\n');
+        fileSize += line.count;
+    }
+
+    private void writeSpan(JsonGenerator generator, Span span, long epochOffsetNanos, long traceEndNanos) throws IOException {
+        long endNanos = span.endNanos != 0L ? span.endNanos : traceEndNanos;
+        generator.writeStartObject();
+        generator.writeStringField("traceId", span.traceId);
+        generator.writeStringField("spanId", span.spanId);
+        if (span.parent != null) {
+            generator.writeStringField("parentSpanId", span.parent.spanId);
+        }
+        generator.writeStringField("name", span.name);
+        generator.writeNumberField("kind", span.kind);
+        generator.writeStringField("startTimeUnixNano", Long.toString(span.startNanos + epochOffsetNanos));
+        generator.writeStringField("endTimeUnixNano", Long.toString(endNanos + epochOffsetNanos));
+        generator.writeArrayFieldStart("attributes");
+        for (Map.Entry<String, Object> attribute : span.attributes.entrySet()) {
+            writeAttribute(generator, attribute.getKey(), attribute.getValue());
+        }
+        generator.writeEndArray();
+        generator.writeObjectFieldStart("status");
+        if (span.errorMessage != null) {
+            generator.writeNumberField("code", STATUS_CODE_ERROR);
+            generator.writeStringField("message", span.errorMessage);
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    /**
+     * Method to write an attribute as OTLP key and AnyValue, 64 bit integers are written as strings like OTLP JSON requires
+     * @param generator
+     * @param key
+     * @param value
+     * @throws IOException If the trace file can not be written.
+     */
+    private void writeAttribute(JsonGenerator generator, String key, Object value) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("key", key);
+        generator.writeObjectFieldStart("value");
+        if (value instanceof Boolean) {
+            generator.writeBooleanField("boolValue", (Boolean) value);
+        } else if (value instanceof Integer || value instanceof Long) {
+            generator.writeStringField("intValue", value.toString());
+        } else if (value instanceof Double) {
+            generator.writeNumberField("doubleValue", (Double) value);
+        } else {
+            generator.writeStringField("stringValue", String.valueOf(value));
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    private void openFile() throws IOException {
+        fileSize = Files.exists(file) ? Files.size(file) : 0L;
+        out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+    }
+
+    private void closeFile() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            log.error("Could not close trace file", e);
+        }
+        out = null;
+    }
+
+    /**
+     * Method to shift file.1 to file.2 and so on and the full file to file.1, the oldest file is deleted
+     * @throws IOException If a file can not be moved.
+     */
+    private void rotateFiles() throws IOException {
+        Files.deleteIfExists(Paths.get(file + "." + maxFiles));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path rotatedFile = Paths.get(file + "." + i);
+            if (Files.exists(rotatedFile)) {
+                Files.move(rotatedFile, Paths.get(file + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxFiles > 0) {
+            Files.move(file, Paths.get(file + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(file);
+        }
+    }
+
+    private static String newId(int bytes) {
+        StringBuilder id = new StringBuilder(bytes * 2);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < bytes; i += 8) {
+            String hex = Long.toHexString(random.nextLong());
+            for (int j = hex.length(); j < 16; j++) {
+                id.append('0');
+            }
+            id.append(hex);
+        }
+        return id.toString();
+    }
+
+    /**
+     * A span of a trace
+     * The root span holds the list of all spans of its trace, in the order they were started
+     */
+    public static class Span {
+        private final Span parent;
+        private final String traceId;
+        private final String spanId;
+        private final String name;
+        private final int kind;
+        private final long startNanos;
+        private final long epochMillis;
+        private final List<Span> trace;
+        private final Map<String, Object> attributes = new LinkedHashMap<>();
+        private long endNanos;
+        private String errorMessage;
+
+        private Span(Span parent, String traceId, String name, int kind, long startNanos) {
+            this.parent = parent;
+            this.traceId = traceId;
+            this.spanId = newId(8);
+            this.name = name;
+            this.kind = kind;
+            this.startNanos = startNanos;
+            this.epochMillis = parent == null ? System.currentTimeMillis() : 0L;
+            this.trace = parent == null ? new ArrayList<>() : parent.trace;
+            this.trace.add(this);
+        }
+
+        /**
+         * Method to set an attribute of the span
+         * @param key
+         * @param value A String, Boolean, Integer, Long or Double
+         */
+        public void setAttribute(String key, Object value) {
+            attributes.put(key, value);
+        }
+
+        public String getTraceId() {
+            return traceId;
+        }
+
+        public String getSpanId() {
+            return spanId;
+        }
+    }
+
+    /**
+     * Stream which counts the bytes written through it, to know the size of the trace file without asking the file system
+     */
+    private static class CountingOutputStream extends OutputStream {
+        private final OutputStream out;
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
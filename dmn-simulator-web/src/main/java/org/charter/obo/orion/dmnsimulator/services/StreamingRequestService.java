@@ -0,0 +1,341 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import static org.camunda.spin.Spin.JSON;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.camunda.spin.json.SpinJsonNode;
+import org.charter.obo.orion.dmnsimulator.configurations.BinaryFormats;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Service class which reads an evaluateDecision request body from a stream without building a String of it
+ * The bytes are scanned once; the value of the top level "xml" property is unescaped straight into a UTF-8 byte buffer,
+ * everything else is copied into a small JSON document with "xml" set to ""
+ * So the model is held once as UTF-8 bytes, which is what the DMN parser reads anyway
+ * The body must be UTF-8 encoded, as JSON requires
+ * A Smile or CBOR body is read token by token instead; the xml string is decoded once and encoded as UTF-8
+ */
+@Service
+public class StreamingRequestService {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    // Content-Length is set by the client, so it only sizes the xml buffer up to this limit and the buffer grows beyond it
+    private static final int MAX_PRESIZE = 1024 * 1024;
+
+    private static final byte[] XML_KEY = "xml".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Entry Method to read a request body
+     * @param body The request body
+     * @param contentLength The length of the body if known, otherwise -1; the xml buffer starts with this size up to 1 MB and doubles when full
+     * @return The request with the xml bytes, their hash and the remaining properties
+     * @throws IOException If the body can not be read.
+     */
+    public StreamedRequest readRequest(InputStream body, long contentLength) throws IOException {
+        Scanner scanner = new Scanner(contentLength > 0 ? (int) Math.min(contentLength, MAX_PRESIZE) : READ_BUFFER_SIZE);
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        int read;
+        while ((read = body.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                scanner.accept(buffer[i]);
+            }
+        }
+        if (!scanner.xmlFound) {
+            throw new RuntimeException("Request has no xml property");
+        }
+        SpinJsonNode requestNode = JSON(new String(scanner.rest.toByteArray(), StandardCharsets.UTF_8));
+        String modelHash = DmnModelCacheService.getModelHash(scanner.xml, scanner.xmlLength);
+        return new StreamedRequest(requestNode, scanner.xml, scanner.xmlLength, modelHash);
+    }
+
+    /**
+     * Method to read a request body in one of the binary formats
+     * @param body The request body
+     * @param format The format of the body, null for JSON
+     * @param contentLength The length of the body if known, otherwise -1
+     * @return The request with the xml bytes, their hash and the remaining properties
+     * @throws IOException If the body can not be read.
+     */
+    public StreamedRequest readRequest(InputStream body, BinaryFormats format, long contentLength) throws IOException {
+        if (format == null) {
+            return readRequest(body, contentLength);
+        }
+        byte[] xml = null;
+        ByteArrayOutputStream rest = new ByteArrayOutputStream();
+        try (JsonParser parser = format.getFactory().createParser(body);
+             JsonGenerator generator = new JsonFactory().createGenerator(rest)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new RuntimeException("Request is not an object");
+            }
+            generator.writeStartObject();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("xml".equals(name) && value == JsonToken.VALUE_STRING) {
+                    xml = parser.getText().getBytes(StandardCharsets.UTF_8);
+                    generator.writeStringField("xml", "");
+                } else {
+                    generator.writeFieldName(name);
+                    generator.copyCurrentStructure(parser);
+                }
+            }
+            generator.writeEndObject();
+        }
+        if (xml == null) {
+            throw new RuntimeException("Request has no xml property");
+        }
+        SpinJsonNode requestNode = JSON(new String(rest.toByteArray(), StandardCharsets.UTF_8));
+        return new StreamedRequest(requestNode, xml, xml.length, DmnModelCacheService.getModelHash(xml, xml.length));
+    }
+
+    /**
+     * A request body split into the xml and the other properties
+     */
+    public static class StreamedRequest {
+        private final SpinJsonNode requestNode;
+        private final byte[] xml;
+        private final int xmlLength;
+        private final String modelHash;
+
+        private StreamedRequest(SpinJsonNode requestNode, byte[] xml, int xmlLength, String modelHash) {
+            this.requestNode = requestNode;
+            this.xml = xml;
+            this.xmlLength = xmlLength;
+            this.modelHash = modelHash;
+        }
+
+        /**
+         * @return The request with "xml" set to ""
+         */
+        public SpinJsonNode getRequestNode() {
+            return requestNode;
+        }
+
+        /**
+         * @return The buffer holding the UTF-8 bytes of the xml, only the first getXmlLength() bytes are used
+         */
+        public byte[] getXml() {
+            return xml;
+        }
+
+        public int getXmlLength() {
+            return xmlLength;
+        }
+
+        /**
+         * @return The same hash DmnModelCacheService.getModelHash returns for the xml
+         */
+        public String getModelHash() {
+            return modelHash;
+        }
+    }
+
+    /**
+     * State machine which follows strings, escapes and nesting of the JSON body byte by byte
+     * A string at nesting level 1 which is followed by ':' is a key, if it is "xml" the next string value is diverted
+     */
+    private static class Scanner {
+        private final ByteArrayOutputStream rest = new ByteArrayOutputStream();
+        private byte[] xml;
+        private int xmlLength;
+        private boolean xmlFound;
+
+        private int depth;
+        private boolean inString;
+        private boolean escape;
+        private boolean diverting;
+        private boolean divertNextValue;
+        private boolean lastStringIsXmlKey;
+
+        // bytes of the string currently read, only kept while it can still be the key "xml"
+        private final byte[] key = new byte[XML_KEY.length];
+        private int keyLength;
+
+        // state of a \\uXXXX escape inside the diverted string
+        private int unicodeDigits = -1;
+        private int unicodeValue;
+        private int highSurrogate = -1;
+
+        private Scanner(int initialXmlSize) {
+            xml = new byte[initialXmlSize];
+        }
+
+        private void accept(byte b) {
+            if (diverting) {
+                divert(b);
+                return;
+            }
+            if (inString) {
+                rest.write(b);
+                if (escape) {
+                    escape = false;
+                    keyLength = -1;
+                } else if (b == '\\') {
+                    escape = true;
+                } else if (b == '"') {
+                    inString = false;
+                    lastStringIsXmlKey = depth == 1 && keyLength == XML_KEY.length && Arrays.equals(key, XML_KEY);
+                } else if (keyLength >= 0 && keyLength < key.length) {
+                    key[keyLength++] = b;
+                } else {
+                    keyLength = -1;
+                }
+                return;
+            }
+            switch (b) {
+                case '"':
+                    if (divertNextValue) {
+                        divertNextValue = false;
+                        diverting = true;
+                        xmlFound = true;
+                        xmlLength = 0;
+                        rest.write('"');
+                        return;
+                    }
+                    inString = true;
+                    keyLength = 0;
+                    break;
+                case ':':
+                    divertNextValue = lastStringIsXmlKey;
+                    break;
+                case '{':
+                case '[':
+                    depth++;
+                    divertNextValue = false;
+                    break;
+                case '}':
+                case ']':
+                    depth--;
+                    break;
+                case ' ':
+                case '\t':
+                case '\r':
+                case '\n':
+                    break;
+                default:
+                    divertNextValue = false;
+                    break;
+            }
+            if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                lastStringIsXmlKey = false;
+            }
+            rest.write(b);
+        }
+
+        /**
+         * Method to unescape one byte of the xml string into the xml buffer
+         * @param b
+         */
+        private void divert(byte b) {
+            if (unicodeDigits >= 0) {
+                unicodeValue = unicodeValue * 16 + Character.digit(b, 16);
+                if (++unicodeDigits == 4) {
+                    unicodeDigits = -1;
+                    writeCodeUnit(unicodeValue);
+                }
+                return;
+            }
+            if (escape) {
+                escape = false;
+                switch (b) {
+                    case 'u':
+                        unicodeDigits = 0;
+                        unicodeValue = 0;
+                        return;
+                    case 'n':
+                        writeCodeUnit('\n');
+                        return;
+                    case 'r':
+                        writeCodeUnit('\r');
+                        return;
+                    case 't':
+                        writeCodeUnit('\t');
+                        return;
+                    case 'b':
+                        writeCodeUnit('\b');
+                        return;
+                    case 'f':
+                        writeCodeUnit('\f');
+                        return;
+                    default:
+                        writeCodeUnit(b);
+                        return;
+                }
+            }
+            if (b == '\\') {
+                escape = true;
+            } else if (b == '"') {
+                flushHighSurrogate();
+                diverting = false;
+                rest.write('"');
+            } else {
+                flushHighSurrogate();
+                writeXml(b);
+            }
+        }
+
+        /**
+         * Method to write an escaped UTF-16 code unit as UTF-8
+         * Unpaired surrogates are written as '?', like String.getBytes does
+         * @param codeUnit
+         */
+        private void writeCodeUnit(int codeUnit) {
+            if (Character.isHighSurrogate((char) codeUnit)) {
+                flushHighSurrogate();
+                highSurrogate = codeUnit;
+                return;
+            }
+            int codePoint = codeUnit;
+            if (Character.isLowSurrogate((char) codeUnit)) {
+                if (highSurrogate < 0) {
+                    writeXml('?');
+                    return;
+                }
+                codePoint = Character.toCodePoint((char) highSurrogate, (char) codeUnit);
+                highSurrogate = -1;
+            } else {
+                flushHighSurrogate();
+            }
+            if (codePoint < 0x80) {
+                writeXml(codePoint);
+            } else if (codePoint < 0x800) {
+                writeXml(0xC0 | (codePoint >> 6));
+                writeXml(0x80 | (codePoint & 0x3F));
+            } else if (codePoint < 0x10000) {
+                writeXml(0xE0 | (codePoint >> 12));
+                writeXml(0x80 | ((codePoint >> 6) & 0x3F));
+                writeXml(0x80 | (codePoint & 0x3F));
+            } else {
+                writeXml(0xF0 | (codePoint >> 18));
+                writeXml(0x80 | ((codePoint >> 12) & 0x3F));
+                writeXml(0x80 | ((codePoint >> 6) & 0x3F));
+                writeXml(0x80 | (codePoint & 0x3F));
+            }
+        }
+
+        private void flushHighSurrogate() {
+            if (highSurrogate >= 0) {
+                highSurrogate = -1;
+                writeXml('?');
+            }
+        }
+
+        private void writeXml(int b) {
+            if (xmlLength == xml.length) {
+                xml = Arrays.copyOf(xml, xml.length * 2);
+            }
+            xml[xmlLength++] = (byte) b;
+        }
+    }
+}
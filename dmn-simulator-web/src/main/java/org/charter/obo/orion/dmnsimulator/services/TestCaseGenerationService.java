@@ -0,0 +1,549 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import static org.camunda.spin.Spin.JSON;
+
+import java.math.BigDecimal;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.impl.*;
+import org.camunda.spin.json.SpinJsonNode;
+import org.charter.obo.orion.dmnsimulator.engine.DecisionEvaluator;
+import org.charter.obo.orion.dmnsimulator.engine.DmnSimulator;
+import org.charter.obo.orion.dmnsimulator.engine.InputSchema;
+import org.charter.obo.orion.dmnsimulator.services.UnaryTestsService.Condition;
+import org.charter.obo.orion.dmnsimulator.services.UnaryTestsService.Interval;
+import org.charter.obo.orion.dmnsimulator.services.UnaryTestsService.Key;
+import org.charter.obo.orion.dmnsimulator.services.UnaryTestsService.Kind;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Service class which generates test cases for decision tables from the unary tests of their input entries
+ * Every input column gets a small set of values: for a numeric column every bound of an interval, the values just below
+ * and above it and one value inside every interval between two bounds; for a string or boolean column every listed value
+ * and one value which no entry lists
+ * From these values one case is built per rule, with values the rule matches, and further cases until every value
+ * was used once, so the cases hit every rule and every boundary with far fewer evaluations than all combinations
+ * The cases are evaluated in parallel on the test suite pool and returned with their results and matched rules,
+ * in the format of a test suite, so they can be run again as a regression suite
+ * Only input expressions which are plain variable names can be set; entries which are no simple unary tests match every value
+ */
+@Service
+public class TestCaseGenerationService {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+    private static final Pattern VARIABLE_PATTERN = Pattern.compile("[A-Za-z_$][A-Za-z0-9_$]*");
+
+    private static final String DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss";
+
+    private static final String OTHER_VALUE = "other";
+
+    @Value("${dmnsimulator.testgeneration.max-cases:10000}")
+    private int maxCases;
+
+    @Value("${dmnsimulator.evaluation.early-termination:false}")
+    private boolean earlyTermination;
+
+    @Value("${dmnsimulator.evaluation.shared-inputs:true}")
+    private boolean sharedInputs;
+
+    @Autowired
+    private DmnModelCacheService dmnModelCacheService;
+    @Autowired
+    private DecisionKeyService decisionKeyService;
+    @Autowired
+    private UnaryTestsService unaryTestsService;
+    @Autowired
+    private TestSuiteService testSuiteService;
+
+    /**
+     * Entry Method to generate and evaluate the test cases of the decision tables of the DMN XML in the request body
+     * If a decision is given, only cases for this decision table are generated
+     * @param reqBody
+     * @param tenant The tenant the parsed model is cached for, null for the default tenant
+     * @return JSON with the coverage of every decision table and the cases with their results
+     */
+    public String generateTestCases(String reqBody, String tenant) {
+        long start = System.nanoTime();
+        ObjectNode rootNode = MAPPER.createObjectNode();
+        try {
+            SpinJsonNode requestNode = JSON(reqBody);
+            List<DmnDecision> decisions = dmnModelCacheService.getDecisions(tenant, requestNode.prop("xml").stringValue());
+            String decisionName = requestNode.hasProp("decision") ? requestNode.prop("decision").stringValue() : null;
+            List<DmnDecision> tables = new ArrayList<>();
+            if (decisionName != null && !decisionName.isEmpty()) {
+                String decisionKey = decisionKeyService.getDecisionKey(decisions, decisionName);
+                DmnDecision decision = dmnModelCacheService.findDecision(decisionKey, decisions);
+                if (!(decision.getDecisionLogic() instanceof DmnDecisionTableImpl)) {
+                    throw new RuntimeException("Decision '" + decision.getName() + "' is not a decision table");
+                }
+                tables.add(decision);
+            } else {
+                for (DmnDecision decision : decisions) {
+                    if (decision.getDecisionLogic() instanceof DmnDecisionTableImpl) {
+                        tables.add(decision);
+                    }
+                }
+            }
+
+            ObjectNode tablesNode = rootNode.putObject("tables");
+            ArrayNode casesNode = rootNode.putArray("cases");
+            for (DmnDecision decision : tables) {
+                TableModel table = new TableModel(decision);
+                List<ObjectNode> cases = table.generateCases();
+                if (casesNode.size() + cases.size() > maxCases) {
+                    throw new RuntimeException("More than " + maxCases + " cases would be generated");
+                }
+                Set<String> hitRules = evaluate(decision, cases);
+                casesNode.addAll(cases);
+                tablesNode.set(decision.getKey(), table.toJson(cases.size(), hitRules));
+            }
+        } catch (Exception e) {
+            SpinJsonNode errorNode = JSON("{}");
+            errorNode.prop("error", String.valueOf(e.getMessage()));
+            return errorNode.toString();
+        }
+        rootNode.put("millis", (System.nanoTime() - start) / 1000000L);
+        return rootNode.toString();
+    }
+
+    /**
+     * Method to evaluate the cases of a decision in parallel and add the results and matched rules to every case
+     * @param decision
+     * @param cases
+     * @return The ids of the rules of the decision which matched in at least one case
+     * @throws InterruptedException
+     */
+    private Set<String> evaluate(DmnDecision decision, List<ObjectNode> cases) throws InterruptedException {
+        DmnSimulator simulator = new DmnSimulator(dmnModelCacheService);
+        simulator.setEarlyTermination(earlyTermination);
+        simulator.setSharedInputs(sharedInputs);
+        List<DmnDecision> targets = Collections.singletonList(decision);
+        List<Future<?>> futures = new ArrayList<>();
+        for (ObjectNode testCase : cases) {
+            futures.add(testSuiteService.getExecutor().submit(() -> evaluateCase(simulator, targets, testCase)));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+        Set<String> hitRules = new HashSet<>();
+        for (ObjectNode testCase : cases) {
+            if (testCase.has("expectedRules")) {
+                for (JsonNode ruleId : testCase.get("expectedRules")) {
+                    hitRules.add(ruleId.asText());
+                }
+            }
+        }
+        return hitRules;
+    }
+
+    private void evaluateCase(DmnSimulator simulator, List<DmnDecision> targets, ObjectNode testCase) {
+        try {
+            SpinJsonNode requestNode = JSON(testCase.toString());
+            DmnSimulator.Evaluation evaluation = simulator.evaluateDecisions(targets, DecisionEvaluator.getVariables(requestNode));
+            List<Map<String, Object>> results = evaluation.getResults().get(targets.get(0)).getResultList();
+            ArrayNode resultsNode = MAPPER.createArrayNode();
+            for (Map<String, Object> result : results) {
+                ObjectNode resultNode = resultsNode.addObject();
+                for (Map.Entry<String, Object> output : result.entrySet()) {
+                    resultNode.set(output.getKey(), toJson(output.getValue()));
+                }
+            }
+            testCase.set("expected", resultsNode.size() == 1 ? resultsNode.get(0) : resultsNode);
+            ArrayNode rulesNode = testCase.putArray("expectedRules");
+            for (String ruleId : evaluation.getMatchedRuleIds(targets.get(0).getKey())) {
+                rulesNode.add(ruleId);
+            }
+        } catch (Exception e) {
+            testCase.put("error", String.valueOf(e.getMessage()));
+        }
+    }
+
+    private static JsonNode toJson(Object value) {
+        if (value instanceof Date) {
+            return NODES.textNode(new SimpleDateFormat(DATE_FORMAT).format((Date) value));
+        }
+        try {
+            return MAPPER.valueToTree(value);
+        } catch (IllegalArgumentException e) {
+            return NODES.textNode(String.valueOf(value));
+        }
+    }
+
+    /**
+     * The columns of a decision table with the values generated for them and the rules matching every value
+     */
+    private class TableModel {
+        private final DmnDecision decision;
+        private final List<DmnDecisionTableRuleImpl> rules;
+        private final List<ColumnModel> columns = new ArrayList<>();
+        private final List<String> uncontrolledInputs = new ArrayList<>();
+        private final List<String> unknownEntries = new ArrayList<>();
+        private final List<String> unsatisfiableRules = new ArrayList<>();
+        private final ObjectNode defaultVariables = MAPPER.createObjectNode();
+
+        private TableModel(DmnDecision decision) {
+            this.decision = decision;
+            DmnDecisionTableImpl decisionTable = (DmnDecisionTableImpl) decision.getDecisionLogic();
+            rules = decisionTable.getRules();
+            Set<String> variables = new HashSet<>();
+            Set<String> requiredVariables = new HashSet<>();
+            for (InputSchema.InputField field : dmnModelCacheService.getInputSchema().getSchema(decision)) {
+                requiredVariables.add(field.getVariable());
+                defaultVariables.set(field.getVariable(), variableNode(defaultValue(field.getTypeRef()), field.getTypeRef()));
+            }
+            List<DmnDecisionTableInputImpl> inputs = decisionTable.getInputs();
+            for (int column = 0; column < inputs.size(); column++) {
+                DmnDecisionTableInputImpl input = inputs.get(column);
+                String name = (input.getName() == null) ? input.getId() : input.getName();
+                String text = input.getExpression() == null || input.getExpression().getExpression() == null
+                        ? "" : input.getExpression().getExpression().trim();
+                // the outputs of required decisions are not in the schema, they can not be set by a case
+                if (!VARIABLE_PATTERN.matcher(text).matches() || !requiredVariables.contains(text) || !variables.add(text)) {
+                    uncontrolledInputs.add(name);
+                    continue;
+                }
+                Condition[] conditions = new Condition[rules.size()];
+                boolean quoted = false;
+                for (int rule = 0; rule < rules.size(); rule++) {
+                    String entry = rules.get(rule).getConditions().get(column).getExpression();
+                    conditions[rule] = unaryTestsService.parse(entry);
+                    if (conditions[rule].getKind() == Kind.UNKNOWN) {
+                        unknownEntries.add(rules.get(rule).getId() + " / " + name + ": " + conditions[rule].getText());
+                    } else if (conditions[rule].getKind() == Kind.DISCRETE && entry.contains("\"")) {
+                        quoted = true;
+                    }
+                }
+                String typeRef = input.getExpression().getTypeDefinition() == null ? null : input.getExpression().getTypeDefinition().getTypeName();
+                columns.add(new ColumnModel(name, text, typeRef, conditions, quoted));
+            }
+        }
+
+        /**
+         * Method to build the cases: first one case per rule, then cases for the values which no case used yet
+         * A case for a rule takes for every column the value which the fewest other rules match, so it rather hits only this rule
+         * @return The cases with name, decision and variables
+         */
+        private List<ObjectNode> generateCases() {
+            boolean[][] used = new boolean[columns.size()][];
+            for (int column = 0; column < columns.size(); column++) {
+                used[column] = new boolean[columns.get(column).candidates.size()];
+            }
+            Set<List<Integer>> built = new HashSet<>();
+            List<ObjectNode> cases = new ArrayList<>();
+            for (int rule = 0; rule < rules.size(); rule++) {
+                int[] values = chooseValues(rule, -1, -1, used, false);
+                if (values == null) {
+                    unsatisfiableRules.add(rules.get(rule).getId());
+                    continue;
+                }
+                addCase(values, "rule " + rules.get(rule).getId(), used, built, cases);
+            }
+            for (int column = 0; column < columns.size(); column++) {
+                ColumnModel columnModel = columns.get(column);
+                for (int candidate = 0; candidate < columnModel.candidates.size(); candidate++) {
+                    if (used[column][candidate]) {
+                        continue;
+                    }
+                    int[] values = null;
+                    for (int rule = 0; rule < rules.size() && values == null; rule++) {
+                        if (columnModel.matching[rule][candidate]) {
+                            values = chooseValues(rule, column, candidate, used, true);
+                        }
+                    }
+                    if (values == null) {
+                        values = chooseValues(-1, column, candidate, used, true);
+                    }
+                    addCase(values, columnModel.name + " = " + columnModel.candidates.get(candidate), used, built, cases);
+                }
+            }
+            return cases;
+        }
+
+        /**
+         * Method to choose one value per column
+         * @param rule The rule the values have to match, -1 for any values
+         * @param fixedColumn A column whose value is given, -1 for none
+         * @param fixedCandidate The value of the fixed column
+         * @param used The values used by the cases so far
+         * @param preferUnused true to prefer values no case used yet, false to prefer values the fewest rules match
+         * @return The index of the value of every column, or null if the rule matches no value of a column
+         */
+        private int[] chooseValues(int rule, int fixedColumn, int fixedCandidate, boolean[][] used, boolean preferUnused) {
+            int[] values = new int[columns.size()];
+            for (int column = 0; column < columns.size(); column++) {
+                if (column == fixedColumn) {
+                    values[column] = fixedCandidate;
+                    continue;
+                }
+                ColumnModel columnModel = columns.get(column);
+                int best = -1;
+                for (int candidate = 0; candidate < columnModel.candidates.size(); candidate++) {
+                    if (rule >= 0 && !columnModel.matching[rule][candidate]) {
+                        continue;
+                    }
+                    if (best < 0 || compare(columnModel, used[column], candidate, best, preferUnused) < 0) {
+                        best = candidate;
+                    }
+                }
+                if (best < 0) {
+                    return null;
+                }
+                values[column] = best;
+            }
+            return values;
+        }
+
+        private int compare(ColumnModel column, boolean[] used, int candidate, int other, boolean preferUnused) {
+            int byUse = Boolean.compare(used[candidate], used[other]);
+            int byMatches = Integer.compare(column.matchCounts[candidate], column.matchCounts[other]);
+            return preferUnused ? (byUse != 0 ? byUse : byMatches) : (byMatches != 0 ? byMatches : byUse);
+        }
+
+        private void addCase(int[] values, String name, boolean[][] used, Set<List<Integer>> built, List<ObjectNode> cases) {
+            List<Integer> valueList = new ArrayList<>();
+            for (int column = 0; column < values.length; column++) {
+                used[column][values[column]] = true;
+                valueList.add(values[column]);
+            }
+            if (!built.add(valueList)) {
+                return;
+            }
+            ObjectNode testCase = MAPPER.createObjectNode();
+            testCase.put("name", decision.getName() + ": " + name);
+            // a suite looks the decision up by name, like the evaluateDecision endpoint
+            testCase.put("decision", decision.getName() != null ? decision.getName() : decision.getKey());
+            ObjectNode variablesNode = testCase.putObject("variables");
+            variablesNode.setAll(defaultVariables);
+            for (int column = 0; column < values.length; column++) {
+                ColumnModel columnModel = columns.get(column);
+                variablesNode.set(columnModel.variable, variableNode(columnModel.candidates.get(values[column]), columnModel.typeRef));
+            }
+            cases.add(testCase);
+        }
+
+        private ObjectNode toJson(int cases, Set<String> hitRules) {
+            ObjectNode tableNode = MAPPER.createObjectNode();
+            tableNode.put("name", decision.getName());
+            tableNode.put("rules", rules.size());
+            tableNode.put("cases", cases);
+            long combinations = 1;
+            for (ColumnModel column : columns) {
+                combinations = combinations > Long.MAX_VALUE / Math.max(1, column.candidates.size())
+                        ? Long.MAX_VALUE : combinations * column.candidates.size();
+            }
+            tableNode.put("combinations", combinations);
+            ArrayNode uncoveredNode = MAPPER.createArrayNode();
+            for (DmnDecisionTableRuleImpl rule : rules) {
+                if (!hitRules.contains(rule.getId())) {
+                    uncoveredNode.add(rule.getId());
+                }
+            }
+            tableNode.put("coveredRules", rules.size() - uncoveredNode.size());
+            tableNode.set("uncoveredRules", uncoveredNode);
+            tableNode.set("unsatisfiableRules", MAPPER.valueToTree(unsatisfiableRules));
+            ObjectNode valuesNode = tableNode.putObject("values");
+            for (ColumnModel column : columns) {
+                valuesNode.set(column.name, MAPPER.valueToTree(column.candidates));
+            }
+            tableNode.set("uncontrolledInputs", MAPPER.valueToTree(uncontrolledInputs));
+            tableNode.set("unanalyzedEntries", MAPPER.valueToTree(unknownEntries));
+            return tableNode;
+        }
+    }
+
+    /**
+     * The values generated for one input column and which rules match them
+     * As in the rule analysis, the column is numeric or discrete by the kind of most of its entries,
+     * entries of the other kind and unknown entries match every value
+     */
+    private static class ColumnModel {
+        private final String name;
+        private final String variable;
+        private final String typeRef;
+        private final List<JsonNode> candidates = new ArrayList<>();
+        private final boolean[][] matching;
+        private final int[] matchCounts;
+
+        private ColumnModel(String name, String variable, String typeRef, Condition[] conditions, boolean quoted) {
+            this.name = name;
+            this.variable = variable;
+            this.typeRef = typeRef;
+            int numeric = 0;
+            int discrete = 0;
+            for (Condition condition : conditions) {
+                numeric += condition.getKind() == Kind.NUMERIC ? 1 : 0;
+                discrete += condition.getKind() == Kind.DISCRETE ? 1 : 0;
+            }
+            Kind kind = numeric == 0 && discrete == 0 ? Kind.ANY : (numeric >= discrete ? Kind.NUMERIC : Kind.DISCRETE);
+            if (kind == Kind.NUMERIC) {
+                addNumericCandidates(conditions);
+            } else if (kind == Kind.DISCRETE) {
+                addDiscreteCandidates(conditions, quoted && !"boolean".equals(typeRef));
+            } else {
+                candidates.add(defaultValue(typeRef));
+            }
+            matching = new boolean[conditions.length][candidates.size()];
+            matchCounts = new int[candidates.size()];
+            for (int rule = 0; rule < conditions.length; rule++) {
+                for (int candidate = 0; candidate < candidates.size(); candidate++) {
+                    matching[rule][candidate] = conditions[rule].getKind() != kind || kind == Kind.ANY
+                            || matches(conditions[rule], candidates.get(candidate));
+                    matchCounts[candidate] += matching[rule][candidate] ? 1 : 0;
+                }
+            }
+        }
+
+        /**
+         * Method to generate every bound, the values just below and above it and a value inside every interval between two bounds
+         * The distance to a bound is 1 for integer columns and one decimal place finer than the bounds otherwise
+         * @param conditions
+         */
+        private void addNumericCandidates(Condition[] conditions) {
+            boolean integral = "integer".equals(typeRef) || "long".equals(typeRef);
+            TreeSet<BigDecimal> bounds = new TreeSet<>();
+            for (Condition condition : conditions) {
+                if (condition.getKind() != Kind.NUMERIC) {
+                    continue;
+                }
+                for (Interval interval : condition.getIntervals()) {
+                    for (Key key : Arrays.asList(interval.getStartKey(), interval.getEndKey())) {
+                        if (!Double.isInfinite(key.getValue())) {
+                            bounds.add(new BigDecimal(String.valueOf(key.getValue())).stripTrailingZeros());
+                        }
+                    }
+                }
+            }
+            TreeSet<BigDecimal> values = new TreeSet<>();
+            if (bounds.isEmpty()) {
+                values.add(BigDecimal.ZERO);
+            }
+            int scale = 0;
+            for (BigDecimal bound : bounds) {
+                scale = Math.max(scale, bound.scale());
+            }
+            BigDecimal step = integral ? BigDecimal.ONE : BigDecimal.ONE.movePointLeft(scale + 1);
+            BigDecimal previous = null;
+            for (BigDecimal bound : bounds) {
+                values.add(bound);
+                values.add(bound.subtract(step));
+                values.add(bound.add(step));
+                if (previous != null) {
+                    values.add(previous.add(bound).divide(BigDecimal.valueOf(2)));
+                }
+                previous = bound;
+            }
+            for (BigDecimal value : values) {
+                if (integral && value.stripTrailingZeros().scale() > 0) {
+                    continue;
+                }
+                if ("double".equals(typeRef)) {
+                    candidates.add(NODES.numberNode(value.doubleValue()));
+                } else if (value.stripTrailingZeros().scale() <= 0) {
+                    long longValue = value.longValue();
+                    candidates.add(longValue == (int) longValue ? NODES.numberNode((int) longValue) : NODES.numberNode(longValue));
+                } else {
+                    candidates.add(NODES.numberNode(value.doubleValue()));
+                }
+            }
+        }
+
+        /**
+         * Method to generate every listed value and one value no entry lists, true and false for a boolean column
+         * @param conditions
+         * @param quoted true for a string column
+         */
+        private void addDiscreteCandidates(Condition[] conditions, boolean quoted) {
+            if (!quoted) {
+                candidates.add(NODES.booleanNode(true));
+                candidates.add(NODES.booleanNode(false));
+                return;
+            }
+            Set<String> values = new TreeSet<>();
+            for (Condition condition : conditions) {
+                if (condition.getKind() == Kind.DISCRETE) {
+                    values.addAll(condition.getValues());
+                }
+            }
+            String other = OTHER_VALUE;
+            for (int i = 2; values.contains(other); i++) {
+                other = OTHER_VALUE + i;
+            }
+            for (String value : values) {
+                candidates.add(NODES.textNode(value));
+            }
+            candidates.add(NODES.textNode(other));
+        }
+
+        private static boolean matches(Condition condition, JsonNode candidate) {
+            if (condition.getKind() == Kind.NUMERIC) {
+                Key key = new Key(candidate.asDouble(), 0);
+                for (Interval interval : condition.getIntervals()) {
+                    if (interval.getStartKey().compareTo(key) <= 0 && key.compareTo(interval.getEndKey()) < 0) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return condition.getValues().contains(candidate.asText()) != condition.isNegated();
+        }
+    }
+
+    /**
+     * Method to get a value for a variable which no rule tests
+     * @param typeRef The type of the input expression, or null
+     * @return A value of the type, null for an unknown type
+     */
+    private static JsonNode defaultValue(String typeRef) {
+        if (typeRef == null) {
+            return NODES.nullNode();
+        }
+        switch (typeRef) {
+            case "string":
+                return NODES.textNode("");
+            case "boolean":
+                return NODES.booleanNode(false);
+            case "integer":
+            case "long":
+                return NODES.numberNode(0);
+            case "double":
+                return NODES.numberNode(0.0);
+            case "date":
+                return NODES.textNode("2000-01-01T00:00:00");
+            default:
+                return NODES.nullNode();
+        }
+    }
+
+    private static ObjectNode variableNode(JsonNode value, String typeRef) {
+        ObjectNode variableNode = MAPPER.createObjectNode();
+        variableNode.set("value", value);
+        if ("date".equals(typeRef) && value.isTextual()) {
+            variableNode.put("type", "Date");
+        }
+        return variableNode;
+    }
+}
@@ -0,0 +1,113 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import static org.camunda.spin.Spin.JSON;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.spin.json.SpinJsonNode;
+import org.charter.obo.orion.dmnsimulator.engine.DmnSimulator;
+import org.charter.obo.orion.dmnsimulator.suite.TestSuiteReport;
+import org.charter.obo.orion.dmnsimulator.suite.TestSuiteRunner;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Service class which runs test suites against a model, see TestSuiteRunner for the format of the cases
+ * The model is taken from the model cache; the cases of all suites are evaluated on one pool of suite-threads threads,
+ * so concurrent suites share the cores instead of each starting its own threads
+ */
+@Service
+public class TestSuiteService {
+
+    // cases in flight per thread, enough to keep every thread busy while the results are collected in order
+    private static final int CASES_PER_THREAD = 64;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Value("${dmnsimulator.testsuite.threads:0}")
+    private int threads;
+
+    @Value("${dmnsimulator.testsuite.max-failures:1000}")
+    private int maxFailures;
+
+    @Value("${dmnsimulator.evaluation.early-termination:false}")
+    private boolean earlyTermination;
+
+    @Value("${dmnsimulator.evaluation.shared-inputs:true}")
+    private boolean sharedInputs;
+
+    @Autowired
+    private DmnModelCacheService dmnModelCacheService;
+
+    private ExecutorService executor;
+
+    private TestSuiteRunner testSuiteRunner;
+
+    @PostConstruct
+    public void start() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "dmn-suite-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        DmnSimulator simulator = new DmnSimulator(dmnModelCacheService);
+        simulator.setEarlyTermination(earlyTermination);
+        simulator.setSharedInputs(sharedInputs);
+        testSuiteRunner = new TestSuiteRunner(simulator, executor, poolSize * CASES_PER_THREAD);
+        testSuiteRunner.setMaxFailures(maxFailures);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return The pool the suites are evaluated on, also used for the evaluation of generated test cases
+     */
+    ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Entry Method to run a test suite
+     * The request body has the xml, the "cases" and optionally the "decision" of the cases which do not name one
+     * @param reqBody
+     * @param tenant The tenant the parsed model is cached for, null for the default tenant
+     * @return The report with the number of passed and failed cases, the failures and the rule coverage of every decision table
+     */
+    public String runTestSuite(String reqBody, String tenant) {
+        try {
+            JsonNode suiteNode = MAPPER.readTree(reqBody);
+            if (suiteNode == null || !suiteNode.hasNonNull("xml")) {
+                throw new RuntimeException("Request has no xml property");
+            }
+            if (!suiteNode.path("cases").isArray()) {
+                throw new RuntimeException("Request has no \"cases\" list");
+            }
+            List<DmnDecision> decisions = dmnModelCacheService.getDecisions(tenant, suiteNode.get("xml").asText());
+            Iterator<JsonNode> cases = suiteNode.get("cases").elements();
+            String decision = suiteNode.hasNonNull("decision") ? suiteNode.get("decision").asText() : null;
+            TestSuiteReport report = testSuiteRunner.run(decisions, () -> cases.hasNext() ? cases.next().toString() : null, decision);
+            return report.toString();
+        } catch (Exception e) {
+            SpinJsonNode rootNode = JSON("{}");
+            rootNode.prop("error", String.valueOf(e.getMessage()));
+            return rootNode.toString();
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.stereotype.Service;
+
+/**
+ * Service class which reads the simple FEEL unary tests of decision table input entries
+ * into numeric intervals or sets of values, so rules can be compared without evaluating them
+ * Supported are "-", empty entries, numbers, comparisons like "< 5", ranges like "[1..10[",
+ * strings, booleans, lists of these and not(...) around them
+ * Everything else, e.g. function calls or JUEL expressions, is reported as unknown
+ */
+@Service
+public class UnaryTestsService {
+
+    private static final String NUMBER = "[-+]?(?:\\d+\\.?\\d*|\\.\\d+)(?:[eE][-+]?\\d+)?";
+
+    private static final Pattern NUMBER_PATTERN = Pattern.compile(NUMBER);
+
+    private static final Pattern COMPARISON_PATTERN = Pattern.compile("(<=|>=|<|>)\\s*(" + NUMBER + ")");
+
+    private static final Pattern RANGE_PATTERN = Pattern.compile("([\\[\\](])\\s*(" + NUMBER + ")\\s*\\.\\.\\s*(" + NUMBER + ")\\s*([\\[\\])])");
+
+    private static final Pattern STRING_PATTERN = Pattern.compile("\"((?:[^\"\\\\]|\\\\.)*)\"");
+
+    private static final Pattern NOT_PATTERN = Pattern.compile("not\\s*\\((.*)\\)", Pattern.DOTALL);
+
+    /**
+     * The kind of values an input entry matches
+     */
+    public enum Kind {
+        ANY, NUMERIC, DISCRETE, UNKNOWN
+    }
+
+    /**
+     * Method to read an input entry
+     * @param text The text of the input entry
+     * @return The condition of the input entry
+     */
+    public Condition parse(String text) {
+        String unaryTests = (text == null) ? "" : text.trim();
+        if (unaryTests.isEmpty() || unaryTests.equals("-")) {
+            return Condition.any();
+        }
+        boolean negated = false;
+        Matcher notMatcher = NOT_PATTERN.matcher(unaryTests);
+        if (notMatcher.matches()) {
+            negated = true;
+            unaryTests = notMatcher.group(1).trim();
+        }
+
+        List<Interval> intervals = new ArrayList<>();
+        Set<String> values = new LinkedHashSet<>();
+        for (String unaryTest : splitTopLevel(unaryTests)) {
+            String test = unaryTest.trim();
+            Matcher matcher;
+            if (NUMBER_PATTERN.matcher(test).matches()) {
+                double value = Double.parseDouble(test);
+                intervals.add(new Interval(value, true, value, true));
+            } else if ((matcher = COMPARISON_PATTERN.matcher(test)).matches()) {
+                double value = Double.parseDouble(matcher.group(2));
+                switch (matcher.group(1)) {
+                    case "<":
+                        intervals.add(new Interval(Double.NEGATIVE_INFINITY, false, value, false));
+                        break;
+                    case "<=":
+                        intervals.add(new Interval(Double.NEGATIVE_INFINITY, false, value, true));
+                        break;
+                    case ">":
+                        intervals.add(new Interval(value, false, Double.POSITIVE_INFINITY, false));
+                        break;
+                    default:
+                        intervals.add(new Interval(value, true, Double.POSITIVE_INFINITY, false));
+                        break;
+                }
+            } else if ((matcher = RANGE_PATTERN.matcher(test)).matches()) {
+                intervals.add(new Interval(Double.parseDouble(matcher.group(2)), matcher.group(1).equals("["),
+                        Double.parseDouble(matcher.group(3)), matcher.group(4).equals("]")));
+            } else if ((matcher = STRING_PATTERN.matcher(test)).matches()) {
+                values.add(matcher.group(1));
+            } else if (test.equals("true") || test.equals("false")) {
+                values.add(test);
+            } else {
+                return Condition.unknown(text);
+            }
+        }
+        if (!intervals.isEmpty() && !values.isEmpty()) {
+            return Condition.unknown(text);
+        }
+        if (!intervals.isEmpty()) {
+            List<Interval> union = union(intervals);
+            return Condition.numeric(negated ? complement(union) : union);
+        }
+        return Condition.discrete(values, negated);
+    }
+
+    /**
+     * Method to split a list of unary tests at the commas which are not inside a string or a range
+     * @param unaryTests
+     * @return List of single unary tests
+     */
+    private List<String> splitTopLevel(String unaryTests) {
+        List<String> tests = new ArrayList<>();
+        boolean inString = false;
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < unaryTests.length(); i++) {
+            char c = unaryTests.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                tests.add(unaryTests.substring(start, i));
+                start = i + 1;
+            }
+        }
+        tests.add(unaryTests.substring(start));
+        return tests;
+    }
+
+    /**
+     * Method to merge overlapping intervals into a sorted list of disjoint intervals
+     * @param intervals
+     * @return Sorted disjoint intervals
+     */
+    public List<Interval> union(List<Interval> intervals) {
+        List<Interval> sorted = new ArrayList<>(intervals);
+        sorted.sort(Comparator.comparing(Interval::getStartKey));
+        List<Interval> union = new ArrayList<>();
+        for (Interval interval : sorted) {
+            if (interval.isEmpty()) {
+                continue;
+            }
+            Interval last = union.isEmpty() ? null : union.get(union.size() - 1);
+            if (last != null && interval.getStartKey().compareTo(last.getEndKey()) <= 0) {
+                if (interval.getEndKey().compareTo(last.getEndKey()) > 0) {
+                    union.set(union.size() - 1, new Interval(last.getStartKey(), interval.getEndKey()));
+                }
+            } else {
+                union.add(interval);
+            }
+        }
+        return union;
+    }
+
+    /**
+     * Method to get the parts of the number line which are not covered by sorted disjoint intervals
+     * @param intervals
+     * @return Sorted disjoint intervals
+     */
+    public List<Interval> complement(List<Interval> intervals) {
+        List<Interval> complement = new ArrayList<>();
+        Key start = Key.MIN;
+        for (Interval interval : intervals) {
+            if (start.compareTo(interval.getStartKey()) < 0) {
+                complement.add(new Interval(start, interval.getStartKey()));
+            }
+            start = interval.getEndKey();
+        }
+        if (start.compareTo(Key.MAX) < 0) {
+            complement.add(new Interval(start, Key.MAX));
+        }
+        return complement;
+    }
+
+    /**
+     * The values matched by one input entry
+     */
+    public static class Condition {
+        private final Kind kind;
+        private final List<Interval> intervals;
+        private final Set<String> values;
+        private final boolean negated;
+        private final String text;
+
+        private Condition(Kind kind, List<Interval> intervals, Set<String> values, boolean negated, String text) {
+            this.kind = kind;
+            this.intervals = intervals;
+            this.values = values;
+            this.negated = negated;
+            this.text = text;
+        }
+
+        static Condition any() {
+            return new Condition(Kind.ANY, Collections.emptyList(), Collections.emptySet(), false, null);
+        }
+
+        static Condition unknown(String text) {
+            return new Condition(Kind.UNKNOWN, Collections.emptyList(), Collections.emptySet(), false, text);
+        }
+
+        static Condition numeric(List<Interval> intervals) {
+            return new Condition(Kind.NUMERIC, intervals, Collections.emptySet(), false, null);
+        }
+
+        static Condition discrete(Set<String> values, boolean negated) {
+            return new Condition(Kind.DISCRETE, Collections.emptyList(), values, negated, null);
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * @return Sorted disjoint intervals of a numeric condition, a not(...) is already applied
+         */
+        public List<Interval> getIntervals() {
+            return intervals;
+        }
+
+        /**
+         * @return The listed values of a discrete condition
+         */
+        public Set<String> getValues() {
+            return values;
+        }
+
+        /**
+         * @return true if a discrete condition matches every value except the listed ones
+         */
+        public boolean isNegated() {
+            return negated;
+        }
+
+        /**
+         * @return The original text of an unknown condition
+         */
+        public String getText() {
+            return text;
+        }
+    }
+
+    /**
+     * A position on the number line, a shift of 1 means just after the value
+     * so a closed start and an open end use shift 0, an open start and a closed end use shift 1
+     */
+    public static class Key implements Comparable<Key> {
+        public static final Key MIN = new Key(Double.NEGATIVE_INFINITY, 0);
+        public static final Key MAX = new Key(Double.POSITIVE_INFINITY, 1);
+
+        private final double value;
+        private final int shift;
+
+        public Key(double value, int shift) {
+            this.value = value;
+            this.shift = shift;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        public int getShift() {
+            return shift;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int result = Double.compare(value, other.value);
+            return result != 0 ? result : Integer.compare(shift, other.shift);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && compareTo((Key) other) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Double.hashCode(value) * 31 + shift;
+        }
+    }
+
+    /**
+     * A half open range [startKey, endKey) on the number line
+     */
+    public static class Interval {
+        private final Key startKey;
+        private final Key endKey;
+
+        public Interval(double low, boolean lowClosed, double high, boolean highClosed) {
+            this(Double.isInfinite(low) ? Key.MIN : new Key(low, lowClosed ? 0 : 1),
+                    Double.isInfinite(high) ? Key.MAX : new Key(high, highClosed ? 1 : 0));
+        }
+
+        public Interval(Key startKey, Key endKey) {
+            this.startKey = startKey;
+            this.endKey = endKey;
+        }
+
+        public Key getStartKey() {
+            return startKey;
+        }
+
+        public Key getEndKey() {
+            return endKey;
+        }
+
+        public boolean isEmpty() {
+            return startKey.compareTo(endKey) >= 0;
+        }
+
+        /**
+         * @return The interval as FEEL unary test, e.g. "[1..5[", "< 3" or "7"
+         */
+        @Override
+        public String toString() {
+            boolean unboundedStart = startKey.equals(Key.MIN);
+            boolean unboundedEnd = endKey.equals(Key.MAX);
+            if (unboundedStart && unboundedEnd) {
+                return "-";
+            }
+            if (unboundedStart) {
+                return (endKey.shift == 1 ? "<= " : "< ") + format(endKey.value);
+            }
+            if (unboundedEnd) {
+                return (startKey.shift == 0 ? ">= " : "> ") + format(startKey.value);
+            }
+            if (startKey.value == endKey.value && startKey.shift == 0 && endKey.shift == 1) {
+                return format(startKey.value);
+            }
+            return (startKey.shift == 0 ? "[" : "]") + format(startKey.value) + ".."
+                    + format(endKey.value) + (endKey.shift == 1 ? "]" : "[");
+        }
+
+        private static String format(double value) {
+            return (value == Math.rint(value) && Math.abs(value) < 1e15) ? String.valueOf((long) value) : String.valueOf(value);
+        }
+    }
+}
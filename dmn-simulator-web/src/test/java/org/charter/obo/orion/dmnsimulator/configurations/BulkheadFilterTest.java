@@ -0,0 +1,105 @@
+package org.charter.obo.orion.dmnsimulator.configurations;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.charter.obo.orion.dmnsimulator.services.BulkheadService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Checks that the filter finds the bulkhead of a request behind a context path and rejects it with 503 when the bulkhead is full
+ */
+class BulkheadFilterTest {
+
+  private BulkheadService bulkheadService;
+
+  private BulkheadFilter bulkheadFilter;
+
+  @BeforeEach
+  void setUp() {
+    bulkheadService = new BulkheadService();
+    ReflectionTestUtils.setField(bulkheadService, "enabled", true);
+    ReflectionTestUtils.setField(bulkheadService, "metadataMaxConcurrent", 1);
+    ReflectionTestUtils.setField(bulkheadService, "metadataMaxQueued", 0);
+    ReflectionTestUtils.setField(bulkheadService, "metadataMaxWaitMillis", 1000L);
+    ReflectionTestUtils.setField(bulkheadService, "interactiveMaxConcurrent", 1);
+    ReflectionTestUtils.setField(bulkheadService, "interactiveMaxQueued", 0);
+    ReflectionTestUtils.setField(bulkheadService, "interactiveMaxWaitMillis", 1000L);
+    ReflectionTestUtils.setField(bulkheadService, "bulkMaxConcurrent", 1);
+    ReflectionTestUtils.setField(bulkheadService, "bulkMaxQueued", 0);
+    ReflectionTestUtils.setField(bulkheadService, "bulkMaxWaitMillis", 1000L);
+    ReflectionTestUtils.setField(bulkheadService, "requestThreads", 200);
+    bulkheadService.init();
+    bulkheadFilter = new BulkheadFilter();
+    ReflectionTestUtils.setField(bulkheadFilter, "bulkheadService", bulkheadService);
+  }
+
+  @Test
+  void rejectsRequestsOfAFullBulkheadBehindTheContextPath() throws Exception {
+    BulkheadService.Bulkhead metadata = bulkheadService.getBulkhead("GET", "/dmnSimulator/inputNames");
+    assertTrue(metadata.acquire());
+
+    MockHttpServletResponse rejected = filter("GET", "/simulator", "/dmnSimulator/repository/Beverages.dmn/inputNames");
+    assertEquals(HttpServletResponse.SC_SERVICE_UNAVAILABLE, rejected.getStatus());
+    assertEquals("1", rejected.getHeader("Retry-After"));
+    assertEquals("{\"error\":\"The metadata bulkhead is full\"}", rejected.getContentAsString());
+
+    // the other bulkheads still admit requests, and the permit is given back after the request
+    MockHttpServletResponse admitted = filter("POST", "/simulator", "/dmnSimulator/evaluateDecision");
+    assertEquals(HttpServletResponse.SC_OK, admitted.getStatus());
+    assertEquals(0, statistics(BulkheadService.INTERACTIVE).get("active"));
+    assertEquals(1L, statistics(BulkheadService.INTERACTIVE).get("accepted"));
+    assertEquals(1L, statistics(BulkheadService.METADATA).get("rejected"));
+    metadata.release();
+  }
+
+  @Test
+  void passesRequestsInNoBulkhead() throws Exception {
+    BulkheadService.Bulkhead metadata = bulkheadService.getBulkhead("GET", "/dmnSimulator/inputNames");
+    assertTrue(metadata.acquire());
+
+    MockFilterChain filterChain = new MockFilterChain();
+    MockHttpServletRequest request = request("GET", "/simulator", "/dmnSimulator/cache");
+    bulkheadFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+    assertNotNull(filterChain.getRequest());
+    assertEquals(0L, statistics(BulkheadService.METADATA).get("rejected"));
+    metadata.release();
+  }
+
+  @Test
+  void findsNoBulkheadWithoutTheContextPath() throws Exception {
+    assertNull(bulkheadService.getBulkhead("GET", "/simulator/dmnSimulator/inputNames"));
+    MockHttpServletResponse response = filter("GET", "", "/dmnSimulator/inputNames");
+    assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+    assertEquals(1L, statistics(BulkheadService.METADATA).get("accepted"));
+  }
+
+  private MockHttpServletResponse filter(String method, String contextPath, String path) throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    bulkheadFilter.doFilter(request(method, contextPath, path), response, new MockFilterChain());
+    return response;
+  }
+
+  private static MockHttpServletRequest request(String method, String contextPath, String path) {
+    MockHttpServletRequest request = new MockHttpServletRequest(method, contextPath + path);
+    request.setContextPath(contextPath);
+    return request;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> statistics(String bulkhead) {
+    return (Map<String, Object>) bulkheadService.getStatistics().get(bulkhead);
+  }
+}
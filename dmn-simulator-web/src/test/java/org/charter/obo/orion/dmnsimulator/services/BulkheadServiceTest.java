@@ -0,0 +1,149 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Checks the admission, queueing, rejection and timeout of the bulkheads, their counters and which bulkhead a path is in
+ */
+class BulkheadServiceTest {
+
+    private BulkheadService bulkheadService;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        bulkheadService = new BulkheadService();
+        ReflectionTestUtils.setField(bulkheadService, "enabled", true);
+        ReflectionTestUtils.setField(bulkheadService, "metadataMaxConcurrent", 1);
+        ReflectionTestUtils.setField(bulkheadService, "metadataMaxQueued", 1);
+        ReflectionTestUtils.setField(bulkheadService, "metadataMaxWaitMillis", 10000L);
+        ReflectionTestUtils.setField(bulkheadService, "interactiveMaxConcurrent", 2);
+        ReflectionTestUtils.setField(bulkheadService, "interactiveMaxQueued", 2);
+        ReflectionTestUtils.setField(bulkheadService, "interactiveMaxWaitMillis", 10000L);
+        ReflectionTestUtils.setField(bulkheadService, "bulkMaxConcurrent", 1);
+        ReflectionTestUtils.setField(bulkheadService, "bulkMaxQueued", 1);
+        ReflectionTestUtils.setField(bulkheadService, "bulkMaxWaitMillis", 50L);
+        ReflectionTestUtils.setField(bulkheadService, "requestThreads", 200);
+        bulkheadService.init();
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void admitsWhilePermitsAreFree() throws Exception {
+        BulkheadService.Bulkhead interactive = bulkheadService.getBulkhead("POST", "/dmnSimulator/evaluateDecision");
+
+        assertTrue(interactive.acquire());
+        assertTrue(interactive.acquire());
+        Map<String, Object> statistics = statistics(BulkheadService.INTERACTIVE);
+        assertEquals(2, statistics.get("active"));
+        assertEquals(2, statistics.get("peakActive"));
+        assertEquals(2L, statistics.get("accepted"));
+        assertEquals(0L, statistics.get("waited"));
+
+        interactive.release();
+        interactive.release();
+        assertEquals(0, statistics(BulkheadService.INTERACTIVE).get("active"));
+        assertEquals(2, statistics(BulkheadService.INTERACTIVE).get("peakActive"));
+    }
+
+    @Test
+    void queuesUntilReleaseAndRejectsWhenQueueIsFull() throws Exception {
+        BulkheadService.Bulkhead metadata = bulkheadService.getBulkhead("GET", "/dmnSimulator/inputNames");
+        assertTrue(metadata.acquire());
+
+        Future<Boolean> queuedRequest = executor.submit(metadata::acquire);
+        waitForQueued(BulkheadService.METADATA, 1);
+        // the only permit is taken and the only queue place too
+        assertFalse(metadata.acquire());
+        assertFalse(queuedRequest.isDone());
+
+        metadata.release();
+        assertTrue(queuedRequest.get(5, TimeUnit.SECONDS));
+        metadata.release();
+
+        Map<String, Object> statistics = statistics(BulkheadService.METADATA);
+        assertEquals(2L, statistics.get("accepted"));
+        assertEquals(1L, statistics.get("rejected"));
+        assertEquals(0L, statistics.get("timedOut"));
+        assertEquals(1L, statistics.get("waited"));
+        assertEquals(1, statistics.get("peakActive"));
+        assertEquals(1, statistics.get("peakQueued"));
+        assertEquals(0, statistics.get("queued"));
+        assertEquals(0, statistics.get("active"));
+    }
+
+    @Test
+    void queuedRequestTimesOutAfterMaxWait() throws Exception {
+        BulkheadService.Bulkhead bulk = bulkheadService.getBulkhead("POST", "/dmnSimulator/runTestSuite");
+        assertTrue(bulk.acquire());
+
+        long start = System.nanoTime();
+        assertFalse(bulk.acquire());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 45L);
+        bulk.release();
+
+        Map<String, Object> statistics = statistics(BulkheadService.BULK);
+        assertEquals(1L, statistics.get("accepted"));
+        assertEquals(0L, statistics.get("rejected"));
+        assertEquals(1L, statistics.get("timedOut"));
+        assertEquals(1L, statistics.get("waited"));
+        assertEquals(1, statistics.get("peakQueued"));
+        assertEquals(0, statistics.get("queued"));
+    }
+
+    @Test
+    void mapsPathsToBulkheads() {
+        assertEquals(BulkheadService.INTERACTIVE, name("POST", "/dmnSimulator/evaluateDecision"));
+        assertEquals(BulkheadService.INTERACTIVE, name("POST", "/dmnSimulator/reevaluateDecision"));
+        assertEquals(BulkheadService.INTERACTIVE, name("POST", "/dmnSimulator/repository/Beverages.dmn/evaluateDecision"));
+        assertEquals(BulkheadService.INTERACTIVE, name("PUT", "/dmnSimulator/sessions/1/variables"));
+        assertEquals(BulkheadService.METADATA, name("POST", "/dmnSimulator/allDetails"));
+        assertEquals(BulkheadService.METADATA, name("GET", "/dmnSimulator/repository/Beverages.dmn/decisionNames"));
+        assertEquals(BulkheadService.BULK, name("POST", "/dmnSimulator/generateTestCases"));
+        assertEquals(BulkheadService.BULK, name("GET", "/dmnSimulator/audit/export"));
+        // statistics, the event streams of sessions and paths which still have the context path are in no bulkhead
+        assertNull(bulkheadService.getBulkhead("GET", "/dmnSimulator/cache"));
+        assertNull(bulkheadService.getBulkhead("GET", "/dmnSimulator/sessions/1/events"));
+        assertNull(bulkheadService.getBulkhead("POST", "/simulator/dmnSimulator/evaluateDecision"));
+
+        ReflectionTestUtils.setField(bulkheadService, "enabled", false);
+        assertNull(bulkheadService.getBulkhead("POST", "/dmnSimulator/evaluateDecision"));
+    }
+
+    private String name(String method, String path) {
+        return bulkheadService.getBulkhead(method, path).getName();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> statistics(String bulkhead) {
+        return (Map<String, Object>) bulkheadService.getStatistics().get(bulkhead);
+    }
+
+    private void waitForQueued(String bulkhead, int queued) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (!Integer.valueOf(queued).equals(statistics(bulkhead).get("queued"))) {
+            assertTrue(System.currentTimeMillis() < deadline, "No request is waiting in " + bulkhead);
+            Thread.sleep(5L);
+        }
+    }
+}
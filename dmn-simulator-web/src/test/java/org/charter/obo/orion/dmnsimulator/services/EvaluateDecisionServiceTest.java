@@ -0,0 +1,146 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+
+import org.charter.obo.orion.dmnsimulator.listerners.SimulatorDecisionTableEvaluationListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Compares the re-evaluation of an incremental evaluation of Beverages.dmn with a full evaluation of the same variables
+ */
+class EvaluateDecisionServiceTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private EvaluateDecisionService evaluateDecisionService;
+
+    private String beverages;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        SpanTracingService spanTracingService = new SpanTracingService();
+        DmnModelCacheService dmnModelCacheService = new DmnModelCacheService();
+        ReflectionTestUtils.setField(dmnModelCacheService, "spanTracingService", spanTracingService);
+        dmnModelCacheService.setMaxModels(10);
+        dmnModelCacheService.setMaxWeightMb(64);
+        EvaluationHandleService evaluationHandleService = new EvaluationHandleService();
+        ReflectionTestUtils.setField(evaluationHandleService, "maxHandles", 100);
+        ReflectionTestUtils.setField(evaluationHandleService, "handleTtlSeconds", 900L);
+
+        evaluateDecisionService = new EvaluateDecisionService();
+        ReflectionTestUtils.setField(evaluateDecisionService, "evaluationListener", new SimulatorDecisionTableEvaluationListener());
+        ReflectionTestUtils.setField(evaluateDecisionService, "dmnModelCacheService", dmnModelCacheService);
+        ReflectionTestUtils.setField(evaluateDecisionService, "evaluationAuditService", new EvaluationAuditService());
+        ReflectionTestUtils.setField(evaluateDecisionService, "spanTracingService", spanTracingService);
+        ReflectionTestUtils.setField(evaluateDecisionService, "expressionProfilerService", new ExpressionProfilerService());
+        ReflectionTestUtils.setField(evaluateDecisionService, "evaluationHandleService", evaluationHandleService);
+        ReflectionTestUtils.setField(evaluateDecisionService, "sharedInputs", true);
+
+        try (InputStream in = getClass().getResourceAsStream("/Beverages.dmn");
+             Scanner scanner = new Scanner(in, StandardCharsets.UTF_8.name())) {
+            beverages = scanner.useDelimiter("\\A").next();
+        }
+    }
+
+    @Test
+    void reevaluationMatchesFullEvaluation() throws Exception {
+        JsonNode evaluation = evaluate(request("Winter", 6, true, true));
+        String handle = evaluation.get("evaluationHandle").asText();
+
+        for (String season : Arrays.asList("Fall", "Spring", "Summer")) {
+            JsonNode reevaluation = reevaluate(handle, variable("season", season, "String"));
+            assertEquals(withoutHandle(evaluate(request(season, 6, true, false))), withoutHandle(reevaluation), season);
+            assertEquals(Arrays.asList("dish", "beverages"), reevaluatedDecisions(reevaluation), season);
+            assertTrue(reevaluation.get("Dish").get("rules").size() > 0, season);
+        }
+
+        // only beverages reads guestsWithChildren, so the dish of the earlier evaluation is reused
+        JsonNode reevaluation = reevaluate(handle, variable("guestsWithChildren", false, "Boolean"));
+        assertEquals(withoutHandle(evaluate(request("Winter", 6, false, false))), withoutHandle(reevaluation));
+        assertEquals(Arrays.asList("beverages"), reevaluatedDecisions(reevaluation));
+        assertEquals("\"row-506282952-2\"", reevaluation.get("Dish").get("rules").get(0).get("ruleId").toString());
+    }
+
+    @Test
+    void reevaluationValidatesMergedVariables() throws Exception {
+        String handle = evaluate(request("Winter", 6, true, true)).get("evaluationHandle").asText();
+
+        JsonNode untyped = reevaluate(handle, variable("guestCount", "many", null));
+        assertEquals("guestCount", untyped.get("validationErrors").get(0).get("variable").asText());
+        assertEquals("integer", untyped.get("validationErrors").get(0).get("expectedType").asText());
+        assertFalse(untyped.has("Dish"));
+        assertFalse(untyped.has("evaluationHandle"));
+
+        JsonNode mistyped = reevaluate(handle, variable("guestCount", "ten", "Integer"));
+        assertEquals("guestCount", mistyped.get("validationErrors").get(0).get("variable").asText());
+        assertFalse(mistyped.has("Dish"));
+
+        // the rejected changes were not applied to the handle
+        JsonNode valid = reevaluate(handle, variable("guestCount", 10, "Integer"));
+        assertEquals(withoutHandle(evaluate(request("Winter", 10, true, false))), withoutHandle(valid));
+    }
+
+    private ObjectNode request(String season, int guestCount, boolean guestsWithChildren, boolean incremental) {
+        ObjectNode requestNode = MAPPER.createObjectNode();
+        ObjectNode variablesNode = requestNode.putObject("variables");
+        variablesNode.setAll(variable("season", season, "String"));
+        variablesNode.setAll(variable("guestCount", guestCount, "Integer"));
+        variablesNode.setAll(variable("guestsWithChildren", guestsWithChildren, "Boolean"));
+        requestNode.put("decision", "beverages");
+        requestNode.put("xml", beverages);
+        if (incremental) {
+            requestNode.put("incremental", true);
+        }
+        return requestNode;
+    }
+
+    private static ObjectNode variable(String name, Object value, String type) {
+        ObjectNode variablesNode = MAPPER.createObjectNode();
+        ObjectNode variableNode = variablesNode.putObject(name);
+        variableNode.set("value", MAPPER.valueToTree(value));
+        if (type != null) {
+            variableNode.put("type", type);
+        }
+        return variablesNode;
+    }
+
+    private JsonNode evaluate(ObjectNode requestNode) throws Exception {
+        return MAPPER.readTree(evaluateDecisionService.evaluateDecision(requestNode.toString(), false).toString());
+    }
+
+    private JsonNode reevaluate(String handle, ObjectNode variablesNode) throws Exception {
+        ObjectNode requestNode = MAPPER.createObjectNode();
+        requestNode.put("evaluationHandle", handle);
+        requestNode.set("variables", variablesNode);
+        return MAPPER.readTree(evaluateDecisionService.reevaluateDecision(requestNode.toString(), false).toString());
+    }
+
+    private static JsonNode withoutHandle(JsonNode rootNode) {
+        ObjectNode copy = rootNode.deepCopy();
+        copy.remove(Arrays.asList("evaluationHandle", "reevaluatedDecisions"));
+        return copy;
+    }
+
+    private static List<String> reevaluatedDecisions(JsonNode rootNode) {
+        List<String> keys = new ArrayList<>();
+        for (JsonNode key : rootNode.get("reevaluatedDecisions")) {
+            keys.add(key.asText());
+        }
+        return keys;
+    }
+}
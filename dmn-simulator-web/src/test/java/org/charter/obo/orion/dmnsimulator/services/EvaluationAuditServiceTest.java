@@ -0,0 +1,164 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnEngine;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionLogicEvaluationEvent;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionTableEvaluationEvent;
+import org.camunda.bpm.dmn.engine.delegate.DmnEvaluatedDecisionRule;
+import org.camunda.bpm.dmn.engine.impl.DefaultDmnEngineConfiguration;
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.engine.variable.Variables;
+import org.camunda.bpm.engine.variable.value.TypedValue;
+import org.charter.obo.orion.dmnsimulator.engine.DecisionEvaluator;
+import org.charter.obo.orion.dmnsimulator.engine.MultiDecisionContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Writes evaluations of Beverages.dmn into the audit log across several segments and reads them back with the EvaluationAuditReader
+ */
+class EvaluationAuditServiceTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String[] SEASONS = { "Fall", "Winter", "Spring", "Summer" };
+
+    private Path directory;
+
+    private EvaluationAuditService evaluationAuditService;
+
+    private DefaultDmnEngineConfiguration configuration;
+
+    private List<DmnDecision> decisions;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        directory = Files.createTempDirectory("audit");
+        evaluationAuditService = new EvaluationAuditService();
+        ReflectionTestUtils.setField(evaluationAuditService, "enabled", true);
+        ReflectionTestUtils.setField(evaluationAuditService, "auditDirectory", directory.toString());
+        ReflectionTestUtils.setField(evaluationAuditService, "segmentSizeMb", 1);
+        ReflectionTestUtils.setField(evaluationAuditService, "queueCapacity", 10000);
+        ReflectionTestUtils.setField(evaluationAuditService, "forceIntervalMillis", 100L);
+
+        configuration = DecisionEvaluator.createEngineConfiguration();
+        DmnEngine dmnEngine = configuration.buildEngine();
+        try (InputStream in = getClass().getResourceAsStream("/Beverages.dmn")) {
+            decisions = dmnEngine.parseDecisions(in);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        evaluationAuditService.stop();
+        for (Path segmentFile : EvaluationAuditService.listSegments(directory)) {
+            Files.delete(segmentFile);
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    void readsBackRecordsWrittenAcrossSegments() throws Exception {
+        evaluationAuditService.start();
+        DmnDecision beverages = DecisionEvaluator.findDecision("beverages", decisions);
+        // about 1 KB per record, so 2500 records fill three segments of 1 MB
+        char[] padding = new char[1000];
+        Arrays.fill(padding, 'x');
+        List<ObjectNode> expected = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            if (i == 1200) {
+                // a new decision key and variable, and larger than an empty segment, so it is dropped with its dictionary entries
+                char[] huge = new char[2 * 1024 * 1024];
+                Arrays.fill(huge, 'y');
+                VariableMap variables = Variables.createVariables().putValueTyped("note", Variables.stringValue("oversized"));
+                evaluationAuditService.record("model-1", "oversized", variables, Collections.<DmnDecisionTableEvaluationEvent>emptyList(),
+                        "\"" + new String(huge) + "\"");
+            }
+            VariableMap variables = Variables.createVariables()
+                    .putValueTyped("season", Variables.stringValue(SEASONS[i % SEASONS.length]))
+                    .putValueTyped("guestCount", Variables.integerValue(1 + i % 12))
+                    .putValueTyped("guestsWithChildren", Variables.booleanValue(i % 3 == 0));
+            List<DmnDecisionTableEvaluationEvent> events = evaluate(beverages, variables);
+            String outputs = MAPPER.createObjectNode().put("record", i).put("padding", new String(padding)).toString();
+            evaluationAuditService.record(i % 2 == 0 ? "model-1" : "model-2", beverages.getKey(), variables, events, outputs);
+            expected.add(expectedRecord(i % 2 == 0 ? "model-1" : "model-2", beverages.getKey(), variables, events, outputs));
+        }
+        evaluationAuditService.stop();
+
+        Map<String, Object> statistics = evaluationAuditService.getStatistics();
+        assertEquals(2500L, statistics.get("recordsWritten"));
+        assertEquals(1L, statistics.get("recordsDropped"));
+        assertTrue((Long) statistics.get("segmentsStarted") >= 3L, statistics.toString());
+        assertTrue(EvaluationAuditService.listSegments(directory).size() >= 3);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(2500L, new EvaluationAuditReader(directory).export(out));
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(2500, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            JsonNode actual = MAPPER.readTree(lines[i]);
+            for (String field : new String[] { "modelHash", "decision", "inputs", "matchedRules", "outputs" }) {
+                assertEquals(expected.get(i).get(field), actual.get(field), "record " + i + " " + field);
+            }
+        }
+    }
+
+    /**
+     * Evaluates a decision with its required decisions and returns the events of the evaluated decision tables
+     */
+    private List<DmnDecisionTableEvaluationEvent> evaluate(DmnDecision decision, VariableMap variables) {
+        MultiDecisionContext decisionContext = new MultiDecisionContext(configuration, false, false);
+        decisionContext.evaluateDecisions(Collections.singletonList(decision), variables.asVariableContext());
+        List<DmnDecisionTableEvaluationEvent> events = new ArrayList<>();
+        for (DmnDecisionLogicEvaluationEvent event : decisionContext.getEvaluationEvents().values()) {
+            events.add((DmnDecisionTableEvaluationEvent) event);
+        }
+        return events;
+    }
+
+    /**
+     * Builds the line the reader exports for a record, without the segment and the timestamp
+     */
+    private static ObjectNode expectedRecord(String modelHash, String decisionKey, VariableMap variables,
+                                             List<DmnDecisionTableEvaluationEvent> events, String outputs) throws IOException {
+        ObjectNode record = MAPPER.createObjectNode();
+        record.put("modelHash", modelHash);
+        record.put("decision", decisionKey);
+        ObjectNode inputs = record.putObject("inputs");
+        for (String name : variables.keySet()) {
+            TypedValue typedValue = variables.getValueTyped(name);
+            inputs.putObject(name).put("type", typedValue.getType().getName()).put("value", String.valueOf(typedValue.getValue()));
+        }
+        for (DmnDecisionTableEvaluationEvent event : events) {
+            for (DmnEvaluatedDecisionRule rule : event.getMatchingRules()) {
+                record.withArray("matchedRules").addObject().put("decision", event.getDecision().getKey()).put("ruleId", rule.getId());
+            }
+        }
+        if (!record.has("matchedRules")) {
+            record.putArray("matchedRules");
+        }
+        record.set("outputs", MAPPER.readTree(outputs));
+        return record;
+    }
+}
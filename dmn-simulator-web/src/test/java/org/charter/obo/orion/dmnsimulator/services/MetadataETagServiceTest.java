@@ -0,0 +1,90 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import org.charter.obo.orion.dmnsimulator.engine.DmnModelCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Checks that the ETags of the metadata endpoints depend on the model, the decision and the response format
+ */
+class MetadataETagServiceTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String XML = "<definitions id=\"d\" name=\"Caf\u00e9 \\\"special\\\"\">\n</definitions>";
+
+    private MetadataETagService metadataETagService;
+
+    @BeforeEach
+    void setUp() {
+        metadataETagService = new MetadataETagService();
+        ReflectionTestUtils.setField(metadataETagService, "streamingRequestService", new StreamingRequestService());
+        ReflectionTestUtils.setField(metadataETagService, "cacheControl", "no-cache");
+    }
+
+    @Test
+    void hashesTheUnescapedXmlLikeTheRepository() {
+        byte[] xml = XML.getBytes(StandardCharsets.UTF_8);
+        String modelHash = DmnModelCache.getModelHash(xml, xml.length);
+
+        assertEquals(metadataETagService.getETag("inputNames", modelHash, "Dish", null),
+                metadataETagService.getETag("inputNames", request("Dish"), true, null));
+        assertEquals(metadataETagService.getETag("decisionNames", modelHash, null, null),
+                metadataETagService.getETag("decisionNames", request("Dish"), false, null));
+        assertNotEquals(metadataETagService.getETag("inputNames", request("Dish"), true, null),
+                metadataETagService.getETag("inputNames", request("Beverages"), true, null));
+        assertNull(metadataETagService.getETag("inputNames", "{\"decision\": \"Dish\"}", true, null));
+    }
+
+    @Test
+    void keepsOneETagPerResponseFormat() {
+        String json = metadataETagService.getETag("decisionNames", request(null), false, null);
+
+        assertEquals(json, metadataETagService.getETag("decisionNames", request(null), false, "application/json"));
+        assertEquals(json, metadataETagService.getETag("decisionNames", request(null), false, "*/*"));
+        String smile = metadataETagService.getETag("decisionNames", request(null), false, "application/x-jackson-smile");
+        String cbor = metadataETagService.getETag("decisionNames", request(null), false, "application/cbor");
+        assertNotEquals(json, smile);
+        assertNotEquals(json, cbor);
+        assertNotEquals(smile, cbor);
+    }
+
+    @Test
+    void variesByAccept() {
+        String eTag = metadataETagService.getETag("decisionNames", request(null), false, null);
+
+        ResponseEntity<Object> response = metadataETagService.respond(eTag, null, Collections::emptyList);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(eTag, response.getHeaders().getETag());
+        assertEquals(Collections.singletonList(HttpHeaders.ACCEPT), response.getHeaders().getVary());
+
+        ResponseEntity<Object> notModified = metadataETagService.respond(eTag, "W/" + eTag, () -> {
+            throw new AssertionError("The response is not computed for a matching ETag");
+        });
+        assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        assertEquals(Collections.singletonList(HttpHeaders.ACCEPT), notModified.getHeaders().getVary());
+    }
+
+    private static String request(String decision) {
+        ObjectNode requestNode = MAPPER.createObjectNode();
+        if (decision != null) {
+            requestNode.put("decision", decision);
+        }
+        requestNode.put("xml", XML);
+        return requestNode.toString();
+    }
+}
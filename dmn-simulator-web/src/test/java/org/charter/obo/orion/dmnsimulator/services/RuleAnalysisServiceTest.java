@@ -0,0 +1,136 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnEngine;
+import org.charter.obo.orion.dmnsimulator.engine.DecisionEvaluator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Checks the overlaps and gaps found by the RuleAnalysisService and that the explored regions stay within max-regions
+ */
+class RuleAnalysisServiceTest {
+
+    private static final int MAX_REGIONS = 100000;
+
+    private DmnEngine dmnEngine;
+
+    private RuleAnalysisService ruleAnalysisService;
+
+    @BeforeEach
+    void setUp() {
+        dmnEngine = DecisionEvaluator.createEngineConfiguration().buildEngine();
+        ruleAnalysisService = new RuleAnalysisService();
+        ReflectionTestUtils.setField(ruleAnalysisService, "unaryTestsService", new UnaryTestsService());
+        ReflectionTestUtils.setField(ruleAnalysisService, "maxRegions", MAX_REGIONS);
+    }
+
+    @Test
+    void findsGapsOfDishTable() throws Exception {
+        DmnDecision dish;
+        try (InputStream in = getClass().getResourceAsStream("/Beverages.dmn")) {
+            dish = dmnEngine.parseDecision("dish", in);
+        }
+
+        RuleAnalysisService.Analysis analysis = ruleAnalysisService.analyze(dish, 100, 100);
+
+        assertEquals(Collections.emptyList(), analysis.getOverlaps());
+        // fractional guest counts between the two spring rules, and negative counts in the default rule
+        assertEquals(new HashSet<>(Arrays.asList(Arrays.asList("\"Spring\"", "]4..5["), Arrays.asList("other values", "< 0"))),
+                toSet(analysis.getGaps()));
+        assertFalse(analysis.isGapsTruncated());
+    }
+
+    @Test
+    void analyzesLargeTableWithLinearRegions() {
+        int intervals = 20000;
+        List<String[]> rules = new ArrayList<>();
+        for (int i = 0; i < intervals; i++) {
+            rules.add(new String[] { "[" + i + ".." + (i + 1) + "[", "true" });
+            rules.add(new String[] { "[" + i + ".." + (i + 1) + "[", "false" });
+        }
+        rules.add(new String[] { "[5..6[", "-" });
+
+        RuleAnalysisService.Analysis analysis = ruleAnalysisService.analyze(parseTable(rules), 1000, 100);
+
+        assertEquals(new HashSet<>(Arrays.asList(Arrays.asList("rule10", "rule" + 2 * intervals), Arrays.asList("rule11", "rule" + 2 * intervals))),
+                new HashSet<>(analysis.getOverlaps()));
+        assertEquals(new HashSet<>(Arrays.asList(Arrays.asList("< 0", null), Arrays.asList(">= " + intervals, null))), toSet(analysis.getGaps()));
+        assertFalse(analysis.isOverlapsTruncated());
+        assertFalse(analysis.isGapsTruncated());
+        // every interval is explored once by the overlap and once by the gap search
+        assertTrue(analysis.getExploredRegions() <= 2 * intervals + 4, String.valueOf(analysis.getExploredRegions()));
+    }
+
+    @Test
+    void stopsAtMaxRegionsWhenRegionsMultiply() {
+        ReflectionTestUtils.setField(ruleAnalysisService, "maxRegions", 1000);
+        int columns = 10;
+        List<String[]> rules = new ArrayList<>();
+        for (int column = 0; column < columns; column++) {
+            for (int value = 0; value < 3; value++) {
+                String[] entries = new String[columns];
+                Arrays.fill(entries, "-");
+                entries[column] = String.valueOf(value);
+                rules.add(entries);
+            }
+        }
+
+        // without the limit the gap search alone would explore about 7^9 regions
+        RuleAnalysisService.Analysis analysis = ruleAnalysisService.analyze(parseTable(rules), Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+        assertTrue(analysis.isGapsTruncated());
+        assertTrue(analysis.getExploredRegions() <= 2 * 1000, String.valueOf(analysis.getExploredRegions()));
+    }
+
+    private static Set<List<String>> toSet(List<String[]> gaps) {
+        Set<List<String>> set = new HashSet<>();
+        for (String[] gap : gaps) {
+            set.add(Arrays.asList(gap));
+        }
+        return set;
+    }
+
+    /**
+     * Parses a COLLECT decision table with one integer input column per entry of a rule, boolean if the entries are booleans
+     */
+    private DmnDecision parseTable(List<String[]> rules) {
+        int columns = rules.get(0).length;
+        StringBuilder xml = new StringBuilder();
+        xml.append("<definitions xmlns=\"https://www.omg.org/spec/DMN/20191111/MODEL/\" id=\"analysis\" name=\"Analysis\" namespace=\"test\">");
+        xml.append("<decision id=\"table\" name=\"Table\"><decisionTable id=\"decisionTable\" hitPolicy=\"COLLECT\">");
+        for (int column = 0; column < columns; column++) {
+            String typeRef = "true".equals(rules.get(0)[column]) ? "boolean" : "integer";
+            xml.append("<input id=\"input").append(column).append("\" label=\"c").append(column).append("\">")
+                    .append("<inputExpression id=\"inputExpression").append(column).append("\" typeRef=\"").append(typeRef).append("\">")
+                    .append("<text>c").append(column).append("</text></inputExpression></input>");
+        }
+        xml.append("<output id=\"output\" name=\"result\" typeRef=\"string\" />");
+        for (int rule = 0; rule < rules.size(); rule++) {
+            xml.append("<rule id=\"rule").append(rule).append("\">");
+            for (int column = 0; column < columns; column++) {
+                xml.append("<inputEntry id=\"entry").append(rule).append('_').append(column).append("\"><text>")
+                        .append(rules.get(rule)[column].replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;"))
+                        .append("</text></inputEntry>");
+            }
+            xml.append("<outputEntry id=\"output").append(rule).append("\"><text>\"").append(rule).append("\"</text></outputEntry></rule>");
+        }
+        xml.append("</decisionTable></decision></definitions>");
+        return dmnEngine.parseDecision("table", new ByteArrayInputStream(xml.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+}
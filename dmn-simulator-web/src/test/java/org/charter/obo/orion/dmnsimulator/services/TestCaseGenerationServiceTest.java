@@ -0,0 +1,138 @@
+package org.charter.obo.orion.dmnsimulator.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Scanner;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Generates the test cases of Beverages.dmn, checks that they hit every rule and runs them again as a test suite
+ */
+class TestCaseGenerationServiceTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final Set<String> DISH_RULES = new HashSet<>(Arrays.asList("row-884555325-1", "row-506282952-1", "row-506282952-2",
+            "row-506282952-3", "row-506282952-4", "row-506282952-5", "row-506282952-6"));
+
+    private TestSuiteService testSuiteService;
+
+    private TestCaseGenerationService testCaseGenerationService;
+
+    private String beverages;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DmnModelCacheService dmnModelCacheService = new DmnModelCacheService();
+        ReflectionTestUtils.setField(dmnModelCacheService, "spanTracingService", new SpanTracingService());
+        dmnModelCacheService.setMaxModels(10);
+        dmnModelCacheService.setMaxWeightMb(64);
+
+        testSuiteService = new TestSuiteService();
+        ReflectionTestUtils.setField(testSuiteService, "threads", 2);
+        ReflectionTestUtils.setField(testSuiteService, "maxFailures", 1000);
+        ReflectionTestUtils.setField(testSuiteService, "sharedInputs", true);
+        ReflectionTestUtils.setField(testSuiteService, "dmnModelCacheService", dmnModelCacheService);
+        testSuiteService.start();
+
+        testCaseGenerationService = new TestCaseGenerationService();
+        ReflectionTestUtils.setField(testCaseGenerationService, "maxCases", 10000);
+        ReflectionTestUtils.setField(testCaseGenerationService, "sharedInputs", true);
+        ReflectionTestUtils.setField(testCaseGenerationService, "dmnModelCacheService", dmnModelCacheService);
+        ReflectionTestUtils.setField(testCaseGenerationService, "decisionKeyService", new DecisionKeyService());
+        ReflectionTestUtils.setField(testCaseGenerationService, "unaryTestsService", new UnaryTestsService());
+        ReflectionTestUtils.setField(testCaseGenerationService, "testSuiteService", testSuiteService);
+
+        try (InputStream in = getClass().getResourceAsStream("/Beverages.dmn");
+             Scanner scanner = new Scanner(in, StandardCharsets.UTF_8.name())) {
+            beverages = scanner.useDelimiter("\\A").next();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        testSuiteService.stop();
+    }
+
+    @Test
+    void generatedCasesHitEveryRuleOfDishTable() throws Exception {
+        JsonNode generated = generate("Dish");
+
+        JsonNode dish = generated.get("tables").get("dish");
+        assertEquals(7, dish.get("rules").asInt());
+        assertEquals(7, dish.get("coveredRules").asInt());
+        assertEquals(0, dish.get("uncoveredRules").size());
+        assertEquals(0, dish.get("unsatisfiableRules").size());
+        assertFalse(generated.get("tables").has("beverages"));
+
+        Set<String> hitRules = new HashSet<>();
+        for (JsonNode testCase : generated.get("cases")) {
+            assertFalse(testCase.has("error"), testCase.toString());
+            for (JsonNode ruleId : testCase.get("expectedRules")) {
+                hitRules.add(ruleId.asText());
+            }
+            // the case built for a rule hits this rule
+            String name = testCase.get("name").asText();
+            if (name.startsWith("Dish: rule ")) {
+                assertEquals(name.substring("Dish: rule ".length()), testCase.get("expectedRules").get(0).asText(), name);
+            }
+        }
+        assertEquals(DISH_RULES, hitRules);
+        // every boundary of the guest count is tried
+        Set<Integer> guestCounts = new HashSet<>();
+        for (JsonNode testCase : generated.get("cases")) {
+            guestCounts.add(testCase.get("variables").get("guestCount").get("value").asInt());
+        }
+        assertTrue(guestCounts.containsAll(Arrays.asList(4, 5, 8, 9)), guestCounts.toString());
+    }
+
+    @Test
+    void reportsInputsSetByRequiredDecisionsAsUncontrolled() throws Exception {
+        JsonNode generated = generate(null);
+
+        JsonNode beveragesTable = generated.get("tables").get("beverages");
+        assertEquals("[\"Dish\"]", beveragesTable.get("uncontrolledInputs").toString());
+        assertEquals(6, beveragesTable.get("coveredRules").asInt() + beveragesTable.get("uncoveredRules").size());
+        assertEquals(7, generated.get("tables").get("dish").get("coveredRules").asInt());
+    }
+
+    @Test
+    void generatedCasesPassAsTestSuite() throws Exception {
+        JsonNode generated = generate(null);
+
+        ObjectNode suiteNode = MAPPER.createObjectNode();
+        suiteNode.put("xml", beverages);
+        suiteNode.set("cases", generated.get("cases"));
+        JsonNode report = MAPPER.readTree(testSuiteService.runTestSuite(suiteNode.toString(), null));
+
+        assertEquals(generated.get("cases").size(), report.get("cases").asInt());
+        assertEquals(report.get("cases").asInt(), report.get("passed").asInt(), report.get("failures").toString());
+        assertEquals(0, report.get("coverage").get("dish").get("neverHit").size());
+    }
+
+    private JsonNode generate(String decision) throws Exception {
+        ObjectNode requestNode = MAPPER.createObjectNode();
+        requestNode.put("xml", beverages);
+        if (decision != null) {
+            requestNode.put("decision", decision);
+        }
+        JsonNode generated = MAPPER.readTree(testCaseGenerationService.generateTestCases(requestNode.toString(), null));
+        assertFalse(generated.has("error"), generated.toString());
+        return generated;
+    }
+}